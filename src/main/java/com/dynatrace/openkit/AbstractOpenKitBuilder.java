@@ -16,17 +16,30 @@
 
 package com.dynatrace.openkit;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
 import com.dynatrace.openkit.api.LogLevel;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.OpenKit;
 import com.dynatrace.openkit.api.OpenKitConstants;
 import com.dynatrace.openkit.api.SSLTrustManager;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
 import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.FlushConfiguration;
+import com.dynatrace.openkit.core.configuration.NewSessionBatchingConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import com.dynatrace.openkit.core.configuration.SessionSplittingConfiguration;
+import com.dynatrace.openkit.core.configuration.TrafficLimitConfiguration;
 import com.dynatrace.openkit.core.objects.OpenKitImpl;
 import com.dynatrace.openkit.core.util.DefaultLogger;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.HTTPClientProviderFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Abstract base class for concrete builder. Using the builder a OpenKit instance can be created
@@ -48,8 +61,31 @@ public abstract class AbstractOpenKitBuilder {
     private long beaconCacheMaxRecordAge = BeaconCacheConfiguration.DEFAULT_MAX_RECORD_AGE_IN_MILLIS;
     private long beaconCacheLowerMemoryBoundary = BeaconCacheConfiguration.DEFAULT_LOWER_MEMORY_BOUNDARY_IN_BYTES;
     private long beaconCacheUpperMemoryBoundary = BeaconCacheConfiguration.DEFAULT_UPPER_MEMORY_BOUNDARY_IN_BYTES;
+    private boolean beaconCacheDeferredSerialization = false;
+    private long beaconCacheSessionQuota = BeaconCacheConfiguration.DEFAULT_SESSION_QUOTA_IN_BYTES;
+    private long beaconCacheCompressionIdleTime = BeaconCacheConfiguration.DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS;
+    private long beaconCacheRecordOverhead = BeaconCacheConfiguration.DEFAULT_RECORD_OVERHEAD_IN_BYTES;
+    private int beaconCacheThreadLocalBufferCapacity = BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_CAPACITY;
+    private long beaconCacheThreadLocalBufferMaxDelay = BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS;
     private DataCollectionLevel dataCollectionLevel = PrivacyConfiguration.DEFAULT_DATA_COLLECTION_LEVEL;
     private CrashReportingLevel crashReportLevel = PrivacyConfiguration.DEFAULT_CRASH_REPORTING_LEVEL;
+    private int asyncReportingBufferCapacity = AsyncReportingConfiguration.DEFAULT_BUFFER_CAPACITY;
+    private AsyncOverflowPolicy asyncOverflowPolicy = AsyncReportingConfiguration.DEFAULT_OVERFLOW_POLICY;
+    private long errorDeduplicationWindow = ErrorReportingConfiguration.DEFAULT_DEDUPLICATION_WINDOW_IN_MILLISECONDS;
+    private int maxErrorsPerName = ErrorReportingConfiguration.DEFAULT_MAX_ERRORS_PER_NAME;
+    private long errorRateLimitInterval = ErrorReportingConfiguration.DEFAULT_RATE_LIMIT_INTERVAL_IN_MILLISECONDS;
+    private int sessionSamplingFactor = SamplingConfiguration.DEFAULT_SAMPLING_FACTOR;
+    private boolean sampleByDeviceID = false;
+    private final Map<String, Integer> actionSamplingFactors = new HashMap<String, Integer>();
+    private long sessionIdleTimeout = SessionSplittingConfiguration.DEFAULT_IDLE_TIMEOUT_IN_MILLISECONDS;
+    private long maxSessionDuration = SessionSplittingConfiguration.DEFAULT_MAX_SESSION_DURATION_IN_MILLISECONDS;
+    private long maxBytesPerSecond = TrafficLimitConfiguration.DEFAULT_MAX_BYTES_PER_SECOND;
+    private int maxRequestsPerSecond = TrafficLimitConfiguration.DEFAULT_MAX_REQUESTS_PER_SECOND;
+    private long newSessionRequestBatchWindow = NewSessionBatchingConfiguration.DEFAULT_BATCH_WINDOW_IN_MILLISECONDS;
+    private int flushParallelism = FlushConfiguration.DEFAULT_FLUSH_PARALLELISM;
+    private BeaconPersistenceHook beaconPersistenceHook;
+    private OpenKitRuntime runtime;
+    private boolean javaNetHttpClient = false;
 
     /**
      * Creates a new instance of type AbstractOpenKitBuilder
@@ -208,6 +244,116 @@ public abstract class AbstractOpenKitBuilder {
         return this;
     }
 
+    /**
+     * Enables or disables deferred serialization of beacon data.
+     *
+     * <p>
+     * When enabled, actions, values, events, errors and web requests are stored in the beacon cache
+     * in a compact form and are only serialized into the beacon protocol's wire format when they are sent.
+     * Serialization is therefore moved off the application threads and skipped entirely for data
+     * which is evicted from the cache before it's sent.
+     * </p>
+     *
+     * <p>
+     * Default value: {@code false}
+     * </p>
+     *
+     * @param deferredSerialization {@code true} to serialize data when sending, {@code false} to serialize it immediately.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withBeaconCacheDeferredSerialization(boolean deferredSerialization) {
+        this.beaconCacheDeferredSerialization = deferredSerialization;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes a single session may store in the beacon cache.
+     *
+     * <p>
+     * When this is set to a positive value, data which would exceed the session's quota is rejected
+     * when it's added to the cache, so that a single session cannot occupy the whole cache.
+     * Session start, session end and crashes are never rejected.
+     * The number of rejected records is logged when the session's data is removed from the cache.
+     * </p>
+     *
+     * <p>
+     * Default value: {@code 0}, which means no quota.
+     * </p>
+     *
+     * @param sessionQuotaInBytes The maximum number of bytes per session or a value less than or equal to zero for no quota.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withBeaconCacheSessionQuota(long sessionQuotaInBytes) {
+        this.beaconCacheSessionQuota = sessionQuotaInBytes;
+        return this;
+    }
+
+    /**
+     * Sets the time after which the cached data of an idle session is compressed.
+     *
+     * <p>
+     * When this is set to a positive value, the cached data of sessions which did not report anything
+     * for the given time is compressed in memory and only decompressed again when it's sent.
+     * Compressed data is accounted at its compressed size in the beacon cache's memory boundaries.
+     * </p>
+     *
+     * <p>
+     * Default value: {@code 0}, which means no compression.
+     * </p>
+     *
+     * @param idleTimeInMilliseconds The idle time in milliseconds or a value less than or equal to zero for no compression.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withBeaconCacheCompression(long idleTimeInMilliseconds) {
+        this.beaconCacheCompressionIdleTime = idleTimeInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Sets the estimated memory overhead per record in the beacon cache.
+     *
+     * <p>
+     * The beacon cache's memory boundaries take the structural overhead of each record into account,
+     * like the record object itself, list nodes and String headers. By default this overhead is calibrated
+     * for the running JVM, which might not be accurate for all JVMs, for example on Android.
+     * </p>
+     *
+     * <p>
+     * Default value: {@code -1}, which means the overhead is calibrated for the running JVM.
+     * </p>
+     *
+     * @param recordOverheadInBytes The overhead per record in bytes or a negative value to calibrate the overhead.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withBeaconCacheRecordOverhead(long recordOverheadInBytes) {
+        this.beaconCacheRecordOverhead = recordOverheadInBytes;
+        return this;
+    }
+
+    /**
+     * Enables thread-local buffering of records before they are added to the beacon cache.
+     *
+     * <p>
+     * Each thread collects up to {@code numRecords} records per session, which are added to the beacon cache
+     * in a single batch. This reduces lock contention, if many threads report data for the same session.
+     * A buffer is added to the cache when it is full, when its oldest record is older than {@code maxDelayInMilliseconds}
+     * and before the session's data is sent. Records are sent in the order they have been reported.
+     * </p>
+     *
+     * <p>
+     * Default value: {@code 0}, which means records are added to the beacon cache immediately.
+     * </p>
+     *
+     * @param numRecords The number of records buffered per thread and session or a value less than or equal to one for no buffering.
+     * @param maxDelayInMilliseconds The maximum time in milliseconds a record is kept in a buffer.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withBeaconCacheThreadLocalBuffers(int numRecords, long maxDelayInMilliseconds) {
+        this.beaconCacheThreadLocalBufferCapacity = numRecords;
+        this.beaconCacheThreadLocalBufferMaxDelay = maxDelayInMilliseconds;
+        return this;
+    }
+
     /**
      * Sets the data collection level.
      *
@@ -247,6 +393,254 @@ public abstract class AbstractOpenKitBuilder {
         return this;
     }
 
+    /**
+     * Enables the asynchronous reporting mode.
+     *
+     * <p>
+     * In asynchronous reporting mode reporting values, events and errors or stopping a web request tracer
+     * only publishes the data into a bounded buffer. Serializing the data is done by a dedicated thread,
+     * which keeps the cost on the caller's thread low.
+     * </p>
+     *
+     * <p>
+     * The buffer capacity is rounded up to the next power of two. A non-positive capacity disables
+     * the asynchronous reporting mode, which is the default.
+     * </p>
+     *
+     * @param bufferCapacity The maximum number of events that can be buffered.
+     * @param overflowPolicy Policy applied if the buffer is full.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withAsyncReporting(int bufferCapacity, AsyncOverflowPolicy overflowPolicy) {
+        this.asyncReportingBufferCapacity = bufferCapacity;
+        if (overflowPolicy != null) {
+            this.asyncOverflowPolicy = overflowPolicy;
+        }
+        return this;
+    }
+
+    /**
+     * Enables deduplication of reported errors and crashes.
+     *
+     * <p>
+     * Identical errors, having the same name, code, reason and stacktrace, which are reported within the given window
+     * on the same session, are collapsed. The first error is reported immediately, all repeats are reported
+     * as a single record carrying the number of occurrences, before the session's data is sent.
+     * A non-positive window disables deduplication, which is the default.
+     * </p>
+     *
+     * @param windowInMilliseconds The deduplication window in milliseconds.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withErrorDeduplication(long windowInMilliseconds) {
+        this.errorDeduplicationWindow = windowInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Limits the number of reported errors and crashes per error name and session.
+     *
+     * <p>
+     * Each error name is limited by a token bucket, allowing at most {@code maxErrorsPerName} errors
+     * within the given interval. Any further error is dropped.
+     * A non-positive maximum disables rate limiting, which is the default.
+     * </p>
+     *
+     * @param maxErrorsPerName The maximum number of errors per error name and interval.
+     * @param intervalInMilliseconds The interval in milliseconds.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withErrorRateLimit(int maxErrorsPerName, long intervalInMilliseconds) {
+        this.maxErrorsPerName = maxErrorsPerName;
+        if (intervalInMilliseconds > 0) {
+            this.errorRateLimitInterval = intervalInMilliseconds;
+        }
+        return this;
+    }
+
+    /**
+     * Enables client side sampling of sessions.
+     *
+     * <p>
+     * One out of {@code samplingFactor} sessions is captured, all other sessions are not created at all.
+     * The decision is deterministic, either based on the device ID, which captures all or none of the device's sessions,
+     * or based on the sequence of created sessions. The sampling factor is multiplied into the multiplicity
+     * reported by captured sessions, so that the server can extrapolate the sampled data.
+     * A sampling factor less than or equal to {@code 1} disables session sampling, which is the default.
+     * </p>
+     *
+     * @param samplingFactor One out of {@code samplingFactor} sessions is captured.
+     * @param sampleByDeviceID {@code true} to sample by device ID, {@code false} to sample each session separately.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withSessionSampling(int samplingFactor, boolean sampleByDeviceID) {
+        this.sessionSamplingFactor = samplingFactor;
+        this.sampleByDeviceID = sampleByDeviceID;
+        return this;
+    }
+
+    /**
+     * Enables client side sampling of root actions with the given name.
+     *
+     * <p>
+     * One out of {@code samplingFactor} sessions captures root actions with the given name.
+     * The decision is deterministic per session and action name. Sampled out actions are not created at all.
+     * This method can be called multiple times, to add rules for different action names.
+     * </p>
+     *
+     * @param actionName The name of the root actions to sample.
+     * @param samplingFactor One out of {@code samplingFactor} sessions captures the actions.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withActionSampling(String actionName, int samplingFactor) {
+        if (actionName != null && !actionName.isEmpty()) {
+            actionSamplingFactors.put(actionName, samplingFactor);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the idle timeout after which sessions are split.
+     *
+     * <p>
+     * If a session has not been used for longer than the idle timeout, it is ended transparently
+     * and the next interaction starts a new session, which carries the same user identification.
+     * Inactivity is detected when the session is used the next time.
+     * A value less than or equal to {@code 0} disables splitting by idle timeout, which is the default.
+     * </p>
+     *
+     * @param idleTimeoutInMilliseconds The idle timeout in milliseconds.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withSessionIdleTimeout(long idleTimeoutInMilliseconds) {
+        this.sessionIdleTimeout = idleTimeoutInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Sets the maximum duration after which sessions are split.
+     *
+     * <p>
+     * If a session is used after it exceeded the maximum duration, it is ended transparently, including any open
+     * actions and web requests, and the data is reported in a new session, which carries the same user identification.
+     * A value less than or equal to {@code 0} disables splitting by duration, which is the default.
+     * </p>
+     *
+     * @param maxSessionDurationInMilliseconds The maximum session duration in milliseconds.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withMaxSessionDuration(long maxSessionDurationInMilliseconds) {
+        this.maxSessionDuration = maxSessionDurationInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Limits the rate of outgoing beacon traffic.
+     *
+     * <p>
+     * Beacon data is sent at no more than the given number of bytes and requests per second. If a limit is reached,
+     * the beacon sender waits before taking the next chunk from the beacon cache, where the data stays subject to eviction.
+     * A value less than or equal to {@code 0} disables the corresponding limit, which is the default.
+     * </p>
+     *
+     * @param maxBytesPerSecond The maximum number of beacon bytes sent per second.
+     * @param maxRequestsPerSecond The maximum number of beacon requests sent per second.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withTrafficLimit(long maxBytesPerSecond, int maxRequestsPerSecond) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        return this;
+    }
+
+    /**
+     * Enables batching of new session requests.
+     *
+     * <p>
+     * Instead of one new session request per session, a single request is sent for all sessions waiting for
+     * their configuration, and a successful response also configures sessions created within the given batch window.
+     * A value less than or equal to {@code 0} disables batching, which is the default.
+     * </p>
+     *
+     * @param batchWindowInMilliseconds The time in milliseconds a new session response is reused.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withNewSessionRequestBatching(long batchWindowInMilliseconds) {
+        this.newSessionRequestBatchWindow = batchWindowInMilliseconds;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads sending the remaining sessions in parallel when OpenKit is shut down.
+     *
+     * <p>
+     * Sessions are sent by priority, starting with the sessions holding errors or crashes.
+     * The default is {@link FlushConfiguration#DEFAULT_FLUSH_PARALLELISM}, a value less than {@code 1} is treated as {@code 1}.
+     * </p>
+     *
+     * @param flushParallelism The number of threads sending sessions in parallel on shutdown.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withFlushParallelism(int flushParallelism) {
+        this.flushParallelism = flushParallelism;
+        return this;
+    }
+
+    /**
+     * Sets a hook receiving beacon data, which could not be sent before OpenKit is shut down.
+     *
+     * <p>
+     * Without a hook, such data is dropped.
+     * </p>
+     *
+     * @param beaconPersistenceHook The hook receiving unsent beacon data.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withBeaconPersistenceHook(BeaconPersistenceHook beaconPersistenceHook) {
+        this.beaconPersistenceHook = beaconPersistenceHook;
+        return this;
+    }
+
+    /**
+     * Sets the runtime shared with other OpenKit instances.
+     *
+     * <p>
+     * The OpenKit instance uses the runtime's threads for sending beacons and evicting the beacon cache,
+     * and the runtime's beacon cache memory boundaries instead of
+     * {@link #withBeaconCacheLowerMemoryBoundary(long)} and {@link #withBeaconCacheUpperMemoryBoundary(long)}.
+     * Without a runtime, the OpenKit instance starts its own threads.
+     * </p>
+     *
+     * @param runtime The runtime shared with other OpenKit instances.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withRuntime(OpenKitRuntime runtime) {
+        this.runtime = runtime;
+        return this;
+    }
+
+    /**
+     * Enables or disables sending requests with the {@code java.net.http.HttpClient}.
+     *
+     * <p>
+     * If enabled and running on Java 11 or above, requests are sent with a {@code java.net.http.HttpClient},
+     * which negotiates HTTP/2, keeps connections open and multiplexes concurrent requests over a single connection.
+     * On older platforms, or if the trust manager provides a custom hostname verifier,
+     * requests are sent with {@link java.net.HttpURLConnection} like by default.
+     * </p>
+     *
+     * <p>
+     * This setting is ignored if a runtime is set with {@link #withRuntime(OpenKitRuntime)}, which provides the HTTP client instead.
+     * </p>
+     *
+     * @param javaNetHttpClient {@code true} to use the {@code java.net.http.HttpClient} if available, {@code false} otherwise.
+     * @return {@code this}
+     */
+    public AbstractOpenKitBuilder withJavaNetHttpClient(boolean javaNetHttpClient) {
+        this.javaNetHttpClient = javaNetHttpClient;
+        return this;
+    }
+
     /**
      * Builds the configuration for the OpenKit instance
      *
@@ -261,7 +655,16 @@ public abstract class AbstractOpenKitBuilder {
      */
     public OpenKit build() {
         // create and initialize OpenKit instance
-        OpenKitImpl openKit = new OpenKitImpl(getLogger(), buildConfiguration());
+        OpenKitImpl openKit;
+        if (runtime != null) {
+            openKit = new OpenKitImpl(getLogger(), buildConfiguration(), runtime.getBeaconCacheEvictor(),
+                runtime.getBeaconSendingExecutor(), runtime.getHTTPClientProvider());
+        } else if (javaNetHttpClient) {
+            openKit = new OpenKitImpl(getLogger(), buildConfiguration(), null, null,
+                HTTPClientProviderFactory.create(getLogger(), true));
+        } else {
+            openKit = new OpenKitImpl(getLogger(), buildConfiguration());
+        }
         openKit.initialize();
 
         return openKit;
@@ -423,6 +826,65 @@ public abstract class AbstractOpenKitBuilder {
         return beaconCacheUpperMemoryBoundary;
     }
 
+    /**
+     * Get the flag that has been set with {@link #withBeaconCacheDeferredSerialization(boolean)}.
+     *
+     * @return {@code true} if deferred serialization has been enabled, {@code false} otherwise.
+     */
+    public boolean isBeaconCacheDeferredSerialization() {
+        return beaconCacheDeferredSerialization;
+    }
+
+    /**
+     * Get the session quota that has been set with {@link #withBeaconCacheSessionQuota(long)}.
+     *
+     * @return Previously set session quota or {@link BeaconCacheConfiguration#DEFAULT_SESSION_QUOTA_IN_BYTES}
+     *         if none has been set.
+     */
+    public long getBeaconCacheSessionQuota() {
+        return beaconCacheSessionQuota;
+    }
+
+    /**
+     * Get the compression idle time that has been set with {@link #withBeaconCacheCompression(long)}.
+     *
+     * @return Previously set idle time or {@link BeaconCacheConfiguration#DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS}
+     *         if none has been set.
+     */
+    public long getBeaconCacheCompressionIdleTime() {
+        return beaconCacheCompressionIdleTime;
+    }
+
+    /**
+     * Get the record overhead that has been set with {@link #withBeaconCacheRecordOverhead(long)}.
+     *
+     * @return Previously set record overhead or {@link BeaconCacheConfiguration#DEFAULT_RECORD_OVERHEAD_IN_BYTES}
+     *         if none has been set.
+     */
+    public long getBeaconCacheRecordOverhead() {
+        return beaconCacheRecordOverhead;
+    }
+
+    /**
+     * Get the thread-local buffer capacity that has been set with {@link #withBeaconCacheThreadLocalBuffers(int, long)}.
+     *
+     * @return Previously set buffer capacity or {@link BeaconCacheConfiguration#DEFAULT_THREAD_LOCAL_BUFFER_CAPACITY}
+     *         if none has been set.
+     */
+    public int getBeaconCacheThreadLocalBufferCapacity() {
+        return beaconCacheThreadLocalBufferCapacity;
+    }
+
+    /**
+     * Get the thread-local buffer delay that has been set with {@link #withBeaconCacheThreadLocalBuffers(int, long)}.
+     *
+     * @return Previously set delay or {@link BeaconCacheConfiguration#DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS}
+     *         if none has been set.
+     */
+    public long getBeaconCacheThreadLocalBufferMaxDelay() {
+        return beaconCacheThreadLocalBufferMaxDelay;
+    }
+
     /**
      * Get data collection level that has been set with {@link #withDataCollectionLevel(DataCollectionLevel)}.
      *
@@ -443,6 +905,172 @@ public abstract class AbstractOpenKitBuilder {
         return crashReportLevel;
     }
 
+    /**
+     * Get the asynchronous reporting buffer capacity that has been set with
+     * {@link #withAsyncReporting(int, AsyncOverflowPolicy)}.
+     *
+     * @return Previously set buffer capacity or {@link AsyncReportingConfiguration#DEFAULT_BUFFER_CAPACITY}
+     *         if nothing has been set.
+     */
+    public int getAsyncReportingBufferCapacity() {
+        return asyncReportingBufferCapacity;
+    }
+
+    /**
+     * Get the asynchronous reporting overflow policy that has been set with
+     * {@link #withAsyncReporting(int, AsyncOverflowPolicy)}.
+     *
+     * @return Previously set overflow policy or {@link AsyncReportingConfiguration#DEFAULT_OVERFLOW_POLICY}
+     *         if nothing has been set.
+     */
+    public AsyncOverflowPolicy getAsyncOverflowPolicy() {
+        return asyncOverflowPolicy;
+    }
+
+    /**
+     * Get the error deduplication window that has been set with {@link #withErrorDeduplication(long)}.
+     *
+     * @return Previously set window or {@link ErrorReportingConfiguration#DEFAULT_DEDUPLICATION_WINDOW_IN_MILLISECONDS}
+     *         if nothing has been set.
+     */
+    public long getErrorDeduplicationWindow() {
+        return errorDeduplicationWindow;
+    }
+
+    /**
+     * Get the maximum number of errors per name that has been set with {@link #withErrorRateLimit(int, long)}.
+     *
+     * @return Previously set maximum or {@link ErrorReportingConfiguration#DEFAULT_MAX_ERRORS_PER_NAME}
+     *         if nothing has been set.
+     */
+    public int getMaxErrorsPerName() {
+        return maxErrorsPerName;
+    }
+
+    /**
+     * Get the error rate limit interval that has been set with {@link #withErrorRateLimit(int, long)}.
+     *
+     * @return Previously set interval or {@link ErrorReportingConfiguration#DEFAULT_RATE_LIMIT_INTERVAL_IN_MILLISECONDS}
+     *         if nothing has been set.
+     */
+    public long getErrorRateLimitInterval() {
+        return errorRateLimitInterval;
+    }
+
+    /**
+     * Get the session sampling factor that has been set with {@link #withSessionSampling(int, boolean)}.
+     *
+     * @return Previously set sampling factor or {@link SamplingConfiguration#DEFAULT_SAMPLING_FACTOR}
+     *         if nothing has been set.
+     */
+    public int getSessionSamplingFactor() {
+        return sessionSamplingFactor;
+    }
+
+    /**
+     * Get whether sessions are sampled by device ID, as set with {@link #withSessionSampling(int, boolean)}.
+     *
+     * @return Previously set value or {@code false} if nothing has been set.
+     */
+    public boolean isSampleByDeviceID() {
+        return sampleByDeviceID;
+    }
+
+    /**
+     * Get the action sampling factors that have been set with {@link #withActionSampling(String, int)}.
+     *
+     * @return Sampling factors per root action name, which might be empty.
+     */
+    public Map<String, Integer> getActionSamplingFactors() {
+        return Collections.unmodifiableMap(actionSamplingFactors);
+    }
+
+    /**
+     * Get the session idle timeout that has been set with {@link #withSessionIdleTimeout(long)}.
+     *
+     * @return Previously set idle timeout or {@link SessionSplittingConfiguration#DEFAULT_IDLE_TIMEOUT_IN_MILLISECONDS}
+     *         if nothing has been set.
+     */
+    public long getSessionIdleTimeout() {
+        return sessionIdleTimeout;
+    }
+
+    /**
+     * Get the maximum session duration that has been set with {@link #withMaxSessionDuration(long)}.
+     *
+     * @return Previously set duration or {@link SessionSplittingConfiguration#DEFAULT_MAX_SESSION_DURATION_IN_MILLISECONDS}
+     *         if nothing has been set.
+     */
+    public long getMaxSessionDuration() {
+        return maxSessionDuration;
+    }
+
+    /**
+     * Get the maximum number of bytes per second that has been set with {@link #withTrafficLimit(long, int)}.
+     *
+     * @return Previously set limit or {@link TrafficLimitConfiguration#DEFAULT_MAX_BYTES_PER_SECOND}
+     *         if nothing has been set.
+     */
+    public long getMaxBytesPerSecond() {
+        return maxBytesPerSecond;
+    }
+
+    /**
+     * Get the maximum number of requests per second that has been set with {@link #withTrafficLimit(long, int)}.
+     *
+     * @return Previously set limit or {@link TrafficLimitConfiguration#DEFAULT_MAX_REQUESTS_PER_SECOND}
+     *         if nothing has been set.
+     */
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    /**
+     * Get the new session request batch window that has been set with {@link #withNewSessionRequestBatching(long)}.
+     *
+     * @return Previously set batch window or {@link NewSessionBatchingConfiguration#DEFAULT_BATCH_WINDOW_IN_MILLISECONDS}
+     *         if nothing has been set.
+     */
+    public long getNewSessionRequestBatchWindow() {
+        return newSessionRequestBatchWindow;
+    }
+
+    /**
+     * Get the flush parallelism that has been set with {@link #withFlushParallelism(int)}.
+     *
+     * @return Previously set parallelism or {@link FlushConfiguration#DEFAULT_FLUSH_PARALLELISM} if nothing has been set.
+     */
+    public int getFlushParallelism() {
+        return flushParallelism;
+    }
+
+    /**
+     * Get the {@link BeaconPersistenceHook} that has been set with {@link #withBeaconPersistenceHook(BeaconPersistenceHook)}.
+     *
+     * @return Previously set hook or {@code null} if nothing has been set.
+     */
+    public BeaconPersistenceHook getBeaconPersistenceHook() {
+        return beaconPersistenceHook;
+    }
+
+    /**
+     * Get the {@link OpenKitRuntime} that has been set with {@link #withRuntime(OpenKitRuntime)}.
+     *
+     * @return Previously set runtime or {@code null} if nothing has been set.
+     */
+    public OpenKitRuntime getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Get whether the {@code java.net.http.HttpClient} has been enabled with {@link #withJavaNetHttpClient(boolean)}.
+     *
+     * @return {@code true} if the {@code java.net.http.HttpClient} shall be used if available, {@code false} otherwise.
+     */
+    public boolean isJavaNetHttpClient() {
+        return javaNetHttpClient;
+    }
+
     /**
      * Get {@link Logger} that has been set with {@link #withLogger(Logger)}.
      *
@@ -16,11 +16,18 @@
 
 package com.dynatrace.openkit;
 
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
 import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
 import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.FlushConfiguration;
+import com.dynatrace.openkit.core.configuration.NewSessionBatchingConfiguration;
 import com.dynatrace.openkit.core.configuration.OpenKitType;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import com.dynatrace.openkit.core.configuration.SessionSplittingConfiguration;
+import com.dynatrace.openkit.core.configuration.TrafficLimitConfiguration;
 import com.dynatrace.openkit.core.objects.Device;
 import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
 
@@ -75,9 +82,30 @@ public class AppMonOpenKitBuilder extends AbstractOpenKitBuilder {
 
         BeaconCacheConfiguration beaconCacheConfiguration = new BeaconCacheConfiguration(getBeaconCacheMaxRecordAge(),
             getBeaconCacheLowerMemoryBoundary(),
-            getBeaconCacheUpperMemoryBoundary());
+            getBeaconCacheUpperMemoryBoundary(),
+            isBeaconCacheDeferredSerialization(),
+            getBeaconCacheSessionQuota(),
+            getBeaconCacheCompressionIdleTime(),
+            getBeaconCacheRecordOverhead(),
+            getBeaconCacheThreadLocalBufferCapacity(),
+            getBeaconCacheThreadLocalBufferMaxDelay());
         BeaconConfiguration beaconConfiguration = new BeaconConfiguration();
         PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(getDataCollectionLevel(), getCrashReportLevel());
+        AsyncReportingConfiguration asyncReportingConfiguration = new AsyncReportingConfiguration(getAsyncReportingBufferCapacity(),
+            getAsyncOverflowPolicy());
+        ErrorReportingConfiguration errorReportingConfiguration = new ErrorReportingConfiguration(getErrorDeduplicationWindow(),
+            getMaxErrorsPerName(),
+            getErrorRateLimitInterval());
+        SamplingConfiguration samplingConfiguration = new SamplingConfiguration(getSessionSamplingFactor(),
+            isSampleByDeviceID(),
+            getActionSamplingFactors());
+        SessionSplittingConfiguration sessionSplittingConfiguration = new SessionSplittingConfiguration(getSessionIdleTimeout(),
+            getMaxSessionDuration());
+        TrafficLimitConfiguration trafficLimitConfiguration = new TrafficLimitConfiguration(getMaxBytesPerSecond(),
+            getMaxRequestsPerSecond());
+        NewSessionBatchingConfiguration newSessionBatchingConfiguration = new NewSessionBatchingConfiguration(
+            getNewSessionRequestBatchWindow());
+        FlushConfiguration flushConfiguration = new FlushConfiguration(getFlushParallelism(), getBeaconPersistenceHook());
         return new Configuration(
             OpenKitType.APPMON,
             applicationName,
@@ -90,7 +118,14 @@ public class AppMonOpenKitBuilder extends AbstractOpenKitBuilder {
             getApplicationVersion(),
             beaconCacheConfiguration,
             beaconConfiguration,
-            privacyConfiguration);
+            privacyConfiguration,
+            asyncReportingConfiguration,
+            errorReportingConfiguration,
+            samplingConfiguration,
+            sessionSplittingConfiguration,
+            trafficLimitConfiguration,
+            newSessionBatchingConfiguration,
+            flushConfiguration);
     }
 
     @Override
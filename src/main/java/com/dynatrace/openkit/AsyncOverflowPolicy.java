@@ -0,0 +1,43 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit;
+
+/**
+ * Specifies what happens, if the event buffer used in asynchronous reporting mode is full.
+ *
+ * <p>
+ *     See also {@link AbstractOpenKitBuilder#withAsyncReporting(int, AsyncOverflowPolicy)}.
+ * </p>
+ */
+public enum AsyncOverflowPolicy {
+
+    /**
+     * New events are dropped, if the buffer is full.
+     */
+    DROP,
+
+    /**
+     * The reporting thread is blocked until there is free space in the buffer.
+     */
+    BLOCK,
+
+    /**
+     * Once the buffer is filled above a high water mark, only a fraction of new events is accepted.
+     * New events are dropped, if the buffer is full.
+     */
+    SAMPLE
+}
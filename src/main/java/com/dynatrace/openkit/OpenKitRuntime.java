@@ -0,0 +1,132 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.SharedBeaconCacheEvictor;
+import com.dynatrace.openkit.core.communication.BeaconSendingExecutor;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import com.dynatrace.openkit.providers.HTTPClientProviderFactory;
+
+import java.io.Closeable;
+
+/**
+ * Runtime shared by multiple OpenKit instances, e.g. for different application IDs, within one JVM.
+ *
+ * <p>
+ * By default each OpenKit instance starts its own beacon sending and beacon cache eviction threads and
+ * has its own beacon cache memory budget. OpenKit instances built with
+ * {@link AbstractOpenKitBuilder#withRuntime(OpenKitRuntime)} share instead
+ * <ul>
+ *     <li>a small pool of threads sending the beacons of all instances,</li>
+ *     <li>a single beacon cache eviction thread, keeping the beacon caches of all instances within one memory budget,</li>
+ *     <li>the HTTP client provider.</li>
+ * </ul>
+ * The instances remain isolated otherwise, each one having its own configuration, beacon cache, sessions and
+ * server side settings. The beacon cache memory boundaries configured per instance are not used.
+ * </p>
+ *
+ * <p>
+ * All OpenKit instances using this runtime must be shut down, before the runtime itself is shut down.
+ * </p>
+ */
+public class OpenKitRuntime implements Closeable {
+
+    private final Logger logger;
+    private final SharedBeaconCacheEvictor beaconCacheEvictor;
+    private final BeaconSendingExecutor beaconSendingExecutor;
+    private final HTTPClientProvider httpClientProvider;
+
+    /**
+     * Create a new runtime with {@link BeaconSendingExecutor#DEFAULT_NUM_THREADS} sending threads and
+     * the default beacon cache memory boundaries.
+     *
+     * @param logger Logger for logging messages.
+     */
+    public OpenKitRuntime(Logger logger) {
+        this(logger, BeaconSendingExecutor.DEFAULT_NUM_THREADS,
+            BeaconCacheConfiguration.DEFAULT_LOWER_MEMORY_BOUNDARY_IN_BYTES,
+            BeaconCacheConfiguration.DEFAULT_UPPER_MEMORY_BOUNDARY_IN_BYTES);
+    }
+
+    /**
+     * Create a new runtime.
+     *
+     * @param logger Logger for logging messages.
+     * @param numSendingThreads The number of threads sending the beacons of all OpenKit instances.
+     * @param lowerMemoryBoundaryInBytes The total size to which the beacon caches are evicted, or negative if unlimited.
+     * @param upperMemoryBoundaryInBytes The total size of all beacon caches, which triggers the eviction, or negative if unlimited.
+     */
+    public OpenKitRuntime(Logger logger, int numSendingThreads, long lowerMemoryBoundaryInBytes, long upperMemoryBoundaryInBytes) {
+        this(logger, numSendingThreads, lowerMemoryBoundaryInBytes, upperMemoryBoundaryInBytes, false);
+    }
+
+    /**
+     * Create a new runtime.
+     *
+     * <p>
+     * If {@code javaNetHttpClient} is {@code true} and the {@code java.net.http.HttpClient} is available, the beacons
+     * of all OpenKit instances are sent over shared HTTP/2 connections, see
+     * {@link AbstractOpenKitBuilder#withJavaNetHttpClient(boolean)}.
+     * </p>
+     *
+     * @param logger Logger for logging messages.
+     * @param numSendingThreads The number of threads sending the beacons of all OpenKit instances.
+     * @param lowerMemoryBoundaryInBytes The total size to which the beacon caches are evicted, or negative if unlimited.
+     * @param upperMemoryBoundaryInBytes The total size of all beacon caches, which triggers the eviction, or negative if unlimited.
+     * @param javaNetHttpClient {@code true} to use the {@code java.net.http.HttpClient} if available, {@code false} otherwise.
+     */
+    public OpenKitRuntime(Logger logger, int numSendingThreads, long lowerMemoryBoundaryInBytes, long upperMemoryBoundaryInBytes,
+                          boolean javaNetHttpClient) {
+        this.logger = logger;
+        beaconCacheEvictor = new SharedBeaconCacheEvictor(logger, lowerMemoryBoundaryInBytes, upperMemoryBoundaryInBytes);
+        beaconSendingExecutor = new BeaconSendingExecutor(logger, numSendingThreads);
+        httpClientProvider = HTTPClientProviderFactory.create(logger, javaNetHttpClient);
+
+        beaconCacheEvictor.start();
+    }
+
+    SharedBeaconCacheEvictor getBeaconCacheEvictor() {
+        return beaconCacheEvictor;
+    }
+
+    BeaconSendingExecutor getBeaconSendingExecutor() {
+        return beaconSendingExecutor;
+    }
+
+    HTTPClientProvider getHTTPClientProvider() {
+        return httpClientProvider;
+    }
+
+    /**
+     * Shuts down the runtime, stopping all shared threads.
+     */
+    public void shutdown() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " shutdown()");
+        }
+        beaconSendingExecutor.shutdown();
+        beaconCacheEvictor.stop();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
@@ -73,6 +73,48 @@ public interface Action extends Closeable {
      */
     Action reportError(String errorName, int errorCode, String reason);
 
+    /**
+     * Creates a counter with a specified name, which is aggregated on the client side.
+     *
+     * <p>
+     *     The sum of all increments is reported as double value once per send interval and when this Action is left.
+     *     Increments after leaving this Action are ignored.
+     * </p>
+     *
+     * @param counterName name of the counter
+     * @return a Counter which can be updated concurrently
+     */
+    Counter createCounter(String counterName);
+
+    /**
+     * Creates a gauge with a specified name, which is aggregated on the client side.
+     *
+     * <p>
+     *     The last value set is reported as double value once per send interval and when this Action is left.
+     * </p>
+     *
+     * @param gaugeName name of the gauge
+     * @return a Gauge which can be updated concurrently
+     */
+    Gauge createGauge(String gaugeName);
+
+    /**
+     * Creates a histogram with a specified name and fixed bucket boundaries, which is aggregated on the client side.
+     *
+     * <p>
+     *     A value falls into the first bucket whose upper boundary is greater than or equal to the value,
+     *     values greater than all boundaries fall into an additional overflow bucket.
+     *     Once per send interval and when this Action is left, the values {@code <name>.count}, {@code <name>.sum}
+     *     and {@code <name>.le.<boundary>} (or {@code <name>.le.inf} for the overflow bucket) for each non-empty
+     *     bucket are reported.
+     * </p>
+     *
+     * @param histogramName name of the histogram
+     * @param bucketBoundaries the buckets' upper boundaries
+     * @return a Histogram which can be updated concurrently
+     */
+    Histogram createHistogram(String histogramName, double... bucketBoundaries);
+
     /**
      * Traces a web request - which is provided as a URLConnection - and allows adding timing information to this request.
      * If the web request is continued on a server-side Agent (e.g. Java, .NET, ...) this Session will be correlated to
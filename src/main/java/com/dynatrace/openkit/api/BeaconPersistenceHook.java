@@ -0,0 +1,42 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api;
+
+/**
+ * Interface to provide a user-defined hook receiving beacon data, which could not be sent before OpenKit is shut down.
+ *
+ * <p>
+ * When OpenKit is shut down, all remaining data is sent until the shutdown deadline expires. Data which has not been sent
+ * by then, or could not be sent since the server is unavailable, is handed to this hook instead of being dropped.
+ * Each call passes one complete beacon request, which can be stored and sent to the beacon endpoint later on.
+ * </p>
+ *
+ * <p>
+ * The hook is called by OpenKit's internal threads, possibly concurrently and shortly after the shutdown deadline
+ * for sessions whose last request was in flight. Implementations must therefore be thread safe and should return quickly.
+ * </p>
+ */
+public interface BeaconPersistenceHook {
+
+    /**
+     * Persist beacon data, which could not be sent.
+     *
+     * @param clientIPAddress The client IP address of the session, which is sent as request header, or {@code null}.
+     * @param beaconData The beacon data, as it would have been sent in the request body.
+     */
+    void persist(String clientIPAddress, String beaconData);
+}
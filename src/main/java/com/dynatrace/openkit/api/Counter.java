@@ -0,0 +1,40 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api;
+
+/**
+ * A counter, which is aggregated on the client side.
+ *
+ * <p>
+ *     Increments are summed up and only the sum is reported once per send interval, instead of reporting
+ *     each increment as separate value. Counters are cheap to update from many threads concurrently.
+ * </p>
+ */
+public interface Counter {
+
+    /**
+     * Increments the counter by one.
+     */
+    void increment();
+
+    /**
+     * Adds the given delta to the counter.
+     *
+     * @param delta The value to add, which might also be negative.
+     */
+    void add(long delta);
+}
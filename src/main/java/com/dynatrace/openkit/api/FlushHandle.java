@@ -0,0 +1,63 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.api;
+
+/**
+ * Handle to an explicit flush requested via {@link OpenKit#flush()} or {@link Session#flush()}.
+ *
+ * <p>
+ * The flush is performed asynchronously by OpenKit's beacon sending thread. The handle is completed as soon as
+ * the sending thread has attempted to send the requested data. A completed handle does not guarantee that the
+ * server accepted the data, since data is kept in the beacon cache if the server is currently unavailable.
+ * </p>
+ *
+ * <p>
+ * If OpenKit is shut down, or capturing is turned off, before the flush has been performed the handle is completed
+ * without sending any data. A flush requested while capturing is turned off is completed right away, even if
+ * OpenKit waits for the server to re-enable capturing.
+ * </p>
+ */
+public interface FlushHandle {
+
+    /**
+     * Test if the flush has been completed.
+     *
+     * @return {@code true} if the flush has been completed, {@code false} otherwise.
+     */
+    boolean isCompleted();
+
+    /**
+     * Wait until the flush has been completed.
+     *
+     * <p>
+     * This method might hang forever, if OpenKit does not reach the server.
+     * </p>
+     *
+     * @return {@code true} if the flush has been completed, {@code false} if the calling thread has been interrupted.
+     */
+    boolean waitForCompletion();
+
+    /**
+     * Wait until the flush has been completed or the given timeout expired.
+     *
+     * @param timeoutMillis The maximum number of milliseconds to wait for the flush being completed.
+     * @return {@code true} if the flush has been completed, {@code false} if the timeout expired
+     *         or the calling thread has been interrupted.
+     */
+    boolean waitForCompletion(long timeoutMillis);
+}
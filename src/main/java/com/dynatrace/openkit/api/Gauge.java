@@ -0,0 +1,35 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api;
+
+/**
+ * A gauge, which is aggregated on the client side.
+ *
+ * <p>
+ *     Only the last value set before the end of a send interval is reported.
+ *     If the gauge was not set during a send interval, nothing is reported.
+ * </p>
+ */
+public interface Gauge {
+
+    /**
+     * Sets the gauge's current value.
+     *
+     * @param value The current value.
+     */
+    void set(double value);
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.api;
+
+/**
+ * A histogram with fixed buckets, which is aggregated on the client side.
+ *
+ * <p>
+ *     Recorded values are counted in the bucket they fall into. Once per send interval the number of values,
+ *     their sum and the count of each non-empty bucket is reported.
+ * </p>
+ */
+public interface Histogram {
+
+    /**
+     * Records a single value.
+     *
+     * @param value The value to record.
+     */
+    void record(double value);
+}
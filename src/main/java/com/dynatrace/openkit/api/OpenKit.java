@@ -69,9 +69,49 @@ public interface OpenKit extends Closeable {
      */
     Session createSession(String clientIPAddress, long sessionStartTime);
 
+    /**
+     * Registers a name, which is used for actions, values or events.
+     *
+     * <p>
+     * The encoded form of registered names is kept for the lifetime of OpenKit, so that reporting data
+     * with this name does not need to encode it again. Only names of a small, fixed set (e.g. constants) should be registered.
+     * The returned instance shall be passed to methods like {@link Action#reportValue(String, int, long)}.
+     * </p>
+     *
+     * @param name The name to register.
+     * @return The name instance to use when reporting data.
+     */
+    String registerName(String name);
+
+    /**
+     * Requests to send the data of all open Sessions right away, without waiting for the send interval.
+     *
+     * <p>
+     * This method does not block. The flush is performed by OpenKit's sending thread and concurrent flush requests
+     * are combined into a single one. Use the returned handle to wait for the flush being completed.
+     * </p>
+     *
+     * @return Handle, which is completed after the data has been sent.
+     */
+    FlushHandle flush();
+
     /**
      * Shuts down OpenKit, ending all open Sessions and waiting for them to be sent.
      */
     void shutdown();
 
+    /**
+     * Shuts down OpenKit, ending all open Sessions and sending them until the given timeout expired.
+     *
+     * <p>
+     * Sessions are sent in parallel, starting with the sessions holding errors or crashes. Data which has not been sent
+     * when the timeout expired is handed to the {@link BeaconPersistenceHook}, if one has been configured via
+     * {@link com.dynatrace.openkit.AbstractOpenKitBuilder#withBeaconPersistenceHook(BeaconPersistenceHook)},
+     * and dropped otherwise.
+     * </p>
+     *
+     * @param timeoutMillis The maximum number of milliseconds to send remaining data.
+     */
+    void shutdown(long timeoutMillis);
+
 }
@@ -63,6 +63,24 @@ public interface Session extends Closeable {
      */
     void reportCrash(String errorName, String reason, String stacktrace);
 
+    /**
+     * Reports a crash caused by the given {@code throwable}.
+     *
+     * <p>
+     *     The throwable's class name is used as error name and its message as reason.
+     *     The stack trace, including all causes, is serialized directly from the throwable's stack trace elements,
+     *     which avoids rendering it via {@link Throwable#printStackTrace()} first.
+     *     Very deep stack traces are truncated.
+     * </p>
+     *
+     * <p>
+     *     If the given {@code throwable} is {@code null}, no crash report will be sent to the server.
+     * </p>
+     *
+     * @param throwable the throwable leading to the crash
+     */
+    void reportCrash(Throwable throwable);
+
     /**
      * Traces a web request - which is provided as a URLConnection - and allows adding timing information to this request.
      * If the web request is continued on a server-side Agent (e.g. Java, .NET, ...) this Session will be correlated to
@@ -85,6 +103,18 @@ public interface Session extends Closeable {
      */
     WebRequestTracer traceWebRequest(String url);
 
+    /**
+     * Requests to send the data of this Session right away, without waiting for the send interval.
+     *
+     * <p>
+     * This method does not block. The flush is performed by OpenKit's sending thread and concurrent flush requests
+     * are combined into a single one. Use the returned handle to wait for the flush being completed.
+     * </p>
+     *
+     * @return Handle, which is completed after the data has been sent.
+     */
+    FlushHandle flush();
+
     /**
      * Ends this Session and marks it as ready for immediate sending.
      */
@@ -16,8 +16,10 @@
 
 package com.dynatrace.openkit.core;
 
+import com.dynatrace.openkit.api.FlushHandle;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.communication.BeaconSendingContext;
+import com.dynatrace.openkit.core.communication.BeaconSendingExecutor;
 import com.dynatrace.openkit.core.configuration.Configuration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
@@ -34,7 +36,14 @@ import java.util.concurrent.TimeUnit;
 public class BeaconSender {
 
     private static final String THREAD_NAME = BeaconSender.class.getSimpleName();
-    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+    /**
+     * Default time in milliseconds, until which remaining data is sent on shutdown
+     */
+    public static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+    /**
+     * Additional time in milliseconds granted after the shutdown deadline, to hand unsent data to the persistence hook
+     */
+    private static final long SHUTDOWN_PERSIST_GRACE_PERIOD = TimeUnit.SECONDS.toMillis(1);
 
     private final Logger logger;
 
@@ -42,6 +51,14 @@ public class BeaconSender {
      * Thread used to send the beacons in the background
      */
     private Thread beaconSenderThread;
+    /**
+     * Executor shared with other OpenKit instances, or {@code null} if a dedicated thread is used
+     */
+    private final BeaconSendingExecutor beaconSendingExecutor;
+    /**
+     * Task sending the beacons on the shared executor
+     */
+    private BeaconSendingExecutor.Task beaconSendingTask;
     /**
      * Context in terms of the State Design Pattern
      */
@@ -59,7 +76,25 @@ public class BeaconSender {
      * @param timingProvider Used for some timing related things.
      */
     public BeaconSender(Logger logger, Configuration configuration, HTTPClientProvider clientProvider, TimingProvider timingProvider) {
+        this(logger, configuration, clientProvider, timingProvider, null);
+    }
+
+    /**
+     * Create a new BeaconSender, which sends the beacons on the given shared executor.
+     * <p>
+     *     To start the beacon sending the {@link #initialize()} method must be called.
+     * </p>
+     *
+     * @param logger Logger for logging messages
+     * @param configuration  OpenKit configuration.
+     * @param clientProvider Used for retrieving an {@link com.dynatrace.openkit.protocol.HTTPClient} instance.
+     * @param timingProvider Used for some timing related things.
+     * @param beaconSendingExecutor Executor shared with other OpenKit instances, or {@code null} to use a dedicated thread.
+     */
+    public BeaconSender(Logger logger, Configuration configuration, HTTPClientProvider clientProvider, TimingProvider timingProvider,
+                        BeaconSendingExecutor beaconSendingExecutor) {
         this.logger = logger;
+        this.beaconSendingExecutor = beaconSendingExecutor;
         context = new BeaconSendingContext(logger, configuration, clientProvider, timingProvider);
     }
 
@@ -72,6 +107,11 @@ public class BeaconSender {
      * </p>
      */
     public synchronized void initialize() {
+        if (beaconSendingExecutor != null) {
+            beaconSendingTask = beaconSendingExecutor.execute(context);
+            return;
+        }
+
         final String className = getClass().getSimpleName();
         // create and start the sending thread
         beaconSenderThread = new Thread(new Runnable() {
@@ -84,6 +124,8 @@ public class BeaconSender {
                 while (!context.isInTerminalState()) {
                     context.executeCurrentState();
                 }
+                // no more data is sent, release threads waiting for an explicit flush
+                context.completePendingFlushRequest();
             }
         });
         beaconSenderThread.setDaemon(true);
@@ -125,16 +167,44 @@ public class BeaconSender {
     /**
      * Shutdown the BeaconSender and wait until it's shutdown (at most {@link BeaconSender#SHUTDOWN_TIMEOUT} milliseconds.
      */
-    public synchronized void shutdown() {
+    public void shutdown() {
+        shutdown(SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * Shutdown the BeaconSender, sending remaining data until the given timeout expired.
+     *
+     * <p>
+     *     Data which could not be sent is handed to the configured {@link com.dynatrace.openkit.api.BeaconPersistenceHook}.
+     *     This method waits at most the given timeout plus a short grace period for doing so.
+     * </p>
+     *
+     * @param timeoutMillis The maximum number of milliseconds to send remaining data.
+     */
+    public synchronized void shutdown(long timeoutMillis) {
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " shutdown() - thread request shutdown");
         }
-        context.requestShutdown();
+        timeoutMillis = Math.max(timeoutMillis, 0L);
+        context.requestShutdown(timeoutMillis);
+
+        if (beaconSendingTask != null) {
+            beaconSendingTask.wakeUp();
+            try {
+                beaconSendingTask.awaitTermination(timeoutMillis + SHUTDOWN_PERSIST_GRACE_PERIOD);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (logger.isDebugEnabled()) {
+                    logger.debug(getClass().getSimpleName() + " shutdown() - Thread interrupted while waiting for BeaconSender task to terminate");
+                }
+            }
+            beaconSendingTask = null;
+        }
 
         if (beaconSenderThread != null) {
             beaconSenderThread.interrupt();
             try {
-                beaconSenderThread.join(SHUTDOWN_TIMEOUT);
+                beaconSenderThread.join(timeoutMillis + SHUTDOWN_PERSIST_GRACE_PERIOD);
                 if (logger.isDebugEnabled()) {
                     logger.debug(getClass().getSimpleName() + " shutdown() - thread stopped");
                 }
@@ -148,6 +218,23 @@ public class BeaconSender {
         }
     }
 
+    /**
+     * Request an explicit flush of the given session, or all sessions.
+     *
+     * <p>
+     *     The flush is performed asynchronously, the sending thread picks it up in its next sending cycle.
+     * </p>
+     *
+     * @param session Session to flush, or {@code null} to flush all sessions.
+     * @return Handle, which is completed after the flush has been performed.
+     */
+    public FlushHandle flush(SessionImpl session) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " flush()");
+        }
+        return context.requestFlush(session);
+    }
+
     /**
      * When starting a new Session, put it into open Sessions.
      * <p>
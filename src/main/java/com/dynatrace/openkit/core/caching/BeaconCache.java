@@ -31,6 +31,13 @@ public interface BeaconCache {
      */
     void addObserver(Observer o);
 
+    /**
+     * Remove an {@link Observer} previously added with {@link #addObserver(Observer)}.
+     *
+     * @param o Observer to remove.
+     */
+    void deleteObserver(Observer o);
+
     /**
      * Add event data for a given {@code beaconID} to this cache.
      *
@@ -44,6 +51,49 @@ public interface BeaconCache {
      */
     void addEventData(Integer beaconID, long timestamp, String data);
 
+    /**
+     * Add event data for a given {@code beaconID} to this cache, where serialization is deferred.
+     *
+     * <p>
+     * The data is only serialized when it's retrieved via {@link #getNextBeaconChunk(Integer, String, int, char)}.
+     * All registered observers are notified, after the event data has been added.
+     * </p>
+     *
+     * @param beaconID The beacon's ID (aka Session ID) for which to add event data.
+     * @param timestamp The data's timestamp.
+     * @param data event data to add, which is serialized when sending.
+     */
+    void addEventData(Integer beaconID, long timestamp, DeferredRecordData data);
+
+    /**
+     * Add event data with the given priority for a given {@code beaconID} to this cache.
+     *
+     * <p>
+     * Event data added without priority has {@link RecordPriority#NORMAL normal} priority.
+     * All registered observers are notified, after the event data has been added.
+     * </p>
+     *
+     * @param beaconID The beacon's ID (aka Session ID) for which to add event data.
+     * @param timestamp The data's timestamp.
+     * @param priority The data's priority, defining the order in which records are evicted.
+     * @param data serialized event data to add.
+     */
+    void addEventData(Integer beaconID, long timestamp, RecordPriority priority, String data);
+
+    /**
+     * Add event data with the given priority for a given {@code beaconID} to this cache, where serialization is deferred.
+     *
+     * <p>
+     * All registered observers are notified, after the event data has been added.
+     * </p>
+     *
+     * @param beaconID The beacon's ID (aka Session ID) for which to add event data.
+     * @param timestamp The data's timestamp.
+     * @param priority The data's priority, defining the order in which records are evicted.
+     * @param data event data to add, which is serialized when sending.
+     */
+    void addEventData(Integer beaconID, long timestamp, RecordPriority priority, DeferredRecordData data);
+
     /**
      * Add action data for a given {@code beaconID} to this cache.
      *
@@ -53,6 +103,15 @@ public interface BeaconCache {
      */
     void addActionData(Integer beaconID, long timestamp, String data);
 
+    /**
+     * Add action data for a given {@code beaconID} to this cache, where serialization is deferred.
+     *
+     * @param beaconID The beacon's ID (aka Session ID) for which to add action data.
+     * @param timestamp The data's timestamp.
+     * @param data action data to add, which is serialized when sending.
+     */
+    void addActionData(Integer beaconID, long timestamp, DeferredRecordData data);
+
     /**
      * Delete a cache entry for a given {@code beaconID}.
      *
@@ -137,13 +196,51 @@ public interface BeaconCache {
      */
     int evictRecordsByNumber(Integer beaconID, int numRecords);
 
+    /**
+     * Seal all active {@link BeaconCacheRecord beacon cache records} of a given beacon into a compressed block,
+     * if no record has been added since {@code idleSinceTimestamp}.
+     *
+     * @param beaconID           The beacon's identifier.
+     * @param idleSinceTimestamp The timestamp, the newest record must be older than.
+     *
+     * @return Returns the number of sealed cache records.
+     */
+    int sealRecords(Integer beaconID, long idleSinceTimestamp);
+
     /**
      * Get number of bytes currently stored in cache.
      *
+     * <p>
+     * Besides the records' data, this also includes the estimated structural overhead of the cache.
+     * Data which is currently being sent is not taken into account.
+     * </p>
+     *
      * @return Number of bytes currently stored in cache.
      */
     long getNumBytesInCache();
 
+    /**
+     * Get number of bytes currently stored in cache for the given {@code beaconID}.
+     *
+     * <p>
+     * Data which is currently being sent is not taken into account.
+     * </p>
+     *
+     * @param beaconID The beacon's identifier.
+     *
+     * @return Number of bytes currently stored for the beacon or {@code 0} if the beacon does not exist.
+     */
+    long getNumBytesInCache(Integer beaconID);
+
+    /**
+     * Get number of records rejected for the given {@code beaconID}, because they would have exceeded the session quota.
+     *
+     * @param beaconID The beacon's identifier.
+     *
+     * @return Number of rejected records or {@code 0} if the beacon does not exist.
+     */
+    int getNumRejectedRecords(Integer beaconID);
+
     /**
      * Tests if an cached entry for {@code beaconID} is empty.
      *
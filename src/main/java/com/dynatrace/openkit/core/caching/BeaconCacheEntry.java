@@ -16,10 +16,15 @@
 
 package com.dynatrace.openkit.core.caching;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -30,9 +35,55 @@ import java.util.concurrent.locks.ReentrantLock;
  * The caller is responsible to lock this element, before the first method is invoked using
  * {@link #lock()} and after the last operation is invoked {@link #unlock()} must be called.
  * </p>
+ *
+ * <p>
+ * Besides the event and action lists, which keep the records in the order they are sent, the active records
+ * are also kept in one queue per {@link RecordPriority}. Evicting records by number takes them from the queues
+ * of the lowest priority first, without scanning the lists. Such records are only marked as evicted in the lists
+ * and unlinked lazily, either before the data is sent or when the number of evicted records grows too large.
+ * </p>
+ *
+ * <p>
+ * The number of bytes is estimated by a {@link HeapSizeModel}, which includes the structural overhead of each record.
+ * </p>
+ *
+ * <p>
+ * Active records of idle entries can be sealed into deflate compressed {@link SealedBlock blocks}, which are
+ * accounted at their compressed size. Blocks are only inflated when the data is copied for sending
+ * and are evicted as a whole. Each block holds records of a single priority and at most
+ * {@link #MAX_NUM_RECORDS_PER_BLOCK} records, which bounds the number of records evicted at once.
+ * </p>
+ *
+ * <p>
+ * Each record gets a sequence number when it is reported. Records, which have been collected in
+ * {@link RecordBuffer thread-local buffers}, might be added out of this order and are sorted again
+ * before they are sealed or sent.
+ * </p>
  */
 class BeaconCacheEntry {
 
+    /**
+     * Maximum number of records sealed into a single block.
+     */
+    static final int MAX_NUM_RECORDS_PER_BLOCK = 64;
+
+    /**
+     * Comparator ordering records by their sequence number.
+     */
+    private static final Comparator<BeaconCacheRecord> SEQUENCE_NUMBER_ORDER = new Comparator<BeaconCacheRecord>() {
+        @Override
+        public int compare(BeaconCacheRecord o1, BeaconCacheRecord o2) {
+            long lhs = o1.getSequenceNumber();
+            long rhs = o2.getSequenceNumber();
+            return lhs < rhs ? -1 : (lhs == rhs ? 0 : 1);
+        }
+    };
+
+    /**
+     * Model estimating the heap memory retained by records.
+     */
+    private final HeapSizeModel heapSizeModel;
+
     /**
      * List storing all active event data.
      */
@@ -60,6 +111,66 @@ class BeaconCacheEntry {
      * Total number of bytes consumed by this entry.
      */
     private long totalNumBytes = 0;
+    /**
+     * Number of records which have been rejected, because they would have exceeded the session quota.
+     */
+    private int numRejectedRecords = 0;
+    /**
+     * Active event and action records per priority, indexed by the priority's ordinal.
+     */
+    private RecordQueues[] recordsByPriority = new RecordQueues[RecordPriority.values().length];
+    /**
+     * Number of evicted records, which are still linked in the event and action lists.
+     */
+    private int numEvictedRecordsInLists = 0;
+    /**
+     * Sealed blocks, which are older than any event or action record, in the order they have been sealed.
+     */
+    private final LinkedList<SealedBlock> sealedBlocks = new LinkedList<SealedBlock>();
+    /**
+     * Timestamp of the newest record added to this entry.
+     */
+    private long newestRecordTimestamp = Long.MIN_VALUE;
+    /**
+     * Source of the sequence numbers, which is read without holding the entry lock.
+     */
+    private final AtomicLong sequenceNumber = new AtomicLong(0);
+    /**
+     * Sequence number of the last event record added.
+     */
+    private long lastEventSequenceNumber = 0;
+    /**
+     * Sequence number of the last action record added.
+     */
+    private long lastActionSequenceNumber = 0;
+    /**
+     * Flag indicating records have been added out of their sequence number order.
+     */
+    private boolean needsSorting = false;
+    /**
+     * Thread-local buffers collecting records for this entry.
+     */
+    private final List<RecordBuffer> buffers = new CopyOnWriteArrayList<RecordBuffer>();
+    /**
+     * Flag indicating the entry has been deleted from the cache.
+     */
+    private boolean deleted = false;
+
+    /**
+     * Create an entry, which only accounts the records' data.
+     */
+    BeaconCacheEntry() {
+        this(HeapSizeModel.PAYLOAD_ONLY);
+    }
+
+    /**
+     * Create an entry.
+     *
+     * @param heapSizeModel Model estimating the heap memory retained by records.
+     */
+    BeaconCacheEntry(HeapSizeModel heapSizeModel) {
+        this.heapSizeModel = heapSizeModel;
+    }
 
     /**
      * Lock this {@link BeaconCacheEntry} for reading & writing.
@@ -89,8 +200,11 @@ class BeaconCacheEntry {
      * @param record The new record to add.
      */
     void addEventData(BeaconCacheRecord record) {
+        lastEventSequenceNumber = assignSequenceNumber(record, lastEventSequenceNumber);
         eventData.add(record);
-        totalNumBytes += record.getDataSizeInBytes();
+        getRecordQueues(record.getPriority()).events.add(record);
+        totalNumBytes += heapSizeModel.getRecordSizeInBytes(record);
+        newestRecordTimestamp = Math.max(newestRecordTimestamp, record.getTimestamp());
     }
 
     /**
@@ -99,8 +213,114 @@ class BeaconCacheEntry {
      * @param record The new record to add.
      */
     void addActionData(BeaconCacheRecord record) {
+        lastActionSequenceNumber = assignSequenceNumber(record, lastActionSequenceNumber);
         actionData.add(record);
-        totalNumBytes += record.getDataSizeInBytes();
+        getRecordQueues(record.getPriority()).actions.add(record);
+        totalNumBytes += heapSizeModel.getRecordSizeInBytes(record);
+        newestRecordTimestamp = Math.max(newestRecordTimestamp, record.getTimestamp());
+    }
+
+    /**
+     * Assign a sequence number to the given record, unless it already got one when it was buffered.
+     *
+     * @param record The record being added.
+     * @param lastSequenceNumber Sequence number of the last record added to the same list.
+     *
+     * @return The record's sequence number.
+     */
+    private long assignSequenceNumber(BeaconCacheRecord record, long lastSequenceNumber) {
+        if (record.getSequenceNumber() == 0) {
+            record.setSequenceNumber(nextSequenceNumber());
+        } else if (record.getSequenceNumber() < lastSequenceNumber) {
+            needsSorting = true;
+        }
+        return Math.max(record.getSequenceNumber(), lastSequenceNumber);
+    }
+
+    /**
+     * Get the next sequence number of this entry.
+     *
+     * <p>
+     * This method can be called without holding the entry lock.
+     * </p>
+     *
+     * @return The next sequence number, which is always greater than zero.
+     */
+    long nextSequenceNumber() {
+        return sequenceNumber.incrementAndGet();
+    }
+
+    /**
+     * Sort the event and action lists by sequence number, if records have been added out of order.
+     */
+    private void sortRecordsIfNeeded() {
+        if (!needsSorting) {
+            return;
+        }
+        Collections.sort(eventData, SEQUENCE_NUMBER_ORDER);
+        Collections.sort(actionData, SEQUENCE_NUMBER_ORDER);
+        needsSorting = false;
+    }
+
+    /**
+     * Register a thread-local buffer collecting records for this entry.
+     *
+     * <p>
+     * The caller must hold the entry lock.
+     * </p>
+     *
+     * @param buffer The buffer to register.
+     *
+     * @return {@code true} if the buffer was registered, {@code false} if this entry has already been deleted.
+     */
+    boolean registerBuffer(RecordBuffer buffer) {
+        if (deleted) {
+            return false;
+        }
+        buffers.add(buffer);
+        return true;
+    }
+
+    /**
+     * Get the thread-local buffers registered for this entry.
+     *
+     * <p>
+     * The returned list can be iterated without holding the entry lock.
+     * </p>
+     */
+    List<RecordBuffer> getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * Mark this entry as deleted, so that no further buffer can be registered.
+     *
+     * <p>
+     * The caller must hold the entry lock.
+     * </p>
+     */
+    void markDeleted() {
+        deleted = true;
+    }
+
+    /**
+     * Test if this entry has been deleted from the cache.
+     *
+     * <p>
+     * The caller must hold the entry lock.
+     * </p>
+     */
+    boolean isDeleted() {
+        return deleted;
+    }
+
+    private RecordQueues getRecordQueues(RecordPriority priority) {
+        RecordQueues queues = recordsByPriority[priority.ordinal()];
+        if (queues == null) {
+            queues = new RecordQueues();
+            recordsByPriority[priority.ordinal()] = queues;
+        }
+        return queues;
     }
 
     /**
@@ -116,13 +336,173 @@ class BeaconCacheEntry {
      * Copy data for sending.
      */
     void copyDataForChunking() {
+        unlinkEvictedRecords();
+        if (!sealedBlocks.isEmpty()) {
+            unsealBlocks();
+        }
+        sortRecordsIfNeeded();
         actionDataBeingSent = actionData;
         eventDataBeingSent = eventData;
         actionData = new LinkedList<BeaconCacheRecord>();
         eventData = new LinkedList<BeaconCacheRecord>();
+        recordsByPriority = new RecordQueues[RecordPriority.values().length];
         totalNumBytes = 0; // data which is being sent is not counted
     }
 
+    /**
+     * Inflate all sealed blocks and put their records in front of the event and action lists.
+     */
+    private void unsealBlocks() {
+        LinkedList<BeaconCacheRecord> unsealedEventData = new LinkedList<BeaconCacheRecord>();
+        LinkedList<BeaconCacheRecord> unsealedActionData = new LinkedList<BeaconCacheRecord>();
+        for (SealedBlock block : sealedBlocks) {
+            block.unseal(unsealedEventData, unsealedActionData);
+        }
+        unsealedEventData.addAll(eventData);
+        unsealedActionData.addAll(actionData);
+        eventData = unsealedEventData;
+        actionData = unsealedActionData;
+        // blocks of different priorities interleave
+        needsSorting |= sealedBlocks.size() > 1;
+        sealedBlocks.clear();
+    }
+
+    /**
+     * Seal all active records into new compressed blocks.
+     *
+     * <p>
+     * Records are sealed into one or more blocks per {@link RecordPriority}, so that records
+     * are still evicted in the order of their priority.
+     * </p>
+     *
+     * <p>
+     * Nothing is sealed while data is being sent, so that the order of the records is retained
+     * if sending fails.
+     * </p>
+     *
+     * @return The number of sealed records.
+     */
+    int sealRecords() {
+        if (!needsDataCopyBeforeChunking()) {
+            return 0;
+        }
+
+        sortRecordsIfNeeded();
+        long numBytesOfActiveRecords = getNumBytesOfActiveRecords();
+        int numSealedRecords = 0;
+        for (RecordQueues queues : recordsByPriority) {
+            if (queues != null) {
+                numSealedRecords += sealRecords(queues);
+            }
+        }
+        if (numSealedRecords == 0) {
+            return 0;
+        }
+
+        totalNumBytes -= numBytesOfActiveRecords;
+        eventData = new LinkedList<BeaconCacheRecord>();
+        actionData = new LinkedList<BeaconCacheRecord>();
+        numEvictedRecordsInLists = 0;
+        rebuildRecordQueues();
+
+        return numSealedRecords;
+    }
+
+    /**
+     * Seal the active records of a single priority into blocks of at most {@link #MAX_NUM_RECORDS_PER_BLOCK} records.
+     *
+     * <p>
+     * Event and action records are taken in the order of their sequence number, so that each block
+     * holds records reported at about the same time.
+     * </p>
+     *
+     * @param queues The active records of a single priority.
+     *
+     * @return The number of sealed records.
+     */
+    private int sealRecords(RecordQueues queues) {
+
+        int numSealedRecords = 0;
+        RecordPriority priority = null;
+        List<BeaconCacheRecord> blockEvents = new ArrayList<BeaconCacheRecord>();
+        List<BeaconCacheRecord> blockActions = new ArrayList<BeaconCacheRecord>();
+
+        while (!queues.events.isEmpty() || !queues.actions.isEmpty()) {
+            BeaconCacheRecord currentEvent = queues.events.peek();
+            BeaconCacheRecord currentAction = queues.actions.peek();
+            BeaconCacheRecord record;
+            if (currentEvent == null
+                || (currentAction != null && currentAction.getSequenceNumber() < currentEvent.getSequenceNumber())) {
+                record = queues.actions.poll();
+                blockActions.add(record);
+            } else {
+                record = queues.events.poll();
+                blockEvents.add(record);
+            }
+            priority = record.getPriority();
+
+            if (blockEvents.size() + blockActions.size() == MAX_NUM_RECORDS_PER_BLOCK) {
+                numSealedRecords += sealBlock(blockEvents, blockActions, priority);
+                blockEvents.clear();
+                blockActions.clear();
+            }
+        }
+
+        if (!blockEvents.isEmpty() || !blockActions.isEmpty()) {
+            numSealedRecords += sealBlock(blockEvents, blockActions, priority);
+        }
+
+        return numSealedRecords;
+    }
+
+    private int sealBlock(List<BeaconCacheRecord> blockEvents, List<BeaconCacheRecord> blockActions,
+                          RecordPriority priority) {
+        SealedBlock block = SealedBlock.seal(blockEvents, blockActions, priority);
+        if (block == null) {
+            return 0;
+        }
+
+        totalNumBytes += heapSizeModel.getBlockSizeInBytes(block);
+        sealedBlocks.add(block);
+
+        return block.getNumRecords();
+    }
+
+    private long getNumBytesOfActiveRecords() {
+        long numBytes = 0;
+        for (BeaconCacheRecord record : eventData) {
+            if (!record.isEvicted()) {
+                numBytes += heapSizeModel.getRecordSizeInBytes(record);
+            }
+        }
+        for (BeaconCacheRecord record : actionData) {
+            if (!record.isEvicted()) {
+                numBytes += heapSizeModel.getRecordSizeInBytes(record);
+            }
+        }
+        return numBytes;
+    }
+
+    /**
+     * Get the timestamp of the newest record ever added to this entry.
+     *
+     * @return The newest record's timestamp or {@link Long#MIN_VALUE} if no record has been added yet.
+     */
+    long getNewestRecordTimestamp() {
+        return newestRecordTimestamp;
+    }
+
+    /**
+     * Get the number of sealed blocks.
+     *
+     * <p>
+     * This method shall only be used for testing purposes.
+     * </p>
+     */
+    int getNumSealedBlocks() {
+        return sealedBlocks.size();
+    }
+
     /**
      * Get next data chunk to send to the Dynatrace backend system.
      *
@@ -235,21 +615,24 @@ class BeaconCacheEntry {
         long numBytes = 0;
         for (BeaconCacheRecord record : eventDataBeingSent) {
             record.unsetSending();
-            numBytes += record.getDataSizeInBytes();
+            numBytes += heapSizeModel.getRecordSizeInBytes(record);
         }
 
         for (BeaconCacheRecord record : actionDataBeingSent) {
             record.unsetSending();
-            numBytes += record.getDataSizeInBytes();
+            numBytes += heapSizeModel.getRecordSizeInBytes(record);
         }
 
-        // merge data
+        // merge data, records added in the meantime might be older than the ones being sent
+        unlinkEvictedRecords();
+        needsSorting |= !eventData.isEmpty() || !actionData.isEmpty();
         eventDataBeingSent.addAll(eventData);
         actionDataBeingSent.addAll(actionData);
         eventData = eventDataBeingSent;
         actionData = actionDataBeingSent;
         eventDataBeingSent = null;
         actionDataBeingSent = null;
+        rebuildRecordQueues();
 
         totalNumBytes += numBytes;
     }
@@ -285,29 +668,54 @@ class BeaconCacheEntry {
      */
     int removeRecordsOlderThan(long minTimestamp) {
 
-
         int numRecordsRemoved = removeRecordsOlderThan(eventData, minTimestamp);
         numRecordsRemoved += removeRecordsOlderThan(actionData, minTimestamp);
 
+        // blocks are only removed as a whole, if all their records are too old
+        Iterator<SealedBlock> iterator = sealedBlocks.iterator();
+        while (iterator.hasNext()) {
+            SealedBlock block = iterator.next();
+            if (block.getNewestTimestamp() < minTimestamp) {
+                iterator.remove();
+                totalNumBytes -= heapSizeModel.getBlockSizeInBytes(block);
+                numRecordsRemoved += block.getNumRecords();
+            }
+        }
+
+        if (numRecordsRemoved > 0) {
+            // evicted records are unlinked from the lists already, only the queues need to be rebuilt
+            rebuildRecordQueues();
+        }
+
         return numRecordsRemoved;
     }
 
     /**
      * Remove all {@link BeaconCacheRecord beacon cache records} from {@code records}.
      *
+     * <p>
+     * The size of the removed records is subtracted from the total number of bytes.
+     * </p>
+     *
      * @param minTimestamp The minimum timestamp allowed.
      *
      * @return The number of records removed from {@code records}.
      */
-    private static int removeRecordsOlderThan(List<BeaconCacheRecord> records, long minTimestamp) {
+    private int removeRecordsOlderThan(List<BeaconCacheRecord> records, long minTimestamp) {
 
         int numRecordsRemoved = 0;
 
         Iterator<BeaconCacheRecord> iterator = records.iterator();
         while (iterator.hasNext()) {
             BeaconCacheRecord record = iterator.next();
-            if (record.getTimestamp() < minTimestamp) {
+            if (record.isEvicted()) {
+                // unlink previously evicted record, while traversing the list anyway
+                iterator.remove();
+                numEvictedRecordsInLists--;
+            } else if (record.getTimestamp() < minTimestamp) {
                 iterator.remove();
+                totalNumBytes -= heapSizeModel.getRecordSizeInBytes(record);
+                record.evict();
                 numRecordsRemoved++;
             }
         }
@@ -316,14 +724,21 @@ class BeaconCacheEntry {
     }
 
     /**
-     * Remove up to {@code numRecords} records from event & action data, compared by their age.
+     * Remove up to {@code numRecords} records from event & action data, compared by their priority and age.
      *
      * <p>
-     * Note not all event/action data entries are traversed, only the first action data & first event
+     * Records of a lower {@link RecordPriority} are removed first. Within the same priority
+     * not all event/action data entries are traversed, only the first action data & first event
      * data is removed and compared against each other, which one to remove first. If the first action's timestamp and
      * first event's timestamp are equal, the first event is removed.
      * </p>
      *
+     * <p>
+     * Sealed blocks are removed before any record of the same priority, since they are older.
+     * As blocks are removed as a whole, the number of removed records might exceed {@code numRecords}
+     * by less than {@link #MAX_NUM_RECORDS_PER_BLOCK}.
+     * </p>
+     *
      * @param numRecords The number of records.
      *
      * @return Number of actually removed records.
@@ -332,39 +747,108 @@ class BeaconCacheEntry {
 
         int numRecordsRemoved = 0;
 
-        Iterator<BeaconCacheRecord> eventsIterator = eventData.iterator();
-        Iterator<BeaconCacheRecord> actionsIterator = actionData.iterator();
-        BeaconCacheRecord currentEvent = eventsIterator.hasNext() ? eventsIterator.next() : null;
-        BeaconCacheRecord currentAction = actionsIterator.hasNext() ? actionsIterator.next() : null;
+        for (int i = 0; i < recordsByPriority.length && numRecordsRemoved < numRecords; i++) {
+            RecordQueues queues = recordsByPriority[i];
+            if (queues == null) {
+                continue;
+            }
 
-        while (numRecordsRemoved < numRecords && (currentEvent != null || currentAction != null)) {
+            while (numRecordsRemoved < numRecords && !queues.blocks.isEmpty()) {
+                SealedBlock block = queues.blocks.poll();
+                sealedBlocks.remove(block);
+                totalNumBytes -= heapSizeModel.getBlockSizeInBytes(block);
+                numRecordsRemoved += block.getNumRecords();
+            }
 
-            if (currentEvent == null) {
-                // actions is not null -> remove action
-                currentAction = removeAndAdvanceIterator(actionsIterator);
-            } else if (currentAction == null) {
-                // events is not null -> remove event
-                currentEvent = removeAndAdvanceIterator(eventsIterator);
-            } else {
-                // both are not null -> compare by timestamp and take the older one
-                if (currentAction.getTimestamp() < currentEvent.getTimestamp()) {
+            while (numRecordsRemoved < numRecords && (!queues.events.isEmpty() || !queues.actions.isEmpty())) {
+
+                BeaconCacheRecord currentEvent = queues.events.peek();
+                BeaconCacheRecord currentAction = queues.actions.peek();
+                BeaconCacheRecord removed;
+                if (currentEvent == null) {
+                    // actions is not empty -> remove action
+                    removed = queues.actions.poll();
+                } else if (currentAction == null) {
+                    // events is not empty -> remove event
+                    removed = queues.events.poll();
+                } else if (currentAction.getTimestamp() < currentEvent.getTimestamp()) {
                     // first action is older than first event
-                    currentAction = removeAndAdvanceIterator(actionsIterator);
+                    removed = queues.actions.poll();
                 } else {
                     // first event is older than first action
-                    currentEvent = removeAndAdvanceIterator(eventsIterator);
+                    removed = queues.events.poll();
                 }
+
+                // the record stays linked in the list as tombstone
+                totalNumBytes -= heapSizeModel.getRecordSizeInBytes(removed);
+                removed.evict();
+                numEvictedRecordsInLists++;
+                numRecordsRemoved++;
             }
+        }
 
-            numRecordsRemoved++;
+        if (numEvictedRecordsInLists > eventData.size() + actionData.size() - numEvictedRecordsInLists) {
+            // more tombstones than active records, unlink them to keep the lists' memory bounded
+            unlinkEvictedRecords();
         }
 
         return numRecordsRemoved;
     }
 
-    private static <E> E removeAndAdvanceIterator(Iterator<E> iterator) {
-        iterator.remove();
-        return iterator.hasNext() ? iterator.next() : null;
+    /**
+     * Unlink all records from the event and action lists, which have been marked as evicted.
+     */
+    private void unlinkEvictedRecords() {
+        if (numEvictedRecordsInLists == 0) {
+            return;
+        }
+
+        unlinkEvictedRecords(eventData);
+        unlinkEvictedRecords(actionData);
+        numEvictedRecordsInLists = 0;
+    }
+
+    private static void unlinkEvictedRecords(List<BeaconCacheRecord> records) {
+        Iterator<BeaconCacheRecord> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isEvicted()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Rebuild the queues per priority from the sealed blocks and the event and action lists.
+     */
+    private void rebuildRecordQueues() {
+        recordsByPriority = new RecordQueues[RecordPriority.values().length];
+        for (SealedBlock block : sealedBlocks) {
+            getRecordQueues(block.getPriority()).blocks.add(block);
+        }
+        for (BeaconCacheRecord record : eventData) {
+            if (!record.isEvicted()) {
+                getRecordQueues(record.getPriority()).events.add(record);
+            }
+        }
+        for (BeaconCacheRecord record : actionData) {
+            if (!record.isEvicted()) {
+                getRecordQueues(record.getPriority()).actions.add(record);
+            }
+        }
+    }
+
+    /**
+     * Record that a new record has been rejected, because it would have exceeded the session quota.
+     */
+    void recordRejected() {
+        numRejectedRecords++;
+    }
+
+    /**
+     * Get the number of records rejected, because they would have exceeded the session quota.
+     */
+    int getNumRejectedRecords() {
+        return numRejectedRecords;
     }
 
     /**
@@ -375,7 +859,7 @@ class BeaconCacheEntry {
      * </p>
      */
     List<BeaconCacheRecord> getEventData() {
-        return new LinkedList<BeaconCacheRecord>(eventData);
+        return withoutEvictedRecords(eventData);
     }
 
     /**
@@ -386,7 +870,17 @@ class BeaconCacheEntry {
      * </p>
      */
     List<BeaconCacheRecord> getActionData() {
-        return new LinkedList<BeaconCacheRecord>(actionData);
+        return withoutEvictedRecords(actionData);
+    }
+
+    private static List<BeaconCacheRecord> withoutEvictedRecords(List<BeaconCacheRecord> records) {
+        List<BeaconCacheRecord> result = new LinkedList<BeaconCacheRecord>();
+        for (BeaconCacheRecord record : records) {
+            if (!record.isEvicted()) {
+                result.add(record);
+            }
+        }
+        return result;
     }
 
     /**
@@ -410,4 +904,13 @@ class BeaconCacheEntry {
     List<BeaconCacheRecord> getActionDataBeingSent() {
         return actionDataBeingSent == null ? null : Collections.unmodifiableList(actionDataBeingSent);
     }
+
+    /**
+     * Sealed blocks and active event and action records of a single priority, in the order they have been added.
+     */
+    private static final class RecordQueues {
+        private final ArrayDeque<SealedBlock> blocks = new ArrayDeque<SealedBlock>();
+        private final ArrayDeque<BeaconCacheRecord> events = new ArrayDeque<BeaconCacheRecord>();
+        private final ArrayDeque<BeaconCacheRecord> actions = new ArrayDeque<BeaconCacheRecord>();
+    }
 }
@@ -37,7 +37,7 @@ public class BeaconCacheEvictor {
 
     /**
      * Public constructor, initializing the eviction thread with the default
-     * {@link TimeEvictionStrategy} and {@link SpaceEvictionStrategy} strategies.
+     * {@link TimeEvictionStrategy}, {@link CompressionStrategy} and {@link SpaceEvictionStrategy} strategies.
      *
      * @param logger         Logger to write some debug output
      * @param beaconCache    The Beacon cache to check if entries need to be evicted
@@ -45,7 +45,10 @@ public class BeaconCacheEvictor {
      * @param timingProvider Timing provider required for time retrieval
      */
     public BeaconCacheEvictor(Logger logger, BeaconCache beaconCache, BeaconCacheConfiguration configuration, TimingProvider timingProvider) {
-        this(logger, beaconCache, new TimeEvictionStrategy(logger, beaconCache, configuration, timingProvider), new SpaceEvictionStrategy(logger, beaconCache, configuration));
+        this(logger, beaconCache,
+            new TimeEvictionStrategy(logger, beaconCache, configuration, timingProvider),
+            new CompressionStrategy(logger, beaconCache, configuration, timingProvider),
+            new SpaceEvictionStrategy(logger, beaconCache, configuration));
     }
 
     /**
@@ -17,16 +17,19 @@
 package com.dynatrace.openkit.core.caching;
 
 import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.util.LongCounter;
 import com.dynatrace.openkit.protocol.Beacon;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -39,47 +42,154 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *
  * Furthermore two OpenKit internal threads are also accessing the cache.
  * </p>
+ *
+ * <p>
+ * The cache's byte and record counts are updated by each inserting thread, therefore they are kept in
+ * {@link LongCounter striped counters} instead of a single atomic variable. Reading a count sums up all stripes,
+ * which reflects all completed updates and is therefore fresh enough for the eviction strategies.
+ * </p>
+ *
+ * <p>
+ * Observers are notified by one inserting thread at a time. Threads inserting data while another thread notifies
+ * only set a volatile flag, so that the notifying thread notifies once more, instead of acquiring the observers'
+ * monitors themselves.
+ * </p>
+ *
+ * <p>
+ * Optionally records can be collected in small {@link RecordBuffer thread-local buffers}, one per thread and beacon,
+ * which are added to the cache entry in a single batch, so that the entry lock is acquired once per batch instead
+ * of once per record. A buffer is flushed when it is full, when its oldest record exceeds the configured delay
+ * and before the beacon's data is sent. Buffered records are neither visible to the eviction strategies
+ * nor counted in the cache's size until they are flushed.
+ * </p>
  */
 public class BeaconCacheImpl extends Observable implements BeaconCache {
 
     private final Logger logger;
     private final ReadWriteLock globalCacheLock;
     private final Map<Integer, BeaconCacheEntry> beacons;
-    private final AtomicLong cacheSizeInBytes;
+    private final LongCounter cacheSizeInBytes;
+    private final long sessionQuotaInBytes;
+    private final LongCounter numRejectedRecords;
+    private final HeapSizeModel heapSizeModel;
+    private final int threadLocalBufferCapacity;
+    private final long threadLocalBufferMaxDelay;
+    private final ThreadLocal<Map<Integer, RecordBuffer>> threadLocalBuffers = new RecordBuffers();
+    private final AtomicBoolean notifyingObservers = new AtomicBoolean(false);
+    private volatile boolean dataAddedWhileNotifying = false;
 
     /**
-     * Create BeaconCache.
+     * Create BeaconCache, which only accounts the records' data.
      *
      * @param logger
      */
     public BeaconCacheImpl(Logger logger) {
+        this(logger, BeaconCacheConfiguration.DEFAULT_SESSION_QUOTA_IN_BYTES);
+    }
+
+    /**
+     * Create BeaconCache with a per session quota.
+     *
+     * <p>
+     * Records which would exceed the session's quota are rejected when they are added.
+     * The check only uses the session's byte counter, which is maintained anyway, so it's done in constant time.
+     * </p>
+     *
+     * @param logger
+     * @param sessionQuotaInBytes Maximum number of bytes cached per session, a value less than or equal to zero
+     *                            disables the quota.
+     */
+    public BeaconCacheImpl(Logger logger, long sessionQuotaInBytes) {
+        this(logger, sessionQuotaInBytes, HeapSizeModel.PAYLOAD_ONLY);
+    }
+
+    /**
+     * Create BeaconCache with a per session quota, using the given model to estimate the cache's size.
+     *
+     * @param logger
+     * @param sessionQuotaInBytes Maximum number of bytes cached per session, a value less than or equal to zero
+     *                            disables the quota.
+     * @param heapSizeModel Model estimating the heap memory retained by cache entries and records.
+     */
+    public BeaconCacheImpl(Logger logger, long sessionQuotaInBytes, HeapSizeModel heapSizeModel) {
+        this(logger, sessionQuotaInBytes, heapSizeModel, BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_CAPACITY,
+            BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS);
+    }
+
+    /**
+     * Create BeaconCache from the given configuration.
+     *
+     * @param logger
+     * @param configuration The beacon cache configuration.
+     */
+    public BeaconCacheImpl(Logger logger, BeaconCacheConfiguration configuration) {
+        this(logger, configuration.getSessionQuotaInBytes(), HeapSizeModel.forConfiguration(configuration),
+            configuration.getThreadLocalBufferCapacity(), configuration.getThreadLocalBufferMaxDelay());
+    }
+
+    private BeaconCacheImpl(Logger logger, long sessionQuotaInBytes, HeapSizeModel heapSizeModel,
+                            int threadLocalBufferCapacity, long threadLocalBufferMaxDelay) {
         this.logger = logger;
+        this.sessionQuotaInBytes = sessionQuotaInBytes;
+        this.heapSizeModel = heapSizeModel;
+        this.threadLocalBufferCapacity = threadLocalBufferCapacity;
+        this.threadLocalBufferMaxDelay = threadLocalBufferMaxDelay;
         globalCacheLock = new ReentrantReadWriteLock();
         beacons = new HashMap<Integer, BeaconCacheEntry>();
-        cacheSizeInBytes = new AtomicLong(0L);
+        cacheSizeInBytes = LongCounter.create();
+        numRejectedRecords = LongCounter.create();
     }
 
 
     @Override
     public void addEventData(Integer beaconID, long timestamp, String data) {
+        addEventData(beaconID, timestamp, RecordPriority.NORMAL, data);
+    }
+
+    @Override
+    public void addEventData(Integer beaconID, long timestamp, DeferredRecordData data) {
+        addEventData(beaconID, timestamp, RecordPriority.NORMAL, data);
+    }
+
+    @Override
+    public void addEventData(Integer beaconID, long timestamp, RecordPriority priority, String data) {
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " addEventData(sn=" + beaconID + ", timestamp=" + timestamp + ", data='" + data + "')");
         }
+        addEventRecord(beaconID, new BeaconCacheRecord(timestamp, priority, data));
+    }
+
+    @Override
+    public void addEventData(Integer beaconID, long timestamp, RecordPriority priority, DeferredRecordData data) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " addEventData(sn=" + beaconID + ", timestamp=" + timestamp + ", deferred)");
+        }
+        addEventRecord(beaconID, BeaconCacheRecord.deferred(timestamp, priority, data));
+    }
+
+    private void addEventRecord(Integer beaconID, BeaconCacheRecord record) {
+        if (isBufferingEnabled()) {
+            addBufferedRecord(beaconID, record, false);
+            return;
+        }
+
         // get a reference to the cache entry
         BeaconCacheEntry entry = getCachedEntryOrInsert(beaconID);
 
-        BeaconCacheRecord record = new BeaconCacheRecord(timestamp, data);
-
         try {
             // lock and add the data
             entry.lock();
+            if (!isWithinSessionQuota(entry, record)) {
+                onRecordRejected(beaconID);
+                return;
+            }
             entry.addEventData(record);
         } finally {
             entry.unlock();
         }
 
         // update cache stats
-        cacheSizeInBytes.addAndGet(record.getDataSizeInBytes());
+        cacheSizeInBytes.add(heapSizeModel.getRecordSizeInBytes(record));
 
         // notify observers
         onDataAdded();
@@ -90,26 +200,209 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " addActionData(sn=" + beaconID + ", timestamp=" + timestamp + ", data='" + data + "')");
         }
-        BeaconCacheEntry entry = getCachedEntryOrInsert(beaconID);
+        addActionRecord(beaconID, new BeaconCacheRecord(timestamp, data));
+    }
 
-        // add event data for that beacon
-        BeaconCacheRecord record = new BeaconCacheRecord(timestamp, data);
+    @Override
+    public void addActionData(Integer beaconID, long timestamp, DeferredRecordData data) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " addActionData(sn=" + beaconID + ", timestamp=" + timestamp + ", deferred)");
+        }
+        addActionRecord(beaconID, BeaconCacheRecord.deferred(timestamp, data));
+    }
+
+    private void addActionRecord(Integer beaconID, BeaconCacheRecord record) {
+        if (isBufferingEnabled()) {
+            addBufferedRecord(beaconID, record, true);
+            return;
+        }
+
+        BeaconCacheEntry entry = getCachedEntryOrInsert(beaconID);
 
         try {
             // lock and add the data
             entry.lock();
+            if (!isWithinSessionQuota(entry, record)) {
+                onRecordRejected(beaconID);
+                return;
+            }
             entry.addActionData(record);
         } finally {
             entry.unlock();
         }
 
         // update cache stats
-        cacheSizeInBytes.addAndGet(record.getDataSizeInBytes());
+        cacheSizeInBytes.add(heapSizeModel.getRecordSizeInBytes(record));
 
         // notify observers
         onDataAdded();
     }
 
+    private boolean isBufferingEnabled() {
+        return threadLocalBufferCapacity > 1;
+    }
+
+    /**
+     * Append a record to the calling thread's buffer for the given beacon and flush the buffer if needed.
+     *
+     * <p>
+     * The record's sequence number is assigned right now, so that the records can be sorted in the order they
+     * have been reported, regardless of the order in which the buffers are flushed.
+     * </p>
+     */
+    private void addBufferedRecord(Integer beaconID, BeaconCacheRecord record, boolean isAction) {
+        Map<Integer, RecordBuffer> buffers = threadLocalBuffers.get();
+        while (true) {
+            RecordBuffer buffer = buffers.get(beaconID);
+            if (buffer == null || buffer.isDiscarded()) {
+                removeDiscardedBuffers(buffers);
+                buffer = createBuffer(beaconID);
+                buffers.put(beaconID, buffer);
+            }
+
+            synchronized (buffer) {
+                if (buffer.isDiscarded()) {
+                    // entry has been deleted in the meantime, retry with a new one
+                    continue;
+                }
+                record.setSequenceNumber(buffer.getEntry().nextSequenceNumber());
+                buffer.add(record, isAction);
+                if (buffer.isFull() || buffer.isExpired(record.getTimestamp(), threadLocalBufferMaxDelay)) {
+                    flushBuffer(beaconID, buffer);
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Create a new buffer and register it for the cache entry of the given beacon.
+     */
+    private RecordBuffer createBuffer(Integer beaconID) {
+        while (true) {
+            BeaconCacheEntry entry = getCachedEntryOrInsert(beaconID);
+            RecordBuffer buffer = new RecordBuffer(entry, threadLocalBufferCapacity);
+            boolean isRegistered;
+            try {
+                entry.lock();
+                isRegistered = entry.registerBuffer(buffer);
+            } finally {
+                entry.unlock();
+            }
+            if (isRegistered) {
+                return buffer;
+            }
+            // entry has been deleted after it was retrieved, retry
+        }
+    }
+
+    private static void removeDiscardedBuffers(Map<Integer, RecordBuffer> buffers) {
+        Iterator<RecordBuffer> iterator = buffers.values().iterator();
+        while (iterator.hasNext()) {
+            RecordBuffer buffer = iterator.next();
+            synchronized (buffer) {
+                if (buffer.isDiscarded()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Add all records of the given buffer to its entry in a single batch.
+     *
+     * <p>
+     * The caller must hold the buffer's monitor.
+     * </p>
+     */
+    private void flushBuffer(Integer beaconID, RecordBuffer buffer) {
+        BeaconCacheEntry entry = buffer.getEntry();
+        long numBytesAdded = 0;
+        int numRecordsRejected = 0;
+        try {
+            entry.lock();
+            if (entry.isDeleted()) {
+                buffer.discard();
+                return;
+            }
+            for (int i = 0; i < buffer.size(); i++) {
+                BeaconCacheRecord record = buffer.getRecord(i);
+                if (!isWithinSessionQuota(entry, record)) {
+                    numRecordsRejected++;
+                    continue;
+                }
+                if (buffer.isActionRecord(i)) {
+                    entry.addActionData(record);
+                } else {
+                    entry.addEventData(record);
+                }
+                numBytesAdded += heapSizeModel.getRecordSizeInBytes(record);
+            }
+        } finally {
+            entry.unlock();
+        }
+        buffer.clear();
+
+        for (int i = 0; i < numRecordsRejected; i++) {
+            onRecordRejected(beaconID);
+        }
+        if (numBytesAdded > 0) {
+            cacheSizeInBytes.add(numBytesAdded);
+            onDataAdded();
+        }
+    }
+
+    /**
+     * Flush all thread-local buffers of the given entry.
+     *
+     * <p>
+     * The caller must not hold the entry lock, since the buffers' monitors are acquired first.
+     * </p>
+     */
+    private void flushBuffers(Integer beaconID, BeaconCacheEntry entry) {
+        if (!isBufferingEnabled()) {
+            return;
+        }
+        for (RecordBuffer buffer : entry.getBuffers()) {
+            synchronized (buffer) {
+                if (!buffer.isEmpty() && !buffer.isDiscarded()) {
+                    flushBuffer(beaconID, buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test if the given record fits into the session's quota and mark it as rejected otherwise.
+     *
+     * <p>
+     * {@link RecordPriority#CRITICAL Critical} records, like session end and crashes, are never rejected,
+     * so that the server always learns about them, even if the session exceeds its quota.
+     * </p>
+     *
+     * <p>
+     * The caller must hold the entry's lock.
+     * </p>
+     */
+    private boolean isWithinSessionQuota(BeaconCacheEntry entry, BeaconCacheRecord record) {
+        if (sessionQuotaInBytes <= 0
+            || record.getPriority() == RecordPriority.CRITICAL
+            || entry.getTotalNumberOfBytes() + heapSizeModel.getRecordSizeInBytes(record) <= sessionQuotaInBytes) {
+            return true;
+        }
+
+        entry.recordRejected();
+        return false;
+    }
+
+    private void onRecordRejected(Integer beaconID) {
+        numRejectedRecords.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " rejected record for sn=" + beaconID + " - session quota of "
+                + sessionQuotaInBytes + " bytes exceeded");
+        }
+    }
+
     @Override
     public void deleteCacheEntry(Integer beaconID) {
         if (logger.isDebugEnabled()) {
@@ -125,7 +418,24 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
         }
 
         if (entry != null) {
-            cacheSizeInBytes.addAndGet(-1L * entry.getTotalNumberOfBytes());
+            long numBytes;
+            try {
+                entry.lock();
+                entry.markDeleted();
+                numBytes = entry.getTotalNumberOfBytes();
+            } finally {
+                entry.unlock();
+            }
+            for (RecordBuffer buffer : entry.getBuffers()) {
+                synchronized (buffer) {
+                    buffer.discard();
+                }
+            }
+            cacheSizeInBytes.add(-1L * (numBytes + heapSizeModel.getEntryOverheadInBytes()));
+            if (entry.getNumRejectedRecords() > 0 && logger.isInfoEnabled()) {
+                logger.info(getClass().getSimpleName() + " deleteCacheEntry(sn=" + beaconID + ") - "
+                    + entry.getNumRejectedRecords() + " records have been rejected due to the session quota");
+            }
         }
     }
 
@@ -141,6 +451,7 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
 
         if (entry.needsDataCopyBeforeChunking()) {
             // both entries are null, prepare data for sending
+            flushBuffers(beaconID, entry);
             long numBytes;
             try {
                 entry.lock();
@@ -151,7 +462,7 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
                 entry.unlock();
             }
             // assumption: sending will work fine, and everything we copied will be removed quite soon
-            cacheSizeInBytes.addAndGet(-1L * numBytes);
+            cacheSizeInBytes.add(-1L * numBytes);
         }
 
         // data for chunking is available
@@ -191,7 +502,7 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
             entry.unlock();
         }
 
-        cacheSizeInBytes.addAndGet(numBytes);
+        cacheSizeInBytes.add(numBytes);
 
         // notify observers
         onDataAdded();
@@ -215,8 +526,9 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
                 globalCacheLock.writeLock().lock();
                 if (!beacons.containsKey(beaconID)) {
                     // double check since this could have been added in the mean time
-                    entry = new BeaconCacheEntry();
+                    entry = new BeaconCacheEntry(heapSizeModel);
                     beacons.put(beaconID, entry);
+                    cacheSizeInBytes.add(heapSizeModel.getEntryOverheadInBytes());
                 } else {
                     entry = beacons.get(beaconID);
                 }
@@ -247,6 +559,7 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
             return new String[0];
         }
 
+        flushBuffers(beaconID, entry);
         try {
             entry.lock();
             return extractData(entry.getEventData());
@@ -291,6 +604,7 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
             return new String[0];
         }
 
+        flushBuffers(beaconID, entry);
         try {
             entry.lock();
             return extractData(entry.getActionData());
@@ -372,13 +686,18 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
         }
 
         int numRecordsRemoved;
+        long numBytesRemoved;
         try {
             entry.lock();
+            long oldSize = entry.getTotalNumberOfBytes();
             numRecordsRemoved = entry.removeRecordsOlderThan(minTimestamp);
+            numBytesRemoved = oldSize - entry.getTotalNumberOfBytes();
         } finally {
             entry.unlock();
         }
 
+        cacheSizeInBytes.add(-1L * numBytesRemoved);
+
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " evictRecordsByAge(sn=" + beaconID + ", minTimestamp=" + minTimestamp + ") has evicted "
                     + numRecordsRemoved + " records");
@@ -397,13 +716,18 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
         }
 
         int numRecordsRemoved;
+        long numBytesRemoved;
         try {
             entry.lock();
+            long oldSize = entry.getTotalNumberOfBytes();
             numRecordsRemoved = entry.removeOldestRecords(numRecords);
+            numBytesRemoved = oldSize - entry.getTotalNumberOfBytes();
         } finally {
             entry.unlock();
         }
 
+        cacheSizeInBytes.add(-1L * numBytesRemoved);
+
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " evictRecordsByNumber(sn=" + beaconID + ", numRecords=" + numRecords + ") has evicted "
                     + numRecordsRemoved + " records");
@@ -411,17 +735,107 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
         return numRecordsRemoved;
     }
 
+    @Override
+    public int sealRecords(Integer beaconID, long idleSinceTimestamp) {
+
+        BeaconCacheEntry entry = getCachedEntry(beaconID);
+        if (entry == null) {
+            // already removed
+            return 0;
+        }
+
+        int numRecordsSealed = 0;
+        long numBytesRemoved = 0;
+        try {
+            entry.lock();
+            if (entry.getNewestRecordTimestamp() < idleSinceTimestamp) {
+                long oldSize = entry.getTotalNumberOfBytes();
+                numRecordsSealed = entry.sealRecords();
+                numBytesRemoved = oldSize - entry.getTotalNumberOfBytes();
+            }
+        } finally {
+            entry.unlock();
+        }
+
+        cacheSizeInBytes.add(-1L * numBytesRemoved);
+
+        if (numRecordsSealed > 0 && logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " sealRecords(sn=" + beaconID + ") has sealed "
+                    + numRecordsSealed + " records, saving " + numBytesRemoved + " bytes");
+        }
+        return numRecordsSealed;
+    }
+
     @Override
     public long getNumBytesInCache() {
-        return cacheSizeInBytes.get();
+        return cacheSizeInBytes.sum();
+    }
+
+    @Override
+    public long getNumBytesInCache(Integer beaconID) {
+
+        BeaconCacheEntry entry = getCachedEntry(beaconID);
+        if (entry == null) {
+            // already removed
+            return 0L;
+        }
+
+        try {
+            entry.lock();
+            return entry.getTotalNumberOfBytes();
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    @Override
+    public int getNumRejectedRecords(Integer beaconID) {
+
+        BeaconCacheEntry entry = getCachedEntry(beaconID);
+        if (entry == null) {
+            // already removed
+            return 0;
+        }
+
+        try {
+            entry.lock();
+            return entry.getNumRejectedRecords();
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    /**
+     * Get the total number of records rejected due to the session quota, over all sessions.
+     *
+     * @return Total number of rejected records.
+     */
+    public long getTotalNumRejectedRecords() {
+        return numRejectedRecords.sum();
     }
 
     /**
      * Call this method when something was added (size of cache increased).
+     *
+     * <p>
+     * If another thread is notifying the observers already, only a flag is set and that thread notifies
+     * the observers again, after its current notification is done. Therefore each insert is followed by
+     * a notification, but concurrent inserts don't contend on the observers' monitors.
+     * </p>
      */
     private void onDataAdded() {
-        setChanged();
-        notifyObservers();
+        dataAddedWhileNotifying = true;
+        if (notifyingObservers.get() || !notifyingObservers.compareAndSet(false, true)) {
+            // the notifying thread notifies again
+            return;
+        }
+
+        do {
+            dataAddedWhileNotifying = false;
+            setChanged();
+            notifyObservers();
+            notifyingObservers.set(false);
+        } while (dataAddedWhileNotifying && notifyingObservers.compareAndSet(false, true));
     }
 
     @Override
@@ -433,6 +847,7 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
             return true;
         }
 
+        flushBuffers(beaconID, entry);
         boolean isEmpty;
         try {
             entry.lock();
@@ -443,4 +858,14 @@ public class BeaconCacheImpl extends Observable implements BeaconCache {
 
         return isEmpty;
     }
+
+    /**
+     * Thread-local map of each thread's buffers, keyed by beacon ID.
+     */
+    private static final class RecordBuffers extends ThreadLocal<Map<Integer, RecordBuffer>> {
+        @Override
+        protected Map<Integer, RecordBuffer> initialValue() {
+            return new HashMap<Integer, RecordBuffer>();
+        }
+    }
 }
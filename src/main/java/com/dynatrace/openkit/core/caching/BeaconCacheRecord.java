@@ -25,7 +25,9 @@ import java.util.Arrays;
  * A record is described by
  * <ol>
  * <li>The timestamp when it was created/ended</li>
- * <li>Serialized data</li>
+ * <li>Serialized data, or data which is serialized when it's retrieved ({@link DeferredRecordData})</li>
+ * <li>The {@link RecordPriority} defining the eviction order</li>
+ * <li>A sequence number per {@link BeaconCacheEntry}, defining the order in which records are sent</li>
  * </ol>
  * </p>
  */
@@ -34,18 +36,64 @@ class BeaconCacheRecord {
     private static final long CHAR_SIZE_BYTES = 2L;
 
     private final long timestamp;
-    private final String data;
+    private final RecordPriority priority;
+    private String data;
+    private DeferredRecordData deferredData;
+    /** Size of the deferred data, which is estimated once, so that adding and removing the record account the same size */
+    private long deferredDataSizeInBytes;
+    private long sequenceNumber = 0;
     private boolean markedForSending = false;
+    private boolean evicted = false;
 
     /**
-     * Create a new {@link BeaconCacheRecord}
+     * Create a new {@link BeaconCacheRecord} with {@link RecordPriority#NORMAL normal} priority.
      *
      * @param timestamp Timestamp for this record.
      * @param data      Data to store for this record.
      */
     BeaconCacheRecord(long timestamp, String data) {
+        this(timestamp, RecordPriority.NORMAL, data);
+    }
+
+    /**
+     * Create a new {@link BeaconCacheRecord}
+     *
+     * @param timestamp Timestamp for this record.
+     * @param priority  Priority of this record.
+     * @param data      Data to store for this record.
+     */
+    BeaconCacheRecord(long timestamp, RecordPriority priority, String data) {
+        this(timestamp, priority, data, null);
+    }
+
+    private BeaconCacheRecord(long timestamp, RecordPriority priority, String data, DeferredRecordData deferredData) {
         this.timestamp = timestamp;
+        this.priority = priority;
         this.data = data;
+        this.deferredData = deferredData;
+        deferredDataSizeInBytes = deferredData == null ? 0L : deferredData.getDataSizeInBytes();
+    }
+
+    /**
+     * Create a new {@link BeaconCacheRecord} with {@link RecordPriority#NORMAL normal} priority,
+     * where serialization is deferred until the data is retrieved.
+     *
+     * @param timestamp    Timestamp for this record.
+     * @param deferredData Data to store for this record.
+     */
+    static BeaconCacheRecord deferred(long timestamp, DeferredRecordData deferredData) {
+        return deferred(timestamp, RecordPriority.NORMAL, deferredData);
+    }
+
+    /**
+     * Create a new {@link BeaconCacheRecord}, where serialization is deferred until the data is retrieved.
+     *
+     * @param timestamp    Timestamp for this record.
+     * @param priority     Priority of this record.
+     * @param deferredData Data to store for this record.
+     */
+    static BeaconCacheRecord deferred(long timestamp, RecordPriority priority, DeferredRecordData deferredData) {
+        return new BeaconCacheRecord(timestamp, priority, null, deferredData);
     }
 
     /**
@@ -55,30 +103,77 @@ class BeaconCacheRecord {
         return timestamp;
     }
 
+    /**
+     * Get priority.
+     */
+    RecordPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Get the sequence number, which is {@code 0} if it has not been assigned yet.
+     */
+    long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * Set the sequence number.
+     */
+    void setSequenceNumber(long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
     /**
      * Get data.
+     *
+     * <p>
+     * If serialization has been deferred, the data is serialized on each call.
+     * </p>
      */
     String getData() {
+        if (deferredData != null) {
+            return deferredData.serialize();
+        }
         return data;
     }
 
+    /**
+     * Get the serialized data, or {@code null} if serialization has been deferred or the record has been evicted.
+     */
+    String getSerializedData() {
+        return data;
+    }
+
+    /**
+     * Get the deferred data, or {@code null} if the data has been serialized or the record has been evicted.
+     */
+    DeferredRecordData getDeferredData() {
+        return deferredData;
+    }
+
     /**
      * Get data size estimation of this record.
      *
      * <p>
-     * Note that this is just a very rough estimation required for cache eviction.
+     * Note that this is just a very rough estimation of the record's data, which omits any other information like
+     * the timestamp, any references and so on. The cache itself uses the {@link HeapSizeModel} instead,
+     * which also takes the structural overhead into account.
      *
-     * It's sufficient to approximate the bytes required by the string and omit any other information like
-     * the timestamp, any references and so on.
+     * For deferred data the estimation provided by {@link DeferredRecordData#getDataSizeInBytes()} is used,
+     * which is queried once when the record is created.
      * </p>
      *
      * @return Data size in bytes.
      */
     long getDataSizeInBytes() {
-        if (getData() == null) {
+        if (deferredData != null) {
+            return deferredDataSizeInBytes;
+        }
+        if (data == null) {
             return 0;
         }
-        return getData().length() * CHAR_SIZE_BYTES;
+        return data.length() * CHAR_SIZE_BYTES;
     }
 
     /**
@@ -104,6 +199,29 @@ class BeaconCacheRecord {
         markedForSending = false;
     }
 
+    /**
+     * Test if this record has been evicted.
+     *
+     * @return {@code true} if this record has been evicted, {@code false} otherwise.
+     */
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    /**
+     * Mark this record as evicted and release its data.
+     *
+     * <p>
+     * Evicted records might still be referenced until they are unlinked from the cache entry's lists,
+     * therefore only a small tombstone is retained.
+     * </p>
+     */
+    void evict() {
+        evicted = true;
+        data = null;
+        deferredData = null;
+    }
+
     @Override
     public boolean equals(Object o) {
 
@@ -114,13 +232,19 @@ class BeaconCacheRecord {
             return false;
         }
         BeaconCacheRecord record = (BeaconCacheRecord) o;
-        return getTimestamp() == record.getTimestamp() && isMarkedForSending() == record.isMarkedForSending() && getData()
-            .equals(record.getData());
+        return getTimestamp() == record.getTimestamp()
+            && isMarkedForSending() == record.isMarkedForSending()
+            && equal(data, record.data)
+            && equal(deferredData, record.deferredData);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
     }
 
     @Override
     public int hashCode() {
 
-        return Arrays.hashCode(new Object[]{getTimestamp(), getData(), isMarkedForSending()});
+        return Arrays.hashCode(new Object[]{getTimestamp(), data, deferredData, isMarkedForSending()});
     }
 }
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.providers.TimingProvider;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Compression strategy for the beacon cache.
+ *
+ * <p>
+ * This strategy does not delete any data, but seals the records of all beacons, which did not
+ * add any data for a certain idle time, into compressed blocks. This reduces the number of bytes
+ * in the {@link BeaconCache}, so that the {@link SpaceEvictionStrategy} has to evict less data.
+ * </p>
+ */
+class CompressionStrategy implements BeaconCacheEvictionStrategy {
+
+    private final Logger logger;
+    private final BeaconCache beaconCache;
+    private final BeaconCacheConfiguration configuration;
+    private final TimingProvider timingProvider;
+
+    private long lastRunTimestamp = -1;
+    private boolean infoShown = false;
+
+    /**
+     * Constructor.
+     *
+     * @param logger Instance implementing the {@link Logger} interface for writing some useful debug messages.
+     * @param beaconCache The beacon cache to compress if necessary.
+     * @param configuration The configuration providing the idle time for this strategy.
+     * @param timingProvider Timing provider required for time retrieval.
+     */
+    CompressionStrategy(Logger logger, BeaconCache beaconCache, BeaconCacheConfiguration configuration, TimingProvider timingProvider) {
+        this.logger = logger;
+        this.beaconCache = beaconCache;
+        this.configuration = configuration;
+        this.timingProvider = timingProvider;
+    }
+
+    @Override
+    public void execute() {
+
+        if (isStrategyDisabled()) {
+            // immediately return if this strategy is disabled
+            if (!infoShown && logger.isInfoEnabled()) {
+                logger.info(getClass().getSimpleName() + " execute() - strategy is disabled");
+                // suppress any further log output
+                infoShown = true;
+            }
+            return;
+        }
+
+        if (lastRunTimestamp < 0) {
+            // first time execution
+            lastRunTimestamp = timingProvider.provideTimestampInMilliseconds();
+        }
+
+        if (shouldRun()) {
+            doExecute();
+        }
+    }
+
+    /**
+     * Checks if the strategy is disabled.
+     *
+     * <p>
+     * The strategy might be disabled on purpose, if the idle time is less than or equal to zero.
+     * </p>
+     *
+     * @return {@code true} if strategy is disabled, {@code false} otherwise.
+     */
+    boolean isStrategyDisabled() {
+        return configuration.getCompressionIdleTime() <= 0;
+    }
+
+    /**
+     * Get a boolean flag indicating whether the strategy shall be executed ({@link #doExecute()} is executed) or not.
+     *
+     * @return {@code true} if the strategy shall be executed, {@code false} otherwise.
+     */
+    boolean shouldRun() {
+        // no beacon can become idle more often than once per idle time
+        long currentTimestamp = timingProvider.provideTimestampInMilliseconds();
+        return (currentTimestamp - lastRunTimestamp) >= configuration.getCompressionIdleTime();
+    }
+
+    /**
+     * Get the timestamp when this strategy was executed last.
+     *
+     * @return A timestamp (the number of milliseconds elapsed, since 1970-01-01) when this strategy was last time executed.
+     */
+    long getLastRunTimestamp() {
+        return lastRunTimestamp;
+    }
+
+    /**
+     * Set the timestamp when this strategy was executed last.
+     *
+     * @param lastRunTimestamp A timestamp (the number of milliseconds elapsed, since 1970-01-01)
+     *                         when this strategy was last time executed.
+     */
+    void setLastRunTimestamp(long lastRunTimestamp) {
+        this.lastRunTimestamp = lastRunTimestamp;
+    }
+
+    /**
+     * Real strategy execution.
+     */
+    private void doExecute() {
+
+        long currentTimestamp = timingProvider.provideTimestampInMilliseconds();
+        long idleSinceTimestamp = currentTimestamp - configuration.getCompressionIdleTime();
+
+        // iterate over a snapshot of all inserted beacons and seal the idle ones
+        Set<Integer> beaconIDs = beaconCache.getBeaconIDs();
+        Iterator<Integer> beaconIDIterator = beaconIDs.iterator();
+        while (!Thread.currentThread().isInterrupted() && beaconIDIterator.hasNext()) {
+            Integer beaconID = beaconIDIterator.next();
+            int numRecordsSealed = beaconCache.sealRecords(beaconID, idleSinceTimestamp);
+            if (numRecordsSealed > 0 && logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " doExecute() - Sealed " + numRecordsSealed + " records from Beacon with ID " + beaconID);
+            }
+        }
+
+        setLastRunTimestamp(currentTimestamp);
+    }
+}
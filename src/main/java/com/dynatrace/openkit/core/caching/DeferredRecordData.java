@@ -0,0 +1,43 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+/**
+ * Beacon data stored in the {@link BeaconCache} in a compact, not yet serialized form.
+ *
+ * <p>
+ * Serialization into the beacon protocol's wire format is deferred until the data
+ * is retrieved for sending, which happens on OpenKit's sending thread.
+ * Data which is evicted from the cache before it's sent is never serialized at all.
+ * </p>
+ */
+public interface DeferredRecordData {
+
+    /**
+     * Serialize the data into the beacon protocol's wire format.
+     *
+     * @return Serialized data.
+     */
+    String serialize();
+
+    /**
+     * Get an estimation of the memory occupied by this data, as used for cache eviction.
+     *
+     * @return Data size in bytes.
+     */
+    long getDataSizeInBytes();
+}
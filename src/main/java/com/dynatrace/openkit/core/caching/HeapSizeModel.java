@@ -0,0 +1,245 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+
+/**
+ * Model estimating the heap memory retained by the {@link BeaconCacheImpl beacon cache}.
+ *
+ * <p>
+ * Besides the serialized data itself, each cached record also retains the record object, the list node,
+ * a slot in its priority queue and - for serialized data - the String object and its backing array.
+ * Since beacon records are typically small, this structural overhead is in the same order of magnitude
+ * as the data and must be taken into account, so that the cache's memory boundaries are meaningful.
+ * </p>
+ *
+ * <p>
+ * The model for the running JVM is calibrated by {@link #forCurrentJvm()}, using the JVM's pointer size,
+ * whether compressed object pointers are most likely used and whether Strings are stored compactly.
+ * All estimations include the 8 byte object alignment.
+ * </p>
+ */
+public final class HeapSizeModel {
+
+    /**
+     * Model which only counts two bytes per character and ignores any structural overhead.
+     *
+     * <p>
+     * This was the estimation used before the structural overhead has been taken into account.
+     * </p>
+     */
+    static final HeapSizeModel PAYLOAD_ONLY = new HeapSizeModel(0L, 0L, 0L, 0L, 0L, 2);
+
+    private static final long OBJECT_ALIGNMENT = 8L;
+    private static final long COMPRESSED_OOPS_MAX_HEAP = 32L * 1024L * 1024L * 1024L;
+
+    /** Bytes retained per record, excluding the record's data */
+    private final long recordOverheadInBytes;
+    /** Bytes retained by a String object and the header of its backing array, excluding the characters */
+    private final long stringOverheadInBytes;
+    /** Bytes retained by an array's header */
+    private final long arrayHeaderInBytes;
+    /** Bytes retained by a sealed block object, excluding the compressed data */
+    private final long blockOverheadInBytes;
+    /** Bytes retained per cache entry, excluding any record */
+    private final long entryOverheadInBytes;
+    /** Number of bytes stored per character */
+    private final int bytesPerChar;
+
+    HeapSizeModel(long recordOverheadInBytes,
+                  long stringOverheadInBytes,
+                  long arrayHeaderInBytes,
+                  long blockOverheadInBytes,
+                  long entryOverheadInBytes,
+                  int bytesPerChar) {
+        this.recordOverheadInBytes = recordOverheadInBytes;
+        this.stringOverheadInBytes = stringOverheadInBytes;
+        this.arrayHeaderInBytes = arrayHeaderInBytes;
+        this.blockOverheadInBytes = blockOverheadInBytes;
+        this.entryOverheadInBytes = entryOverheadInBytes;
+        this.bytesPerChar = bytesPerChar;
+    }
+
+    /**
+     * Create the model for the given configuration.
+     *
+     * <p>
+     * If the configuration does not specify a per record overhead, the model is calibrated
+     * for the running JVM, otherwise the configured value replaces the calibrated record and String overhead.
+     * </p>
+     *
+     * @param configuration The beacon cache configuration.
+     *
+     * @return The heap size model.
+     */
+    public static HeapSizeModel forConfiguration(BeaconCacheConfiguration configuration) {
+        HeapSizeModel model = forCurrentJvm();
+        if (configuration.getRecordOverheadInBytes() < 0) {
+            return model;
+        }
+
+        return new HeapSizeModel(configuration.getRecordOverheadInBytes(),
+            0L,
+            0L,
+            model.blockOverheadInBytes,
+            model.entryOverheadInBytes,
+            model.bytesPerChar);
+    }
+
+    /**
+     * Create the model calibrated for the running JVM.
+     *
+     * @return The heap size model.
+     */
+    public static HeapSizeModel forCurrentJvm() {
+        boolean is64Bit = !"32".equals(System.getProperty("sun.arch.data.model"));
+        boolean compressedOops = is64Bit && Runtime.getRuntime().maxMemory() < COMPRESSED_OOPS_MAX_HEAP;
+        boolean compactStrings = getJavaSpecificationVersion() >= 9;
+
+        return calibrate(is64Bit, compressedOops, compactStrings);
+    }
+
+    /**
+     * Calibrate the model for the given JVM characteristics.
+     *
+     * @param is64Bit {@code true} for a 64 bit JVM, {@code false} otherwise.
+     * @param compressedOops {@code true} if compressed object pointers are used, {@code false} otherwise.
+     * @param compactStrings {@code true} if Strings store Latin-1 characters in a single byte, {@code false} otherwise.
+     *
+     * @return The heap size model.
+     */
+    static HeapSizeModel calibrate(boolean is64Bit, boolean compressedOops, boolean compactStrings) {
+        long referenceSize = is64Bit && !compressedOops ? 8L : 4L;
+        long headerSize = is64Bit ? (compressedOops ? 12L : 16L) : 8L;
+        long arrayHeaderSize = align(headerSize + 4L);
+
+        // BeaconCacheRecord: timestamp, deferred data size and sequence number, 3 references, 2 booleans
+        long recordSize = align(headerSize + 3L * 8L + 3L * referenceSize + 2L);
+        // LinkedList.Node: item, next, prev
+        long listNodeSize = align(headerSize + 3L * referenceSize);
+        // ArrayDeque slot of the priority queue, which is at most half empty
+        long queueSlotSize = 2L * referenceSize;
+        // String: value reference, hash and with compact Strings the coder and hashIsZero flags
+        long stringSize = align(headerSize + referenceSize + 4L + (compactStrings ? 2L : 0L));
+        // SealedBlock: 3 ints, 1 long and 2 references
+        long blockSize = align(headerSize + 3L * 4L + 8L + 2L * referenceSize) + listNodeSize + queueSlotSize;
+
+        // BeaconCacheEntry with its lock, two lists and the priority queues, the map entry and the Integer key
+        long entrySize = align(headerSize + 9L * referenceSize + 3L * 8L + 2L * 4L)
+            + align(headerSize + 3L * referenceSize + 4L) + align(headerSize + 3L * 4L + 2L * referenceSize)
+            + 2L * align(headerSize + 2L * 4L + 2L * referenceSize + 4L)
+            + align(arrayHeaderSize + RecordPriority.values().length * referenceSize)
+            + align(headerSize + 4L + 3L * referenceSize) + align(headerSize + 4L);
+
+        return new HeapSizeModel(recordSize + listNodeSize + queueSlotSize,
+            stringSize + arrayHeaderSize,
+            arrayHeaderSize,
+            blockSize,
+            entrySize,
+            compactStrings ? 1 : 2);
+    }
+
+    private static int getJavaSpecificationVersion() {
+        String version = System.getProperty("java.specification.version", "1.6");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 6;
+        }
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1L) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    /**
+     * Get the estimated number of bytes retained by the given record.
+     *
+     * <p>
+     * Deferred data is estimated by {@link DeferredRecordData#getDataSizeInBytes()}.
+     * </p>
+     *
+     * @param record The record to estimate.
+     *
+     * @return Estimated number of bytes.
+     */
+    long getRecordSizeInBytes(BeaconCacheRecord record) {
+        long size = recordOverheadInBytes;
+        if (record.getDeferredData() != null) {
+            size += record.getDataSizeInBytes();
+        } else if (record.getSerializedData() != null) {
+            size += getStringSizeInBytes(record.getSerializedData().length());
+        }
+        return size;
+    }
+
+    /**
+     * Get the estimated number of bytes retained by a String of given length.
+     *
+     * @param length The String's length.
+     *
+     * @return Estimated number of bytes.
+     */
+    long getStringSizeInBytes(int length) {
+        long dataSize = (long) length * bytesPerChar;
+        if (stringOverheadInBytes == 0L) {
+            return dataSize;
+        }
+        return stringOverheadInBytes + align(arrayHeaderInBytes + dataSize) - arrayHeaderInBytes;
+    }
+
+    /**
+     * Get the estimated number of bytes retained by the given sealed block.
+     *
+     * @param block The block to estimate.
+     *
+     * @return Estimated number of bytes.
+     */
+    long getBlockSizeInBytes(SealedBlock block) {
+        long dataSize = block.getDataSizeInBytes();
+        if (blockOverheadInBytes == 0L) {
+            return dataSize;
+        }
+        return blockOverheadInBytes + align(arrayHeaderInBytes + dataSize);
+    }
+
+    /**
+     * Get the estimated number of bytes retained by a cache entry not containing any data.
+     */
+    long getEntryOverheadInBytes() {
+        return entryOverheadInBytes;
+    }
+
+    /**
+     * Get the estimated number of bytes retained per record, excluding its data.
+     */
+    long getRecordOverheadInBytes() {
+        return recordOverheadInBytes;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [recordOverhead=" + recordOverheadInBytes
+            + ", stringOverhead=" + stringOverheadInBytes
+            + ", entryOverhead=" + entryOverheadInBytes
+            + ", bytesPerChar=" + bytesPerChar + "]";
+    }
+}
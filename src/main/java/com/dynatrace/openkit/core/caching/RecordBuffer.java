@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+/**
+ * Small buffer of records, which are reported by a single thread for a single {@link BeaconCacheEntry}.
+ *
+ * <p>
+ * Records are appended by the owning thread and flushed to the entry as one batch. Besides the owning thread,
+ * the beacon sending thread flushes the buffer before data is sent. Therefore all access is guarded by the buffer's
+ * monitor, which is uncontended most of the time. The buffer's monitor is always acquired before the entry's lock.
+ * </p>
+ */
+final class RecordBuffer {
+
+    /** The entry, which is released once this buffer is discarded */
+    private BeaconCacheEntry entry;
+    private final BeaconCacheRecord[] records;
+    private final boolean[] isActionRecord;
+    private int size = 0;
+    private boolean discarded = false;
+
+    /**
+     * Create a buffer.
+     *
+     * @param entry The entry to which this buffer is flushed.
+     * @param capacity The maximum number of records in this buffer.
+     */
+    RecordBuffer(BeaconCacheEntry entry, int capacity) {
+        this.entry = entry;
+        records = new BeaconCacheRecord[capacity];
+        isActionRecord = new boolean[capacity];
+    }
+
+    /**
+     * Get the entry to which this buffer is flushed, or {@code null} if this buffer has been discarded.
+     */
+    BeaconCacheEntry getEntry() {
+        return entry;
+    }
+
+    /**
+     * Append a record to this buffer.
+     *
+     * <p>
+     * The caller must ensure the buffer is not {@link #isFull() full}.
+     * </p>
+     *
+     * @param record The record to append.
+     * @param isAction {@code true} if the record is action data, {@code false} if it's event data.
+     */
+    void add(BeaconCacheRecord record, boolean isAction) {
+        records[size] = record;
+        isActionRecord[size] = isAction;
+        size++;
+    }
+
+    /**
+     * Get the number of buffered records.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Test if the buffer is empty.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Test if no further record can be appended.
+     */
+    boolean isFull() {
+        return size == records.length;
+    }
+
+    /**
+     * Test if the oldest buffered record is at least {@code maxDelay} milliseconds older than the given timestamp.
+     *
+     * @param timestamp The current record's timestamp.
+     * @param maxDelay The maximum delay in milliseconds.
+     */
+    boolean isExpired(long timestamp, long maxDelay) {
+        return size > 0 && timestamp - records[0].getTimestamp() >= maxDelay;
+    }
+
+    /**
+     * Get the buffered record at the given index.
+     */
+    BeaconCacheRecord getRecord(int index) {
+        return records[index];
+    }
+
+    /**
+     * Test if the buffered record at the given index is action data.
+     */
+    boolean isActionRecord(int index) {
+        return isActionRecord[index];
+    }
+
+    /**
+     * Remove all buffered records.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            records[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Remove all buffered records and mark this buffer as discarded, since its entry has been deleted.
+     *
+     * <p>
+     * The reference to the entry is released as well. A discarded buffer stays in its writer thread's buffers
+     * until that thread creates the next buffer, and must not keep the deleted entry and its records reachable.
+     * </p>
+     */
+    void discard() {
+        clear();
+        entry = null;
+        discarded = true;
+    }
+
+    /**
+     * Test if this buffer has been discarded and must not be used any more.
+     */
+    boolean isDiscarded() {
+        return discarded;
+    }
+}
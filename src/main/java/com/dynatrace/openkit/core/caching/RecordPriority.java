@@ -0,0 +1,65 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.protocol.EventType;
+
+/**
+ * Priority of a {@link BeaconCacheRecord}, which defines the order in which records are evicted.
+ *
+ * <p>
+ * When records are evicted by number, all records of a lower priority are evicted before any record of a higher priority.
+ * Within the same priority the oldest records are evicted first.
+ * </p>
+ */
+public enum RecordPriority {
+
+    /** Reported values, named events and web requests, which are evicted first */
+    LOW,
+    /** Actions and user identification */
+    NORMAL,
+    /** Errors */
+    HIGH,
+    /** Session start, session end and crashes, which are evicted last */
+    CRITICAL;
+
+    /**
+     * Get the priority of records having the given event type.
+     *
+     * @param eventType The record's event type.
+     *
+     * @return The record's priority.
+     */
+    public static RecordPriority forEventType(EventType eventType) {
+        switch (eventType) {
+            case VALUE_STRING:
+            case VALUE_INT:
+            case VALUE_DOUBLE:
+            case NAMED_EVENT:
+            case WEBREQUEST:
+                return LOW;
+            case ERROR:
+                return HIGH;
+            case SESSION_START:
+            case SESSION_END:
+            case CRASH:
+                return CRITICAL;
+            default:
+                return NORMAL;
+        }
+    }
+}
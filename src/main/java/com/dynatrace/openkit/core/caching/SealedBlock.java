@@ -0,0 +1,247 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compressed block of {@link BeaconCacheRecord beacon cache records}.
+ *
+ * <p>
+ * Records of sessions which did not report any data for some time are sealed into such a block,
+ * since beacon data is very repetitive and compresses well. A block is only inflated again,
+ * when its data is about to be sent, and it's evicted as a whole.
+ * </p>
+ *
+ * <p>
+ * All records of a block have the same {@link RecordPriority}, so that evicting a block never removes
+ * records of a higher priority together with records of a lower one.
+ * </p>
+ *
+ * <p>
+ * Each record is stored with its timestamp, sequence number and priority, so that unsealed records can be handled
+ * like any other record, for example if sending fails.
+ * </p>
+ */
+final class SealedBlock {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final byte EVENT_RECORD = 0;
+    private static final byte ACTION_RECORD = 1;
+
+    private final byte[] compressedData;
+    private final int uncompressedSize;
+    private final int numRecords;
+    private final long newestTimestamp;
+    private final RecordPriority priority;
+
+    private SealedBlock(byte[] compressedData, int uncompressedSize, int numRecords, long newestTimestamp, RecordPriority priority) {
+        this.compressedData = compressedData;
+        this.uncompressedSize = uncompressedSize;
+        this.numRecords = numRecords;
+        this.newestTimestamp = newestTimestamp;
+        this.priority = priority;
+    }
+
+    /**
+     * Seal the given event and action records of the given priority into a new block.
+     *
+     * <p>
+     * Records which have been evicted or which have a different priority are skipped.
+     * </p>
+     *
+     * @param eventRecords Event records to seal, in the order they are sent.
+     * @param actionRecords Action records to seal, in the order they are sent.
+     * @param priority The priority of the records to seal.
+     *
+     * @return The sealed block or {@code null} if there is no record to seal.
+     */
+    static SealedBlock seal(List<BeaconCacheRecord> eventRecords, List<BeaconCacheRecord> actionRecords,
+                            RecordPriority priority) {
+
+        ByteArrayOutputStream uncompressed = new ByteArrayOutputStream(BUFFER_SIZE);
+        int numRecords = 0;
+        long newestTimestamp = Long.MIN_VALUE;
+
+        for (int i = 0; i < 2; i++) {
+            byte recordType = i == 0 ? EVENT_RECORD : ACTION_RECORD;
+            for (BeaconCacheRecord record : i == 0 ? eventRecords : actionRecords) {
+                if (record.isEvicted() || record.getPriority() != priority) {
+                    continue;
+                }
+                writeRecord(uncompressed, recordType, record);
+                numRecords++;
+                newestTimestamp = Math.max(newestTimestamp, record.getTimestamp());
+            }
+        }
+
+        if (numRecords == 0) {
+            return null;
+        }
+
+        byte[] uncompressedData = uncompressed.toByteArray();
+        return new SealedBlock(deflate(uncompressedData), uncompressedData.length, numRecords, newestTimestamp, priority);
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, byte recordType, BeaconCacheRecord record) {
+        byte[] data = record.getData().getBytes(CHARSET);
+
+        out.write(recordType);
+        out.write(record.getPriority().ordinal());
+        writeLong(out, record.getTimestamp());
+        writeLong(out, record.getSequenceNumber());
+        writeInt(out, data.length);
+        out.write(data, 0, data.length);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(data.length / 8, 64));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int numBytes = deflater.deflate(buffer);
+                compressed.write(buffer, 0, numBytes);
+            }
+
+            return compressed.toByteArray();
+        } finally {
+            // release native memory immediately
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflate this block and append its records to the given lists.
+     *
+     * @param eventRecords List to which the event records are appended.
+     * @param actionRecords List to which the action records are appended.
+     */
+    void unseal(List<BeaconCacheRecord> eventRecords, List<BeaconCacheRecord> actionRecords) {
+
+        byte[] data = inflate();
+        int offset = 0;
+        RecordPriority[] priorities = RecordPriority.values();
+
+        while (offset < data.length) {
+            byte recordType = data[offset];
+            RecordPriority recordPriority = priorities[data[offset + 1]];
+            long timestamp = readLong(data, offset + 2);
+            long sequenceNumber = readLong(data, offset + 10);
+            int length = readInt(data, offset + 18);
+            String recordData = new String(data, offset + 22, length, CHARSET);
+            offset += 22 + length;
+
+            BeaconCacheRecord record = new BeaconCacheRecord(timestamp, recordPriority, recordData);
+            record.setSequenceNumber(sequenceNumber);
+            if (recordType == EVENT_RECORD) {
+                eventRecords.add(record);
+            } else {
+                actionRecords.add(record);
+            }
+        }
+    }
+
+    private byte[] inflate() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressedData);
+
+            byte[] result = new byte[uncompressedSize];
+            int offset = 0;
+            while (offset < uncompressedSize && !inflater.finished()) {
+                offset += inflater.inflate(result, offset, uncompressedSize - offset);
+            }
+
+            return result;
+        } catch (DataFormatException e) {
+            // must not happen, since the data has been compressed by this class
+            throw new IllegalStateException("Sealed block is corrupted", e);
+        } finally {
+            // release native memory immediately
+            inflater.end();
+        }
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return ((long) readInt(data, offset) << 32) | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24)
+            | ((data[offset + 1] & 0xFF) << 16)
+            | ((data[offset + 2] & 0xFF) << 8)
+            | (data[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Get the size of this block in bytes, which is the size of the compressed data.
+     */
+    long getDataSizeInBytes() {
+        return compressedData.length;
+    }
+
+    /**
+     * Get the size of the sealed records' data before compression.
+     */
+    int getUncompressedSizeInBytes() {
+        return uncompressedSize;
+    }
+
+    /**
+     * Get the number of records sealed into this block.
+     */
+    int getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Get the timestamp of the newest record sealed into this block.
+     */
+    long getNewestTimestamp() {
+        return newestTimestamp;
+    }
+
+    /**
+     * Get the priority of all records sealed into this block.
+     */
+    RecordPriority getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.providers.TimingProvider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eviction thread shared by the beacon caches of multiple OpenKit instances, which keeps all caches
+ * within one common memory budget.
+ *
+ * <p>
+ * The time based eviction and compression are performed per cache, using each cache's own configuration.
+ * The space based eviction takes the total number of bytes of all caches into account: if it exceeds the upper boundary,
+ * each cache exceeding its fair share of the lower boundary is evicted down to that share, starting with the largest cache.
+ * Within a cache, the {@link SpaceEvictionStrategy} decides which sessions' records are evicted.
+ * </p>
+ */
+public class SharedBeaconCacheEvictor implements Observer {
+
+    private static final String THREAD_NAME = SharedBeaconCacheEvictor.class.getSimpleName();
+    private static final long EVICTION_THREAD_JOIN_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+
+    private final Logger logger;
+    private final long cacheSizeLowerBound;
+    private final long cacheSizeUpperBound;
+    private final Thread evictionThread;
+
+    /** All registered caches */
+    private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+
+    private final Object lockObject = new Object();
+    private boolean recordAdded = false;
+
+    /**
+     * Constructor.
+     *
+     * @param logger Logger to write some debug output
+     * @param cacheSizeLowerBound The total number of bytes to which the caches are evicted, if the upper boundary is exceeded.
+     * @param cacheSizeUpperBound The total number of bytes of all caches, which triggers the space based eviction.
+     */
+    public SharedBeaconCacheEvictor(Logger logger, long cacheSizeLowerBound, long cacheSizeUpperBound) {
+        this.logger = logger;
+        this.cacheSizeLowerBound = cacheSizeLowerBound;
+        this.cacheSizeUpperBound = cacheSizeUpperBound;
+        evictionThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runEviction();
+            }
+        }, THREAD_NAME);
+        evictionThread.setDaemon(true);
+    }
+
+    /**
+     * Register a beacon cache.
+     *
+     * @param beaconCache The Beacon cache to check if entries need to be evicted
+     * @param configuration The cache's configuration, providing the settings for time based eviction and compression.
+     * @param timingProvider Timing provider required for time retrieval
+     */
+    public void register(BeaconCache beaconCache, BeaconCacheConfiguration configuration, TimingProvider timingProvider) {
+        registrations.add(new Registration(beaconCache,
+            new TimeEvictionStrategy(logger, beaconCache, configuration, timingProvider),
+            new CompressionStrategy(logger, beaconCache, configuration, timingProvider)));
+        beaconCache.addObserver(this);
+    }
+
+    /**
+     * Unregister a beacon cache, which has been registered with {@link #register(BeaconCache, BeaconCacheConfiguration, TimingProvider)}.
+     *
+     * @param beaconCache The Beacon cache to unregister.
+     */
+    public void unregister(BeaconCache beaconCache) {
+        beaconCache.deleteObserver(this);
+        for (Registration registration : registrations) {
+            if (registration.beaconCache == beaconCache) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Starts the eviction thread.
+     *
+     * @return {@code true} if the eviction thread was started, {@code false} if the thread was already running.
+     */
+    public synchronized boolean start() {
+        if (evictionThread.isAlive()) {
+            return false;
+        }
+        evictionThread.start();
+        return true;
+    }
+
+    /**
+     * Stops the eviction thread via {@link Thread#interrupt()} and joins it.
+     *
+     * @return {@code true} if stopping was successful, {@code false} if eviction thread is not running
+     * or could not be stopped in time.
+     */
+    public synchronized boolean stop() {
+        if (!evictionThread.isAlive()) {
+            return false;
+        }
+        evictionThread.interrupt();
+        try {
+            evictionThread.join(EVICTION_THREAD_JOIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            logger.warning(getClass().getSimpleName() + " stop() - Stopping eviction thread was interrupted.");
+            Thread.currentThread().interrupt(); // re-interrupt the current thread
+        }
+        return !evictionThread.isAlive();
+    }
+
+    @Override
+    public void update(Observable o, Object arg) {
+        synchronized (lockObject) {
+            recordAdded = true;
+            lockObject.notifyAll();
+        }
+    }
+
+    private void runEviction() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " run() - eviction thread started");
+        }
+
+        while (!Thread.currentThread().isInterrupted()) {
+            synchronized (lockObject) {
+                try {
+                    while (!recordAdded) {
+                        lockObject.wait();
+                    }
+                } catch (InterruptedException e) {
+                    // re-interrupt the current thread
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                // reset the added flag
+                recordAdded = false;
+            }
+
+            for (Registration registration : registrations) {
+                registration.timeEvictionStrategy.execute();
+                registration.compressionStrategy.execute();
+            }
+            evictToSharedBudget();
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " run() - thread is stopped");
+        }
+    }
+
+    /**
+     * Evict the caches exceeding their fair share, if the total number of bytes exceeds the upper boundary.
+     */
+    void evictToSharedBudget() {
+
+        if (cacheSizeLowerBound <= 0 || cacheSizeUpperBound < cacheSizeLowerBound) {
+            // strategy is disabled
+            return;
+        }
+
+        List<Registration> snapshot = new ArrayList<Registration>(registrations);
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        long numBytesInCaches = 0;
+        for (Registration registration : snapshot) {
+            registration.numBytesInCache = registration.beaconCache.getNumBytesInCache();
+            numBytesInCaches += registration.numBytesInCache;
+        }
+        if (numBytesInCaches <= cacheSizeUpperBound) {
+            return;
+        }
+
+        Collections.sort(snapshot, new Comparator<Registration>() {
+            @Override
+            public int compare(Registration lhs, Registration rhs) {
+                // largest cache first
+                return lhs.numBytesInCache < rhs.numBytesInCache ? 1 : (lhs.numBytesInCache == rhs.numBytesInCache ? 0 : -1);
+            }
+        });
+
+        long fairShare = cacheSizeLowerBound / snapshot.size();
+        BeaconCacheConfiguration fairShareConfiguration = new BeaconCacheConfiguration(-1, fairShare, fairShare);
+        for (Registration registration : snapshot) {
+            if (Thread.currentThread().isInterrupted() || registration.numBytesInCache <= fairShare) {
+                break;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " evictToSharedBudget() - Evicting cache with " + registration.numBytesInCache
+                    + " bytes to " + fairShare + " bytes");
+            }
+            new SpaceEvictionStrategy(logger, registration.beaconCache, fairShareConfiguration).execute();
+        }
+    }
+
+    /**
+     * A registered beacon cache together with its strategies.
+     */
+    private static final class Registration {
+
+        private final BeaconCache beaconCache;
+        private final BeaconCacheEvictionStrategy timeEvictionStrategy;
+        private final BeaconCacheEvictionStrategy compressionStrategy;
+        /** Number of bytes snapshotted by the eviction thread */
+        private long numBytesInCache;
+
+        private Registration(BeaconCache beaconCache, BeaconCacheEvictionStrategy timeEvictionStrategy,
+                             BeaconCacheEvictionStrategy compressionStrategy) {
+            this.beaconCache = beaconCache;
+            this.timeEvictionStrategy = timeEvictionStrategy;
+            this.compressionStrategy = compressionStrategy;
+        }
+    }
+}
@@ -19,8 +19,12 @@ package com.dynatrace.openkit.core.caching;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,6 +35,13 @@ import java.util.Set;
  * This strategy checks if the number of cached bytes is greater than {@link BeaconCacheConfiguration#getCacheSizeLowerBound()}
  * and in this case runs the strategy.
  * </p>
+ *
+ * <p>
+ * Each session's fair share is the lower boundary divided by the number of sessions.
+ * Records are evicted first from the sessions exceeding their fair share the most, so that small sessions
+ * are not punished for a single session producing lots of data. Only if no session exceeds its fair share,
+ * one record after the other is evicted from all sessions in a round robin manner.
+ * </p>
  */
 class SpaceEvictionStrategy implements BeaconCacheEvictionStrategy {
 
@@ -110,11 +121,22 @@ class SpaceEvictionStrategy implements BeaconCacheEvictionStrategy {
 
         Map<Integer, Integer> removedRecordsPerBeacon = new HashMap<Integer, Integer>();
 
-        while (!Thread.currentThread().isInterrupted()
-            && beaconCache.getNumBytesInCache() > configuration.getCacheSizeLowerBound()) {
+        long previousNumBytesInCache = Long.MAX_VALUE;
+        while (!Thread.currentThread().isInterrupted()) {
+
+            long numBytesInCache = beaconCache.getNumBytesInCache();
+            if (numBytesInCache <= configuration.getCacheSizeLowerBound() || numBytesInCache >= previousNumBytesInCache) {
+                // either done, or the remaining bytes are structural overhead or data being sent, which cannot be evicted
+                break;
+            }
+            previousNumBytesInCache = numBytesInCache;
 
             Set<Integer> beaconIDs = beaconCache.getBeaconIDs();
 
+            if (evictFromSessionsExceedingFairShare(beaconIDs, removedRecordsPerBeacon)) {
+                continue;
+            }
+
             Iterator<Integer> iterator = beaconIDs.iterator();
             while (!Thread.currentThread().isInterrupted()
                 && iterator.hasNext()
@@ -125,14 +147,7 @@ class SpaceEvictionStrategy implements BeaconCacheEvictionStrategy {
                 // remove 1 record from Beacon cache for given beaconID
                 // the result is the number of records removed, which might be in range [0, numRecords=1]
                 int numRecordsRemoved = beaconCache.evictRecordsByNumber(beaconID, 1);
-
-                if (logger.isDebugEnabled()) {
-                    if (!removedRecordsPerBeacon.containsKey(beaconID)) {
-                        removedRecordsPerBeacon.put(beaconID, numRecordsRemoved);
-                    } else {
-                        removedRecordsPerBeacon.put(beaconID, removedRecordsPerBeacon.get(beaconID) + numRecordsRemoved);
-                    }
-                }
+                countRemovedRecords(removedRecordsPerBeacon, beaconID, numRecordsRemoved);
             }
         }
 
@@ -142,4 +157,70 @@ class SpaceEvictionStrategy implements BeaconCacheEvictionStrategy {
             }
         }
     }
+
+    /**
+     * Evict records from all sessions exceeding their fair share, starting with the session having the largest excess.
+     *
+     * @param beaconIDs The IDs of all sessions currently in the cache.
+     * @param removedRecordsPerBeacon Map counting the removed records per session for debug logging.
+     *
+     * @return {@code true} if at least one record has been evicted, {@code false} otherwise.
+     */
+    private boolean evictFromSessionsExceedingFairShare(Set<Integer> beaconIDs, Map<Integer, Integer> removedRecordsPerBeacon) {
+
+        if (beaconIDs.isEmpty()) {
+            return false;
+        }
+
+        long fairShare = configuration.getCacheSizeLowerBound() / beaconIDs.size();
+
+        // snapshot the sessions exceeding their fair share
+        final Map<Integer, Long> excessPerBeacon = new HashMap<Integer, Long>();
+        for (Integer beaconID : beaconIDs) {
+            long excess = beaconCache.getNumBytesInCache(beaconID) - fairShare;
+            if (excess > 0) {
+                excessPerBeacon.put(beaconID, excess);
+            }
+        }
+        if (excessPerBeacon.isEmpty()) {
+            return false;
+        }
+
+        List<Integer> orderedBeaconIDs = new ArrayList<Integer>(excessPerBeacon.keySet());
+        Collections.sort(orderedBeaconIDs, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                // largest excess first
+                return excessPerBeacon.get(rhs).compareTo(excessPerBeacon.get(lhs));
+            }
+        });
+
+        boolean anyRecordRemoved = false;
+        for (Integer beaconID : orderedBeaconIDs) {
+            while (!Thread.currentThread().isInterrupted()
+                && beaconCache.getNumBytesInCache() > configuration.getCacheSizeLowerBound()
+                && beaconCache.getNumBytesInCache(beaconID) > fairShare) {
+
+                int numRecordsRemoved = beaconCache.evictRecordsByNumber(beaconID, 1);
+                if (numRecordsRemoved == 0) {
+                    // nothing left to evict, e.g. because all data is currently being sent
+                    break;
+                }
+                countRemovedRecords(removedRecordsPerBeacon, beaconID, numRecordsRemoved);
+                anyRecordRemoved = true;
+            }
+        }
+
+        return anyRecordRemoved;
+    }
+
+    private void countRemovedRecords(Map<Integer, Integer> removedRecordsPerBeacon, Integer beaconID, int numRecordsRemoved) {
+        if (logger.isDebugEnabled()) {
+            if (!removedRecordsPerBeacon.containsKey(beaconID)) {
+                removedRecordsPerBeacon.put(beaconID, numRecordsRemoved);
+            } else {
+                removedRecordsPerBeacon.put(beaconID, removedRecordsPerBeacon.get(beaconID) + numRecordsRemoved);
+            }
+        }
+    }
 }
@@ -22,7 +22,7 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * State where no data is captured. Periodically issues a status request to check if capturing shall be re-enabled.
- * The check interval is defined in {@link BeaconSendingCaptureOffState#INITIAL_RETRY_SLEEP_TIME_MILLISECONDS}.
+ * The check interval is defined in {@link BeaconSendingCaptureOffState#STATUS_CHECK_INTERVAL}.
  *
  * <p>
  * Transition to:
@@ -38,7 +38,6 @@ class BeaconSendingCaptureOffState extends AbstractBeaconSendingState {
      * number of retries for the status request
      */
     private static final int STATUS_REQUEST_RETRIES = 5;
-    private static final long INITIAL_RETRY_SLEEP_TIME_MILLISECONDS = TimeUnit.SECONDS.toMillis(1);
 
     /**
      * maximum time to wait till next status check
@@ -50,6 +49,11 @@ class BeaconSendingCaptureOffState extends AbstractBeaconSendingState {
      */
     final long sleepTimeInMilliseconds;
 
+    /**
+     * Retries of the current status request, kept to continue with the next retry after a deferred sleep.
+     */
+    private final BeaconSendingRequestUtil.RetryProgress statusRequestRetryProgress = new BeaconSendingRequestUtil.RetryProgress();
+
     /**
      * Create CaptureOff state with default sleep behavior.
      */
@@ -78,10 +82,12 @@ class BeaconSendingCaptureOffState extends AbstractBeaconSendingState {
         long delta = sleepTimeInMilliseconds > 0
             ? sleepTimeInMilliseconds
             : STATUS_CHECK_INTERVAL - (currentTime - context.getLastStatusCheckTime());
-        if (delta > 0 && !context.isShutdownRequested()) {
+        // the status check interval has been waited for already, if this state is continuing its retries
+        if (delta > 0 && !context.isShutdownRequested() && !statusRequestRetryProgress.isInProgress()) {
             context.sleep(delta);
         }
-        StatusResponse statusResponse = BeaconSendingRequestUtil.sendStatusRequest(context, STATUS_REQUEST_RETRIES, INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
+        StatusResponse statusResponse = BeaconSendingRequestUtil.sendStatusRequest(context, STATUS_REQUEST_RETRIES,
+            BeaconSendingRequestUtil.STATUS_REQUEST_RETRY_POLICY, statusRequestRetryProgress);
         handleStatusResponse(context, statusResponse);
 
         // update the last status check time in any case
@@ -19,6 +19,7 @@ package com.dynatrace.openkit.core.communication;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
 import com.dynatrace.openkit.protocol.StatusResponse;
 
+import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -31,9 +32,28 @@ import java.util.List;
  * <li>{@link BeaconSendingFlushSessionsState} on shutdown</li>
  * </ul>
  * </p>
+ *
+ * <p>
+ * While sending is suspended by the context's circuit breaker, no request is sent and data is only buffered
+ * in the beacon cache.
+ * </p>
+ *
+ * <p>
+ * Sessions targeted by an explicit flush request are sent without waiting for the send interval.
+ * The flush request is completed at the end of the sending cycle, even if sending was not possible.
+ * </p>
  */
 class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
 
+    /**
+     * Last successful new session response, which is reused for new sessions within the batch window.
+     */
+    private StatusResponse batchedNewSessionResponse = null;
+    /**
+     * Timestamp when {@link #batchedNewSessionResponse} has been received.
+     */
+    private long batchedNewSessionResponseTimestamp = -1;
+
     BeaconSendingCaptureOnState() {
         super(false);
     }
@@ -43,6 +63,29 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
 
         context.sleep();
 
+        FlushRequest flushRequest = context.takePendingFlushRequest();
+        try {
+            sendSessions(context, flushRequest);
+        } finally {
+            if (flushRequest != null) {
+                flushRequest.complete();
+            }
+        }
+    }
+
+    /**
+     * Send all sessions which are due in this sending cycle.
+     *
+     * @param context The state context.
+     * @param flushRequest The explicit flush request taken in this cycle, or {@code null} if there is none.
+     */
+    private void sendSessions(BeaconSendingContext context, FlushRequest flushRequest) {
+
+        if (context.isSendingSuspended()) {
+            // server is currently unavailable, keep the data in the beacon cache
+            return;
+        }
+
         // send new session request for all sessions that are new
         StatusResponse newSessionsResponse = sendNewSessionRequests(context);
         if (BeaconSendingResponseUtil.isTooManyRequestsResponse(newSessionsResponse)) {
@@ -51,7 +94,15 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             return;
         }
 
-        // send all finished sessions
+        // send open sessions holding errors or crashes right away, before any finished session
+        StatusResponse urgentSessionsResponse = sendUrgentOpenSessions(context);
+        if (BeaconSendingResponseUtil.isTooManyRequestsResponse(urgentSessionsResponse)) {
+            // server is currently overloaded, temporarily switch to capture off
+            context.setNextState(new BeaconSendingCaptureOffState(urgentSessionsResponse.getRetryAfterInMilliseconds()));
+            return;
+        }
+
+        // send all finished sessions, prioritized by the context
         StatusResponse finishedSessionsResponse = sendFinishedSessions(context);
         if (BeaconSendingResponseUtil.isTooManyRequestsResponse(finishedSessionsResponse)) {
             // server is currently overloaded, temporarily switch to capture off
@@ -59,6 +110,14 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             return;
         }
 
+        // send open sessions targeted by an explicit flush request
+        StatusResponse requestedSessionsResponse = sendRequestedOpenSessions(context, flushRequest);
+        if (BeaconSendingResponseUtil.isTooManyRequestsResponse(requestedSessionsResponse)) {
+            // server is currently overloaded, temporarily switch to capture off
+            context.setNextState(new BeaconSendingCaptureOffState(requestedSessionsResponse.getRetryAfterInMilliseconds()));
+            return;
+        }
+
         // check if we need to send open sessions & do it if necessary
         StatusResponse openSessionsResponse = sendOpenSessions(context);
         if (BeaconSendingResponseUtil.isTooManyRequestsResponse(openSessionsResponse)) {
@@ -71,8 +130,12 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
         StatusResponse lastStatusResponse = newSessionsResponse;
         if (openSessionsResponse != null) {
             lastStatusResponse = openSessionsResponse;
+        } else if (requestedSessionsResponse != null) {
+            lastStatusResponse = requestedSessionsResponse;
         } else if (finishedSessionsResponse != null) {
             lastStatusResponse = finishedSessionsResponse;
+        } else if (urgentSessionsResponse != null) {
+            lastStatusResponse = urgentSessionsResponse;
         }
 
         // handle the last statusResponse received (or null if none was received) from the server
@@ -92,6 +155,11 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
      */
     private StatusResponse sendNewSessionRequests(BeaconSendingContext context) {
 
+        long batchWindow = context.getNewSessionRequestBatchWindow();
+        if (batchWindow > 0) {
+            return sendBatchedNewSessionRequest(context, batchWindow);
+        }
+
         StatusResponse statusResponse = null;
         List<SessionWrapper> newSessions = context.getAllNewSessions();
 
@@ -104,6 +172,7 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             }
 
             statusResponse = context.getHTTPClient().sendNewSessionRequest();
+            context.recordResponse(statusResponse);
             if (BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
                 BeaconConfiguration newConfiguration = new BeaconConfiguration(statusResponse.getMultiplicity());
                 session.updateBeaconConfiguration(newConfiguration);
@@ -113,6 +182,97 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
             } else {
                 // any other unsuccessful response
                 session.decreaseNumNewSessionRequests();
+                if (context.isSendingSuspended()) {
+                    break;
+                }
+            }
+        }
+
+        return statusResponse;
+    }
+
+    /**
+     * Send a single new session request for all sessions where we currently don't have a multiplicity configuration.
+     *
+     * <p>
+     *     All new session responses carry the same multiplicity, therefore a successful response configures all
+     *     sessions waiting for their configuration. The response is reused for sessions created within the batch window,
+     *     without sending a further request. If the request fails, it is accounted to each waiting session.
+     * </p>
+     *
+     * @param context The state context.
+     * @param batchWindow The time in milliseconds a successful response is reused.
+     * @return The status response received, or {@code null} if no request has been sent.
+     */
+    private StatusResponse sendBatchedNewSessionRequest(BeaconSendingContext context, long batchWindow) {
+
+        List<SessionWrapper> waitingSessions = new LinkedList<SessionWrapper>();
+        for (SessionWrapper session : context.getAllNewSessions()) {
+            if (!session.canSendNewSessionRequest()) {
+                // already exceeded the maximum number of session requests, disable any further data collecting
+                session.updateBeaconConfiguration(new BeaconConfiguration(0));
+            } else {
+                waitingSessions.add(session);
+            }
+        }
+
+        if (waitingSessions.isEmpty()) {
+            return null;
+        }
+
+        StatusResponse statusResponse = null;
+        long currentTimestamp = context.getCurrentTimestamp();
+        if (batchedNewSessionResponse == null || currentTimestamp - batchedNewSessionResponseTimestamp > batchWindow) {
+            batchedNewSessionResponse = null;
+
+            statusResponse = context.getHTTPClient().sendNewSessionRequest();
+            context.recordResponse(statusResponse);
+            if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
+                // server is currently overloaded, return immediately
+                return statusResponse;
+            }
+            if (!BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
+                // any other unsuccessful response counts as failed attempt for each waiting session
+                for (SessionWrapper session : waitingSessions) {
+                    session.decreaseNumNewSessionRequests();
+                }
+                return statusResponse;
+            }
+
+            batchedNewSessionResponse = statusResponse;
+            batchedNewSessionResponseTimestamp = currentTimestamp;
+        }
+
+        for (SessionWrapper session : waitingSessions) {
+            session.updateBeaconConfiguration(new BeaconConfiguration(batchedNewSessionResponse.getMultiplicity()));
+        }
+
+        return statusResponse;
+    }
+
+    /**
+     * Send all open sessions holding errors or crashes, which have not been sent yet.
+     *
+     * <p>
+     *     These sessions are sent regardless of the send interval.
+     * </p>
+     *
+     * @param context The state's context
+     * @return The last status response received.
+     */
+    private StatusResponse sendUrgentOpenSessions(BeaconSendingContext context) {
+
+        StatusResponse statusResponse = null;
+
+        List<SessionWrapper> urgentSessions = context.getAllOpenAndConfiguredSessionsWithUrgentData();
+        for (SessionWrapper session : urgentSessions) {
+            if (session.isDataSendingAllowed()) {
+                statusResponse = session.sendBeacon(context.getHTTPClientProvider());
+                context.recordResponse(statusResponse);
+                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse) || context.isSendingSuspended()) {
+                    // server is currently overloaded or unavailable, return immediately
+                    break;
+                }
             }
         }
 
@@ -122,6 +282,10 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
     /**
      * Send all sessions which have been finished previously.
      *
+     * <p>
+     *     The sessions are sent in the order defined by {@link BeaconSendingScheduler}.
+     * </p>
+     *
      * @param context The state's context
      * @return The last status response received.
      */
@@ -134,6 +298,7 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
         for (SessionWrapper finishedSession : finishedSessions) {
             if (finishedSession.isDataSendingAllowed()) {
                 statusResponse = finishedSession.sendBeacon(context.getHTTPClientProvider());
+                context.recordResponse(statusResponse);
                 if (!BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
                     // something went wrong,
                     if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse) || !finishedSession.isEmpty()) {
@@ -151,9 +316,52 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
         return statusResponse;
     }
 
+    /**
+     * Send all open sessions targeted by the given explicit flush request.
+     *
+     * <p>
+     *     These sessions are sent regardless of the send interval, after flushing their client side aggregated metrics.
+     * </p>
+     *
+     * @param context The state's context
+     * @param flushRequest The explicit flush request, or {@code null} if there is none.
+     * @return The last status response received.
+     */
+    private StatusResponse sendRequestedOpenSessions(BeaconSendingContext context, FlushRequest flushRequest) {
+
+        if (flushRequest == null) {
+            return null;
+        }
+
+        StatusResponse statusResponse = null;
+
+        List<SessionWrapper> openSessions = context.getAllOpenAndConfiguredSessions();
+        for (SessionWrapper session : openSessions) {
+            if (!flushRequest.isTarget(session.getSession())) {
+                continue;
+            }
+            session.flushAggregatedMetrics();
+            if (session.isDataSendingAllowed()) {
+                statusResponse = session.sendBeacon(context.getHTTPClientProvider());
+                context.recordResponse(statusResponse);
+                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse) || context.isSendingSuspended()) {
+                    // server is currently overloaded or unavailable, return immediately
+                    break;
+                }
+            }
+        }
+
+        return statusResponse;
+    }
+
     /**
      * Check if the send interval (configured by server) has expired and start to send open sessions if it has expired.
      *
+     * <p>
+     *     Before sending, all client side aggregated metrics of the open sessions are flushed,
+     *     so that one summary per metric and send interval is transmitted.
+     * </p>
+     *
      * @param context The state's context
      * @return The last status response received.
      */
@@ -168,10 +376,12 @@ class BeaconSendingCaptureOnState extends AbstractBeaconSendingState {
 
         List<SessionWrapper> openSessions = context.getAllOpenAndConfiguredSessions();
         for (SessionWrapper session : openSessions) {
+            session.flushAggregatedMetrics();
             if (session.isDataSendingAllowed()) {
                 statusResponse = session.sendBeacon(context.getHTTPClientProvider());
-                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
-                    // server is currently overloaded, return immediately
+                context.recordResponse(statusResponse);
+                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse) || context.isSendingSuspended()) {
+                    // server is currently overloaded or unavailable, return immediately
                     break;
                 }
             } else {
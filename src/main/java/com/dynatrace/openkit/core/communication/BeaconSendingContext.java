@@ -16,9 +16,16 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
+import com.dynatrace.openkit.api.FlushHandle;
 import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.FlushConfiguration;
+import com.dynatrace.openkit.core.configuration.NewSessionBatchingConfiguration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
+import com.dynatrace.openkit.core.util.CircuitBreaker;
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.HTTPClient;
 import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
@@ -42,6 +49,20 @@ public class BeaconSendingContext {
      */
     static final long DEFAULT_SLEEP_TIME_MILLISECONDS = TimeUnit.SECONDS.toMillis(1);
 
+    /**
+     * Number of consecutive failed requests after which sending is suspended.
+     */
+    static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 3;
+    /**
+     * Minimum and maximum time sending is suspended, before a trial request is sent.
+     */
+    static final long CIRCUIT_BREAKER_MIN_OPEN_DURATION_MILLISECONDS = TimeUnit.SECONDS.toMillis(10);
+    static final long CIRCUIT_BREAKER_MAX_OPEN_DURATION_MILLISECONDS = TimeUnit.MINUTES.toMillis(10);
+    /**
+     * Lowest response code counted as failure by the circuit breaker.
+     */
+    private static final int HTTP_SERVER_ERROR = 500;
+
     private final Logger logger;
     private final Configuration configuration;
     private final HTTPClientProvider httpClientProvider;
@@ -56,6 +77,10 @@ public class BeaconSendingContext {
      * boolean indicating whether shutdown was requested or not
      */
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    /**
+     * timestamp until which remaining data is sent on shutdown, or {@code 0} if there is no deadline
+     */
+    private volatile long shutdownDeadline = 0;
     /**
      * countdown latch updated when init was done - which can either be success or failure
      */
@@ -80,6 +105,35 @@ public class BeaconSendingContext {
      * boolean indicating whether init was successful or not
      */
     private final AtomicBoolean initSucceeded = new AtomicBoolean(false);
+    /**
+     * circuit breaker suspending sending while the server is unavailable
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+        new RetryPolicy(CIRCUIT_BREAKER_MIN_OPEN_DURATION_MILLISECONDS, CIRCUIT_BREAKER_MAX_OPEN_DURATION_MILLISECONDS));
+    /**
+     * lock guarding {@link #pendingFlushRequest}
+     */
+    private final Object flushLock = new Object();
+    /**
+     * explicit flush request, which has not been picked up by the sending thread yet
+     */
+    private FlushRequest pendingFlushRequest = null;
+    /**
+     * boolean indicating whether the current state is executed by a {@link BeaconSendingExecutor}
+     */
+    private boolean executingCooperatively = false;
+    /**
+     * boolean indicating whether a request has been sent, or is about to be sent, in the currently executed state
+     */
+    private boolean requestSentInCurrentStep = false;
+    /**
+     * boolean indicating whether the sleep deferred by the previous execution has already been waited for
+     */
+    private boolean deferredSleepServed = false;
+    /**
+     * boolean indicating whether the current state continues after the next sleep when it's executed again
+     */
+    private boolean resumableAfterNextSleep = false;
 
     /**
      * Constructor.
@@ -126,6 +180,40 @@ public class BeaconSendingContext {
         }
     }
 
+    /**
+     * Executes the current state on behalf of a {@link BeaconSendingExecutor}.
+     *
+     * <p>
+     *     A state sleeping before any request has been sent is aborted and the sleep time is returned instead,
+     *     so that the executor's thread is not blocked. The state is executed again after that time and continues
+     *     without sleeping. Such states start with the sleep, therefore executing them again is equivalent to
+     *     continuing after the sleep.
+     * </p>
+     *
+     * <p>
+     *     Sleeps after a request has been sent, e.g. between retries, are only deferred if the state
+     *     {@link #markResumableAfterNextSleep() keeps its progress}. Otherwise they are performed as usual.
+     * </p>
+     *
+     * @return The time in milliseconds after which the state shall be executed again, or {@code 0} if there is no delay.
+     */
+    long executeCurrentStateCooperatively() {
+        executingCooperatively = true;
+        requestSentInCurrentStep = false;
+        try {
+            executeCurrentState();
+            deferredSleepServed = false;
+            return 0;
+        } catch (DeferredSleep deferredSleep) {
+            // a resumed state continues after its sleep by itself, it won't sleep at the start
+            deferredSleepServed = !deferredSleep.resumable;
+            return deferredSleep.sleepTimeInMilliseconds;
+        } finally {
+            executingCooperatively = false;
+            resumableAfterNextSleep = false;
+        }
+    }
+
     /**
      * Requests a shutdown.
      */
@@ -133,6 +221,102 @@ public class BeaconSendingContext {
         shutdown.set(true);
     }
 
+    /**
+     * Requests a shutdown, where remaining data is sent until the given timeout expired.
+     *
+     * @param timeoutMillis The maximum number of milliseconds to send remaining data.
+     */
+    public void requestShutdown(long timeoutMillis) {
+        shutdownDeadline = getCurrentTimestamp() + timeoutMillis;
+        requestShutdown();
+    }
+
+    /**
+     * Request an explicit flush of the given session, or all sessions.
+     *
+     * <p>
+     *     Flush requests made before the sending thread picks up the pending request are coalesced
+     *     into a single request, which is completed after all requested sessions have been sent.
+     * </p>
+     *
+     * <p>
+     *     While capturing is turned off no data is captured, therefore the returned handle is already completed.
+     *     Otherwise a request made while the sending thread waits in the capture off state, e.g. for the
+     *     retry-after delay of a "too many requests" response, would be pending until capturing is re-enabled.
+     *     The pending request is completed when capturing is turned off, see {@link #disableCapture()}.
+     * </p>
+     *
+     * @param session The session to flush, or {@code null} to flush all sessions.
+     * @return Handle, which is completed after the flush has been performed.
+     */
+    public FlushHandle requestFlush(SessionImpl session) {
+        synchronized (flushLock) {
+            if (isShutdownRequested()) {
+                // remaining data is flushed on shutdown anyway
+                return FlushRequest.COMPLETED;
+            }
+            if (!isCaptureOn()) {
+                // checked under the lock, since capturing is turned off before the pending request is completed
+                return FlushRequest.COMPLETED;
+            }
+            if (pendingFlushRequest == null) {
+                pendingFlushRequest = new FlushRequest();
+            }
+            pendingFlushRequest.addTarget(session);
+            return pendingFlushRequest;
+        }
+    }
+
+    /**
+     * Take the pending explicit flush request, so that further requests are coalesced into a new one.
+     *
+     * @return The pending flush request, or {@code null} if there is none.
+     */
+    FlushRequest takePendingFlushRequest() {
+        synchronized (flushLock) {
+            FlushRequest flushRequest = pendingFlushRequest;
+            pendingFlushRequest = null;
+            return flushRequest;
+        }
+    }
+
+    /**
+     * Complete the pending explicit flush request, if any, without sending data.
+     *
+     * <p>
+     *     This is used when no more data will be sent, e.g. after the sending thread has terminated.
+     * </p>
+     */
+    public void completePendingFlushRequest() {
+        FlushRequest flushRequest = takePendingFlushRequest();
+        if (flushRequest != null) {
+            flushRequest.complete();
+        }
+    }
+
+    /**
+     * Get the timestamp until which remaining data is sent on shutdown, or {@code 0} if there is no deadline.
+     */
+    long getShutdownDeadline() {
+        return shutdownDeadline;
+    }
+
+    /**
+     * Get the number of threads sending the remaining sessions in parallel on shutdown, or {@code 0} if unknown.
+     */
+    int getFlushParallelism() {
+        FlushConfiguration flushConfiguration = configuration.getFlushConfiguration();
+        return flushConfiguration != null ? flushConfiguration.getFlushParallelism() : 0;
+    }
+
+    /**
+     * Get the hook receiving data which could not be sent on shutdown, or {@code null} if there is none.
+     */
+    BeaconPersistenceHook getBeaconPersistenceHook() {
+        FlushConfiguration flushConfiguration = configuration.getFlushConfiguration();
+        return flushConfiguration != null ? flushConfiguration.getPersistenceHook() : null;
+    }
+
     /**
      * Gets a boolean flag indicating whether shutdown was requested before or not.
      */
@@ -257,6 +441,7 @@ public class BeaconSendingContext {
      * @return A class responsible for retrieving an instance of {@link HTTPClient}.
      */
     HTTPClientProvider getHTTPClientProvider() {
+        requestSentInCurrentStep = true;
         return httpClientProvider;
     }
 
@@ -266,6 +451,7 @@ public class BeaconSendingContext {
      * @return HTTP client received from {@link HTTPClientProvider}.
      */
     HTTPClient getHTTPClient() {
+        requestSentInCurrentStep = true;
         return httpClientProvider.createClient(configuration.getHttpClientConfig());
     }
 
@@ -278,6 +464,62 @@ public class BeaconSendingContext {
         return timingProvider.provideTimestampInMilliseconds();
     }
 
+    /**
+     * Test if sending data is currently suspended, because the server has been unavailable.
+     *
+     * <p>
+     *     While sending is suspended, data is only buffered in the beacon cache, which is still bounded by the
+     *     beacon cache evictor. Once the suspension has elapsed, a trial request decides whether sending is resumed.
+     * </p>
+     *
+     * @return {@code true} if no data shall be sent, {@code false} otherwise.
+     */
+    boolean isSendingSuspended() {
+        // sessions are sent by multiple threads on shutdown
+        synchronized (circuitBreaker) {
+            return !circuitBreaker.isRequestAllowed(getCurrentTimestamp());
+        }
+    }
+
+    /**
+     * Record the outcome of a request sent to the server.
+     *
+     * <p>
+     *     Server errors and requests failing without a response count as failures, any other response
+     *     (except for {@code 429 Too Many Requests}, which has its own handling) counts as success.
+     *     A {@code null} response means nothing has been sent and is ignored.
+     * </p>
+     *
+     * @param response The response received from the server.
+     */
+    void recordResponse(StatusResponse response) {
+        if (response == null || BeaconSendingResponseUtil.isTooManyRequestsResponse(response)) {
+            return;
+        }
+
+        synchronized (circuitBreaker) {
+            if (response.getResponseCode() >= HTTP_SERVER_ERROR) {
+                if (circuitBreaker.onFailure(getCurrentTimestamp()) && logger.isInfoEnabled()) {
+                    logger.info(getClass().getSimpleName() + " recordResponse() - Sending suspended until "
+                        + circuitBreaker.getOpenUntilTimestamp() + " after response code " + response.getResponseCode());
+                }
+            } else {
+                circuitBreaker.onSuccess();
+            }
+        }
+    }
+
+    /**
+     * Get the circuit breaker.
+     *
+     * <p>
+     *     This method is intended for unit testing.
+     * </p>
+     */
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
     /**
      * Sleep some time ({@link #DEFAULT_SLEEP_TIME_MILLISECONDS}.
      *
@@ -287,6 +529,19 @@ public class BeaconSendingContext {
         sleep(DEFAULT_SLEEP_TIME_MILLISECONDS);
     }
 
+    /**
+     * Mark the current state as continuing after the next sleep, when it's executed again.
+     *
+     * <p>
+     *     States call this before sleeping between retries, once they stored their progress, e.g. the number of retries,
+     *     in their fields. The next sleep is then deferred when the state is executed by a {@link BeaconSendingExecutor},
+     *     even though a request has been sent already.
+     * </p>
+     */
+    void markResumableAfterNextSleep() {
+        resumableAfterNextSleep = true;
+    }
+
     /**
      * Sleep given amount of milliseconds.
      *
@@ -294,9 +549,51 @@ public class BeaconSendingContext {
      * @throws InterruptedException When sleeping thread got interrupted.
      */
     void sleep(long millis) throws InterruptedException {
+        boolean resumable = resumableAfterNextSleep;
+        resumableAfterNextSleep = false;
+        if (executingCooperatively) {
+            if (isShutdownRequested()) {
+                // equivalent to the interrupt a dedicated sender thread receives on shutdown
+                throw new InterruptedException();
+            }
+            if (resumable) {
+                throw new DeferredSleep(millis, true);
+            }
+            if (!requestSentInCurrentStep) {
+                if (deferredSleepServed) {
+                    // the executor already waited before executing this state again
+                    deferredSleepServed = false;
+                    return;
+                }
+                throw new DeferredSleep(millis, false);
+            }
+        }
         timingProvider.sleep(millis);
     }
 
+    /**
+     * Thrown by {@link #sleep(long)} to abort a cooperatively executed state, instead of blocking the executor's thread.
+     */
+    private static final class DeferredSleep extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long sleepTimeInMilliseconds;
+        /** Flag indicating whether the state continues after the sleep by itself, when it's executed again */
+        private final boolean resumable;
+
+        private DeferredSleep(long sleepTimeInMilliseconds, boolean resumable) {
+            this.sleepTimeInMilliseconds = sleepTimeInMilliseconds;
+            this.resumable = resumable;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            // only used for control flow
+            return this;
+        }
+    }
+
     /**
      * Get timestamp when open sessions were sent last.
      */
@@ -332,6 +629,15 @@ public class BeaconSendingContext {
         return configuration.getSendInterval();
     }
 
+    /**
+     * Get the time in milliseconds a new session response is reused for other new sessions,
+     * or {@code 0} if new session requests are not batched.
+     */
+    long getNewSessionRequestBatchWindow() {
+        NewSessionBatchingConfiguration newSessionBatchingConfiguration = configuration.getNewSessionBatchingConfiguration();
+        return newSessionBatchingConfiguration != null ? newSessionBatchingConfiguration.getBatchWindowInMilliseconds() : 0;
+    }
+
     /**
      * Disable data capturing.
      */
@@ -355,9 +661,15 @@ public class BeaconSendingContext {
 
     /**
      * Clear captured data from all sessions.
+     *
+     * <p>
+     *     Since there is no data left to send, a pending explicit flush request is completed.
+     * </p>
      */
     private void clearAllSessionData() {
 
+        completePendingFlushRequest();
+
         // iterate over the elements
         Iterator<SessionWrapper> iterator = sessions.iterator();
         while (iterator.hasNext()) {
@@ -433,9 +745,38 @@ public class BeaconSendingContext {
             }
         }
 
+        if (finishedSessions.size() > 1) {
+            // send sessions holding errors/crashes or aging data first
+            return BeaconSendingScheduler.schedule(finishedSessions, getCurrentTimestamp(), getMaxRecordAge());
+        }
+
         return finishedSessions;
     }
 
+    /**
+     * Get a list of all sessions that have been configured, are not finished and hold errors or crashes not sent yet.
+     */
+    List<SessionWrapper> getAllOpenAndConfiguredSessionsWithUrgentData() {
+
+        List<SessionWrapper> urgentSessions = new LinkedList<SessionWrapper>();
+
+        for (SessionWrapper sessionWrapper : sessions) {
+            if (sessionWrapper.isBeaconConfigurationSet() && !sessionWrapper.isSessionFinished() && sessionWrapper.hasUrgentData()) {
+                urgentSessions.add(sessionWrapper);
+            }
+        }
+
+        return urgentSessions;
+    }
+
+    /**
+     * Get the beacon cache's maximum record age, or {@code 0} if it's unknown.
+     */
+    private long getMaxRecordAge() {
+        BeaconCacheConfiguration beaconCacheConfiguration = configuration.getBeaconCacheConfiguration();
+        return beaconCacheConfiguration != null ? beaconCacheConfiguration.getMaxRecordAge() : 0;
+    }
+
     /**
      * Finish a session which has been started previously using {@link #startSession(SessionImpl)}.
      *
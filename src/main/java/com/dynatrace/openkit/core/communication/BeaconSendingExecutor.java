@@ -0,0 +1,195 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.api.Logger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running the beacon sending state machines of multiple OpenKit instances on a small, shared thread pool.
+ *
+ * <p>
+ *     Instead of a dedicated thread per OpenKit instance, each instance's {@link BeaconSendingContext} is executed
+ *     one state after the other by a scheduled task. States waiting for the next sending cycle or status check
+ *     are not executed until that time, which is scheduled without blocking a thread
+ *     (see {@link BeaconSendingContext#executeCurrentStateCooperatively()}).
+ * </p>
+ *
+ * <p>
+ *     Each instance still has its own state, configuration and HTTP client, so instances are isolated from each other.
+ *     Retries of unsuccessful status requests and the delay before re-initializing are deferred the same way, since
+ *     the states continue with the next retry when they are executed again. Only the traffic limit applied while
+ *     sending a beacon might block one of the threads.
+ * </p>
+ */
+public class BeaconSendingExecutor {
+
+    /** Default number of threads */
+    public static final int DEFAULT_NUM_THREADS = 2;
+
+    private static final String THREAD_NAME_PREFIX = "BeaconSender-";
+
+    private final Logger logger;
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Create a new executor.
+     *
+     * @param logger Logger for logging messages.
+     * @param numThreads The number of threads, a value less than {@code 1} is treated as {@code 1}.
+     */
+    public BeaconSendingExecutor(Logger logger, int numThreads) {
+        this.logger = logger;
+        executor = new ScheduledThreadPoolExecutor(Math.max(numThreads, 1), new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Start executing the given context's states, until it reaches a terminal state.
+     *
+     * @param context The context to execute.
+     * @return The task executing the context.
+     */
+    public Task execute(BeaconSendingContext context) {
+        Task task = new Task(context);
+        task.schedule(0);
+        return task;
+    }
+
+    /**
+     * Stop the executor.
+     *
+     * <p>
+     *     All OpenKit instances using this executor should have been shut down before, since their states are not executed anymore.
+     * </p>
+     */
+    public void shutdown() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " shutdown()");
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Task executing the states of a single {@link BeaconSendingContext}.
+     */
+    public final class Task implements Runnable {
+
+        private final BeaconSendingContext context;
+        /** Latch released when the context reached its terminal state */
+        private final CountDownLatch terminationLatch = new CountDownLatch(1);
+        /** Lock guarding {@link #scheduledExecution}, {@link #executingThread} and {@link #wakeUpRequested} */
+        private final Object lockObject = new Object();
+        /** Next scheduled execution, or {@code null} while the context is executed */
+        private ScheduledFuture<?> scheduledExecution = null;
+        /** Thread currently executing the context, or {@code null} if the context is not executed */
+        private Thread executingThread = null;
+        /** Flag indicating whether the context shall be executed again right away */
+        private boolean wakeUpRequested = false;
+
+        private Task(BeaconSendingContext context) {
+            this.context = context;
+        }
+
+        private void schedule(long delayInMilliseconds) {
+            synchronized (lockObject) {
+                if (!executor.isShutdown()) {
+                    scheduledExecution = executor.schedule(this, delayInMilliseconds, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (lockObject) {
+                scheduledExecution = null;
+                executingThread = Thread.currentThread();
+            }
+
+            long delay = 0;
+            try {
+                delay = context.executeCurrentStateCooperatively();
+            } finally {
+                synchronized (lockObject) {
+                    executingThread = null;
+                    if (wakeUpRequested) {
+                        wakeUpRequested = false;
+                        delay = 0;
+                    }
+                }
+                // the interrupt was meant for this context, don't pass it on to the next task
+                Thread.interrupted();
+            }
+
+            if (context.isInTerminalState()) {
+                // no more data is sent, release threads waiting for an explicit flush
+                context.completePendingFlushRequest();
+                terminationLatch.countDown();
+            } else {
+                schedule(delay);
+            }
+        }
+
+        /**
+         * Execute the context's current state right away.
+         *
+         * <p>
+         *     If the context is currently being executed, the executing thread is interrupted instead,
+         *     like a dedicated sender thread on shutdown.
+         * </p>
+         */
+        public void wakeUp() {
+            synchronized (lockObject) {
+                if (executingThread != null) {
+                    executingThread.interrupt();
+                } else if (scheduledExecution != null && scheduledExecution.cancel(false)) {
+                    schedule(0);
+                    return;
+                }
+                // either executed right now, or about to be executed
+                wakeUpRequested = true;
+            }
+        }
+
+        /**
+         * Wait until the context reached its terminal state or the given timeout expired.
+         *
+         * @param timeoutMillis The maximum number of milliseconds to wait.
+         * @return {@code true} if the context reached its terminal state, {@code false} otherwise.
+         * @throws InterruptedException If the calling thread has been interrupted while waiting.
+         */
+        public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+            return terminationLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
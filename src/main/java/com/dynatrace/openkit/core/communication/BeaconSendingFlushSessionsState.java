@@ -16,13 +16,26 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
 import com.dynatrace.openkit.protocol.StatusResponse;
 
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * In this state open sessions are finished. After that all sessions are sent to the server.
+ *
+ * <p>
+ *     If a shutdown deadline is given, finished sessions are sent in the order defined by {@link BeaconSendingScheduler}
+ *     by multiple threads in parallel, and no request is started after the deadline. Data which has not been sent
+ *     by then, or could not be sent since the server is unavailable, is handed to the {@link BeaconPersistenceHook},
+ *     if one is configured, and dropped otherwise.
+ * </p>
  * <p>
  *     Transition to:
  *     <ul>
@@ -32,6 +45,8 @@ import java.util.List;
  */
 class BeaconSendingFlushSessionsState extends AbstractBeaconSendingState {
 
+    private static final String FLUSH_THREAD_NAME = "BeaconSenderFlush";
+
     BeaconSendingFlushSessionsState() {
         super(false);
     }
@@ -52,25 +67,114 @@ class BeaconSendingFlushSessionsState extends AbstractBeaconSendingState {
             openSession.end(openSession.getSession().getEndTime());
         }
 
-        // flush already finished (and previously ended) sessions
-        boolean tooManyRequestsReceived = false;
+        // flush already finished (and previously ended) sessions, unless the server is known to be unavailable
+        AtomicBoolean sendingStopped = new AtomicBoolean(context.isSendingSuspended());
         List<SessionWrapper> finishedSessions = context.getAllFinishedAndConfiguredSessions();
-        for (SessionWrapper finishedSession : finishedSessions) {
-            if (!tooManyRequestsReceived && finishedSession.isDataSendingAllowed()) {
-                StatusResponse response = finishedSession.sendBeacon(context.getHTTPClientProvider());
-                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(response)) {
-                    tooManyRequestsReceived = true;
-                }
+        long deadline = context.getShutdownDeadline();
+        int parallelism = Math.min(context.getFlushParallelism(), finishedSessions.size());
+        if (deadline > 0 && parallelism > 1) {
+            flushInParallel(context, finishedSessions, sendingStopped, deadline, parallelism);
+        } else {
+            for (SessionWrapper finishedSession : finishedSessions) {
+                flushSession(context, finishedSession, sendingStopped, deadline);
             }
-            finishedSession.clearCapturedData();
-            finishedSession.getSession().close(); // The session is already closed/ended at this point. This call avoids a static code warning.
-            context.removeSession(finishedSession);
         }
 
         // make last state transition to terminal state
         context.setNextState(new BeaconSendingTerminalState());
     }
 
+    /**
+     * Send the given sessions by multiple threads, until all are sent or the deadline expired.
+     *
+     * <p>
+     *     Sessions not taken by any thread before the deadline are persisted right away. A session whose request
+     *     is still in flight when the deadline expires is finished by its thread, which persists the remaining data.
+     * </p>
+     */
+    private static void flushInParallel(final BeaconSendingContext context,
+                                        List<SessionWrapper> sessions,
+                                        final AtomicBoolean sendingStopped,
+                                        final long deadline,
+                                        int parallelism) {
+
+        final Queue<SessionWrapper> pendingSessions = new ConcurrentLinkedQueue<SessionWrapper>(sessions);
+        final CountDownLatch flushCompleted = new CountDownLatch(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            Thread flushThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        SessionWrapper session;
+                        while ((session = pendingSessions.poll()) != null) {
+                            flushSession(context, session, sendingStopped, deadline);
+                        }
+                    } finally {
+                        flushCompleted.countDown();
+                    }
+                }
+            });
+            flushThread.setDaemon(true);
+            flushThread.setName(FLUSH_THREAD_NAME + "-" + i);
+            flushThread.start();
+        }
+
+        // the beacon sender thread is usually interrupted on shutdown, which must not abort waiting for the deadline
+        boolean interrupted = Thread.interrupted();
+        try {
+            long remainingTime = deadline - context.getCurrentTimestamp();
+            while (remainingTime > 0 && !flushCompleted.await(remainingTime, TimeUnit.MILLISECONDS)) {
+                remainingTime = deadline - context.getCurrentTimestamp();
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+
+        // deadline expired, stop the flush threads from taking any further session and persist those
+        sendingStopped.set(true);
+        SessionWrapper session;
+        while ((session = pendingSessions.poll()) != null) {
+            flushSession(context, session, sendingStopped, deadline);
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send a single session, persist whatever could not be sent and remove the session.
+     */
+    private static void flushSession(BeaconSendingContext context,
+                                     SessionWrapper session,
+                                     AtomicBoolean sendingStopped,
+                                     long deadline) {
+        if (session.isDataSendingAllowed()) {
+            if (!sendingStopped.get() && !isDeadlineExpired(context, deadline)) {
+                StatusResponse response = deadline > 0
+                    ? session.sendBeacon(context.getHTTPClientProvider(), deadline)
+                    : session.sendBeacon(context.getHTTPClientProvider());
+                context.recordResponse(response);
+                if (BeaconSendingResponseUtil.isTooManyRequestsResponse(response) || context.isSendingSuspended()) {
+                    sendingStopped.set(true);
+                }
+            }
+
+            BeaconPersistenceHook persistenceHook = context.getBeaconPersistenceHook();
+            if (persistenceHook != null) {
+                // anything still cached could not be sent
+                session.persistUnsentData(persistenceHook);
+            }
+        }
+        session.clearCapturedData();
+        session.getSession().close(); // The session is already closed/ended at this point. This call avoids a static code warning.
+        context.removeSession(session);
+    }
+
+    private static boolean isDeadlineExpired(BeaconSendingContext context, long deadline) {
+        return deadline > 0 && context.getCurrentTimestamp() >= deadline;
+    }
+
     @Override
     AbstractBeaconSendingState getShutdownState() {
         return new BeaconSendingTerminalState();
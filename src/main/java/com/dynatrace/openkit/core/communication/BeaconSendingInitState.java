@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.StatusResponse;
 
 import java.util.concurrent.TimeUnit;
@@ -39,29 +40,50 @@ import java.util.concurrent.TimeUnit;
 class BeaconSendingInitState extends AbstractBeaconSendingState {
 
     /**
-     * Times to use as delay between consecutive re-executions of this state, when no state transition is performed.
+     * Minimum and maximum delay between consecutive re-executions of this state, when no state transition is performed.
      */
-    static final long[] REINIT_DELAY_MILLISECONDS = {
-        TimeUnit.MINUTES.toMillis(1),
-        TimeUnit.MINUTES.toMillis(5),
-        TimeUnit.MINUTES.toMillis(15),
-        TimeUnit.HOURS.toMillis(1),
-        TimeUnit.HOURS.toMillis(2),
-    };
+    static final long REINIT_BASE_DELAY_MILLISECONDS = TimeUnit.MINUTES.toMillis(1);
+    static final long REINIT_MAX_DELAY_MILLISECONDS = TimeUnit.HOURS.toMillis(2);
 
     /**
      * Maximum number of retries
      */
-    private static final int MAX_INITIAL_STATUS_REQUEST_RETRIES = 5;
-    static final long INITIAL_RETRY_SLEEP_TIME_MILLISECONDS = TimeUnit.SECONDS.toMillis(1);
+    static final int MAX_INITIAL_STATUS_REQUEST_RETRIES = 5;
 
     /**
-     * Index to re-initialize delays.
+     * Policy computing the delays between status request retries.
      */
-    private int reinitializeDelayIndex = 0;
+    private final RetryPolicy statusRequestRetryPolicy;
+    /**
+     * Policy computing the delays between re-executions of this state.
+     */
+    private final RetryPolicy reinitializeRetryPolicy;
+
+    /**
+     * Delay used before the last re-execution, or {@code 0} if the state has not been re-executed yet.
+     */
+    private long reinitializeDelay = 0;
+    /**
+     * Retries of the current status request, kept to continue with the next retry after a deferred sleep.
+     */
+    private final BeaconSendingRequestUtil.RetryProgress statusRequestRetryProgress = new BeaconSendingRequestUtil.RetryProgress();
 
     BeaconSendingInitState() {
+        this(BeaconSendingRequestUtil.STATUS_REQUEST_RETRY_POLICY,
+            new RetryPolicy(REINIT_BASE_DELAY_MILLISECONDS, REINIT_MAX_DELAY_MILLISECONDS));
+    }
+
+    /**
+     * Create the initial state with the given retry policies.
+     *
+     * <p>
+     * This constructor is intended for unit testing.
+     * </p>
+     */
+    BeaconSendingInitState(RetryPolicy statusRequestRetryPolicy, RetryPolicy reinitializeRetryPolicy) {
         super(false);
+        this.statusRequestRetryPolicy = statusRequestRetryPolicy;
+        this.reinitializeRetryPolicy = reinitializeRetryPolicy;
     }
 
     @Override
@@ -102,6 +124,11 @@ class BeaconSendingInitState extends AbstractBeaconSendingState {
     /**
      * Execute status requests, until a successful response was received or shutdown was requested.
      *
+     * <p>
+     * The progress is kept in fields before each sleep, therefore executing this state again after a deferred sleep
+     * continues with the next status request.
+     * </p>
+     *
      * @param context The state's context
      * @return The last received status response, which might be erroneous if shutdown has been requested.
      *
@@ -116,13 +143,17 @@ class BeaconSendingInitState extends AbstractBeaconSendingState {
             context.setLastOpenSessionBeaconSendTime(currentTimestamp);
             context.setLastStatusCheckTime(currentTimestamp);
 
-            statusResponse = BeaconSendingRequestUtil.sendStatusRequest(context, MAX_INITIAL_STATUS_REQUEST_RETRIES, INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
+            statusResponse = BeaconSendingRequestUtil.sendStatusRequest(context, MAX_INITIAL_STATUS_REQUEST_RETRIES,
+                statusRequestRetryPolicy, statusRequestRetryProgress);
             if (context.isShutdownRequested() || BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)) {
                 // shutdown was requested or a successful status response was received
                 break;
             }
 
-            long sleepTime = REINIT_DELAY_MILLISECONDS[reinitializeDelayIndex];
+            reinitializeDelay = reinitializeDelay == 0
+                ? reinitializeRetryPolicy.getFirstDelay()
+                : reinitializeRetryPolicy.getNextDelay(reinitializeDelay);
+            long sleepTime = reinitializeDelay;
             if (BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse)) {
                 // in case of too many requests the server might send us a retry-after
                 sleepTime = statusResponse.getRetryAfterInMilliseconds();
@@ -132,9 +163,8 @@ class BeaconSendingInitState extends AbstractBeaconSendingState {
             }
 
             // status request needs to be sent again after some delay
+            context.markResumableAfterNextSleep();
             context.sleep(sleepTime);
-
-            reinitializeDelayIndex = Math.min(reinitializeDelayIndex + 1, REINIT_DELAY_MILLISECONDS.length - 1); // ensure no out of bounds
         }
 
         return statusResponse;
@@ -16,13 +16,21 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.StatusResponse;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Utility class for sending requests to the server and retry several times
  */
 class BeaconSendingRequestUtil {
 
+    /**
+     * Retry policy shared by all status requests, starting with one second and never waiting longer than 16 seconds.
+     */
+    static final RetryPolicy STATUS_REQUEST_RETRY_POLICY = new RetryPolicy(TimeUnit.SECONDS.toMillis(1), TimeUnit.SECONDS.toMillis(16));
+
     private BeaconSendingRequestUtil() {
     }
 
@@ -31,32 +39,82 @@ class BeaconSendingRequestUtil {
      *
      * @param context                   Used to retrieve the {@link com.dynatrace.openkit.protocol.HTTPClient} and for delaying methods.
      * @param numRetries                The number of retries (total number of tries = numRetries + 1)
-     * @param initialRetryDelayInMillis The initial delay which is doubled between one unsuccessful attempt and the next retry.
+     * @param retryPolicy               The policy computing the delay between one unsuccessful attempt and the next retry.
      * @return A status response or {@code null} if shutdown was requested or number of retries was reached.
      */
-    static StatusResponse sendStatusRequest(BeaconSendingContext context, int numRetries, long initialRetryDelayInMillis) throws InterruptedException {
+    static StatusResponse sendStatusRequest(BeaconSendingContext context, int numRetries, RetryPolicy retryPolicy) throws InterruptedException {
+        return sendStatusRequest(context, numRetries, retryPolicy, new RetryProgress(), false);
+    }
+
+    /**
+     * Send a status request to the server and try to get the status response, continuing the retries of the given progress.
+     *
+     * <p>
+     * The progress is updated before each sleep between two retries. The calling state keeps it, so that it continues
+     * with the next retry, when it's executed again after a sleep, which has been deferred by
+     * {@link BeaconSendingContext#executeCurrentStateCooperatively()}.
+     * </p>
+     *
+     * @param context                   Used to retrieve the {@link com.dynatrace.openkit.protocol.HTTPClient} and for delaying methods.
+     * @param numRetries                The number of retries (total number of tries = numRetries + 1)
+     * @param retryPolicy               The policy computing the delay between one unsuccessful attempt and the next retry.
+     * @param progress                  The retries done so far, which is reset once a response is returned.
+     * @return A status response or {@code null} if shutdown was requested or number of retries was reached.
+     */
+    static StatusResponse sendStatusRequest(BeaconSendingContext context, int numRetries, RetryPolicy retryPolicy,
+                                            RetryProgress progress) throws InterruptedException {
+        return sendStatusRequest(context, numRetries, retryPolicy, progress, true);
+    }
+
+    private static StatusResponse sendStatusRequest(BeaconSendingContext context, int numRetries, RetryPolicy retryPolicy,
+                                                    RetryProgress progress, boolean resumable) throws InterruptedException {
 
         StatusResponse statusResponse;
-        long sleepTimeInMillis = initialRetryDelayInMillis;
-        int retry = 0;
 
         while (true) {
             statusResponse = context.getHTTPClient().sendStatusRequest();
             if (BeaconSendingResponseUtil.isSuccessfulResponse(statusResponse)
                 || BeaconSendingResponseUtil.isTooManyRequestsResponse(statusResponse) // is handled by the states
-                || retry >= numRetries
+                || progress.numRetries >= numRetries
                 || context.isShutdownRequested()) {
                 break;
             }
 
-            // if no (valid) status response was received -> sleep and double the delay for each retry
-            context.sleep(sleepTimeInMillis);
-            sleepTimeInMillis *= 2;
-            retry++;
+            // if no (valid) status response was received -> sleep and increase the delay for each retry
+            progress.sleepTimeInMillis = progress.numRetries == 0
+                ? retryPolicy.getFirstDelay()
+                : retryPolicy.getNextDelay(progress.sleepTimeInMillis);
+            progress.numRetries++;
+            if (resumable) {
+                context.markResumableAfterNextSleep();
+            }
+            context.sleep(progress.sleepTimeInMillis);
         }
 
+        progress.reset();
         return statusResponse;
     }
 
+    /**
+     * Retries of a status request, which have been done so far.
+     */
+    static final class RetryProgress {
 
+        /** Number of retries done so far */
+        private int numRetries = 0;
+        /** Delay before the last retry */
+        private long sleepTimeInMillis = 0;
+
+        /**
+         * Test if a status request is being retried.
+         */
+        boolean isInProgress() {
+            return numRetries > 0;
+        }
+
+        private void reset() {
+            numRetries = 0;
+            sleepTimeInMillis = 0;
+        }
+    }
 }
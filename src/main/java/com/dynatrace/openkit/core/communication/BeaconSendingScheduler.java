@@ -0,0 +1,136 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class defining the order in which finished sessions are sent.
+ *
+ * <p>
+ * Sessions are sent by {@link SendPriority}: first the sessions holding errors or crashes, then the sessions whose
+ * data is close to being evicted due to its age, and then all others. Within the same priority class, the order
+ * in which the sessions have been finished is kept.
+ * </p>
+ *
+ * <p>
+ * Sending stops early, if the server is overloaded or unavailable. To avoid that routine sessions are starved by
+ * a constant stream of urgent ones, a session which has been scheduled {@link #MAX_DEFERRED_ROUNDS} times without
+ * being sent is treated as urgent.
+ * </p>
+ */
+class BeaconSendingScheduler {
+
+    /**
+     * Number of times a session can be scheduled without being sent, before it's treated as urgent.
+     */
+    static final int MAX_DEFERRED_ROUNDS = 3;
+
+    /**
+     * Percentage of the maximum record age, after which unsent data is considered close to being evicted.
+     */
+    static final int AGING_THRESHOLD_PERCENT = 75;
+
+    /**
+     * A session which can be scheduled.
+     */
+    interface Candidate {
+
+        /**
+         * Test if errors or crashes are waiting to be sent.
+         */
+        boolean hasUrgentData();
+
+        /**
+         * Get the timestamp, before which all data is known to be sent.
+         */
+        long getOldestUnsentDataTimestamp();
+
+        /**
+         * Get the number of times this candidate has been scheduled so far.
+         */
+        int getNumScheduledRounds();
+
+        /**
+         * Increment the number of times this candidate has been scheduled.
+         */
+        void incrementNumScheduledRounds();
+    }
+
+    /**
+     * Default constructor.
+     *
+     * <p>
+     * This constructor is private since the class is handled as static class.
+     * </p>
+     */
+    private BeaconSendingScheduler() {
+    }
+
+    /**
+     * Get the priority class of the given candidate.
+     *
+     * @param candidate The candidate to classify.
+     * @param timestamp The current timestamp in milliseconds.
+     * @param maxRecordAgeInMilliseconds The beacon cache's maximum record age, or {@code 0} if unknown.
+     * @return The candidate's priority class.
+     */
+    static SendPriority getSendPriority(Candidate candidate, long timestamp, long maxRecordAgeInMilliseconds) {
+        if (candidate.getNumScheduledRounds() >= MAX_DEFERRED_ROUNDS || candidate.hasUrgentData()) {
+            return SendPriority.URGENT;
+        }
+        if (maxRecordAgeInMilliseconds > 0
+            && timestamp - candidate.getOldestUnsentDataTimestamp() >= maxRecordAgeInMilliseconds / 100 * AGING_THRESHOLD_PERCENT) {
+            return SendPriority.AGING;
+        }
+        return SendPriority.ROUTINE;
+    }
+
+    /**
+     * Order the given candidates by their priority class.
+     *
+     * <p>
+     * Each candidate's number of scheduled rounds is incremented.
+     * Candidates which are sent are expected to be removed, the others are deferred.
+     * </p>
+     *
+     * @param candidates The candidates in the order they have been finished.
+     * @param timestamp The current timestamp in milliseconds.
+     * @param maxRecordAgeInMilliseconds The beacon cache's maximum record age, or {@code 0} if unknown.
+     * @return A new list containing the candidates in the order they shall be sent.
+     */
+    static <T extends Candidate> List<T> schedule(List<T> candidates, long timestamp, long maxRecordAgeInMilliseconds) {
+        SendPriority[] priorities = SendPriority.values();
+        List<List<T>> candidatesByPriority = new ArrayList<List<T>>(priorities.length);
+        for (int i = 0; i < priorities.length; i++) {
+            candidatesByPriority.add(new ArrayList<T>());
+        }
+
+        for (T candidate : candidates) {
+            SendPriority priority = getSendPriority(candidate, timestamp, maxRecordAgeInMilliseconds);
+            candidatesByPriority.get(priority.ordinal()).add(candidate);
+            candidate.incrementNumScheduledRounds();
+        }
+
+        List<T> scheduled = new ArrayList<T>(candidates.size());
+        for (List<T> candidatesWithPriority : candidatesByPriority) {
+            scheduled.addAll(candidatesWithPriority);
+        }
+        return scheduled;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.api.FlushHandle;
+import com.dynatrace.openkit.core.objects.SessionImpl;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explicit flush request, which is performed by the beacon sending thread.
+ *
+ * <p>
+ *     Flush requests made before the sending thread picks up the pending request are coalesced by the
+ *     {@link BeaconSendingContext} into a single request, targeting the union of all requested sessions.
+ *     The targets are only modified while the request is pending, and only read after it has been taken
+ *     by the sending thread.
+ * </p>
+ */
+public final class FlushRequest implements FlushHandle {
+
+    /** Flush handle, which is already completed */
+    public static final FlushHandle COMPLETED = createCompleted();
+
+    /** Latch released when the flush has been performed */
+    private final CountDownLatch completionLatch = new CountDownLatch(1);
+    /** Sessions to flush, unless all sessions are flushed */
+    private final Set<SessionImpl> sessions = new HashSet<SessionImpl>();
+    /** Flag indicating whether all sessions are flushed */
+    private boolean allSessions = false;
+
+    FlushRequest() {
+    }
+
+    private static FlushHandle createCompleted() {
+        FlushRequest flushRequest = new FlushRequest();
+        flushRequest.complete();
+        return flushRequest;
+    }
+
+    /**
+     * Add a session to flush.
+     *
+     * @param session The session to flush, or {@code null} to flush all sessions.
+     */
+    void addTarget(SessionImpl session) {
+        if (session == null) {
+            allSessions = true;
+            sessions.clear();
+        } else if (!allSessions) {
+            sessions.add(session);
+        }
+    }
+
+    /**
+     * Test if the given session shall be flushed.
+     *
+     * @param session The session to test.
+     * @return {@code true} if the session shall be flushed, {@code false} otherwise.
+     */
+    boolean isTarget(SessionImpl session) {
+        return allSessions || sessions.contains(session);
+    }
+
+    /**
+     * Mark the flush as completed, releasing all waiting threads.
+     */
+    void complete() {
+        completionLatch.countDown();
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return completionLatch.getCount() == 0;
+    }
+
+    @Override
+    public boolean waitForCompletion() {
+        try {
+            completionLatch.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean waitForCompletion(long timeoutMillis) {
+        try {
+            return completionLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
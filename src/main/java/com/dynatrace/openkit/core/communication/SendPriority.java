@@ -0,0 +1,30 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.communication;
+
+/**
+ * Priority class in which sessions are sent by the {@link BeaconSendingScheduler}.
+ */
+enum SendPriority {
+
+    /** Sessions holding errors or crashes, which have not been sent yet, and sessions deferred too often */
+    URGENT,
+    /** Sessions whose unsent data is close to being evicted due to its age */
+    AGING,
+    /** Any other session */
+    ROUTINE
+}
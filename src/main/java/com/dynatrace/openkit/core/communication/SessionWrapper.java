@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.protocol.StatusResponse;
@@ -27,7 +28,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Wrapper around the {@link SessionImpl} which holds additional data
  * required only in the communication package, therefore leave it package internal.
  */
-class SessionWrapper {
+class SessionWrapper implements BeaconSendingScheduler.Candidate {
 
     /**
      * The maximum number of "new session requests" to send per session.
@@ -42,6 +43,7 @@ class SessionWrapper {
     private int numNewSessionRequestsLeft = MAX_NEW_SESSION_REQUESTS;
     private final AtomicBoolean beaconConfigurationSet = new AtomicBoolean(false);
     private final AtomicBoolean sessionFinished = new AtomicBoolean(false);
+    private int numScheduledRounds = 0;
 
     /**
      * Constructor taking the wrapped {@link SessionImpl}.
@@ -124,6 +126,13 @@ class SessionWrapper {
         session.clearCapturedData();
     }
 
+    /**
+     * Flush aggregated metrics forward call.
+     */
+    void flushAggregatedMetrics() {
+        session.flushAggregatedMetrics();
+    }
+
     /**
      * Send beacon forward call.
      */
@@ -131,6 +140,20 @@ class SessionWrapper {
         return session.sendBeacon(httpClientProvider);
     }
 
+    /**
+     * Send beacon forward call, not sending any further chunk after the given deadline.
+     */
+    StatusResponse sendBeacon(HTTPClientProvider httpClientProvider, long deadline) {
+        return session.sendBeacon(httpClientProvider, deadline);
+    }
+
+    /**
+     * Persist unsent data forward call.
+     */
+    void persistUnsentData(BeaconPersistenceHook persistenceHook) {
+        session.persistUnsentData(persistenceHook);
+    }
+
     /**
      * Test if the Session is empty.
      *
@@ -140,6 +163,26 @@ class SessionWrapper {
         return session.isEmpty();
     }
 
+    @Override
+    public boolean hasUrgentData() {
+        return session.hasUrgentData();
+    }
+
+    @Override
+    public long getOldestUnsentDataTimestamp() {
+        return session.getOldestUnsentDataTimestamp();
+    }
+
+    @Override
+    public int getNumScheduledRounds() {
+        return numScheduledRounds;
+    }
+
+    @Override
+    public void incrementNumScheduledRounds() {
+        numScheduledRounds++;
+    }
+
     /**
      * Ends the session.
      */
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+import com.dynatrace.openkit.AsyncOverflowPolicy;
+
+/**
+ * Configuration for the asynchronous reporting mode.
+ *
+ * <p>
+ *     In asynchronous reporting mode, reporting values, events, errors and web requests only publishes
+ *     the event's data into a bounded buffer. Serialization and storing the data in the beacon cache is
+ *     performed by a dedicated thread.
+ * </p>
+ */
+public class AsyncReportingConfiguration {
+
+    /** Default buffer capacity, where {@code 0} means that asynchronous reporting is disabled */
+    public static final int DEFAULT_BUFFER_CAPACITY = 0;
+    /** Default overflow policy, if the buffer is full */
+    public static final AsyncOverflowPolicy DEFAULT_OVERFLOW_POLICY = AsyncOverflowPolicy.DROP;
+
+    /** Configuration disabling asynchronous reporting */
+    public static final AsyncReportingConfiguration DISABLED =
+        new AsyncReportingConfiguration(DEFAULT_BUFFER_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+
+    private final int bufferCapacity;
+    private final AsyncOverflowPolicy overflowPolicy;
+
+    /**
+     * Constructor
+     *
+     * @param bufferCapacity Maximum number of events buffered, or non-positive to disable asynchronous reporting.
+     * @param overflowPolicy Policy applied if the buffer is full.
+     */
+    public AsyncReportingConfiguration(int bufferCapacity, AsyncOverflowPolicy overflowPolicy) {
+        this.bufferCapacity = bufferCapacity;
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : DEFAULT_OVERFLOW_POLICY;
+    }
+
+    /**
+     * Get a boolean indicating whether asynchronous reporting is enabled or not.
+     *
+     * @return {@code true} if asynchronous reporting is enabled, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return bufferCapacity > 0;
+    }
+
+    /**
+     * Get maximum number of events buffered.
+     */
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    /**
+     * Get policy applied if the buffer is full.
+     */
+    public AsyncOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+}
@@ -31,10 +31,21 @@ public class BeaconCacheConfiguration {
     public static final long DEFAULT_MAX_RECORD_AGE_IN_MILLIS = TimeUnit.MINUTES.toMillis(105); // 1hour and 45 minutes
     public static final long DEFAULT_UPPER_MEMORY_BOUNDARY_IN_BYTES = 100 * 1024 * 1024;                // 100 MiB
     public static final long DEFAULT_LOWER_MEMORY_BOUNDARY_IN_BYTES = 80 * 1024 * 1024;                 // 80 MiB
+    public static final long DEFAULT_SESSION_QUOTA_IN_BYTES = 0;                                       // no quota
+    public static final long DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS = 0;                              // no compression
+    public static final long DEFAULT_RECORD_OVERHEAD_IN_BYTES = -1;                                    // calibrated per JVM
+    public static final int DEFAULT_THREAD_LOCAL_BUFFER_CAPACITY = 0;                                  // no buffering
+    public static final long DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS = 100;                    // 100 milliseconds
 
     private final long maxRecordAge;
     private final long cacheSizeLowerBound;
     private final long cacheSizeUpperBound;
+    private final boolean deferredSerialization;
+    private final long sessionQuotaInBytes;
+    private final long compressionIdleTime;
+    private final long recordOverheadInBytes;
+    private final int threadLocalBufferCapacity;
+    private final long threadLocalBufferMaxDelay;
 
     /**
      * Constructor
@@ -44,9 +55,99 @@ public class BeaconCacheConfiguration {
      * @param cacheSizeUpperBound upper memory limit for cache
      */
     public BeaconCacheConfiguration(long maxRecordAge, long cacheSizeLowerBound, long cacheSizeUpperBound) {
+        this(maxRecordAge, cacheSizeLowerBound, cacheSizeUpperBound, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxRecordAge Maximum record age
+     * @param cacheSizeLowerBound lower memory limit for cache
+     * @param cacheSizeUpperBound upper memory limit for cache
+     * @param deferredSerialization {@code true} if data shall be serialized when sending, {@code false} otherwise
+     */
+    public BeaconCacheConfiguration(long maxRecordAge, long cacheSizeLowerBound, long cacheSizeUpperBound, boolean deferredSerialization) {
+        this(maxRecordAge, cacheSizeLowerBound, cacheSizeUpperBound, deferredSerialization, DEFAULT_SESSION_QUOTA_IN_BYTES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxRecordAge Maximum record age
+     * @param cacheSizeLowerBound lower memory limit for cache
+     * @param cacheSizeUpperBound upper memory limit for cache
+     * @param deferredSerialization {@code true} if data shall be serialized when sending, {@code false} otherwise
+     * @param sessionQuotaInBytes memory limit per session, where a value less than or equal to zero disables the quota
+     */
+    public BeaconCacheConfiguration(long maxRecordAge, long cacheSizeLowerBound, long cacheSizeUpperBound, boolean deferredSerialization,
+                                    long sessionQuotaInBytes) {
+        this(maxRecordAge, cacheSizeLowerBound, cacheSizeUpperBound, deferredSerialization, sessionQuotaInBytes,
+            DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxRecordAge Maximum record age
+     * @param cacheSizeLowerBound lower memory limit for cache
+     * @param cacheSizeUpperBound upper memory limit for cache
+     * @param deferredSerialization {@code true} if data shall be serialized when sending, {@code false} otherwise
+     * @param sessionQuotaInBytes memory limit per session, where a value less than or equal to zero disables the quota
+     * @param compressionIdleTime idle time in milliseconds after which session data is compressed,
+     *                            where a value less than or equal to zero disables compression
+     */
+    public BeaconCacheConfiguration(long maxRecordAge, long cacheSizeLowerBound, long cacheSizeUpperBound, boolean deferredSerialization,
+                                    long sessionQuotaInBytes, long compressionIdleTime) {
+        this(maxRecordAge, cacheSizeLowerBound, cacheSizeUpperBound, deferredSerialization, sessionQuotaInBytes,
+            compressionIdleTime, DEFAULT_RECORD_OVERHEAD_IN_BYTES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxRecordAge Maximum record age
+     * @param cacheSizeLowerBound lower memory limit for cache
+     * @param cacheSizeUpperBound upper memory limit for cache
+     * @param deferredSerialization {@code true} if data shall be serialized when sending, {@code false} otherwise
+     * @param sessionQuotaInBytes memory limit per session, where a value less than or equal to zero disables the quota
+     * @param compressionIdleTime idle time in milliseconds after which session data is compressed,
+     *                            where a value less than or equal to zero disables compression
+     * @param recordOverheadInBytes memory overhead per cached record, where a negative value calibrates the overhead for the running JVM
+     */
+    public BeaconCacheConfiguration(long maxRecordAge, long cacheSizeLowerBound, long cacheSizeUpperBound, boolean deferredSerialization,
+                                    long sessionQuotaInBytes, long compressionIdleTime, long recordOverheadInBytes) {
+        this(maxRecordAge, cacheSizeLowerBound, cacheSizeUpperBound, deferredSerialization, sessionQuotaInBytes,
+            compressionIdleTime, recordOverheadInBytes, DEFAULT_THREAD_LOCAL_BUFFER_CAPACITY,
+            DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxRecordAge Maximum record age
+     * @param cacheSizeLowerBound lower memory limit for cache
+     * @param cacheSizeUpperBound upper memory limit for cache
+     * @param deferredSerialization {@code true} if data shall be serialized when sending, {@code false} otherwise
+     * @param sessionQuotaInBytes memory limit per session, where a value less than or equal to zero disables the quota
+     * @param compressionIdleTime idle time in milliseconds after which session data is compressed,
+     *                            where a value less than or equal to zero disables compression
+     * @param recordOverheadInBytes memory overhead per cached record, where a negative value calibrates the overhead for the running JVM
+     * @param threadLocalBufferCapacity number of records buffered per thread and session before they are added to the cache,
+     *                                  where a value less than or equal to one disables buffering
+     * @param threadLocalBufferMaxDelay maximum time in milliseconds a record is kept in a thread-local buffer
+     */
+    public BeaconCacheConfiguration(long maxRecordAge, long cacheSizeLowerBound, long cacheSizeUpperBound, boolean deferredSerialization,
+                                    long sessionQuotaInBytes, long compressionIdleTime, long recordOverheadInBytes,
+                                    int threadLocalBufferCapacity, long threadLocalBufferMaxDelay) {
         this.maxRecordAge = maxRecordAge;
         this.cacheSizeLowerBound = cacheSizeLowerBound;
         this.cacheSizeUpperBound = cacheSizeUpperBound;
+        this.deferredSerialization = deferredSerialization;
+        this.sessionQuotaInBytes = sessionQuotaInBytes;
+        this.compressionIdleTime = compressionIdleTime;
+        this.recordOverheadInBytes = recordOverheadInBytes;
+        this.threadLocalBufferCapacity = threadLocalBufferCapacity;
+        this.threadLocalBufferMaxDelay = threadLocalBufferMaxDelay;
     }
 
     /**
@@ -69,4 +170,46 @@ public class BeaconCacheConfiguration {
     public long getCacheSizeUpperBound() {
         return cacheSizeUpperBound;
     }
+
+    /**
+     * Get a flag indicating whether serialization of event and action data is deferred until the data is sent.
+     */
+    public boolean isDeferredSerialization() {
+        return deferredSerialization;
+    }
+
+    /**
+     * Get memory limit per session, where a value less than or equal to zero means no limit.
+     */
+    public long getSessionQuotaInBytes() {
+        return sessionQuotaInBytes;
+    }
+
+    /**
+     * Get idle time in milliseconds after which session data is compressed, where a value less than or equal to zero means no compression.
+     */
+    public long getCompressionIdleTime() {
+        return compressionIdleTime;
+    }
+
+    /**
+     * Get memory overhead per cached record, where a negative value means the overhead is calibrated for the running JVM.
+     */
+    public long getRecordOverheadInBytes() {
+        return recordOverheadInBytes;
+    }
+
+    /**
+     * Get number of records buffered per thread and session, where a value less than or equal to one means no buffering.
+     */
+    public int getThreadLocalBufferCapacity() {
+        return threadLocalBufferCapacity;
+    }
+
+    /**
+     * Get maximum time in milliseconds a record is kept in a thread-local buffer.
+     */
+    public long getThreadLocalBufferMaxDelay() {
+        return threadLocalBufferMaxDelay;
+    }
 }
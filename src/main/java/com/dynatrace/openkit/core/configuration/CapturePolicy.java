@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+import com.dynatrace.openkit.protocol.EventType;
+
+/**
+ * Immutable, precompiled capture policy.
+ *
+ * <p>
+ *     The policy combines the server side capture settings (capture, capture errors, capture crashes)
+ *     with the user configured {@link PrivacyConfiguration} into a single bitmask, having one bit per {@link EventType}.
+ *     Checking whether an event type shall be captured is therefore a single bit test, which allows
+ *     API entry points to bail out before any event data is built.
+ * </p>
+ *
+ * <p>
+ *     A new instance is compiled by {@link Configuration} whenever one of the underlying settings changes.
+ * </p>
+ */
+public final class CapturePolicy {
+
+    /** Policy where no event type is captured at all */
+    public static final CapturePolicy NOTHING = new CapturePolicy(0);
+
+    /** Bitmask storing the enabled event types, where bit {@code n} corresponds to the event type with ordinal {@code n} */
+    private final int enabledEventTypes;
+
+    private CapturePolicy(int enabledEventTypes) {
+        this.enabledEventTypes = enabledEventTypes;
+    }
+
+    /**
+     * Compile a new capture policy.
+     *
+     * @param capture {@code true} if capturing is turned on, {@code false} otherwise.
+     * @param captureErrors {@code true} if capturing errors is turned on, {@code false} otherwise.
+     * @param captureCrashes {@code true} if capturing crashes is turned on, {@code false} otherwise.
+     * @param privacyConfiguration The user configured privacy settings.
+     *
+     * @return The compiled capture policy.
+     */
+    public static CapturePolicy compile(boolean capture,
+                                        boolean captureErrors,
+                                        boolean captureCrashes,
+                                        PrivacyConfiguration privacyConfiguration) {
+        if (!capture) {
+            return NOTHING;
+        }
+
+        int enabledEventTypes = mask(EventType.SESSION_START);
+        if (privacyConfiguration.isSessionReportingAllowed()) {
+            enabledEventTypes |= mask(EventType.SESSION_END);
+        }
+        if (privacyConfiguration.isActionReportingAllowed()) {
+            enabledEventTypes |= mask(EventType.ACTION);
+        }
+        if (privacyConfiguration.isValueReportingAllowed()) {
+            enabledEventTypes |= mask(EventType.VALUE_STRING) | mask(EventType.VALUE_INT) | mask(EventType.VALUE_DOUBLE);
+        }
+        if (privacyConfiguration.isEventReportingAllowed()) {
+            enabledEventTypes |= mask(EventType.NAMED_EVENT);
+        }
+        if (privacyConfiguration.isWebRequestTracingAllowed()) {
+            enabledEventTypes |= mask(EventType.WEBREQUEST);
+        }
+        if (captureErrors && privacyConfiguration.isErrorReportingAllowed()) {
+            enabledEventTypes |= mask(EventType.ERROR);
+        }
+        if (captureCrashes && privacyConfiguration.isCrashReportingAllowed()) {
+            enabledEventTypes |= mask(EventType.CRASH);
+        }
+        if (privacyConfiguration.isUserIdentificationAllowed()) {
+            enabledEventTypes |= mask(EventType.IDENTIFY_USER);
+        }
+
+        return new CapturePolicy(enabledEventTypes);
+    }
+
+    private static int mask(EventType eventType) {
+        return 1 << eventType.ordinal();
+    }
+
+    /**
+     * Test if the given event type shall be captured.
+     *
+     * @param eventType The event type to test.
+     *
+     * @return {@code true} if the event type shall be captured, {@code false} otherwise.
+     */
+    public boolean isEnabled(EventType eventType) {
+        return (enabledEventTypes & mask(eventType)) != 0;
+    }
+
+    /**
+     * Test if the given event type shall not be captured.
+     *
+     * @param eventType The event type to test.
+     *
+     * @return {@code true} if the event type shall not be captured, {@code false} otherwise.
+     */
+    public boolean isDisabled(EventType eventType) {
+        return !isEnabled(eventType);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append(" [");
+        boolean first = true;
+        for (EventType eventType : EventType.values()) {
+            if (isEnabled(eventType)) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                builder.append(eventType);
+                first = false;
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
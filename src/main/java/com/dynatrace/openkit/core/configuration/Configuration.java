@@ -58,6 +58,7 @@ public class Configuration {
     private HTTPClientConfiguration httpClientConfiguration;     // the current http client configuration
     private final BeaconConfiguration beaconConfiguration;       // multiplicity
     private final PrivacyConfiguration privacyConfiguration;     // data collection levels
+    private volatile CapturePolicy capturePolicy;                // compiled capture settings; published as a whole -> volatile
 
     // application and device settings
     private final String applicationVersion;
@@ -66,6 +67,27 @@ public class Configuration {
     // caching settings
     private final BeaconCacheConfiguration beaconCacheConfiguration;
 
+    // asynchronous reporting settings
+    private final AsyncReportingConfiguration asyncReportingConfiguration;
+
+    // error deduplication and rate limiting settings
+    private final ErrorReportingConfiguration errorReportingConfiguration;
+
+    // client side sampling settings
+    private final SamplingConfiguration samplingConfiguration;
+
+    // session splitting settings
+    private final SessionSplittingConfiguration sessionSplittingConfiguration;
+
+    // outgoing traffic limits
+    private final TrafficLimitConfiguration trafficLimitConfiguration;
+
+    // new session request batching settings
+    private final NewSessionBatchingConfiguration newSessionBatchingConfiguration;
+
+    // flush on shutdown settings
+    private final FlushConfiguration flushConfiguration;
+
 
     private final SessionIDProvider sessionIDProvider;
 
@@ -75,6 +97,88 @@ public class Configuration {
                          SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
                          BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
                          PrivacyConfiguration privacyConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            AsyncReportingConfiguration.DISABLED);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            asyncReportingConfiguration, ErrorReportingConfiguration.DISABLED);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration,
+                         ErrorReportingConfiguration errorReportingConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            asyncReportingConfiguration, errorReportingConfiguration, SamplingConfiguration.DISABLED);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration,
+                         ErrorReportingConfiguration errorReportingConfiguration, SamplingConfiguration samplingConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            asyncReportingConfiguration, errorReportingConfiguration, samplingConfiguration, SessionSplittingConfiguration.DISABLED);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration,
+                         ErrorReportingConfiguration errorReportingConfiguration, SamplingConfiguration samplingConfiguration,
+                         SessionSplittingConfiguration sessionSplittingConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            asyncReportingConfiguration, errorReportingConfiguration, samplingConfiguration, sessionSplittingConfiguration,
+            TrafficLimitConfiguration.DISABLED);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration,
+                         ErrorReportingConfiguration errorReportingConfiguration, SamplingConfiguration samplingConfiguration,
+                         SessionSplittingConfiguration sessionSplittingConfiguration,
+                         TrafficLimitConfiguration trafficLimitConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            asyncReportingConfiguration, errorReportingConfiguration, samplingConfiguration, sessionSplittingConfiguration,
+            trafficLimitConfiguration, NewSessionBatchingConfiguration.DISABLED);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration,
+                         ErrorReportingConfiguration errorReportingConfiguration, SamplingConfiguration samplingConfiguration,
+                         SessionSplittingConfiguration sessionSplittingConfiguration,
+                         TrafficLimitConfiguration trafficLimitConfiguration,
+                         NewSessionBatchingConfiguration newSessionBatchingConfiguration) {
+        this(openKitType, applicationName, applicationID, deviceID, endpointURL, sessionIDProvider, trustManager, device,
+            applicationVersion, beaconCacheConfiguration, beaconConfiguration, privacyConfiguration,
+            asyncReportingConfiguration, errorReportingConfiguration, samplingConfiguration, sessionSplittingConfiguration,
+            trafficLimitConfiguration, newSessionBatchingConfiguration, FlushConfiguration.DEFAULT);
+    }
+
+    public Configuration(OpenKitType openKitType, String applicationName, String applicationID, String deviceID, String endpointURL,
+                         SessionIDProvider sessionIDProvider, SSLTrustManager trustManager, Device device, String applicationVersion,
+                         BeaconCacheConfiguration beaconCacheConfiguration, BeaconConfiguration beaconConfiguration,
+                         PrivacyConfiguration privacyConfiguration, AsyncReportingConfiguration asyncReportingConfiguration,
+                         ErrorReportingConfiguration errorReportingConfiguration, SamplingConfiguration samplingConfiguration,
+                         SessionSplittingConfiguration sessionSplittingConfiguration,
+                         TrafficLimitConfiguration trafficLimitConfiguration,
+                         NewSessionBatchingConfiguration newSessionBatchingConfiguration,
+                         FlushConfiguration flushConfiguration) {
 
         this.openKitType = openKitType;
 
@@ -110,6 +214,22 @@ public class Configuration {
         this.beaconConfiguration = beaconConfiguration;
 
         this.privacyConfiguration = privacyConfiguration;
+
+        this.asyncReportingConfiguration = asyncReportingConfiguration;
+
+        this.errorReportingConfiguration = errorReportingConfiguration;
+
+        this.samplingConfiguration = samplingConfiguration;
+
+        this.sessionSplittingConfiguration = sessionSplittingConfiguration;
+
+        this.trafficLimitConfiguration = trafficLimitConfiguration;
+
+        this.newSessionBatchingConfiguration = newSessionBatchingConfiguration;
+
+        this.flushConfiguration = flushConfiguration;
+
+        updateCapturePolicy();
     }
 
     // *** public methods ***
@@ -131,6 +251,7 @@ public class Configuration {
 
         // if capture is off -> leave other settings on their current values
         if (!statusResponse.isCapture()) {
+            updateCapturePolicy();
             return;
         }
 
@@ -171,6 +292,19 @@ public class Configuration {
         // use capture settings for errors and crashes
         captureErrors.set(statusResponse.isCaptureErrors());
         captureCrashes.set(statusResponse.isCaptureCrashes());
+
+        updateCapturePolicy();
+    }
+
+    /**
+     * Compile a new {@link CapturePolicy} from the current settings and publish it.
+     *
+     * <p>
+     *     This method is synchronized, so that concurrent updates cannot publish a policy based on outdated settings.
+     * </p>
+     */
+    private synchronized void updateCapturePolicy() {
+        capturePolicy = CapturePolicy.compile(capture.get(), captureErrors.get(), captureCrashes.get(), privacyConfiguration);
     }
 
     // *** getter methods ***
@@ -204,6 +338,7 @@ public class Configuration {
      */
     public void enableCapture() {
         capture.set(true);
+        updateCapturePolicy();
     }
 
     /**
@@ -211,6 +346,7 @@ public class Configuration {
      */
     public void disableCapture() {
         capture.set(false);
+        updateCapturePolicy();
     }
 
     /**
@@ -238,6 +374,19 @@ public class Configuration {
         return captureCrashes.get();
     }
 
+    /**
+     * Get the current capture policy.
+     *
+     * <p>
+     *     The returned policy is an immutable snapshot of all capture related settings.
+     * </p>
+     *
+     * @return The most recently compiled capture policy.
+     */
+    public CapturePolicy getCapturePolicy() {
+        return capturePolicy;
+    }
+
     public String getApplicationVersion() {
         return applicationVersion;
     }
@@ -271,6 +420,55 @@ public class Configuration {
      */
     public BeaconConfiguration getBeaconConfiguration() { return beaconConfiguration; }
 
+    /**
+     * Returns the asynchronous reporting configuration
+     */
+    public AsyncReportingConfiguration getAsyncReportingConfiguration() {
+        return asyncReportingConfiguration;
+    }
+
+    /**
+     * Returns the error deduplication and rate limiting configuration
+     */
+    public ErrorReportingConfiguration getErrorReportingConfiguration() {
+        return errorReportingConfiguration;
+    }
+
+    /**
+     * Returns the client side sampling configuration
+     */
+    public SamplingConfiguration getSamplingConfiguration() {
+        return samplingConfiguration;
+    }
+
+    /**
+     * Returns the session splitting configuration
+     */
+    public SessionSplittingConfiguration getSessionSplittingConfiguration() {
+        return sessionSplittingConfiguration;
+    }
+
+    /**
+     * Returns the outgoing traffic limit configuration
+     */
+    public TrafficLimitConfiguration getTrafficLimitConfiguration() {
+        return trafficLimitConfiguration;
+    }
+
+    /**
+     * Returns the new session request batching configuration
+     */
+    public NewSessionBatchingConfiguration getNewSessionBatchingConfiguration() {
+        return newSessionBatchingConfiguration;
+    }
+
+    /**
+     * Returns the flush on shutdown configuration
+     */
+    public FlushConfiguration getFlushConfiguration() {
+        return flushConfiguration;
+    }
+
     /**
      * Returns the privacy configuration
      */
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.configuration;
+
+/**
+ * Configuration for deduplicating and rate limiting reported errors and crashes.
+ *
+ * <p>
+ *     If deduplication is enabled, identical errors reported within the deduplication window
+ *     are collapsed into a single record, carrying the number of occurrences.
+ *     If rate limiting is enabled, at most the configured number of errors per error name
+ *     are reported within the rate limit interval. Any further error is dropped.
+ * </p>
+ */
+public class ErrorReportingConfiguration {
+
+    /** Default deduplication window, where {@code 0} means that deduplication is disabled */
+    public static final long DEFAULT_DEDUPLICATION_WINDOW_IN_MILLISECONDS = 0L;
+    /** Default maximum number of errors per name and interval, where {@code 0} means that rate limiting is disabled */
+    public static final int DEFAULT_MAX_ERRORS_PER_NAME = 0;
+    /** Default rate limiting interval */
+    public static final long DEFAULT_RATE_LIMIT_INTERVAL_IN_MILLISECONDS = 60 * 1000L;
+
+    /** Configuration disabling deduplication and rate limiting */
+    public static final ErrorReportingConfiguration DISABLED = new ErrorReportingConfiguration(
+        DEFAULT_DEDUPLICATION_WINDOW_IN_MILLISECONDS, DEFAULT_MAX_ERRORS_PER_NAME, DEFAULT_RATE_LIMIT_INTERVAL_IN_MILLISECONDS);
+
+    private final long deduplicationWindowInMilliseconds;
+    private final int maxErrorsPerName;
+    private final long rateLimitIntervalInMilliseconds;
+
+    /**
+     * Constructor
+     *
+     * @param deduplicationWindowInMilliseconds Window in which identical errors are collapsed, or non-positive to disable deduplication.
+     * @param maxErrorsPerName Maximum number of errors per error name and interval, or non-positive to disable rate limiting.
+     * @param rateLimitIntervalInMilliseconds Interval used for rate limiting.
+     */
+    public ErrorReportingConfiguration(long deduplicationWindowInMilliseconds, int maxErrorsPerName, long rateLimitIntervalInMilliseconds) {
+        this.deduplicationWindowInMilliseconds = deduplicationWindowInMilliseconds;
+        this.maxErrorsPerName = maxErrorsPerName;
+        this.rateLimitIntervalInMilliseconds = rateLimitIntervalInMilliseconds > 0
+            ? rateLimitIntervalInMilliseconds
+            : DEFAULT_RATE_LIMIT_INTERVAL_IN_MILLISECONDS;
+    }
+
+    /**
+     * Get a boolean indicating whether deduplication is enabled or not.
+     *
+     * @return {@code true} if deduplication is enabled, {@code false} otherwise.
+     */
+    public boolean isDeduplicationEnabled() {
+        return deduplicationWindowInMilliseconds > 0;
+    }
+
+    /**
+     * Get a boolean indicating whether rate limiting is enabled or not.
+     *
+     * @return {@code true} if rate limiting is enabled, {@code false} otherwise.
+     */
+    public boolean isRateLimitEnabled() {
+        return maxErrorsPerName > 0;
+    }
+
+    /**
+     * Get window in which identical errors are collapsed.
+     */
+    public long getDeduplicationWindowInMilliseconds() {
+        return deduplicationWindowInMilliseconds;
+    }
+
+    /**
+     * Get maximum number of errors per error name and interval.
+     */
+    public int getMaxErrorsPerName() {
+        return maxErrorsPerName;
+    }
+
+    /**
+     * Get interval used for rate limiting.
+     */
+    public long getRateLimitIntervalInMilliseconds() {
+        return rateLimitIntervalInMilliseconds;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
+
+/**
+ * Configuration for flushing the remaining beacon data when OpenKit is shut down.
+ *
+ * <p>
+ *     Finished sessions are sent by the given number of threads in parallel, until the shutdown deadline expires.
+ *     Whatever could not be sent is handed to the {@link BeaconPersistenceHook}, if one is configured, or dropped otherwise.
+ * </p>
+ */
+public class FlushConfiguration {
+
+    /** Default number of threads sending sessions in parallel on shutdown */
+    public static final int DEFAULT_FLUSH_PARALLELISM = 4;
+
+    /** Default configuration flushing in parallel without a persistence hook */
+    public static final FlushConfiguration DEFAULT = new FlushConfiguration(DEFAULT_FLUSH_PARALLELISM, null);
+
+    private final int flushParallelism;
+    private final BeaconPersistenceHook persistenceHook;
+
+    /**
+     * Constructor
+     *
+     * @param flushParallelism Number of threads sending sessions in parallel, where values less than {@code 1} are treated as {@code 1}.
+     * @param persistenceHook Hook receiving data which could not be sent, or {@code null} to drop it.
+     */
+    public FlushConfiguration(int flushParallelism, BeaconPersistenceHook persistenceHook) {
+        this.flushParallelism = Math.max(flushParallelism, 1);
+        this.persistenceHook = persistenceHook;
+    }
+
+    /**
+     * Get the number of threads sending sessions in parallel on shutdown.
+     */
+    public int getFlushParallelism() {
+        return flushParallelism;
+    }
+
+    /**
+     * Get the hook receiving data which could not be sent, or {@code null} if no hook is configured.
+     */
+    public BeaconPersistenceHook getPersistenceHook() {
+        return persistenceHook;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+/**
+ * Configuration for coalescing new session requests.
+ *
+ * <p>
+ *     Without batching, the beacon sender sends one new session request per new session, although all responses
+ *     carry the same multiplicity. With batching, a single new session request is sent for all sessions waiting
+ *     for their configuration, and a successful response is reused for sessions created within the batch window.
+ * </p>
+ */
+public class NewSessionBatchingConfiguration {
+
+    /** Default batch window in milliseconds, where {@code 0} means one new session request per session */
+    public static final long DEFAULT_BATCH_WINDOW_IN_MILLISECONDS = 0L;
+
+    /** Configuration not batching new session requests */
+    public static final NewSessionBatchingConfiguration DISABLED = new NewSessionBatchingConfiguration(
+        DEFAULT_BATCH_WINDOW_IN_MILLISECONDS);
+
+    private final long batchWindowInMilliseconds;
+
+    /**
+     * Constructor
+     *
+     * @param batchWindowInMilliseconds Time in milliseconds a new session response is reused, or non-positive to disable batching.
+     */
+    public NewSessionBatchingConfiguration(long batchWindowInMilliseconds) {
+        this.batchWindowInMilliseconds = Math.max(batchWindowInMilliseconds, 0L);
+    }
+
+    /**
+     * Get a boolean indicating whether new session requests are batched.
+     *
+     * @return {@code true} if new session requests are batched, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return batchWindowInMilliseconds > 0;
+    }
+
+    /**
+     * Get the time in milliseconds a successful new session response is reused, where {@code 0} means disabled.
+     */
+    public long getBatchWindowInMilliseconds() {
+        return batchWindowInMilliseconds;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for client side sampling of sessions and root actions.
+ *
+ * <p>
+ *     Sampling rates are given as sampling factor {@code n}, which means that one out of {@code n}
+ *     sessions or actions is captured. A factor of {@code 1} captures everything.
+ *     Using integral factors allows reporting the session sampling rate via the beacon's multiplicity.
+ * </p>
+ */
+public class SamplingConfiguration {
+
+    /** Default sampling factor, capturing everything */
+    public static final int DEFAULT_SAMPLING_FACTOR = 1;
+
+    /** Configuration disabling sampling */
+    public static final SamplingConfiguration DISABLED =
+        new SamplingConfiguration(DEFAULT_SAMPLING_FACTOR, false, Collections.<String, Integer>emptyMap());
+
+    private final int sessionSamplingFactor;
+    private final boolean sampleByDeviceID;
+    private final Map<String, Integer> actionSamplingFactors;
+
+    /**
+     * Constructor
+     *
+     * @param sessionSamplingFactor One out of {@code sessionSamplingFactor} sessions is captured.
+     * @param sampleByDeviceID {@code true} if the sampling decision is based on the device ID,
+     *                         {@code false} if it's made for each session separately.
+     * @param actionSamplingFactors Sampling factors per root action name.
+     */
+    public SamplingConfiguration(int sessionSamplingFactor, boolean sampleByDeviceID, Map<String, Integer> actionSamplingFactors) {
+        this.sessionSamplingFactor = Math.max(sessionSamplingFactor, DEFAULT_SAMPLING_FACTOR);
+        this.sampleByDeviceID = sampleByDeviceID;
+
+        Map<String, Integer> factors = new HashMap<String, Integer>();
+        for (Map.Entry<String, Integer> entry : actionSamplingFactors.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null && entry.getValue() > DEFAULT_SAMPLING_FACTOR) {
+                factors.put(entry.getKey(), entry.getValue());
+            }
+        }
+        this.actionSamplingFactors = Collections.unmodifiableMap(factors);
+    }
+
+    /**
+     * Get a boolean indicating whether any sampling is enabled or not.
+     *
+     * @return {@code true} if sessions or actions are sampled, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return sessionSamplingFactor > DEFAULT_SAMPLING_FACTOR || !actionSamplingFactors.isEmpty();
+    }
+
+    /**
+     * Get session sampling factor, where one out of {@code n} sessions is captured.
+     */
+    public int getSessionSamplingFactor() {
+        return sessionSamplingFactor;
+    }
+
+    /**
+     * Get a boolean indicating whether the session sampling decision is based on the device ID.
+     */
+    public boolean isSampleByDeviceID() {
+        return sampleByDeviceID;
+    }
+
+    /**
+     * Get the sampling factor of root actions with the given name.
+     *
+     * @param actionName The root action's name.
+     * @return The action's sampling factor or {@link #DEFAULT_SAMPLING_FACTOR} if no rule exists.
+     */
+    public int getActionSamplingFactor(String actionName) {
+        Integer factor = actionSamplingFactors.get(actionName);
+        return factor != null ? factor : DEFAULT_SAMPLING_FACTOR;
+    }
+}
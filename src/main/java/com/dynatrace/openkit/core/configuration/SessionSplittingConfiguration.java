@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.configuration;
+
+/**
+ * Configuration for splitting long-running sessions.
+ *
+ * <p>
+ *     If splitting is enabled, a session is ended transparently, when it has been idle for longer than the idle timeout
+ *     or when it exceeds the maximum session duration. Any further data is reported in a new session,
+ *     which carries the same user identification. This keeps the amount of data cached and sent per session bounded.
+ * </p>
+ */
+public class SessionSplittingConfiguration {
+
+    /** Default idle timeout, where {@code 0} means that sessions are not split due to inactivity */
+    public static final long DEFAULT_IDLE_TIMEOUT_IN_MILLISECONDS = 0L;
+    /** Default maximum session duration, where {@code 0} means that sessions are not split due to their duration */
+    public static final long DEFAULT_MAX_SESSION_DURATION_IN_MILLISECONDS = 0L;
+
+    /** Configuration disabling session splitting */
+    public static final SessionSplittingConfiguration DISABLED = new SessionSplittingConfiguration(
+        DEFAULT_IDLE_TIMEOUT_IN_MILLISECONDS, DEFAULT_MAX_SESSION_DURATION_IN_MILLISECONDS);
+
+    private final long idleTimeoutInMilliseconds;
+    private final long maxSessionDurationInMilliseconds;
+
+    /**
+     * Constructor
+     *
+     * @param idleTimeoutInMilliseconds Time without any interaction after which a session is split, or non-positive to disable it.
+     * @param maxSessionDurationInMilliseconds Duration after which a session is split, or non-positive to disable it.
+     */
+    public SessionSplittingConfiguration(long idleTimeoutInMilliseconds, long maxSessionDurationInMilliseconds) {
+        this.idleTimeoutInMilliseconds = Math.max(idleTimeoutInMilliseconds, 0L);
+        this.maxSessionDurationInMilliseconds = Math.max(maxSessionDurationInMilliseconds, 0L);
+    }
+
+    /**
+     * Get a boolean indicating whether sessions are split at all.
+     *
+     * @return {@code true} if sessions are split by idle timeout or duration, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return isSplitByIdleTimeoutEnabled() || isSplitByDurationEnabled();
+    }
+
+    /**
+     * Get a boolean indicating whether sessions are split after being idle.
+     *
+     * @return {@code true} if an idle timeout is configured, {@code false} otherwise.
+     */
+    public boolean isSplitByIdleTimeoutEnabled() {
+        return idleTimeoutInMilliseconds > 0;
+    }
+
+    /**
+     * Get a boolean indicating whether sessions are split after exceeding the maximum duration.
+     *
+     * @return {@code true} if a maximum session duration is configured, {@code false} otherwise.
+     */
+    public boolean isSplitByDurationEnabled() {
+        return maxSessionDurationInMilliseconds > 0;
+    }
+
+    /**
+     * Get the idle timeout in milliseconds, where {@code 0} means no idle timeout.
+     */
+    public long getIdleTimeoutInMilliseconds() {
+        return idleTimeoutInMilliseconds;
+    }
+
+    /**
+     * Get the maximum session duration in milliseconds, where {@code 0} means no maximum duration.
+     */
+    public long getMaxSessionDurationInMilliseconds() {
+        return maxSessionDurationInMilliseconds;
+    }
+}
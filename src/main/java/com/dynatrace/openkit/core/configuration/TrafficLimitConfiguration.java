@@ -0,0 +1,89 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+/**
+ * Configuration limiting the rate of outgoing beacon traffic.
+ *
+ * <p>
+ *     Beacon data is sent at no more than the configured number of bytes and requests per second.
+ *     Without a limit, the beacon sender sends all cached data as fast as possible, for instance after the server
+ *     has been unavailable for a while.
+ * </p>
+ */
+public class TrafficLimitConfiguration {
+
+    /** Default maximum number of beacon bytes per second, where {@code 0} means unlimited */
+    public static final long DEFAULT_MAX_BYTES_PER_SECOND = 0L;
+    /** Default maximum number of beacon requests per second, where {@code 0} means unlimited */
+    public static final int DEFAULT_MAX_REQUESTS_PER_SECOND = 0;
+
+    /** Configuration not limiting the outgoing traffic */
+    public static final TrafficLimitConfiguration DISABLED = new TrafficLimitConfiguration(
+        DEFAULT_MAX_BYTES_PER_SECOND, DEFAULT_MAX_REQUESTS_PER_SECOND);
+
+    private final long maxBytesPerSecond;
+    private final int maxRequestsPerSecond;
+
+    /**
+     * Constructor
+     *
+     * @param maxBytesPerSecond Maximum number of beacon bytes sent per second, or non-positive for no limit.
+     * @param maxRequestsPerSecond Maximum number of beacon requests sent per second, or non-positive for no limit.
+     */
+    public TrafficLimitConfiguration(long maxBytesPerSecond, int maxRequestsPerSecond) {
+        this.maxBytesPerSecond = Math.max(maxBytesPerSecond, 0L);
+        this.maxRequestsPerSecond = Math.max(maxRequestsPerSecond, 0);
+    }
+
+    /**
+     * Get a boolean indicating whether outgoing traffic is limited at all.
+     *
+     * @return {@code true} if the number of bytes or requests per second is limited, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return isByteRateLimited() || isRequestRateLimited();
+    }
+
+    /**
+     * Get a boolean indicating whether the number of bytes per second is limited.
+     */
+    public boolean isByteRateLimited() {
+        return maxBytesPerSecond > 0;
+    }
+
+    /**
+     * Get a boolean indicating whether the number of requests per second is limited.
+     */
+    public boolean isRequestRateLimited() {
+        return maxRequestsPerSecond > 0;
+    }
+
+    /**
+     * Get the maximum number of bytes per second, where {@code 0} means unlimited.
+     */
+    public long getMaxBytesPerSecond() {
+        return maxBytesPerSecond;
+    }
+
+    /**
+     * Get the maximum number of requests per second, where {@code 0} means unlimited.
+     */
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+}
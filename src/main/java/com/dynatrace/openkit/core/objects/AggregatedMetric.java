@@ -0,0 +1,61 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.protocol.Beacon;
+
+/**
+ * Base class for all metrics, which are aggregated on the client side.
+ *
+ * <p>
+ *     Aggregated metrics are children of the action they were created on.
+ *     They are flushed, which means their aggregated values are reported to the {@link Beacon}, once per send interval
+ *     and a last time when the action is left and closes its children.
+ * </p>
+ */
+abstract class AggregatedMetric implements OpenKitObject {
+
+    /** Beacon for reporting the aggregated values */
+    final Beacon beacon;
+    /** ID of the action this metric belongs to */
+    final int parentActionID;
+    /** The metric's name */
+    final String name;
+
+    AggregatedMetric(Beacon beacon, int parentActionID, String name) {
+        this.beacon = beacon;
+        this.parentActionID = parentActionID;
+        this.name = name;
+    }
+
+    /**
+     * Report the values aggregated since the last flush and reset the aggregation.
+     *
+     * @param timestamp The timestamp used for all reported values.
+     */
+    abstract void flush(long timestamp);
+
+    @Override
+    public void close() {
+        flush(beacon.getCurrentTimestamp());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [sn=" + beacon.getSessionNumber() + ", pa=" + parentActionID + ", name=" + name + "] ";
+    }
+}
@@ -17,12 +17,17 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.Action;
+import com.dynatrace.openkit.api.Counter;
+import com.dynatrace.openkit.api.Gauge;
+import com.dynatrace.openkit.api.Histogram;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.WebRequestTracer;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.EventType;
 
 import java.io.IOException;
 import java.net.URLConnection;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -32,6 +37,12 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
 
     /** Web request tracer returned, if this action is already closed. */
     private static final WebRequestTracer NULL_WEB_REQUEST_TRACER = new NullWebRequestTracer();
+    /** Counter returned, if this action is already closed or values are not captured. */
+    private static final Counter NULL_COUNTER = new NullCounter();
+    /** Gauge returned, if this action is already closed or values are not captured. */
+    private static final Gauge NULL_GAUGE = new NullGauge();
+    /** Histogram returned, if this action is already closed or values are not captured. */
+    private static final Histogram NULL_HISTOGRAM = new NullHistogram();
 
     /** {@link Logger} for tracing log message */
     final Logger logger;
@@ -52,14 +63,14 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
     /** start time when this {@link Action} has been started */
     private final long startTime;
     /** end time when this {@link Action} has been ended */
-    private long endTime = -1;
+    private volatile long endTime = -1;
     /** Start sequence number of this {@link Action} */
     private final int startSequenceNo;
     /** End sequence number of this {@link Action} */
-    private int endSequenceNo = -1;
+    private volatile int endSequenceNo = -1;
 
-    /** boolean indicating whether this action has been left or not */
-    private boolean isActionLeft;
+    /** lifecycle state indicating whether this action has been left or not */
+    private final LifecycleState lifecycleState = new LifecycleState();
 
     /** Beacon for sending data */
     final Beacon beacon;
@@ -88,8 +99,6 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
         startTime = actionStartTime;
         startSequenceNo = beacon.createSequenceNumber();
 
-        isActionLeft = false;
-
         this.beacon = beacon;
     }
 
@@ -104,13 +113,14 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "reportEvent: eventName must not be null or empty");
             return this;
         }
+        if (beacon.isCapturingDisabled(EventType.NAMED_EVENT)) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportEvent(" + eventName + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
-                beacon.reportEvent(getID(), eventName, eventTimestamp);
-            }
+        if (!isActionLeft()) {
+            beacon.reportEvent(getID(), eventName, eventTimestamp);
         }
         return this;
     }
@@ -121,13 +131,14 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "reportValue (int): valueName must not be null or empty");
             return this;
         }
+        if (beacon.isCapturingDisabled(EventType.VALUE_INT)) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (int) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
-                beacon.reportValue(getID(), valueName, value, eventTimestamp);
-            }
+        if (!isActionLeft()) {
+            beacon.reportValue(getID(), valueName, value, eventTimestamp);
         }
         return this;
     }
@@ -138,13 +149,14 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "reportValue (double): valueName must not be null or empty");
             return this;
         }
+        if (beacon.isCapturingDisabled(EventType.VALUE_DOUBLE)) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (double) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
-                beacon.reportValue(getID(), valueName, value, eventTimestamp);
-            }
+        if (!isActionLeft()) {
+            beacon.reportValue(getID(), valueName, value, eventTimestamp);
         }
         return this;
     }
@@ -155,13 +167,14 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "reportValue (String): valueName must not be null or empty");
             return this;
         }
+        if (beacon.isCapturingDisabled(EventType.VALUE_STRING)) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportValue (String) (" + valueName + ", " + value + ")");
         }
-        synchronized (lockObject) {
-            if (!isActionLeft()) {
-                beacon.reportValue(getID(), valueName, value, eventTimestamp);
-            }
+        if (!isActionLeft()) {
+            beacon.reportValue(getID(), valueName, value, eventTimestamp);
         }
         return this;
     }
@@ -172,15 +185,92 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "reportError: errorName must not be null or empty");
             return this;
         }
+        if (beacon.isCapturingDisabled(EventType.ERROR)) {
+            return this;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportError(" + errorName + ", " + errorCode + ", " + reason + ")");
         }
+        if (!isActionLeft()) {
+            beacon.reportError(getID(), errorName, errorCode, reason);
+        }
+        return this;
+    }
+
+    @Override
+    public Counter createCounter(String counterName) {
+        if (counterName == null || counterName.isEmpty()) {
+            logger.warning(this + "createCounter: counterName must not be null or empty");
+            return NULL_COUNTER;
+        }
+        if (beacon.isCapturingDisabled(EventType.VALUE_DOUBLE)) {
+            return NULL_COUNTER;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "createCounter(" + counterName + ")");
+        }
         synchronized (lockObject) {
             if (!isActionLeft()) {
-                beacon.reportError(getID(), errorName, errorCode, reason);
+                CounterImpl counter = new CounterImpl(beacon, getID(), counterName);
+                storeChildInList(counter);
+
+                return counter;
             }
         }
-        return this;
+
+        return NULL_COUNTER;
+    }
+
+    @Override
+    public Gauge createGauge(String gaugeName) {
+        if (gaugeName == null || gaugeName.isEmpty()) {
+            logger.warning(this + "createGauge: gaugeName must not be null or empty");
+            return NULL_GAUGE;
+        }
+        if (beacon.isCapturingDisabled(EventType.VALUE_DOUBLE)) {
+            return NULL_GAUGE;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "createGauge(" + gaugeName + ")");
+        }
+        synchronized (lockObject) {
+            if (!isActionLeft()) {
+                GaugeImpl gauge = new GaugeImpl(beacon, getID(), gaugeName);
+                storeChildInList(gauge);
+
+                return gauge;
+            }
+        }
+
+        return NULL_GAUGE;
+    }
+
+    @Override
+    public Histogram createHistogram(String histogramName, double... bucketBoundaries) {
+        if (histogramName == null || histogramName.isEmpty()) {
+            logger.warning(this + "createHistogram: histogramName must not be null or empty");
+            return NULL_HISTOGRAM;
+        }
+        if (bucketBoundaries == null) {
+            logger.warning(this + "createHistogram: bucketBoundaries must not be null");
+            return NULL_HISTOGRAM;
+        }
+        if (beacon.isCapturingDisabled(EventType.VALUE_DOUBLE)) {
+            return NULL_HISTOGRAM;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "createHistogram(" + histogramName + ", " + Arrays.toString(bucketBoundaries) + ")");
+        }
+        synchronized (lockObject) {
+            if (!isActionLeft()) {
+                HistogramImpl histogram = new HistogramImpl(beacon, getID(), histogramName, bucketBoundaries);
+                storeChildInList(histogram);
+
+                return histogram;
+            }
+        }
+
+        return NULL_HISTOGRAM;
     }
 
     @Override
@@ -189,6 +279,9 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "traceWebRequest (URLConnection): connection must not be null");
             return NULL_WEB_REQUEST_TRACER;
         }
+        if (beacon.isCapturingDisabled(EventType.WEBREQUEST)) {
+            return NULL_WEB_REQUEST_TRACER;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (URLConnection) (" + connection + ")");
         }
@@ -214,6 +307,9 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
             logger.warning(this + "traceWebRequest (String): url \"" + url + "\" does not have a valid scheme");
             return NULL_WEB_REQUEST_TRACER;
         }
+        if (beacon.isCapturingDisabled(EventType.WEBREQUEST)) {
+            return NULL_WEB_REQUEST_TRACER;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (String) (" + url + ")");
         }
@@ -234,18 +330,19 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
         if (logger.isDebugEnabled()) {
             logger.debug(this + "leaveAction(" + name + ")");
         }
+        List<OpenKitObject> childObjects;
         synchronized (lockObject) {
-            if (isActionLeft()) {
+            if (!lifecycleState.tryClose()) {
                 // leaveAction has been called previously
                 return getParentAction();
             }
-            isActionLeft = true;
+
+            // Note: at this point it's safe to do any further operations outside a synchronized block
+            // after the state is no longer open, no further child objects must be added
+            childObjects = getCopyOfChildObjects();
         }
 
         // close all child object
-        // Note: at this point it's save to do any further operations outside a synchronized block
-        // after the endTime has been set, no further child objects must be added
-        List<OpenKitObject> childObjects = getCopyOfChildObjects();
         for (OpenKitObject childObject : childObjects) {
             try {
                 childObject.close();
@@ -266,9 +363,35 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
         parent.onChildClosed(this);
         parent = null;
 
+        lifecycleState.closed();
+
         return getParentAction();
     }
 
+    /**
+     * Flush all metrics, which are aggregated on this action or any of its child actions.
+     *
+     * <p>
+     *     This is called by the beacon sending thread, once per send interval.
+     * </p>
+     *
+     * @param timestamp The timestamp used for all reported values.
+     */
+    void flushAggregatedMetrics(long timestamp) {
+        List<OpenKitObject> childObjects;
+        synchronized (lockObject) {
+            childObjects = getCopyOfChildObjects();
+        }
+
+        for (OpenKitObject childObject : childObjects) {
+            if (childObject instanceof AggregatedMetric) {
+                ((AggregatedMetric) childObject).flush(timestamp);
+            } else if (childObject instanceof BaseActionImpl) {
+                ((BaseActionImpl) childObject).flushAggregatedMetrics(timestamp);
+            }
+        }
+    }
+
     /**
      * Get the parent {@link} Action, which might be {@code null} in case the parent does not implement {@link Action}.
      *
@@ -316,7 +439,17 @@ public abstract class BaseActionImpl extends OpenKitComposite implements Action
         return endSequenceNo;
     }
 
+    /**
+     * Test if this action has been left.
+     *
+     * <p>
+     *     An action is considered as left, as soon as {@link #leaveAction(long)} has been called.
+     *     This check does not require any lock.
+     * </p>
+     *
+     * @return {@code true} if the action has been left, {@code false} otherwise.
+     */
     boolean isActionLeft() {
-        return isActionLeft;
+        return !lifecycleState.isOpen();
     }
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.api.Counter;
+import com.dynatrace.openkit.core.util.StripedCells;
+import com.dynatrace.openkit.protocol.Beacon;
+
+/**
+ * Actual implementation of the {@link Counter} interface.
+ */
+final class CounterImpl extends AggregatedMetric implements Counter {
+
+    private final StripedCells cells = new StripedCells(1);
+
+    CounterImpl(Beacon beacon, int parentActionID, String name) {
+        super(beacon, parentActionID, name);
+    }
+
+    @Override
+    public void increment() {
+        cells.add(0, 1L);
+    }
+
+    @Override
+    public void add(long delta) {
+        cells.add(0, delta);
+    }
+
+    @Override
+    void flush(long timestamp) {
+        long sum = cells.sumThenReset(0);
+        if (sum != 0) {
+            beacon.reportValue(parentActionID, name, (double) sum, timestamp);
+        }
+    }
+}
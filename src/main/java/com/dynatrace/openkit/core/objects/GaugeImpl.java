@@ -0,0 +1,53 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.api.Gauge;
+import com.dynatrace.openkit.protocol.Beacon;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Actual implementation of the {@link Gauge} interface.
+ */
+final class GaugeImpl extends AggregatedMetric implements Gauge {
+
+    /** Bit representation of the last value set */
+    private final AtomicLong valueBits = new AtomicLong(0L);
+    /** Flag indicating whether the gauge has been set since the last flush */
+    private final AtomicBoolean updated = new AtomicBoolean(false);
+
+    GaugeImpl(Beacon beacon, int parentActionID, String name) {
+        super(beacon, parentActionID, name);
+    }
+
+    @Override
+    public void set(double value) {
+        valueBits.set(Double.doubleToRawLongBits(value));
+        if (!updated.get()) {
+            updated.set(true);
+        }
+    }
+
+    @Override
+    void flush(long timestamp) {
+        if (updated.getAndSet(false)) {
+            beacon.reportValue(parentActionID, name, Double.longBitsToDouble(valueBits.get()), timestamp);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.api.Histogram;
+import com.dynatrace.openkit.core.util.StripedCells;
+import com.dynatrace.openkit.protocol.Beacon;
+
+import java.util.Arrays;
+
+/**
+ * Actual implementation of the {@link Histogram} interface.
+ *
+ * <p>
+ *     The histogram uses one striped cell per bucket, including the overflow bucket, and one cell for the sum of all values.
+ * </p>
+ */
+final class HistogramImpl extends AggregatedMetric implements Histogram {
+
+    /** Sorted upper boundaries of all buckets, except the overflow bucket */
+    private final double[] bucketBoundaries;
+    /** Pre-built names of all buckets, including the overflow bucket */
+    private final String[] bucketNames;
+    private final String countName;
+    private final String sumName;
+
+    /** Index of the cell storing the sum */
+    private final int sumCell;
+    private final StripedCells cells;
+
+    HistogramImpl(Beacon beacon, int parentActionID, String name, double[] bucketBoundaries) {
+        super(beacon, parentActionID, name);
+
+        this.bucketBoundaries = bucketBoundaries.clone();
+        Arrays.sort(this.bucketBoundaries);
+
+        bucketNames = new String[this.bucketBoundaries.length + 1];
+        for (int i = 0; i < this.bucketBoundaries.length; i++) {
+            bucketNames[i] = name + ".le." + this.bucketBoundaries[i];
+        }
+        bucketNames[this.bucketBoundaries.length] = name + ".le.inf";
+        countName = name + ".count";
+        sumName = name + ".sum";
+
+        sumCell = bucketNames.length;
+        cells = new StripedCells(bucketNames.length + 1);
+    }
+
+    @Override
+    public void record(double value) {
+        cells.add(bucketIndexOf(value), 1L);
+        cells.addDouble(sumCell, value);
+    }
+
+    /**
+     * Get the index of the first bucket whose upper boundary is greater than or equal to the value.
+     */
+    private int bucketIndexOf(double value) {
+        int index = Arrays.binarySearch(bucketBoundaries, value);
+        if (index < 0) {
+            // not found, convert the insertion point
+            index = -index - 1;
+        }
+        return index;
+    }
+
+    @Override
+    void flush(long timestamp) {
+        long[] bucketCounts = new long[bucketNames.length];
+        long totalCount = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = cells.sumThenReset(i);
+            totalCount += bucketCounts[i];
+        }
+        double sum = cells.sumDoubleThenReset(sumCell);
+        if (totalCount == 0) {
+            return;
+        }
+
+        beacon.reportValue(parentActionID, countName, (double) totalCount, timestamp);
+        beacon.reportValue(parentActionID, sumName, sum, timestamp);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            if (bucketCounts[i] > 0) {
+                beacon.reportValue(parentActionID, bucketNames[i], (double) bucketCounts[i], timestamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lifecycle state of sessions, actions and web request tracers.
+ *
+ * <p>
+ *     The lifecycle is a simple state machine, where the only valid transitions are
+ *     {@code OPEN -> CLOSING -> CLOSED}. The transition from {@code OPEN} to {@code CLOSING}
+ *     can only be performed exactly once, which guarantees that only one thread finishes the object.
+ * </p>
+ *
+ * <p>
+ *     Checking the state does not require any lock, which allows reporting data on an open object
+ *     without any synchronization. Objects creating children must perform the state check and
+ *     the child registration in the same critical section as the {@link #tryClose()} transition,
+ *     so that no child can be added after the object started closing.
+ * </p>
+ */
+final class LifecycleState {
+
+    /** Object is open and accepts any data */
+    private static final int OPEN = 0;
+    /** Object is currently closing, no further data is accepted */
+    private static final int CLOSING = 1;
+    /** Object is closed */
+    private static final int CLOSED = 2;
+
+    /** The current state */
+    private final AtomicInteger state = new AtomicInteger(OPEN);
+
+    /**
+     * Test if the object is still open.
+     *
+     * @return {@code true} if the object is open, {@code false} if it's closing or closed.
+     */
+    boolean isOpen() {
+        return state.get() == OPEN;
+    }
+
+    /**
+     * Test if the object has been closed completely.
+     *
+     * @return {@code true} if the object is closed, {@code false} if it's still open or closing.
+     */
+    boolean isClosed() {
+        return state.get() == CLOSED;
+    }
+
+    /**
+     * Try to start closing the object.
+     *
+     * <p>
+     *     Only the first caller succeeds, any subsequent call returns {@code false}.
+     * </p>
+     *
+     * @return {@code true} if the state changed from {@code OPEN} to {@code CLOSING}, {@code false} otherwise.
+     */
+    boolean tryClose() {
+        return state.compareAndSet(OPEN, CLOSING);
+    }
+
+    /**
+     * Mark the object as closed after all closing operations have been performed.
+     */
+    void closed() {
+        state.set(CLOSED);
+    }
+
+    @Override
+    public String toString() {
+        switch (state.get()) {
+            case OPEN:
+                return "OPEN";
+            case CLOSING:
+                return "CLOSING";
+            default:
+                return "CLOSED";
+        }
+    }
+}
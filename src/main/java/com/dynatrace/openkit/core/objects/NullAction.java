@@ -17,6 +17,9 @@
 package com.dynatrace.openkit.core.objects;
 
 import com.dynatrace.openkit.api.Action;
+import com.dynatrace.openkit.api.Counter;
+import com.dynatrace.openkit.api.Gauge;
+import com.dynatrace.openkit.api.Histogram;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.WebRequestTracer;
 
@@ -29,6 +32,9 @@ import java.net.URLConnection;
 class NullAction implements Action {
 
     private static final WebRequestTracer NULL_TRACER = new NullWebRequestTracer();
+    private static final Counter NULL_COUNTER = new NullCounter();
+    private static final Gauge NULL_GAUGE = new NullGauge();
+    private static final Histogram NULL_HISTOGRAM = new NullHistogram();
 
     private final Action parentAction;
 
@@ -72,6 +78,21 @@ class NullAction implements Action {
         return this;
     }
 
+    @Override
+    public Counter createCounter(String counterName) {
+        return NULL_COUNTER;
+    }
+
+    @Override
+    public Gauge createGauge(String gaugeName) {
+        return NULL_GAUGE;
+    }
+
+    @Override
+    public Histogram createHistogram(String histogramName, double... bucketBoundaries) {
+        return NULL_HISTOGRAM;
+    }
+
     @Override
     public WebRequestTracer traceWebRequest(URLConnection connection) {
         return NULL_TRACER;
@@ -16,10 +16,12 @@
 
 package com.dynatrace.openkit.core.objects;
 
+import com.dynatrace.openkit.api.FlushHandle;
 import com.dynatrace.openkit.api.OpenKit;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.Session;
 import com.dynatrace.openkit.api.WebRequestTracer;
+import com.dynatrace.openkit.core.communication.FlushRequest;
 
 import java.net.URLConnection;
 
@@ -47,6 +49,11 @@ public class NullSession implements Session {
         // intentionally left empty, due to NullObject pattern
     }
 
+    @Override
+    public void reportCrash(Throwable throwable) {
+        // intentionally left empty, due to NullObject pattern
+    }
+
     @Override
     public WebRequestTracer traceWebRequest(URLConnection connection) {
         return NULL_WEB_REQUEST_TRACER;
@@ -57,6 +64,11 @@ public class NullSession implements Session {
         return NULL_WEB_REQUEST_TRACER;
     }
 
+    @Override
+    public FlushHandle flush() {
+        return FlushRequest.COMPLETED;
+    }
+
     @Override
     public void end(long sessionEndTime) {
         // intentionally left empty, due to NullObject pattern
@@ -16,8 +16,10 @@
 
 package com.dynatrace.openkit.core.objects;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A composite base class for OpenKit objects.
@@ -26,6 +28,13 @@ import java.util.List;
  *     It features a container to store child objects.
  *     Be careful that the container is not thread safe, which must be guaranteed by the implementing class.
  * </p>
+ *
+ * <p>
+ *     Registering and unregistering a child is a constant time operation, since children are kept
+ *     in a hash based container. {@link OpenKitObject} implementations do not override
+ *     {@link Object#equals(Object)} and {@link Object#hashCode()}, therefore children are identified by identity.
+ *     The insertion order is retained, so that children are closed in the order they have been created.
+ * </p>
  */
 public abstract class OpenKitComposite implements OpenKitObject {
 
@@ -35,7 +44,7 @@ public abstract class OpenKitComposite implements OpenKitObject {
     /**
      * Container storing the children of this composite.
      */
-    private final List<OpenKitObject> children = new LinkedList<OpenKitObject>();
+    private final Set<OpenKitObject> children = new LinkedHashSet<OpenKitObject>();
 
     /**
      * Add a child object to the list of children.
@@ -62,7 +71,16 @@ public abstract class OpenKitComposite implements OpenKitObject {
      * @return Shallow copy of child objects
      */
     List<OpenKitObject> getCopyOfChildObjects() {
-        return new LinkedList<OpenKitObject>(children);
+        return new ArrayList<OpenKitObject>(children);
+    }
+
+    /**
+     * Get the number of {@link OpenKitObject} child objects.
+     *
+     * @return Number of child objects currently stored in this composite.
+     */
+    int getChildCount() {
+        return children.size();
     }
 
     /**
@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.objects;
 
+import com.dynatrace.openkit.api.FlushHandle;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.OpenKit;
 import com.dynatrace.openkit.api.OpenKitConstants;
@@ -23,11 +24,21 @@ import com.dynatrace.openkit.api.Session;
 import com.dynatrace.openkit.core.BeaconSender;
 import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
 import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.caching.SharedBeaconCacheEvictor;
+import com.dynatrace.openkit.core.communication.BeaconSendingExecutor;
+import com.dynatrace.openkit.core.communication.FlushRequest;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.SessionSplittingConfiguration;
+import com.dynatrace.openkit.core.configuration.TrafficLimitConfiguration;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.BeaconEventQueue;
+import com.dynatrace.openkit.protocol.NameDictionary;
+import com.dynatrace.openkit.protocol.TrafficLimiter;
 import com.dynatrace.openkit.providers.DefaultHTTPClientProvider;
 import com.dynatrace.openkit.providers.DefaultThreadIDProvider;
 import com.dynatrace.openkit.providers.DefaultTimingProvider;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 
@@ -43,10 +54,29 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
     static final Session NULL_SESSION = new NullSession();
     /** Cache class used to store serialized {@link Beacon} data */
     private final BeaconCacheImpl beaconCache;
-    /** Cache eviction thread */
+    /** Cache eviction thread, or {@code null} if the eviction thread is shared */
     private final BeaconCacheEvictor beaconCacheEvictor;
+    /** Cache eviction thread shared with other OpenKit instances, or {@code null} if this instance has its own */
+    private final SharedBeaconCacheEvictor sharedBeaconCacheEvictor;
     /** BeaconSender reference */
     private final BeaconSender beaconSender;
+    /** Queue used in asynchronous reporting mode, or {@code null} if events are serialized synchronously */
+    private final BeaconEventQueue beaconEventQueue;
+    /** Dictionary caching the encoded action, value and event names of all sessions */
+    private final NameDictionary nameDictionary = new NameDictionary(NameDictionary.DEFAULT_CAPACITY);
+    /** Client side sampling of sessions and root actions */
+    private final Sampler sampler;
+    /** Limiter for the outgoing beacon traffic, or {@code null} if the traffic is not limited */
+    private final TrafficLimiter trafficLimiter;
+    /** Creates the sessions, either directly or when a long-running session is split */
+    private final SessionCreator sessionCreator = new SessionCreator() {
+        @Override
+        public SessionImpl createSession(OpenKitComposite parent, String clientIPAddress, long sessionStartTime) {
+            Beacon beacon = new Beacon(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, sessionStartTime,
+                beaconEventQueue, nameDictionary, trafficLimiter);
+            return new SessionImpl(logger, parent, beaconSender, beacon, sampler);
+        }
+    };
     /** Container storing configuration given into the OpenKit builders */
     private final Configuration configuration;
     /** Provider responsible to provide the thread id. */
@@ -67,15 +97,46 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
      * @param configuration OpenKit configuration
      */
     public OpenKitImpl(Logger logger, Configuration configuration) {
+        this(logger, configuration, null, null, new DefaultHTTPClientProvider(logger));
+    }
+
+    /**
+     * Public constructor for creating an OpenKit instance, which shares resources with other instances.
+     *
+     * <p>
+     *     The beacon cache, beacon sending state and HTTP clients are still separate per instance,
+     *     only the threads and the cache's memory budget are shared.
+     * </p>
+     *
+     * @param logger Logger for logging messages.
+     * @param configuration OpenKit configuration
+     * @param sharedBeaconCacheEvictor Shared cache eviction thread, or {@code null} to use a dedicated eviction thread.
+     * @param beaconSendingExecutor Shared executor sending the beacons, or {@code null} to use a dedicated sender thread.
+     * @param httpClientProvider Provider for the HTTP clients.
+     */
+    public OpenKitImpl(Logger logger,
+                       Configuration configuration,
+                       SharedBeaconCacheEvictor sharedBeaconCacheEvictor,
+                       BeaconSendingExecutor beaconSendingExecutor,
+                       HTTPClientProvider httpClientProvider) {
         logOpenKitInstanceCreation(logger, configuration);
 
         this.logger = logger;
         this.configuration = configuration;
         timingProvider = new DefaultTimingProvider();
         threadIDProvider = new DefaultThreadIDProvider();
-        beaconCache = new BeaconCacheImpl(logger);
-        beaconCacheEvictor = new BeaconCacheEvictor(logger, beaconCache, configuration.getBeaconCacheConfiguration(), timingProvider);
-        beaconSender = new BeaconSender(logger, configuration, new DefaultHTTPClientProvider(logger), timingProvider);
+        BeaconCacheConfiguration beaconCacheConfiguration = configuration.getBeaconCacheConfiguration();
+        beaconCache = new BeaconCacheImpl(logger, beaconCacheConfiguration);
+        this.sharedBeaconCacheEvictor = sharedBeaconCacheEvictor;
+        beaconCacheEvictor = sharedBeaconCacheEvictor == null
+            ? new BeaconCacheEvictor(logger, beaconCache, beaconCacheConfiguration, timingProvider)
+            : null;
+        beaconSender = new BeaconSender(logger, configuration, httpClientProvider, timingProvider, beaconSendingExecutor);
+        beaconEventQueue = configuration.getAsyncReportingConfiguration().isEnabled()
+            ? new BeaconEventQueue(logger, configuration.getAsyncReportingConfiguration())
+            : null;
+        sampler = new Sampler(configuration.getSamplingConfiguration(), configuration.getDeviceID());
+        trafficLimiter = createTrafficLimiter(configuration, timingProvider);
     }
 
     /**
@@ -96,6 +157,29 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
                 BeaconCacheImpl beaconCache,
                 BeaconSender beaconSender,
                 BeaconCacheEvictor beaconCacheEvictor) {
+        this(logger, configuration, timingProvider, threadIDProvider, beaconCache, beaconSender, beaconCacheEvictor, null);
+    }
+
+    /**
+     * Internal constructor that shall be used for testing only.
+     *
+     * @param logger Logger for logging messages.
+     * @param configuration OpenKit configuration
+     * @param timingProvider Provider for getting timing information
+     * @param threadIDProvider For getting thread identifier
+     * @param beaconCache Cache where beacon data is stored
+     * @param beaconSender Sending that is responsible for sending beacon related data
+     * @param beaconCacheEvictor Evictor to prevent OOM due to full cache
+     * @param beaconEventQueue Queue used in asynchronous reporting mode, or {@code null}
+     */
+    OpenKitImpl(Logger logger,
+                Configuration configuration,
+                TimingProvider timingProvider,
+                ThreadIDProvider threadIDProvider,
+                BeaconCacheImpl beaconCache,
+                BeaconSender beaconSender,
+                BeaconCacheEvictor beaconCacheEvictor,
+                BeaconEventQueue beaconEventQueue) {
         logOpenKitInstanceCreation(logger, configuration);
 
         this.configuration = configuration;
@@ -105,6 +189,17 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
         this.beaconCache = beaconCache;
         this.beaconSender = beaconSender;
         this.beaconCacheEvictor = beaconCacheEvictor;
+        this.beaconEventQueue = beaconEventQueue;
+        sharedBeaconCacheEvictor = null;
+        sampler = new Sampler(configuration.getSamplingConfiguration(), configuration.getDeviceID());
+        trafficLimiter = createTrafficLimiter(configuration, timingProvider);
+    }
+
+    private static TrafficLimiter createTrafficLimiter(Configuration configuration, TimingProvider timingProvider) {
+        TrafficLimitConfiguration trafficLimitConfiguration = configuration.getTrafficLimitConfiguration();
+        return trafficLimitConfiguration != null && trafficLimitConfiguration.isEnabled()
+            ? new TrafficLimiter(trafficLimitConfiguration, timingProvider)
+            : null;
     }
 
     /**
@@ -134,7 +229,14 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
      * </p>
      */
     public void initialize() {
-        beaconCacheEvictor.start();
+        if (sharedBeaconCacheEvictor != null) {
+            sharedBeaconCacheEvictor.register(beaconCache, configuration.getBeaconCacheConfiguration(), timingProvider);
+        } else {
+            beaconCacheEvictor.start();
+        }
+        if (beaconEventQueue != null) {
+            beaconEventQueue.start();
+        }
         beaconSender.initialize();
     }
 
@@ -162,17 +264,79 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
         return configuration;
     }
 
+    /**
+     * Get the number of events dropped in asynchronous reporting mode.
+     *
+     * <p>
+     *     Events are dropped, if the event buffer is full or due to sampling,
+     *     depending on the configured {@link com.dynatrace.openkit.AsyncOverflowPolicy}.
+     * </p>
+     *
+     * @return The number of dropped events, or {@code 0} if asynchronous reporting is disabled.
+     */
+    public long getNumberOfDroppedEvents() {
+        return beaconEventQueue != null ? beaconEventQueue.getNumberOfDroppedEvents() : 0;
+    }
+
+    /**
+     * Get the total time in milliseconds sending beacon data has been delayed due to the configured traffic limit.
+     *
+     * @return The time spent throttled, or {@code 0} if the traffic is not limited.
+     */
+    public long getThrottledSendTimeInMilliseconds() {
+        return trafficLimiter != null ? trafficLimiter.getThrottledTimeInMilliseconds() : 0;
+    }
+
+    /**
+     * Get the number of beacon requests delayed due to the configured traffic limit.
+     *
+     * @return The number of throttled requests, or {@code 0} if the traffic is not limited.
+     */
+    public long getNumberOfThrottledRequests() {
+        return trafficLimiter != null ? trafficLimiter.getNumberOfThrottledRequests() : 0;
+    }
+
+    /**
+     * Get the dictionary caching the encoded action, value and event names.
+     *
+     * <p>
+     *     The dictionary provides hit rate statistics, which can be used to verify that names are reused.
+     * </p>
+     *
+     * @return The name dictionary shared by all sessions of this OpenKit instance.
+     */
+    public NameDictionary getNameDictionary() {
+        return nameDictionary;
+    }
+
+    @Override
+    public String registerName(String name) {
+        return nameDictionary.register(name);
+    }
+
     @Override
     public Session createSession(String clientIPAddress, long sessionStartTime) {
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " createSession(" + clientIPAddress + ")");
         }
+        if (!sampler.isSessionSampled()) {
+            // sampled out sessions are not created at all
+            return NULL_SESSION;
+        }
         synchronized (lockObject) {
             if (!isShutdown) {
-                // create beacon for session
-                Beacon beacon = new Beacon(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, sessionStartTime);
+                SessionSplittingConfiguration splittingConfiguration = configuration.getSessionSplittingConfiguration();
+                if (splittingConfiguration != null && splittingConfiguration.isEnabled()) {
+                    // create a proxy, which splits long-running sessions, and add it to the list of children
+                    SessionProxyImpl sessionProxy = new SessionProxyImpl(logger, this, sessionCreator, timingProvider,
+                        splittingConfiguration, clientIPAddress, sessionStartTime);
+                    storeChildInList(sessionProxy);
+
+                    return sessionProxy;
+                }
+
                 // create session and add it to the list of children
-                SessionImpl session = new SessionImpl(logger, this, beaconSender, beacon);
+                SessionImpl session = sessionCreator.createSession(this, clientIPAddress, sessionStartTime);
                 storeChildInList(session);
 
                 return session;
@@ -182,15 +346,50 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
         return NULL_SESSION;
     }
 
+    @Override
+    public FlushHandle flush() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " flush()");
+        }
+        synchronized (lockObject) {
+            if (isShutdown) {
+                // remaining data is flushed by the shutdown
+                return FlushRequest.COMPLETED;
+            }
+        }
+        return beaconSender.flush(null);
+    }
+
     @Override
     public void shutdown() {
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " shutdown() - shutdown requested");
         }
+        if (closeForShutdown()) {
+            beaconSender.shutdown();
+        }
+    }
+
+    @Override
+    public void shutdown(long timeoutMillis) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " shutdown(" + timeoutMillis + ") - shutdown requested");
+        }
+        if (closeForShutdown()) {
+            beaconSender.shutdown(timeoutMillis);
+        }
+    }
+
+    /**
+     * Close all children and stop the background threads, except for the beacon sender.
+     *
+     * @return {@code true} if OpenKit has been shut down by this call, {@code false} if shutdown has been called before.
+     */
+    private boolean closeForShutdown() {
         synchronized (lockObject) {
             if (isShutdown) {
                 // shutdown has been called before
-                return;
+                return false;
             }
             isShutdown = true;
         }
@@ -206,8 +405,16 @@ public class OpenKitImpl extends OpenKitComposite implements OpenKit {
             }
         }
 
-        beaconCacheEvictor.stop();
-        beaconSender.shutdown();
+        if (beaconEventQueue != null) {
+            // serialize remaining events, before the sender flushes the data
+            beaconEventQueue.stop();
+        }
+        if (sharedBeaconCacheEvictor != null) {
+            sharedBeaconCacheEvictor.unregister(beaconCache);
+        } else {
+            beaconCacheEvictor.stop();
+        }
+        return true;
     }
 
     @Override
@@ -20,12 +20,16 @@ import com.dynatrace.openkit.api.Action;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.EventType;
 
 /**
  * Actual implementation of the {@link RootAction} interface.
  */
 public class RootActionImpl extends BaseActionImpl implements RootAction {
 
+    /** Action returned, if no child action can be created; lazily initialized since it's not needed in most cases */
+    private volatile Action nullAction;
+
     /**
      * Constructor for constructing the root action class.
      *
@@ -40,12 +44,15 @@ public class RootActionImpl extends BaseActionImpl implements RootAction {
 
     @Override
     public Action enterAction(String actionName, long actionStartTime) {
-        if (logger.isDebugEnabled()) {
-            logger.debug(this + "enterAction(" + actionName + ")");
-        }
         if (actionName == null || actionName.isEmpty()) {
             logger.warning(this + "enterAction: actionName must not be null or empty");
-            return new NullAction(this);
+            return getNullAction();
+        }
+        if (beacon.isCapturingDisabled(EventType.ACTION)) {
+            return getNullAction();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "enterAction(" + actionName + ")");
         }
         synchronized (lockObject) {
             if (!isActionLeft()) {
@@ -55,7 +62,26 @@ public class RootActionImpl extends BaseActionImpl implements RootAction {
             }
         }
 
-        return new NullAction(this);
+        return getNullAction();
+    }
+
+    /**
+     * Get the {@link NullAction} returned, if no child action can be created.
+     *
+     * <p>
+     *     The null action is stateless, therefore it's safe to share the same instance.
+     *     Concurrent first calls might create more than one instance, which is harmless.
+     * </p>
+     *
+     * @return A {@link NullAction} having this root action as parent.
+     */
+    private Action getNullAction() {
+        Action result = nullAction;
+        if (result == null) {
+            result = new NullAction(this);
+            nullAction = result;
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes deterministic client side sampling decisions for sessions and root actions.
+ *
+ * <p>
+ *     Decisions are based on a hash, so that the same input always gives the same decision:
+ * </p>
+ * <ul>
+ *     <li>Sessions are sampled by the device ID, or by a sequence number counting the created sessions.</li>
+ *     <li>Root actions are sampled by their session's number and their name,
+ *     so that either all or none of the actions with the same name are captured within a session.</li>
+ * </ul>
+ *
+ * <p>
+ *     Taking a decision does not allocate any object.
+ * </p>
+ */
+final class Sampler {
+
+    /** Sampler capturing everything */
+    static final Sampler NONE = new Sampler(SamplingConfiguration.DISABLED, null);
+
+    private final SamplingConfiguration configuration;
+    /** Hash of the device ID, which is used if sessions are sampled by device ID */
+    private final int deviceIDHash;
+    /** Sequence number of the sessions created so far */
+    private final AtomicInteger sessionSequenceNumber = new AtomicInteger(0);
+
+    Sampler(SamplingConfiguration configuration, String deviceID) {
+        this.configuration = configuration != null ? configuration : SamplingConfiguration.DISABLED;
+        deviceIDHash = deviceID != null ? deviceID.hashCode() : 0;
+    }
+
+    /**
+     * Decide whether the next session shall be captured.
+     *
+     * @return {@code true} if the session shall be captured, {@code false} if it's sampled out.
+     */
+    boolean isSessionSampled() {
+        int samplingFactor = configuration.getSessionSamplingFactor();
+        if (samplingFactor <= SamplingConfiguration.DEFAULT_SAMPLING_FACTOR) {
+            return true;
+        }
+
+        int key = configuration.isSampleByDeviceID() ? deviceIDHash : sessionSequenceNumber.getAndIncrement();
+        return isSampled(mix(key), samplingFactor);
+    }
+
+    /**
+     * Decide whether a root action shall be captured.
+     *
+     * @param sessionNumber The number of the session, on which the action is entered.
+     * @param actionName The action's name.
+     * @return {@code true} if the action shall be captured, {@code false} if it's sampled out.
+     */
+    boolean isActionSampled(int sessionNumber, String actionName) {
+        int samplingFactor = configuration.getActionSamplingFactor(actionName);
+        if (samplingFactor <= SamplingConfiguration.DEFAULT_SAMPLING_FACTOR) {
+            return true;
+        }
+
+        return isSampled(mix(31 * mix(sessionNumber) + actionName.hashCode()), samplingFactor);
+    }
+
+    private static boolean isSampled(int hash, int samplingFactor) {
+        return (hash & Integer.MAX_VALUE) % samplingFactor == 0;
+    }
+
+    /**
+     * Spread the bits of the given value, so that consecutive values give uniformly distributed hashes.
+     */
+    static int mix(int value) {
+        int hash = value;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+/**
+ * Creates the {@link SessionImpl} instances, which are managed by a {@link SessionProxyImpl}.
+ */
+interface SessionCreator {
+
+    /**
+     * Create a new session.
+     *
+     * @param parent The parent object of the new session.
+     * @param clientIPAddress The client IP address reported by the session.
+     * @param sessionStartTime The session's start time.
+     *
+     * @return The newly created session.
+     */
+    SessionImpl createSession(OpenKitComposite parent, String clientIPAddress, long sessionStartTime);
+}
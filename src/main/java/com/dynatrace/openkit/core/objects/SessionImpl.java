@@ -16,6 +16,8 @@
 
 package com.dynatrace.openkit.core.objects;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
+import com.dynatrace.openkit.api.FlushHandle;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.RootAction;
 import com.dynatrace.openkit.api.Session;
@@ -23,6 +25,7 @@ import com.dynatrace.openkit.api.WebRequestTracer;
 import com.dynatrace.openkit.core.BeaconSender;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
 import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.EventType;
 import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 
@@ -50,21 +53,28 @@ public class SessionImpl extends OpenKitComposite implements Session {
     private static final WebRequestTracer NULL_WEB_REQUEST_TRACER = new NullWebRequestTracer();
 
     /** end time of this {@link Session} */
-    private long endTime = -1L;
+    private volatile long endTime = -1L;
 
-    /** boolean indicating whether this session has been ended or not */
-    private boolean isSessionEnded;
+    /** lifecycle state indicating whether this session has been ended or not */
+    private final LifecycleState lifecycleState = new LifecycleState();
 
     // BeaconSender and Beacon reference
     private final BeaconSender beaconSender;
     private final Beacon beacon;
 
+    /** Client side sampling of root actions */
+    private final Sampler sampler;
+
     SessionImpl(Logger logger, OpenKitComposite parent, BeaconSender beaconSender, Beacon beacon) {
+        this(logger, parent, beaconSender, beacon, Sampler.NONE);
+    }
+
+    SessionImpl(Logger logger, OpenKitComposite parent, BeaconSender beaconSender, Beacon beacon, Sampler sampler) {
         this.logger = logger;
         this.parent = parent;
         this.beaconSender = beaconSender;
         this.beacon = beacon;
-        this.isSessionEnded = false;
+        this.sampler = sampler;
 
         beaconSender.startSession(this);
         beacon.startSession();
@@ -81,6 +91,12 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "enterAction: actionName must not be null or empty");
             return NULL_ROOT_ACTION;
         }
+        if (beacon.isCapturingDisabled(EventType.ACTION)) {
+            return NULL_ROOT_ACTION;
+        }
+        if (!sampler.isActionSampled(beacon.getSessionNumber(), actionName)) {
+            return NULL_ROOT_ACTION;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "enterAction(" + actionName + ")");
         }
@@ -101,13 +117,14 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "identifyUser: userTag must not be null or empty");
             return;
         }
+        if (beacon.isCapturingDisabled(EventType.IDENTIFY_USER)) {
+            return;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "identifyUser(" + userTag + ")");
         }
-        synchronized (lockObject) {
-            if (!isSessionEnded()) {
-                beacon.identifyUser(userTag, eventTimestamp);
-            }
+        if (!isSessionEnded()) {
+            beacon.identifyUser(userTag, eventTimestamp);
         }
     }
 
@@ -117,13 +134,31 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "reportCrash: errorName must not be null or empty");
             return;
         }
+        if (beacon.isCapturingDisabled(EventType.CRASH)) {
+            return;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "reportCrash(" + errorName + ", " + reason + ", " + stacktrace + ")");
         }
-        synchronized (lockObject) {
-            if (!isSessionEnded()) {
-                beacon.reportCrash(errorName, reason, stacktrace);
-            }
+        if (!isSessionEnded()) {
+            beacon.reportCrash(errorName, reason, stacktrace);
+        }
+    }
+
+    @Override
+    public void reportCrash(Throwable throwable) {
+        if (throwable == null) {
+            logger.warning(this + "reportCrash: throwable must not be null");
+            return;
+        }
+        if (beacon.isCapturingDisabled(EventType.CRASH)) {
+            return;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "reportCrash(" + throwable + ")");
+        }
+        if (!isSessionEnded()) {
+            beacon.reportCrash(throwable);
         }
     }
 
@@ -133,6 +168,9 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "traceWebRequest (URLConnection): connection must not be null");
             return NULL_WEB_REQUEST_TRACER;
         }
+        if (beacon.isCapturingDisabled(EventType.WEBREQUEST)) {
+            return NULL_WEB_REQUEST_TRACER;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (URLConnection) (" + connection + ")");
         }
@@ -157,6 +195,9 @@ public class SessionImpl extends OpenKitComposite implements Session {
             logger.warning(this + "traceWebRequest (String): url \"" + url + "\" does not have a valid scheme");
             return NULL_WEB_REQUEST_TRACER;
         }
+        if (beacon.isCapturingDisabled(EventType.WEBREQUEST)) {
+            return NULL_WEB_REQUEST_TRACER;
+        }
         if (logger.isDebugEnabled()) {
             logger.debug(this + "traceWebRequest (String) (" + url + ")");
         }
@@ -171,25 +212,33 @@ public class SessionImpl extends OpenKitComposite implements Session {
         return NULL_WEB_REQUEST_TRACER;
     }
 
+    @Override
+    public FlushHandle flush() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "flush()");
+        }
+        return beaconSender.flush(this);
+    }
+
     @Override
     public void end(long sessionEndTime) {
         if (logger.isDebugEnabled()) {
             logger.debug(this + "end()");
         }
 
+        List<OpenKitObject> childObjects;
         synchronized (lockObject) {
-            // check if end() was already called before by looking at endTime
-            if (isSessionEnded()) {
+            // check if end() was already called before
+            if (!lifecycleState.tryClose()) {
                 return;
             }
 
-            isSessionEnded = true;
+            // Since the state is no longer open, no further child objects are added to the internal list
+            // so the following operations are safe outside the synchronized block
+            childObjects = getCopyOfChildObjects();
         }
 
         // forcefully leave all child elements
-        // Since the end time was set, no further child objects are added to the internal list
-        // so the following operations are safe outside the synchronized block
-        List<OpenKitObject> childObjects = getCopyOfChildObjects();
         for (OpenKitObject childObject : childObjects) {
             try {
                 childObject.close();
@@ -211,6 +260,8 @@ public class SessionImpl extends OpenKitComposite implements Session {
         // last but not least update parent relation
         parent.onChildClosed(this);
         parent = null;
+
+        lifecycleState.closed();
     }
 
     // *** public methods ***
@@ -220,6 +271,16 @@ public class SessionImpl extends OpenKitComposite implements Session {
         return beacon.send(clientProvider);
     }
 
+    // sends the current Beacon state, but no further chunk after the given deadline
+    public StatusResponse sendBeacon(HTTPClientProvider clientProvider, long deadline) {
+        return beacon.send(clientProvider, deadline);
+    }
+
+    // hands the data not sent so far to the given hook
+    public void persistUnsentData(BeaconPersistenceHook persistenceHook) {
+        beacon.persistUnsentData(persistenceHook);
+    }
+
     // *** getter methods ***
 
     public long getEndTime() {
@@ -237,6 +298,27 @@ public class SessionImpl extends OpenKitComposite implements Session {
         beacon.clearData();
     }
 
+    /**
+     * Flush all metrics aggregated on actions of this session.
+     *
+     * <p>
+     * This is called by the beacon sending thread, before the session's data is sent.
+     * </p>
+     */
+    public void flushAggregatedMetrics() {
+        List<OpenKitObject> childObjects;
+        synchronized (lockObject) {
+            childObjects = getCopyOfChildObjects();
+        }
+
+        long timestamp = beacon.getCurrentTimestamp();
+        for (OpenKitObject childObject : childObjects) {
+            if (childObject instanceof BaseActionImpl) {
+                ((BaseActionImpl) childObject).flushAggregatedMetrics(timestamp);
+            }
+        }
+    }
+
     /**
      * Test if this Session is empty or not.
      *
@@ -250,17 +332,34 @@ public class SessionImpl extends OpenKitComposite implements Session {
         return beacon.isEmpty();
     }
 
+    /**
+     * Test if this session holds errors or crashes, which have not been sent yet.
+     *
+     * @return {@code true} if an error or crash is waiting to be sent, {@code false} otherwise.
+     */
+    public boolean hasUrgentData() {
+        return beacon.hasUrgentData();
+    }
+
+    /**
+     * Get the timestamp, before which all data of this session is known to be sent.
+     */
+    public long getOldestUnsentDataTimestamp() {
+        return beacon.getOldestUnsentDataTimestamp();
+    }
+
     /**
      * Test if the session has already been ended.
      *
      * <p>
-     * A session is considered as ended, if the endTime is set to something other than minus 1.
+     * A session is considered as ended, as soon as {@link #end(long)} has been called.
+     * This check does not require any lock.
      * </p>
      *
      * @return {@code true} if the session has been ended already, {@code false} if the session is not ended yet.
      */
     boolean isSessionEnded() {
-        return isSessionEnded;
+        return !lifecycleState.isOpen();
     }
 
     /**
@@ -277,6 +376,15 @@ public class SessionImpl extends OpenKitComposite implements Session {
         return beacon.getBeaconConfiguration();
     }
 
+    /**
+     * Test if this session has open actions or web requests.
+     */
+    boolean hasOpenChildObjects() {
+        synchronized (lockObject) {
+            return getChildCount() > 0;
+        }
+    }
+
     @Override
     void onChildClosed(OpenKitObject childObject) {
         synchronized (lockObject) {
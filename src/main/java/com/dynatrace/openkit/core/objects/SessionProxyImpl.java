@@ -0,0 +1,299 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.api.FlushHandle;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.RootAction;
+import com.dynatrace.openkit.api.Session;
+import com.dynatrace.openkit.api.WebRequestTracer;
+import com.dynatrace.openkit.core.configuration.SessionSplittingConfiguration;
+import com.dynatrace.openkit.providers.TimingProvider;
+
+import java.net.URLConnection;
+
+/**
+ * {@link Session} implementation, which splits long-running sessions.
+ *
+ * <p>
+ *     The proxy forwards all calls to the current {@link SessionImpl}. Before forwarding, it checks whether
+ *     the current session has been idle for longer than the idle timeout or exceeded the maximum session duration.
+ *     In that case the current session is ended, which flushes its data to the beacon sender,
+ *     and a new session is started, which gets the user tag of the last {@link #identifyUser(String, long)} call.
+ *     Therefore the data cached and the child objects kept per session are bounded.
+ * </p>
+ *
+ * <p>
+ *     Idle time and duration are measured with the timestamps given to the API calls, or the current time for calls
+ *     without timestamp. Interactions on actions and web requests are not tracked by the proxy, therefore
+ *     the session is not split by idle timeout as long as it has open actions or web requests.
+ * </p>
+ *
+ * <p>
+ *     Calls are forwarded while holding the lock, so a concurrent split cannot end the session
+ *     before the call has reached it.
+ * </p>
+ */
+public class SessionProxyImpl extends OpenKitComposite implements Session {
+
+    /** {@link Logger} for tracing log message */
+    private final Logger logger;
+
+    /** object for synchronization */
+    private final Object lockObject = new Object();
+
+    /** Parent object of this {@link Session} */
+    private OpenKitComposite parent;
+
+    /** Creates the split sessions */
+    private final SessionCreator sessionCreator;
+
+    /** Provider for the timestamps of API calls without timestamp */
+    private final TimingProvider timingProvider;
+
+    /** Idle timeout and maximum session duration */
+    private final SessionSplittingConfiguration splittingConfiguration;
+
+    /** Client IP address reported by all split sessions */
+    private final String clientIPAddress;
+
+    /** lifecycle state indicating whether this session has been ended or not */
+    private final LifecycleState lifecycleState = new LifecycleState();
+
+    /** The session to which all calls are forwarded */
+    private SessionImpl currentSession;
+
+    /** Start time of the current session */
+    private long currentSessionStartTime;
+
+    /** Timestamp of the last interaction with the current session */
+    private long lastInteractionTime;
+
+    /** User tag of the last identifyUser call, which is also reported on split sessions */
+    private String userTag = null;
+
+    /** Number of times the session has been split */
+    private int numSplits = 0;
+
+    SessionProxyImpl(Logger logger,
+                     OpenKitComposite parent,
+                     SessionCreator sessionCreator,
+                     TimingProvider timingProvider,
+                     SessionSplittingConfiguration splittingConfiguration,
+                     String clientIPAddress,
+                     long sessionStartTime) {
+        this.logger = logger;
+        this.parent = parent;
+        this.sessionCreator = sessionCreator;
+        this.timingProvider = timingProvider;
+        this.splittingConfiguration = splittingConfiguration;
+        this.clientIPAddress = clientIPAddress;
+
+        synchronized (lockObject) {
+            startSession(sessionStartTime);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!lifecycleState.tryClose()) {
+            return;
+        }
+        getCurrentSession().close();
+        finish();
+    }
+
+    @Override
+    public RootAction enterAction(String actionName, long actionStartTime) {
+        synchronized (lockObject) {
+            return getSessionForInteraction(actionStartTime).enterAction(actionName, actionStartTime);
+        }
+    }
+
+    @Override
+    public void identifyUser(String userTag, long eventTimestamp) {
+        synchronized (lockObject) {
+            SessionImpl session = getSessionForInteraction(eventTimestamp);
+            if (userTag != null && !userTag.isEmpty()) {
+                this.userTag = userTag;
+            }
+            session.identifyUser(userTag, eventTimestamp);
+        }
+    }
+
+    @Override
+    public void reportCrash(String errorName, String reason, String stacktrace) {
+        synchronized (lockObject) {
+            getSessionForInteraction(timingProvider.provideTimestampInMilliseconds()).reportCrash(errorName, reason, stacktrace);
+        }
+    }
+
+    @Override
+    public void reportCrash(Throwable throwable) {
+        synchronized (lockObject) {
+            getSessionForInteraction(timingProvider.provideTimestampInMilliseconds()).reportCrash(throwable);
+        }
+    }
+
+    @Override
+    public WebRequestTracer traceWebRequest(URLConnection connection) {
+        synchronized (lockObject) {
+            return getSessionForInteraction(timingProvider.provideTimestampInMilliseconds()).traceWebRequest(connection);
+        }
+    }
+
+    @Override
+    public WebRequestTracer traceWebRequest(String url) {
+        synchronized (lockObject) {
+            return getSessionForInteraction(timingProvider.provideTimestampInMilliseconds()).traceWebRequest(url);
+        }
+    }
+
+    @Override
+    public FlushHandle flush() {
+        return getCurrentSession().flush();
+    }
+
+    @Override
+    public void end(long sessionEndTime) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "end()");
+        }
+        if (!lifecycleState.tryClose()) {
+            return;
+        }
+        getCurrentSession().end(sessionEndTime);
+        finish();
+    }
+
+    private void finish() {
+        parent.onChildClosed(this);
+        parent = null;
+        lifecycleState.closed();
+    }
+
+    /**
+     * Get the session to which an interaction at the given time is forwarded, splitting the current session if needed.
+     *
+     * <p>
+     * The caller must hold the lock until the interaction has been forwarded.
+     * </p>
+     *
+     * @param timestamp The time of the interaction.
+     *
+     * @return The session to use.
+     */
+    private SessionImpl getSessionForInteraction(long timestamp) {
+        if (lifecycleState.isOpen()) {
+            if (isSplitByIdleTimeout(timestamp)) {
+                splitSession(lastInteractionTime, timestamp);
+            } else if (isSplitByDuration(timestamp)) {
+                splitSession(timestamp, timestamp);
+            }
+            lastInteractionTime = Math.max(lastInteractionTime, timestamp);
+        }
+        return currentSession;
+    }
+
+    private boolean isSplitByIdleTimeout(long timestamp) {
+        // a session with open actions or web requests is in use, even if the proxy has not been called
+        return splittingConfiguration.isSplitByIdleTimeoutEnabled()
+            && timestamp - lastInteractionTime >= splittingConfiguration.getIdleTimeoutInMilliseconds()
+            && !currentSession.hasOpenChildObjects();
+    }
+
+    private boolean isSplitByDuration(long timestamp) {
+        return splittingConfiguration.isSplitByDurationEnabled()
+            && timestamp - currentSessionStartTime >= splittingConfiguration.getMaxSessionDurationInMilliseconds();
+    }
+
+    /**
+     * End the current session and continue in a new one.
+     *
+     * <p>
+     * The caller must hold the lock.
+     * </p>
+     *
+     * @param sessionEndTime The end time of the current session.
+     * @param sessionStartTime The start time of the new session.
+     */
+    private void splitSession(long sessionEndTime, long sessionStartTime) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(this + "splitSession() - ending session at " + sessionEndTime);
+        }
+
+        currentSession.end(sessionEndTime);
+        startSession(sessionStartTime);
+        numSplits++;
+
+        if (userTag != null) {
+            currentSession.identifyUser(userTag, sessionStartTime);
+        }
+    }
+
+    /**
+     * Create a new current session.
+     *
+     * <p>
+     * The caller must hold the lock.
+     * </p>
+     */
+    private void startSession(long sessionStartTime) {
+        currentSession = sessionCreator.createSession(this, clientIPAddress, sessionStartTime);
+        storeChildInList(currentSession);
+        currentSessionStartTime = sessionStartTime;
+        lastInteractionTime = sessionStartTime;
+    }
+
+    /**
+     * Get the session to which calls are currently forwarded.
+     */
+    SessionImpl getCurrentSession() {
+        synchronized (lockObject) {
+            return currentSession;
+        }
+    }
+
+    /**
+     * Get the number of times the session has been split.
+     */
+    int getNumberOfSplits() {
+        synchronized (lockObject) {
+            return numSplits;
+        }
+    }
+
+    /**
+     * Test if this session has been ended.
+     */
+    boolean isSessionEnded() {
+        return !lifecycleState.isOpen();
+    }
+
+    @Override
+    void onChildClosed(OpenKitObject childObject) {
+        synchronized (lockObject) {
+            removeChildFromList(childObject);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [" + getCurrentSession().toString().trim() + "] ";
+    }
+}
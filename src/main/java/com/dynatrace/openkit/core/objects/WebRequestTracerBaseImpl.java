@@ -25,6 +25,7 @@ import com.dynatrace.openkit.protocol.Beacon;
  *
  * <p>
  *     This class is guaranteed to be thread safe.
+ *     Setting any value does not require a lock, since the lifecycle is tracked by an atomic state.
  * </p>
  */
 public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, OpenKitObject {
@@ -37,8 +38,8 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
     /** Parent object of this web request tracer */
     private OpenKitComposite parent;
 
-    /** object for synchronization */
-    private final Object lockObject = new Object();
+    /** lifecycle state indicating whether this web request tracer has been stopped or not */
+    private final LifecycleState lifecycleState = new LifecycleState();
 
     /** Dynatrace tag that has to be used for tracing the web request */
     private final String tag;
@@ -51,20 +52,20 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
     /** URL to trace (excluding query args) */
     private final String url;
     /** The response code received from the request */
-    private int responseCode = -1;
+    private volatile int responseCode = -1;
     /** The number of bytes sent */
-    private int bytesSent = -1;
+    private volatile int bytesSent = -1;
     /** The number of bytes received */
-    private int bytesReceived = -1;
+    private volatile int bytesReceived = -1;
 
     /** Start time of the web request, set in {@link #start()} */
-    private long startTime;
+    private volatile long startTime;
     /** End time of the web request, set in {@link #stop()} */
-    private long endTime = - 1;
+    private volatile long endTime = - 1;
     /** starting sequence number */
     private final int startSequenceNo;
     /** ending sequence number */
-    private int endSequenceNo = -1;
+    private volatile int endSequenceNo = -1;
 
     /**
      * Constructor.
@@ -107,30 +108,24 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
     @Deprecated
     @Override
     public WebRequestTracer setResponseCode(int responseCode) {
-        synchronized (lockObject) {
-            if (!isStopped()) {
-                this.responseCode = responseCode;
-            }
+        if (!isStopped()) {
+            this.responseCode = responseCode;
         }
         return this;
     }
 
     @Override
     public WebRequestTracer setBytesSent(int bytesSent) {
-        synchronized (lockObject) {
-            if (!isStopped()) {
-                this.bytesSent = bytesSent;
-            }
+        if (!isStopped()) {
+            this.bytesSent = bytesSent;
         }
         return this;
     }
 
     @Override
     public WebRequestTracer setBytesReceived(int bytesReceived) {
-        synchronized (lockObject) {
-            if (!isStopped()) {
-                this.bytesReceived = bytesReceived;
-            }
+        if (!isStopped()) {
+            this.bytesReceived = bytesReceived;
         }
         return this;
     }
@@ -140,10 +135,8 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
         if (logger.isDebugEnabled()) {
             logger.debug(this + "start()");
         }
-        synchronized (lockObject) {
-            if (!isStopped()) {
-                startTime = beacon.getCurrentTimestamp();
-            }
+        if (!isStopped()) {
+            startTime = beacon.getCurrentTimestamp();
         }
         return this;
     }
@@ -153,15 +146,13 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
         if (logger.isDebugEnabled()) {
             logger.debug(this + "stop(rc='" + responseCode + "')");
         }
-        synchronized (lockObject) {
-            if (isStopped()) {
-                // stop has been called previously
-                return;
-            }
-            this.responseCode = responseCode;
-            endSequenceNo = beacon.createSequenceNumber();
-            endTime = beacon.getCurrentTimestamp();
+        if (!lifecycleState.tryClose()) {
+            // stop has been called previously
+            return;
         }
+        this.responseCode = responseCode;
+        endSequenceNo = beacon.createSequenceNumber();
+        endTime = beacon.getCurrentTimestamp();
 
         // add web request to beacon
         beacon.addWebRequest(parentActionID, this);
@@ -169,6 +160,8 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
         // last but not least notify the parent & detach from parent
         parent.onChildClosed(this);
         parent = null;
+
+        lifecycleState.closed();
     }
 
     /**
@@ -217,7 +210,7 @@ public abstract class WebRequestTracerBaseImpl implements WebRequestTracer, Open
     }
 
     boolean isStopped() {
-        return getEndTime() != -1;
+        return !lifecycleState.isOpen();
     }
 
     OpenKitComposite getParent() {
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+/**
+ * Circuit breaker, which fails fast while an endpoint is unavailable.
+ *
+ * <p>
+ *     The breaker is closed initially and opens after a number of consecutive failures. While it's open,
+ *     no request is allowed. After the open duration has elapsed, the breaker becomes half open and allows
+ *     a trial request. A success closes the breaker again, a failure opens it for a longer duration,
+ *     which is taken from a {@link RetryPolicy}.
+ * </p>
+ *
+ * <p>
+ *     Like {@link TokenBucket}, timestamps are passed in by the caller. The breaker is not thread safe,
+ *     it's meant to be used by a single sending thread.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+    /** State of the breaker */
+    public enum State {
+        /** Requests are allowed */
+        CLOSED,
+        /** Requests are rejected until the open duration has elapsed */
+        OPEN,
+        /** A trial request is allowed, which decides whether the breaker is closed or opened again */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final RetryPolicy openDurationPolicy;
+
+    private State state = State.CLOSED;
+    private int numConsecutiveFailures = 0;
+    private long openDurationInMilliseconds = 0;
+    private long openUntilTimestamp = 0;
+
+    /**
+     * Create a closed circuit breaker.
+     *
+     * @param failureThreshold Number of consecutive failures after which the breaker opens.
+     * @param openDurationPolicy Policy computing how long the breaker stays open.
+     */
+    public CircuitBreaker(int failureThreshold, RetryPolicy openDurationPolicy) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationPolicy = openDurationPolicy;
+    }
+
+    /**
+     * Test if a request is allowed at the given time.
+     *
+     * <p>
+     * If the breaker is open and the open duration has elapsed, it becomes half open.
+     * </p>
+     *
+     * @param timestamp The current timestamp in milliseconds.
+     *
+     * @return {@code true} if the request shall be sent, {@code false} if it shall fail fast.
+     */
+    public boolean isRequestAllowed(long timestamp) {
+        if (state == State.OPEN) {
+            if (timestamp < openUntilTimestamp) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        return true;
+    }
+
+    /**
+     * Record a successful request, which closes the breaker.
+     */
+    public void onSuccess() {
+        state = State.CLOSED;
+        numConsecutiveFailures = 0;
+        openDurationInMilliseconds = 0;
+    }
+
+    /**
+     * Record a failed request.
+     *
+     * @param timestamp The current timestamp in milliseconds.
+     *
+     * @return {@code true} if the breaker has been opened by this failure, {@code false} otherwise.
+     */
+    public boolean onFailure(long timestamp) {
+        numConsecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && numConsecutiveFailures >= failureThreshold)) {
+            openDurationInMilliseconds = openDurationInMilliseconds == 0
+                ? openDurationPolicy.getFirstDelay()
+                : openDurationPolicy.getNextDelay(openDurationInMilliseconds);
+            openUntilTimestamp = timestamp + openDurationInMilliseconds;
+            state = State.OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the current state, without any transition.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the timestamp until which the breaker stays open.
+     */
+    public long getOpenUntilTimestamp() {
+        return openUntilTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [state=" + state + ", consecutiveFailures=" + numConsecutiveFailures + "]";
+    }
+}
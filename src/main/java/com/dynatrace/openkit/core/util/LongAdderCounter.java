@@ -0,0 +1,44 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link LongCounter} backed by the JDK's {@link LongAdder}.
+ *
+ * <p>
+ *     This class is only loaded by {@link LongCounter#create()}, if {@link LongAdder} is available at runtime.
+ * </p>
+ */
+final class LongAdderCounter extends LongCounter {
+
+    private final LongAdder adder = new LongAdder();
+
+    LongAdderCounter() {
+    }
+
+    @Override
+    public void add(long delta) {
+        adder.add(delta);
+    }
+
+    @Override
+    public long sum() {
+        return adder.sum();
+    }
+}
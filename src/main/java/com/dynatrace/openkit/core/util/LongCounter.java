@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+/**
+ * A {@code long} counter, which is updated by many threads concurrently and read rarely.
+ *
+ * <p>
+ *     Unlike an {@link java.util.concurrent.atomic.AtomicLong AtomicLong}, updates of different threads are spread
+ *     over multiple cells, so that they do not contend on a single cache line.
+ *     If available, the JDK's {@code LongAdder} is used, otherwise the updates are striped over {@link StripedCells}.
+ * </p>
+ *
+ * <p>
+ *     Reading the counter's value sums up all cells. The sum includes all updates completed before the read started,
+ *     but it is no atomic snapshot, since concurrent updates might or might not be reflected.
+ * </p>
+ */
+public abstract class LongCounter {
+
+    /** Name of the {@code LongAdder} based implementation, which is not compiled for Java 6 and 7 */
+    private static final String LONG_ADDER_COUNTER_CLASS_NAME = "com.dynatrace.openkit.core.util.LongAdderCounter";
+    /** The {@code LongAdder} based implementation or {@code null} if {@code LongAdder} is not available */
+    private static final Class<? extends LongCounter> LONG_ADDER_COUNTER_CLASS = findLongAdderCounterClass();
+
+    /**
+     * Create a new counter with an initial value of {@code 0}.
+     *
+     * @return The counter, which is backed by a {@code LongAdder} if available.
+     */
+    public static LongCounter create() {
+        if (LONG_ADDER_COUNTER_CLASS != null) {
+            try {
+                return LONG_ADDER_COUNTER_CLASS.newInstance();
+            } catch (InstantiationException e) {
+                // fall through
+            } catch (IllegalAccessException e) {
+                // fall through
+            }
+        }
+        return new StripedLongCounter();
+    }
+
+    private static Class<? extends LongCounter> findLongAdderCounterClass() {
+        try {
+            Class.forName("java.util.concurrent.atomic.LongAdder");
+            return Class.forName(LONG_ADDER_COUNTER_CLASS_NAME).asSubclass(LongCounter.class);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Add the given delta to this counter.
+     *
+     * @param delta The delta to add, which might be negative.
+     */
+    public abstract void add(long delta);
+
+    /**
+     * Increment this counter by one.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Get the counter's current value.
+     *
+     * @return The sum of all updates.
+     */
+    public abstract long sum();
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.util;
+
+import java.util.Random;
+
+/**
+ * Retry policy computing exponentially growing delays with decorrelated jitter.
+ *
+ * <p>
+ *     Each delay is chosen randomly between the base delay and three times the previous delay,
+ *     but never exceeds the maximum delay. On average the delays grow exponentially, while clients
+ *     which started failing at the same time spread out quickly instead of retrying in lockstep.
+ * </p>
+ *
+ * <p>
+ *     The policy itself is stateless, the caller keeps the previous delay.
+ *     Therefore a single instance can be shared by all retry loops with the same delay bounds.
+ * </p>
+ */
+public final class RetryPolicy {
+
+    private final long baseDelayInMilliseconds;
+    private final long maxDelayInMilliseconds;
+    private final Random random;
+
+    /**
+     * Create a retry policy.
+     *
+     * @param baseDelayInMilliseconds The minimum delay, which is also used as previous delay of the first retry.
+     * @param maxDelayInMilliseconds The maximum delay.
+     */
+    public RetryPolicy(long baseDelayInMilliseconds, long maxDelayInMilliseconds) {
+        this(baseDelayInMilliseconds, maxDelayInMilliseconds, new Random());
+    }
+
+    /**
+     * Create a retry policy using the given source of randomness.
+     *
+     * @param baseDelayInMilliseconds The minimum delay, which is also used as previous delay of the first retry.
+     * @param maxDelayInMilliseconds The maximum delay.
+     * @param random The source of the jitter.
+     */
+    public RetryPolicy(long baseDelayInMilliseconds, long maxDelayInMilliseconds, Random random) {
+        if (baseDelayInMilliseconds <= 0) {
+            throw new IllegalArgumentException("baseDelayInMilliseconds must be positive");
+        }
+        if (maxDelayInMilliseconds < baseDelayInMilliseconds) {
+            throw new IllegalArgumentException("maxDelayInMilliseconds must not be less than baseDelayInMilliseconds");
+        }
+        this.baseDelayInMilliseconds = baseDelayInMilliseconds;
+        this.maxDelayInMilliseconds = maxDelayInMilliseconds;
+        this.random = random;
+    }
+
+    /**
+     * Get the minimum delay, which shall be passed as previous delay when computing the first delay.
+     */
+    public long getBaseDelay() {
+        return baseDelayInMilliseconds;
+    }
+
+    /**
+     * Get the maximum delay.
+     */
+    public long getMaxDelay() {
+        return maxDelayInMilliseconds;
+    }
+
+    /**
+     * Get the delay of the first retry.
+     *
+     * @return A delay between the base delay and three times the base delay, bounded by the maximum delay.
+     */
+    public long getFirstDelay() {
+        return getNextDelay(baseDelayInMilliseconds);
+    }
+
+    /**
+     * Get the delay following the given previous delay.
+     *
+     * @param previousDelayInMilliseconds The delay used before the last attempt.
+     *
+     * @return A delay between the base delay and three times the previous delay, bounded by the maximum delay.
+     */
+    public long getNextDelay(long previousDelayInMilliseconds) {
+        long previousDelay = Math.max(previousDelayInMilliseconds, baseDelayInMilliseconds);
+        long upperBound = previousDelay > maxDelayInMilliseconds / 3 ? maxDelayInMilliseconds : previousDelay * 3;
+        long delay = baseDelayInMilliseconds + (long) (random.nextDouble() * (upperBound - baseDelayInMilliseconds));
+        return Math.min(delay, maxDelayInMilliseconds);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [baseDelay=" + baseDelayInMilliseconds + ", maxDelay=" + maxDelayInMilliseconds + "]";
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of 64 bit cells, which are striped over multiple slots to reduce contention.
+ *
+ * <p>
+ *     Each thread updates the cells of one stripe, which is selected by the thread's ID.
+ *     Stripes are padded to a full cache line, so that threads updating different stripes do not interfere.
+ *     Reading a cell's value sums up the cell over all stripes, which makes updates cheap and reads expensive.
+ * </p>
+ *
+ * <p>
+ *     A cell either holds a {@code long} or a {@code double} value, which is up to the caller.
+ *     Only methods for the same type must be used for a cell.
+ * </p>
+ */
+public final class StripedCells {
+
+    /** Number of longs in a cache line, assuming 64 byte cache lines */
+    private static final int LONGS_PER_CACHE_LINE = 8;
+    /** Upper bound for the number of stripes */
+    private static final int MAX_STRIPES = 64;
+
+    /** Number of stripes, which is always a power of two */
+    private final int numStripes;
+    /** Distance between two stripes in the cells array */
+    private final int stride;
+    /** The cells of all stripes */
+    private final AtomicLongArray cells;
+
+    /**
+     * Create striped cells, where the number of stripes depends on the number of available processors.
+     *
+     * @param numCells The number of cells.
+     */
+    public StripedCells(int numCells) {
+        this(numCells, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create striped cells.
+     *
+     * @param numCells The number of cells.
+     * @param concurrencyLevel The expected number of concurrently updating threads.
+     */
+    public StripedCells(int numCells, int concurrencyLevel) {
+        numStripes = stripesFor(concurrencyLevel);
+        stride = ((numCells + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE) * LONGS_PER_CACHE_LINE;
+        cells = new AtomicLongArray(numStripes * stride);
+    }
+
+    private static int stripesFor(int concurrencyLevel) {
+        int numStripes = 1;
+        while (numStripes < concurrencyLevel && numStripes < MAX_STRIPES) {
+            numStripes <<= 1;
+        }
+        return numStripes;
+    }
+
+    /**
+     * Get the index of the given cell in the current thread's stripe.
+     */
+    private int indexOf(int cell) {
+        long threadID = Thread.currentThread().getId();
+        int hash = (int) (threadID ^ (threadID >>> 32));
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return (hash & (numStripes - 1)) * stride + cell;
+    }
+
+    /**
+     * Add a delta to a {@code long} cell.
+     *
+     * @param cell The cell's index.
+     * @param delta The delta to add.
+     */
+    public void add(int cell, long delta) {
+        cells.addAndGet(indexOf(cell), delta);
+    }
+
+    /**
+     * Add a delta to a {@code double} cell.
+     *
+     * @param cell The cell's index.
+     * @param delta The delta to add.
+     */
+    public void addDouble(int cell, double delta) {
+        int index = indexOf(cell);
+        while (true) {
+            long current = cells.get(index);
+            long next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + delta);
+            if (cells.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the sum of a {@code long} cell.
+     *
+     * <p>
+     *     The sum is not an atomic snapshot, updates which are performed concurrently might not be reflected.
+     * </p>
+     *
+     * @param cell The cell's index.
+     * @return The cell's value.
+     */
+    public long sum(int cell) {
+        long sum = 0;
+        for (int index = cell; index < cells.length(); index += stride) {
+            sum += cells.get(index);
+        }
+        return sum;
+    }
+
+    /**
+     * Get the sum of a {@code long} cell and reset it to {@code 0}.
+     *
+     * <p>
+     *     Each stripe is reset atomically, therefore no concurrent update is lost.
+     * </p>
+     *
+     * @param cell The cell's index.
+     * @return The cell's value.
+     */
+    public long sumThenReset(int cell) {
+        long sum = 0;
+        for (int index = cell; index < cells.length(); index += stride) {
+            sum += cells.getAndSet(index, 0L);
+        }
+        return sum;
+    }
+
+    /**
+     * Get the sum of a {@code double} cell and reset it to {@code 0}.
+     *
+     * <p>
+     *     Each stripe is reset atomically, therefore no concurrent update is lost.
+     * </p>
+     *
+     * @param cell The cell's index.
+     * @return The cell's value.
+     */
+    public double sumDoubleThenReset(int cell) {
+        double sum = 0.0;
+        for (int index = cell; index < cells.length(); index += stride) {
+            // 0L is the bit representation of 0.0
+            sum += Double.longBitsToDouble(cells.getAndSet(index, 0L));
+        }
+        return sum;
+    }
+
+    /**
+     * Get the number of stripes.
+     */
+    int getNumberOfStripes() {
+        return numStripes;
+    }
+}
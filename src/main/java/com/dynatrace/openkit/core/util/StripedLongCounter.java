@@ -0,0 +1,47 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+/**
+ * {@link LongCounter} striping the updates over {@link StripedCells}.
+ *
+ * <p>
+ *     This implementation is used on platforms not providing {@code LongAdder}, like Java 6 and 7.
+ * </p>
+ */
+final class StripedLongCounter extends LongCounter {
+
+    private final StripedCells cells;
+
+    StripedLongCounter() {
+        cells = new StripedCells(1);
+    }
+
+    StripedLongCounter(int concurrencyLevel) {
+        cells = new StripedCells(1, concurrencyLevel);
+    }
+
+    @Override
+    public void add(long delta) {
+        cells.add(0, delta);
+    }
+
+    @Override
+    public long sum() {
+        return cells.sum(0);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.util;
+
+/**
+ * Token bucket, which limits the rate of operations.
+ *
+ * <p>
+ *     The bucket holds up to {@code capacity} tokens and is refilled continuously,
+ *     at a rate of {@code capacity} tokens per refill interval.
+ *     Each operation takes one token and is rejected, if the bucket is empty.
+ * </p>
+ *
+ * <p>
+ *     Alternatively a number of tokens can be {@link #consume(long, long) consumed} unconditionally,
+ *     which might overdraw the bucket. The caller then {@link #getWaitTime(long, long) waits} until the debt has been
+ *     refilled, before the next operation.
+ * </p>
+ *
+ * <p>
+ *     Timestamps are passed in by the caller, which avoids querying the clock multiple times.
+ * </p>
+ */
+public final class TokenBucket {
+
+    private final long capacity;
+    private final long refillIntervalInMilliseconds;
+
+    /** Available tokens, scaled by the refill interval to avoid fractional tokens; negative if overdrawn */
+    private long scaledTokens;
+    /** Timestamp of the last refill */
+    private long lastRefillTimestamp;
+
+    /**
+     * Create a full token bucket.
+     *
+     * @param capacity Maximum number of tokens, which is also the number of tokens added per interval.
+     * @param refillIntervalInMilliseconds Interval in which the bucket is refilled completely.
+     * @param timestamp The current timestamp in milliseconds.
+     */
+    public TokenBucket(long capacity, long refillIntervalInMilliseconds, long timestamp) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (refillIntervalInMilliseconds <= 0) {
+            throw new IllegalArgumentException("refillIntervalInMilliseconds must be positive");
+        }
+        this.capacity = capacity;
+        this.refillIntervalInMilliseconds = refillIntervalInMilliseconds;
+        scaledTokens = maxScaledTokens();
+        lastRefillTimestamp = timestamp;
+    }
+
+    private long maxScaledTokens() {
+        return capacity * refillIntervalInMilliseconds;
+    }
+
+    private void refill(long timestamp) {
+        long elapsed = timestamp - lastRefillTimestamp;
+        if (elapsed <= 0) {
+            return;
+        }
+        lastRefillTimestamp = timestamp;
+        // an overdrawn bucket needs longer than the refill interval to be filled completely
+        if (elapsed >= divideRoundingUp(maxScaledTokens() - scaledTokens, capacity)) {
+            scaledTokens = maxScaledTokens();
+        } else {
+            scaledTokens += elapsed * capacity;
+        }
+    }
+
+    private static long divideRoundingUp(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Try to take a single token.
+     *
+     * @param timestamp The current timestamp in milliseconds.
+     * @return {@code true} if a token was taken, {@code false} if the bucket is empty.
+     */
+    public synchronized boolean tryAcquire(long timestamp) {
+        refill(timestamp);
+        if (scaledTokens < refillIntervalInMilliseconds) {
+            return false;
+        }
+        scaledTokens -= refillIntervalInMilliseconds;
+        return true;
+    }
+
+    /**
+     * Take the given number of tokens, even if fewer tokens are available.
+     *
+     * @param numTokens The number of tokens to take.
+     * @param timestamp The current timestamp in milliseconds.
+     */
+    public synchronized void consume(long numTokens, long timestamp) {
+        refill(timestamp);
+        scaledTokens -= numTokens * refillIntervalInMilliseconds;
+    }
+
+    /**
+     * Get the time until the given number of tokens is available.
+     *
+     * <p>
+     *     Passing zero tokens gives the time until an overdrawn bucket is no longer overdrawn.
+     * </p>
+     *
+     * @param numTokens The number of tokens required.
+     * @param timestamp The current timestamp in milliseconds.
+     * @return The time to wait in milliseconds, or {@code 0} if the tokens are available.
+     */
+    public synchronized long getWaitTime(long numTokens, long timestamp) {
+        refill(timestamp);
+        long missingScaledTokens = numTokens * refillIntervalInMilliseconds - scaledTokens;
+        return missingScaledTokens <= 0 ? 0 : divideRoundingUp(missingScaledTokens, capacity);
+    }
+
+    /**
+     * Test if the bucket is full, which means it has not been used within the last refill interval.
+     *
+     * @param timestamp The current timestamp in milliseconds.
+     * @return {@code true} if the bucket is full, {@code false} otherwise.
+     */
+    public synchronized boolean isFull(long timestamp) {
+        refill(timestamp);
+        return scaledTokens == maxScaledTokens();
+    }
+}
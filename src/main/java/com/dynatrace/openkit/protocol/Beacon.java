@@ -16,12 +16,18 @@
 
 package com.dynatrace.openkit.protocol;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.caching.RecordPriority;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.CapturePolicy;
 import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
 import com.dynatrace.openkit.core.objects.BaseActionImpl;
 import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.core.objects.WebRequestTracerBaseImpl;
@@ -32,8 +38,10 @@ import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -81,6 +89,7 @@ public class Beacon {
     private static final String BEACON_KEY_ERROR_CODE = "ev";
     private static final String BEACON_KEY_ERROR_REASON = "rs";
     private static final String BEACON_KEY_ERROR_STACKTRACE = "st";
+    private static final String BEACON_KEY_ERROR_OCCURRENCES = "oc";
     private static final String BEACON_KEY_WEBREQUEST_RESPONSECODE = "rc";
     private static final String BEACON_KEY_WEBREQUEST_BYTES_SENT = "bs";
     private static final String BEACON_KEY_WEBREQUEST_BYTES_RECEIVED = "br";
@@ -95,10 +104,15 @@ public class Beacon {
     private static final String TAG_PREFIX = "MT";
 
     // web request tag reserved characters
-    private static final char[] RESERVED_CHARACTERS = {'_'};
+    static final char[] RESERVED_CHARACTERS = {'_'};
 
     private static final char BEACON_DATA_DELIMITER = '&';
 
+    // renders stack traces of reported throwables, caching encoded frames for all sessions
+    // Note: must be declared after RESERVED_CHARACTERS, which is used when encoding
+    private static final StackTraceEncoder STACK_TRACE_ENCODER = new StackTraceEncoder(StackTraceEncoder.DEFAULT_MAX_FRAMES,
+        StackTraceEncoder.DEFAULT_MAX_ENCODED_LENGTH, StackTraceEncoder.DEFAULT_CACHE_CAPACITY);
+
     // next ID and sequence number
     private final AtomicInteger nextID = new AtomicInteger(0);
     private final AtomicInteger nextSequenceNumber = new AtomicInteger(0);
@@ -132,6 +146,31 @@ public class Beacon {
 
     private final PrivacyConfiguration privacyConfiguration;
 
+    // queue used in asynchronous reporting mode, or null if events are serialized synchronously
+    private final BeaconEventQueue eventQueue;
+
+    // dictionary caching the wire form of action, value and event names
+    private final NameDictionary nameDictionary;
+
+    // whether actions and events are stored in the cache unserialized and only serialized when sending
+    private final boolean deferredSerialization;
+
+    // collapses repeated errors and crashes and limits their rate
+    private final ErrorDeduplicator errorDeduplicator;
+
+    // client side session sampling factor (1-in-N), reported as part of the multiplicity
+    private final int sessionSamplingFactor;
+
+    // limiter shared by all beacons for the outgoing traffic, or null if the traffic is not limited
+    private final TrafficLimiter trafficLimiter;
+
+    // number of errors and crashes reported so far, and the number of those which have been sent completely
+    private final AtomicLong numUrgentRecords = new AtomicLong(0);
+    private volatile long numUrgentRecordsSent = 0;
+
+    // start of the last send call which sent all cached data, all data before is known to be sent
+    private volatile long lastCompleteSendTimestamp;
+
     // *** constructors ***
 
     /**
@@ -145,7 +184,58 @@ public class Beacon {
      * @param timingProvider Provider for time related methods.
      */
     public Beacon(Logger logger, BeaconCacheImpl beaconCache, Configuration configuration, String clientIPAddress, ThreadIDProvider threadIDProvider, TimingProvider timingProvider, long sessionStartTime) {
-        this(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, new Random(), sessionStartTime);
+        this(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, new Random(), sessionStartTime, null, null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param logger Logger for logging messages.
+     * @param beaconCache Cache storing beacon related data.
+     * @param configuration OpenKit related configuration.
+     * @param clientIPAddress The client's IP address.
+     * @param threadIDProvider Provider for retrieving thread id.
+     * @param timingProvider Provider for time related methods.
+     * @param eventQueue Queue used in asynchronous reporting mode, or {@code null} to serialize events synchronously.
+     */
+    public Beacon(Logger logger, BeaconCacheImpl beaconCache, Configuration configuration, String clientIPAddress, ThreadIDProvider threadIDProvider, TimingProvider timingProvider, long sessionStartTime,
+                  BeaconEventQueue eventQueue) {
+        this(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, new Random(), sessionStartTime, eventQueue, null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param logger Logger for logging messages.
+     * @param beaconCache Cache storing beacon related data.
+     * @param configuration OpenKit related configuration.
+     * @param clientIPAddress The client's IP address.
+     * @param threadIDProvider Provider for retrieving thread id.
+     * @param timingProvider Provider for time related methods.
+     * @param eventQueue Queue used in asynchronous reporting mode, or {@code null} to serialize events synchronously.
+     * @param nameDictionary Dictionary shared by all beacons for caching encoded names, or {@code null} to encode names each time.
+     */
+    public Beacon(Logger logger, BeaconCacheImpl beaconCache, Configuration configuration, String clientIPAddress, ThreadIDProvider threadIDProvider, TimingProvider timingProvider, long sessionStartTime,
+                  BeaconEventQueue eventQueue, NameDictionary nameDictionary) {
+        this(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, new Random(), sessionStartTime, eventQueue, nameDictionary, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param logger Logger for logging messages.
+     * @param beaconCache Cache storing beacon related data.
+     * @param configuration OpenKit related configuration.
+     * @param clientIPAddress The client's IP address.
+     * @param threadIDProvider Provider for retrieving thread id.
+     * @param timingProvider Provider for time related methods.
+     * @param eventQueue Queue used in asynchronous reporting mode, or {@code null} to serialize events synchronously.
+     * @param nameDictionary Dictionary shared by all beacons for caching encoded names, or {@code null} to encode names each time.
+     * @param trafficLimiter Limiter shared by all beacons for the outgoing traffic, or {@code null} to send without limit.
+     */
+    public Beacon(Logger logger, BeaconCacheImpl beaconCache, Configuration configuration, String clientIPAddress, ThreadIDProvider threadIDProvider, TimingProvider timingProvider, long sessionStartTime,
+                  BeaconEventQueue eventQueue, NameDictionary nameDictionary, TrafficLimiter trafficLimiter) {
+        this(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, new Random(), sessionStartTime, eventQueue, nameDictionary, trafficLimiter);
     }
 
     /**
@@ -161,6 +251,11 @@ public class Beacon {
      */
     Beacon(Logger logger, BeaconCacheImpl beaconCache, Configuration configuration, String clientIPAddress, ThreadIDProvider threadIDProvider, TimingProvider timingProvider, Random random,
            long sessionStartTime) {
+        this(logger, beaconCache, configuration, clientIPAddress, threadIDProvider, timingProvider, random, sessionStartTime, null, null, null);
+    }
+
+    private Beacon(Logger logger, BeaconCacheImpl beaconCache, Configuration configuration, String clientIPAddress, ThreadIDProvider threadIDProvider, TimingProvider timingProvider, Random random,
+                   long sessionStartTime, BeaconEventQueue eventQueue, NameDictionary nameDictionary, TrafficLimiter trafficLimiter) {
         this.logger = logger;
         this.beaconCache = beaconCache;
         this.sessionNumber = configuration.createSessionNumber();
@@ -169,6 +264,7 @@ public class Beacon {
         this.configuration = configuration;
         this.threadIDProvider = threadIDProvider;
         this.sessionStartTime = sessionStartTime;
+        lastCompleteSendTimestamp = sessionStartTime;
 
         this.deviceID = createDeviceID(random, configuration);
 
@@ -188,6 +284,22 @@ public class Beacon {
 
         privacyConfiguration = configuration.getPrivacyConfiguration();
 
+        this.eventQueue = eventQueue;
+        this.nameDictionary = nameDictionary != null ? nameDictionary : new NameDictionary(0);
+        this.trafficLimiter = trafficLimiter;
+
+        BeaconCacheConfiguration beaconCacheConfiguration = configuration.getBeaconCacheConfiguration();
+        deferredSerialization = beaconCacheConfiguration != null && beaconCacheConfiguration.isDeferredSerialization();
+
+        ErrorReportingConfiguration errorReportingConfiguration = configuration.getErrorReportingConfiguration();
+        errorDeduplicator = new ErrorDeduplicator(errorReportingConfiguration != null
+            ? errorReportingConfiguration
+            : ErrorReportingConfiguration.DISABLED);
+        SamplingConfiguration samplingConfiguration = configuration.getSamplingConfiguration();
+        sessionSamplingFactor = samplingConfiguration != null
+            ? samplingConfiguration.getSessionSamplingFactor()
+            : SamplingConfiguration.DEFAULT_SAMPLING_FACTOR;
+
         immutableBasicBeaconData = createImmutableBasicBeaconData();
     }
 
@@ -293,26 +405,17 @@ public class Beacon {
      */
     public void addAction(BaseActionImpl action) {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.ACTION)) {
             return;
         }
 
-        if (!privacyConfiguration.isActionReportingAllowed()) {
-            return;
-        }
-
-        StringBuilder actionBuilder = new StringBuilder();
-
-        buildBasicEventData(actionBuilder, EventType.ACTION, action.getName());
+        BeaconEventRecord record = new BeaconEventRecord(this, EventType.ACTION, action.getName(), action.getParentID(),
+            threadIDProvider.getThreadID(), action.getStartSequenceNo(), action.getStartTime());
+        record.endSequenceNo = action.getEndSequenceNo();
+        record.endTime = action.getEndTime();
+        record.intValue = action.getID();
 
-        addKeyValuePair(actionBuilder, BEACON_KEY_ACTION_ID, action.getID());
-        addKeyValuePair(actionBuilder, BEACON_KEY_PARENT_ACTION_ID, action.getParentID());
-        addKeyValuePair(actionBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, action.getStartSequenceNo());
-        addKeyValuePair(actionBuilder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(action.getStartTime()));
-        addKeyValuePair(actionBuilder, BEACON_KEY_END_SEQUENCE_NUMBER, action.getEndSequenceNo());
-        addKeyValuePair(actionBuilder, BEACON_KEY_TIME_1, action.getEndTime() - action.getStartTime());
-
-        addActionData(action.getStartTime(), actionBuilder);
+        addActionData(record);
     }
 
     /**
@@ -324,7 +427,7 @@ public class Beacon {
      */
     public void startSession() {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.SESSION_START)) {
             return;
         }
 
@@ -336,7 +439,7 @@ public class Beacon {
         addKeyValuePair(eventBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, createSequenceNumber());
         addKeyValuePair(eventBuilder, BEACON_KEY_TIME_0, 0L);
 
-        addEventData(sessionStartTime, eventBuilder);
+        addEventData(sessionStartTime, EventType.SESSION_START, eventBuilder);
     }
 
     /**
@@ -350,11 +453,12 @@ public class Beacon {
      */
     public void endSession(SessionImpl session) {
 
-        if (isCapturingDisabled()) {
-            return;
+        if (eventQueue != null) {
+            // all events of this session must be in the cache, before the session is sent the last time
+            eventQueue.flush();
         }
 
-        if (!privacyConfiguration.isSessionReportingAllowed()) {
+        if (isCapturingDisabled(EventType.SESSION_END)) {
             return;
         }
 
@@ -366,7 +470,7 @@ public class Beacon {
         addKeyValuePair(eventBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, createSequenceNumber());
         addKeyValuePair(eventBuilder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(session.getEndTime()));
 
-        addEventData(session.getEndTime(), eventBuilder);
+        addEventData(session.getEndTime(), EventType.SESSION_END, eventBuilder);
     }
 
     /**
@@ -382,20 +486,23 @@ public class Beacon {
      */
     public void reportValue(int parentActionID, String valueName, int value, long eventTime) {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.VALUE_INT)) {
             return;
         }
 
-        if (!privacyConfiguration.isValueReportingAllowed()) {
+        if (eventQueue != null) {
+            BeaconEvent event = claimEvent(EventType.VALUE_INT, valueName, parentActionID, eventTime);
+            if (event != null) {
+                event.intValue = value;
+                eventQueue.publish(event);
+            }
             return;
         }
 
-        StringBuilder eventBuilder = new StringBuilder();
-
-        long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_INT, valueName, parentActionID, eventTime);
-        addKeyValuePair(eventBuilder, BEACON_KEY_VALUE, value);
+        BeaconEventRecord record = createEventRecord(EventType.VALUE_INT, valueName, parentActionID, eventTime);
+        record.intValue = value;
 
-        addEventData(eventTimestamp, eventBuilder);
+        addEventData(record);
     }
 
     /**
@@ -411,20 +518,23 @@ public class Beacon {
      */
     public void reportValue(int parentActionID, String valueName, double value, long eventTime) {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.VALUE_DOUBLE)) {
             return;
         }
 
-        if (!privacyConfiguration.isValueReportingAllowed()) {
+        if (eventQueue != null) {
+            BeaconEvent event = claimEvent(EventType.VALUE_DOUBLE, valueName, parentActionID, eventTime);
+            if (event != null) {
+                event.doubleValue = value;
+                eventQueue.publish(event);
+            }
             return;
         }
 
-        StringBuilder eventBuilder = new StringBuilder();
+        BeaconEventRecord record = createEventRecord(EventType.VALUE_DOUBLE, valueName, parentActionID, eventTime);
+        record.doubleValue = value;
 
-        long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_DOUBLE, valueName, parentActionID, eventTime);
-        addKeyValuePair(eventBuilder, BEACON_KEY_VALUE, value);
-
-        addEventData(eventTimestamp, eventBuilder);
+        addEventData(record);
     }
 
     /**
@@ -440,22 +550,23 @@ public class Beacon {
      */
     public void reportValue(int parentActionID, String valueName, String value, long eventTime) {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.VALUE_STRING)) {
             return;
         }
 
-        if (!privacyConfiguration.isValueReportingAllowed()) {
+        if (eventQueue != null) {
+            BeaconEvent event = claimEvent(EventType.VALUE_STRING, valueName, parentActionID, eventTime);
+            if (event != null) {
+                event.stringValue = value;
+                eventQueue.publish(event);
+            }
             return;
         }
 
-        StringBuilder eventBuilder = new StringBuilder();
-
-        long eventTimestamp = buildEvent(eventBuilder, EventType.VALUE_STRING, valueName, parentActionID, eventTime);
-        if (value != null) {
-            addKeyValuePair(eventBuilder, BEACON_KEY_VALUE, truncate(value));
-        }
+        BeaconEventRecord record = createEventRecord(EventType.VALUE_STRING, valueName, parentActionID, eventTime);
+        record.stringValue = value;
 
-        addEventData(eventTimestamp, eventBuilder);
+        addEventData(record);
     }
 
     /**
@@ -470,19 +581,19 @@ public class Beacon {
      */
     public void reportEvent(int parentActionID, String eventName, long eventTime) {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.NAMED_EVENT)) {
             return;
         }
 
-        if (!privacyConfiguration.isEventReportingAllowed()) {
+        if (eventQueue != null) {
+            BeaconEvent event = claimEvent(EventType.NAMED_EVENT, eventName, parentActionID, eventTime);
+            if (event != null) {
+                eventQueue.publish(event);
+            }
             return;
         }
 
-        StringBuilder eventBuilder = new StringBuilder();
-
-        long eventTimestamp = buildEvent(eventBuilder, EventType.NAMED_EVENT, eventName, parentActionID, eventTime);
-
-        addEventData(eventTimestamp, eventBuilder);
+        addEventData(createEventRecord(EventType.NAMED_EVENT, eventName, parentActionID, eventTime));
     }
 
     /**
@@ -492,6 +603,10 @@ public class Beacon {
      *     The serialized data is added to {@link com.dynatrace.openkit.core.caching.BeaconCache}.
      * </p>
      *
+     * <p>
+     *     If error deduplication or rate limiting is enabled, repeated errors are collapsed or dropped.
+     * </p>
+     *
      * @param parentActionID The ID of the {@link com.dynatrace.openkit.api.Action} on which this error was reported.
      * @param errorName Error's name.
      * @param errorCode Some error code.
@@ -499,26 +614,32 @@ public class Beacon {
      */
     public void reportError(int parentActionID, String errorName, int errorCode, String reason) {
         // if capture errors is off -> do nothing
-        if (isCapturingDisabled() || !configuration.isCaptureErrors()) {
+        if (isCapturingDisabled(EventType.ERROR)) {
             return;
         }
 
-        if (!privacyConfiguration.isErrorReportingAllowed()) {
+        long timestamp = timingProvider.provideTimestampInMilliseconds();
+        if (errorDeduplicator.isEnabled()
+            && !errorDeduplicator.shouldReport(EventType.ERROR, parentActionID, errorName, errorCode, reason, null, timestamp)) {
+            return;
+        }
+        numUrgentRecords.incrementAndGet();
+
+        if (eventQueue != null) {
+            BeaconEvent event = claimEvent(EventType.ERROR, errorName, parentActionID, timestamp);
+            if (event != null) {
+                event.intValue = errorCode;
+                event.stringValue = reason;
+                eventQueue.publish(event);
+            }
             return;
         }
 
-        StringBuilder eventBuilder = new StringBuilder();
-
-        buildBasicEventData(eventBuilder, EventType.ERROR, errorName);
+        BeaconEventRecord record = createEventRecord(EventType.ERROR, errorName, parentActionID, timestamp);
+        record.intValue = errorCode;
+        record.stringValue = reason;
 
-        long timestamp = timingProvider.provideTimestampInMilliseconds();
-        addKeyValuePair(eventBuilder, BEACON_KEY_PARENT_ACTION_ID, parentActionID);
-        addKeyValuePair(eventBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, createSequenceNumber());
-        addKeyValuePair(eventBuilder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(timestamp));
-        addKeyValuePair(eventBuilder, BEACON_KEY_ERROR_CODE, errorCode);
-        addKeyValuePairIfNotNull(eventBuilder, BEACON_KEY_ERROR_REASON, reason);
-
-        addEventData(timestamp, eventBuilder);
+        addEventData(record);
     }
 
     /**
@@ -528,32 +649,159 @@ public class Beacon {
      *     The serialized data is added to {@link com.dynatrace.openkit.core.caching.BeaconCache}.
      * </p>
      *
+     * <p>
+     *     If error deduplication or rate limiting is enabled, repeated crashes are collapsed or dropped.
+     * </p>
+     *
      * @param errorName Error's name.
      * @param reason Reason for that error.
      * @param stacktrace Crash stacktrace.
      */
     public void reportCrash(String errorName, String reason, String stacktrace) {
         // if capture crashes is off -> do nothing
-        if (isCapturingDisabled() || !configuration.isCaptureCrashes()) {
+        if (isCapturingDisabled(EventType.CRASH)) {
             return;
         }
 
-        if (!privacyConfiguration.isCrashReportingAllowed()) {
+        // repeats are detected on the raw stacktrace, so that collapsed or dropped crashes are not encoded
+        long timestamp = timingProvider.provideTimestampInMilliseconds();
+        if (errorDeduplicator.isEnabled()
+            && !errorDeduplicator.shouldReport(EventType.CRASH, 0, errorName, 0, reason, stacktrace, timestamp)) {
             return;
         }
 
+        reportEncodedCrash(errorName, reason, encodeStacktrace(stacktrace), timestamp);
+    }
+
+    private String encodeStacktrace(String stacktrace) {
+        if (stacktrace == null) {
+            return null;
+        }
+
+        String encodedStacktrace = PercentEncoder.encode(stacktrace, CHARSET, RESERVED_CHARACTERS);
+        if (encodedStacktrace == null) {
+            logger.error(getClass().getSimpleName() + "Skipped encoding of Key/Value: " + BEACON_KEY_ERROR_STACKTRACE + "/" + stacktrace);
+        }
+        return encodedStacktrace;
+    }
+
+    /**
+     * Add crash to Beacon.
+     *
+     * <p>
+     *     The error name is the throwable's class name and the reason is the throwable's message.
+     *     The stack trace, including all causes, is rendered directly into its encoded form,
+     *     limited to {@link StackTraceEncoder#DEFAULT_MAX_FRAMES} frames and
+     *     {@link StackTraceEncoder#DEFAULT_MAX_ENCODED_LENGTH} characters.
+     * </p>
+     *
+     * <p>
+     *     If error deduplication or rate limiting is enabled, repeated crashes are collapsed or dropped.
+     * </p>
+     *
+     * @param throwable The throwable causing the crash.
+     */
+    public void reportCrash(Throwable throwable) {
+        // if capture crashes is off -> do nothing
+        if (isCapturingDisabled(EventType.CRASH)) {
+            return;
+        }
+
+        // repeats are detected on the frames, so that collapsed or dropped crashes are not rendered
+        String errorName = throwable.getClass().getName();
+        String reason = throwable.getMessage();
+        long timestamp = timingProvider.provideTimestampInMilliseconds();
+        if (errorDeduplicator.isEnabled()
+            && !errorDeduplicator.shouldReport(EventType.CRASH, 0, errorName, 0, reason,
+                new ErrorDeduplicator.StackTraceKey(throwable), timestamp)) {
+            return;
+        }
+
+        reportEncodedCrash(errorName, reason, STACK_TRACE_ENCODER.encode(throwable), timestamp);
+    }
+
+    /**
+     * Add crash, where the stacktrace is already percent encoded, to Beacon.
+     *
+     * @param errorName Error's name.
+     * @param reason Reason for that error.
+     * @param encodedStacktrace Percent encoded crash stacktrace.
+     * @param timestamp The timestamp when the crash was reported.
+     */
+    private void reportEncodedCrash(String errorName, String reason, String encodedStacktrace, long timestamp) {
+        numUrgentRecords.incrementAndGet();
+
+        addCrashData(errorName, reason, encodedStacktrace, timestamp, 0);
+    }
+
+    /**
+     * Serialize a crash and add it to the beacon cache.
+     *
+     * @param errorName Error's name.
+     * @param reason Reason for that error.
+     * @param encodedStacktrace Percent encoded crash stacktrace.
+     * @param timestamp The timestamp when the crash was reported.
+     * @param numOccurrences Number of collapsed occurrences, or {@code 0} for a single crash.
+     */
+    private void addCrashData(String errorName, String reason, String encodedStacktrace, long timestamp, int numOccurrences) {
         StringBuilder eventBuilder = new StringBuilder();
 
         buildBasicEventData(eventBuilder, EventType.CRASH, errorName);
 
-        long timestamp = timingProvider.provideTimestampInMilliseconds();
         addKeyValuePair(eventBuilder, BEACON_KEY_PARENT_ACTION_ID, 0);                                  // no parent action
         addKeyValuePair(eventBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, createSequenceNumber());
         addKeyValuePair(eventBuilder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(timestamp));
         addKeyValuePairIfNotNull(eventBuilder, BEACON_KEY_ERROR_REASON, reason);
-        addKeyValuePairIfNotNull(eventBuilder, BEACON_KEY_ERROR_STACKTRACE, stacktrace);
+        if (encodedStacktrace != null) {
+            appendKey(eventBuilder, BEACON_KEY_ERROR_STACKTRACE);
+            eventBuilder.append(encodedStacktrace);
+        }
+        if (numOccurrences > 0) {
+            addKeyValuePair(eventBuilder, BEACON_KEY_ERROR_OCCURRENCES, numOccurrences);
+        }
 
-        addEventData(timestamp, eventBuilder);
+        addEventData(timestamp, EventType.CRASH, eventBuilder);
+    }
+
+    /**
+     * Add a single record for each error and crash, which has been repeated within its deduplication window.
+     *
+     * <p>
+     *     This is called before the beacon data is sent.
+     * </p>
+     */
+    void addErrorSummaries() {
+        if (!errorDeduplicator.isEnabled()) {
+            return;
+        }
+
+        List<ErrorDeduplicator.Summary> summaries = errorDeduplicator.drainSummaries(timingProvider.provideTimestampInMilliseconds());
+        for (ErrorDeduplicator.Summary summary : summaries) {
+            if (summary.eventType == EventType.CRASH) {
+                addCrashData(summary.name, summary.reason, encodeStackTraceKey(summary.stackTraceKey), summary.timestamp,
+                    summary.numOccurrences);
+            } else {
+                BeaconEventRecord record = createEventRecord(EventType.ERROR, summary.name, summary.parentActionID, summary.timestamp);
+                record.intValue = summary.errorCode;
+                record.stringValue = summary.reason;
+                record.numOccurrences = summary.numOccurrences;
+                addEventData(record);
+            }
+        }
+    }
+
+    private String encodeStackTraceKey(Object stackTraceKey) {
+        if (stackTraceKey instanceof ErrorDeduplicator.StackTraceKey) {
+            return STACK_TRACE_ENCODER.encode(((ErrorDeduplicator.StackTraceKey) stackTraceKey).getThrowable());
+        }
+        return encodeStacktrace((String) stackTraceKey);
+    }
+
+    /**
+     * Get the number of errors and crashes, which have been dropped due to rate limiting.
+     */
+    long getNumberOfDroppedErrors() {
+        return errorDeduplicator.getNumberOfDroppedErrors();
     }
 
     /**
@@ -568,28 +816,34 @@ public class Beacon {
      */
     public void addWebRequest(int parentActionID, WebRequestTracerBaseImpl webRequestTracer) {
 
-        if (isCapturingDisabled()) {
+        if (isCapturingDisabled(EventType.WEBREQUEST)) {
             return;
         }
-        if (!privacyConfiguration.isWebRequestTracingAllowed()) {
+
+        if (eventQueue != null) {
+            BeaconEvent event = eventQueue.claim();
+            if (event != null) {
+                event.init(this, EventType.WEBREQUEST, webRequestTracer.getURL(), parentActionID, threadIDProvider.getThreadID(),
+                    webRequestTracer.getStartSequenceNo(), webRequestTracer.getStartTime());
+                event.endSequenceNo = webRequestTracer.getEndSequenceNo();
+                event.endTime = webRequestTracer.getEndTime();
+                event.intValue = webRequestTracer.getBytesSent();
+                event.bytesReceived = webRequestTracer.getBytesReceived();
+                event.responseCode = webRequestTracer.getResponseCode();
+                eventQueue.publish(event);
+            }
             return;
         }
 
-        StringBuilder eventBuilder = new StringBuilder();
+        BeaconEventRecord record = new BeaconEventRecord(this, EventType.WEBREQUEST, webRequestTracer.getURL(), parentActionID,
+            threadIDProvider.getThreadID(), webRequestTracer.getStartSequenceNo(), webRequestTracer.getStartTime());
+        record.endSequenceNo = webRequestTracer.getEndSequenceNo();
+        record.endTime = webRequestTracer.getEndTime();
+        record.intValue = webRequestTracer.getBytesSent();
+        record.bytesReceived = webRequestTracer.getBytesReceived();
+        record.responseCode = webRequestTracer.getResponseCode();
 
-        buildBasicEventData(eventBuilder, EventType.WEBREQUEST, webRequestTracer.getURL());
-
-        addKeyValuePair(eventBuilder, BEACON_KEY_PARENT_ACTION_ID, parentActionID);
-        addKeyValuePair(eventBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, webRequestTracer.getStartSequenceNo());
-        addKeyValuePair(eventBuilder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(webRequestTracer.getStartTime()));
-        addKeyValuePair(eventBuilder, BEACON_KEY_END_SEQUENCE_NUMBER, webRequestTracer.getEndSequenceNo());
-        addKeyValuePair(eventBuilder, BEACON_KEY_TIME_1, webRequestTracer.getEndTime() - webRequestTracer.getStartTime());
-
-        addKeyValuePairIfNotNegative(eventBuilder, BEACON_KEY_WEBREQUEST_BYTES_SENT, webRequestTracer.getBytesSent());
-        addKeyValuePairIfNotNegative(eventBuilder, BEACON_KEY_WEBREQUEST_BYTES_RECEIVED, webRequestTracer.getBytesReceived());
-        addKeyValuePairIfNotNegative(eventBuilder, BEACON_KEY_WEBREQUEST_RESPONSECODE, webRequestTracer.getResponseCode());
-
-        addEventData(webRequestTracer.getStartTime(), eventBuilder);
+        addEventData(record);
     }
 
     /**
@@ -603,11 +857,7 @@ public class Beacon {
      */
     public void identifyUser(String userTag, long eventTimestamp) {
 
-        if (isCapturingDisabled()) {
-            return;
-        }
-
-        if (!privacyConfiguration.isUserIdentificationAllowed()) {
+        if (isCapturingDisabled(EventType.IDENTIFY_USER)) {
             return;
         }
 
@@ -620,7 +870,7 @@ public class Beacon {
         addKeyValuePair(eventBuilder, BEACON_KEY_START_SEQUENCE_NUMBER, createSequenceNumber());
         addKeyValuePair(eventBuilder, BEACON_KEY_TIME_0, eventTimestamp);
 
-        addEventData(timestamp, eventBuilder);
+        addEventData(timestamp, EventType.IDENTIFY_USER, eventBuilder);
     }
 
     /**
@@ -628,6 +878,7 @@ public class Beacon {
      *
      * <p>
      *     This method tries to send all so far collected and serialized data.
+     *     If the outgoing traffic is limited, this method waits before taking each chunk from the beacon cache.
      * </p>
      *
      * @param provider Provider for getting an {@link HTTPClient} required to send the data.
@@ -635,12 +886,46 @@ public class Beacon {
      * @return Returns the last status response retrieved from the server side, or {@code null} if an error occurred.
      */
     public StatusResponse send(HTTPClientProvider provider) {
+        return send(provider, 0);
+    }
+
+    /**
+     * Send current state of Beacon, but don't start sending a further chunk after the given deadline.
+     *
+     * <p>
+     *     Data which has not been sent when the deadline expired stays in the beacon cache. This includes data
+     *     which could only be sent after the deadline, because the {@link TrafficLimiter} delays the next request.
+     * </p>
+     *
+     * @param provider Provider for getting an {@link HTTPClient} required to send the data.
+     * @param deadline Timestamp in milliseconds after which no further chunk is sent, or non-positive for no deadline.
+     *
+     * @return Returns the last status response retrieved from the server side, or {@code null} if an error occurred
+     *         or nothing has been sent before the deadline.
+     */
+    public StatusResponse send(HTTPClientProvider provider, long deadline) {
+
+        // collapsed errors are added right before sending, to report each error at most once per send interval
+        addErrorSummaries();
+
+        long numUrgentRecordsBeforeSend = numUrgentRecords.get();
+        long sendStartTimestamp = timingProvider.provideTimestampInMilliseconds();
 
         HTTPClient httpClient = provider.createClient(httpConfiguration);
         StatusResponse response = null;
 
         while (true) {
 
+            if (deadline > 0 && timingProvider.provideTimestampInMilliseconds() >= deadline) {
+                // deadline expired, the remaining data stays in the cache
+                return response;
+            }
+
+            if (trafficLimiter != null && !awaitTrafficPermit(deadline)) {
+                // no permit before the deadline or interrupted while waiting, the remaining data stays in the cache
+                return response;
+            }
+
             // prefix for this chunk - must be built up newly, due to changing timestamps
             String prefix = appendMutableBeaconData(immutableBasicBeaconData);
             // subtract 1024 to ensure that the chunk does not exceed the send size configured on server side?
@@ -649,6 +934,8 @@ public class Beacon {
             String chunk = beaconCache.getNextBeaconChunk(sessionNumber, prefix, configuration.getMaxBeaconSize() - 1024, BEACON_DATA_DELIMITER);
             if (chunk == null || chunk.isEmpty()) {
                 // no data added so far or no data to send
+                numUrgentRecordsSent = numUrgentRecordsBeforeSend;
+                lastCompleteSendTimestamp = sendStartTimestamp;
                 return response;
             }
 
@@ -663,6 +950,9 @@ public class Beacon {
             }
 
             // send the request
+            if (trafficLimiter != null) {
+                trafficLimiter.consume(encodedBeacon.length);
+            }
             response = httpClient.sendBeaconRequest(clientIPAddress, encodedBeacon);
             if (response == null || response.isErroneousResponse()) {
                 // error happened - but don't know what exactly
@@ -678,6 +968,72 @@ public class Beacon {
         return response;
     }
 
+    /**
+     * Hand all data, which has not been sent yet, to the given persistence hook.
+     *
+     * <p>
+     *     The data is split into chunks like in {@link #send(HTTPClientProvider)}, and each chunk is removed from
+     *     the beacon cache once it has been handed over. If the hook throws, the remaining data stays in the cache.
+     * </p>
+     *
+     * @param persistenceHook The hook receiving the unsent data.
+     */
+    public void persistUnsentData(BeaconPersistenceHook persistenceHook) {
+
+        addErrorSummaries();
+
+        while (true) {
+            String prefix = appendMutableBeaconData(immutableBasicBeaconData);
+            String chunk = beaconCache.getNextBeaconChunk(sessionNumber, prefix, configuration.getMaxBeaconSize() - 1024, BEACON_DATA_DELIMITER);
+            if (chunk == null || chunk.isEmpty()) {
+                return;
+            }
+
+            try {
+                persistenceHook.persist(clientIPAddress, chunk);
+            } catch (RuntimeException e) {
+                logger.error(getClass().getSimpleName() + " persistUnsentData() - Persistence hook failed", e);
+                beaconCache.resetChunkedData(sessionNumber);
+                return;
+            }
+            beaconCache.removeChunkedData(sessionNumber);
+        }
+    }
+
+    /**
+     * Test if errors or crashes have been reported, which have not been sent yet.
+     *
+     * <p>
+     *     The beacon sender sends such beacons before any others.
+     * </p>
+     *
+     * @return {@code true} if an error or crash is waiting to be sent, {@code false} otherwise.
+     */
+    public boolean hasUrgentData() {
+        return numUrgentRecords.get() > numUrgentRecordsSent;
+    }
+
+    /**
+     * Get the timestamp, before which all data of this beacon is known to be sent.
+     *
+     * <p>
+     *     This is the session's start time or the start of the last send, which sent all cached data,
+     *     and a lower bound for the timestamp of the oldest data waiting to be sent.
+     * </p>
+     */
+    public long getOldestUnsentDataTimestamp() {
+        return lastCompleteSendTimestamp;
+    }
+
+    private boolean awaitTrafficPermit(long deadline) {
+        try {
+            return trafficLimiter.awaitPermit(deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     private String appendMutableBeaconData(String immutableBasicBeaconData) {
 
         StringBuilder mutableBeaconDataBuilder;
@@ -720,15 +1076,19 @@ public class Beacon {
     }
 
     /**
-     * Add previously serialized action data to the beacon cache.
+     * Add action data to the beacon cache.
      *
-     * @param timestamp The timestamp when the action data occurred.
-     * @param actionBuilder Contains the serialized action data.
+     * <p>
+     *     The action is serialized immediately, unless deferred serialization is enabled.
+     * </p>
+     *
+     * @param record The action's data.
      */
-    private void addActionData(long timestamp, StringBuilder actionBuilder) {
-
-        if (configuration.isCapture()) {
-            beaconCache.addActionData(sessionNumber, timestamp, actionBuilder.toString());
+    private void addActionData(BeaconEventRecord record) {
+        if (deferredSerialization) {
+            beaconCache.addActionData(sessionNumber, record.startTime, record);
+        } else {
+            beaconCache.addActionData(sessionNumber, record.startTime, serializeRecord(record));
         }
     }
 
@@ -736,12 +1096,28 @@ public class Beacon {
      * Add previously serialized event data to the beacon cache.
      *
      * @param timestamp The timestamp when the event data occurred.
+     * @param eventType The event's type, defining its eviction priority.
      * @param eventBuilder Contains the serialized event data.
      */
-    private void addEventData(long timestamp, StringBuilder eventBuilder) {
+    private void addEventData(long timestamp, EventType eventType, StringBuilder eventBuilder) {
+        beaconCache.addEventData(sessionNumber, timestamp, RecordPriority.forEventType(eventType), eventBuilder.toString());
+    }
 
-        if (configuration.isCapture()) {
-            beaconCache.addEventData(sessionNumber, timestamp, eventBuilder.toString());
+    /**
+     * Add event data to the beacon cache.
+     *
+     * <p>
+     *     The event is serialized immediately, unless deferred serialization is enabled.
+     * </p>
+     *
+     * @param record The event's data.
+     */
+    private void addEventData(BeaconEventRecord record) {
+        RecordPriority priority = RecordPriority.forEventType(record.eventType);
+        if (deferredSerialization) {
+            beaconCache.addEventData(sessionNumber, record.startTime, priority, record);
+        } else {
+            beaconCache.addEventData(sessionNumber, record.startTime, priority, serializeRecord(record));
         }
     }
 
@@ -756,25 +1132,151 @@ public class Beacon {
 
         // remove all cached data for this Beacon from the cache
         beaconCache.deleteCacheEntry(sessionNumber);
+        numUrgentRecordsSent = numUrgentRecords.get();
     }
 
     /**
-     * Serialization helper for event data.
+     * Create a record for event data.
+     *
+     * <p>
+     *     Thread ID and sequence number are assigned on the calling thread.
+     * </p>
+     *
+     * @param eventType The event's type.
+     * @param name Event name
+     * @param parentActionID The unique Action identifier on which this event was reported.
+     * @param eventTimestamp The timestamp when the event was reported.
+     * @return The newly created record.
+     */
+    private BeaconEventRecord createEventRecord(EventType eventType, String name, int parentActionID, long eventTimestamp) {
+        return new BeaconEventRecord(this, eventType, name, parentActionID, threadIDProvider.getThreadID(), createSequenceNumber(), eventTimestamp);
+    }
+
+    /**
+     * Serialization helper for event data, where thread ID and sequence number have already been assigned.
      *
      * @param builder String builder storing the serialzed data.
      * @param eventType The event's type.
      * @param name Event name
      * @param parentActionID The unique Action identifier on which this event was reported.
-     * @return The timestamp associated with the event (timestamp since session start time).
+     * @param threadID The ID of the thread on which the event was reported.
+     * @param sequenceNo The event's sequence number.
+     * @param eventTimestamp The timestamp when the event was reported.
      */
-    private long buildEvent(StringBuilder builder, EventType eventType, String name, int parentActionID, long eventTimestamp) {
-        buildBasicEventData(builder, eventType, name);
+    private void buildEvent(StringBuilder builder, EventType eventType, String name, int parentActionID, int threadID, int sequenceNo, long eventTimestamp) {
+        buildBasicEventData(builder, eventType, name, threadID);
 
         addKeyValuePair(builder, BEACON_KEY_PARENT_ACTION_ID, parentActionID);
-        addKeyValuePair(builder, BEACON_KEY_START_SEQUENCE_NUMBER, createSequenceNumber());
+        addKeyValuePair(builder, BEACON_KEY_START_SEQUENCE_NUMBER, sequenceNo);
         addKeyValuePair(builder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(eventTimestamp));
+    }
+
+    /**
+     * Serialization helper for web request data.
+     */
+    private void buildWebRequest(StringBuilder builder, String url, int parentActionID, int threadID,
+                                 int startSequenceNo, long startTime, int endSequenceNo, long endTime,
+                                 int bytesSent, int bytesReceived, int responseCode) {
+        buildBasicEventData(builder, EventType.WEBREQUEST, url, threadID);
+
+        addKeyValuePair(builder, BEACON_KEY_PARENT_ACTION_ID, parentActionID);
+        addKeyValuePair(builder, BEACON_KEY_START_SEQUENCE_NUMBER, startSequenceNo);
+        addKeyValuePair(builder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(startTime));
+        addKeyValuePair(builder, BEACON_KEY_END_SEQUENCE_NUMBER, endSequenceNo);
+        addKeyValuePair(builder, BEACON_KEY_TIME_1, endTime - startTime);
+
+        addKeyValuePairIfNotNegative(builder, BEACON_KEY_WEBREQUEST_BYTES_SENT, bytesSent);
+        addKeyValuePairIfNotNegative(builder, BEACON_KEY_WEBREQUEST_BYTES_RECEIVED, bytesReceived);
+        addKeyValuePairIfNotNegative(builder, BEACON_KEY_WEBREQUEST_RESPONSECODE, responseCode);
+    }
+
+    /**
+     * Claim a slot from the event queue and initialize the data common to all events.
+     *
+     * <p>
+     *     Thread ID and sequence number are assigned on the calling thread.
+     * </p>
+     *
+     * @return The initialized slot, or {@code null} if the event has been dropped.
+     */
+    private BeaconEvent claimEvent(EventType eventType, String name, int parentActionID, long eventTimestamp) {
+        BeaconEvent event = eventQueue.claim();
+        if (event != null) {
+            event.init(this, eventType, name, parentActionID, threadIDProvider.getThreadID(), createSequenceNumber(), eventTimestamp);
+        }
+        return event;
+    }
 
-        return eventTimestamp;
+    /**
+     * Add an event, which has been reported in asynchronous reporting mode, to the beacon cache.
+     *
+     * <p>
+     *     This method is called by the {@link BeaconEventQueue} consumer.
+     * </p>
+     *
+     * @param event The event to add.
+     */
+    void serializeEvent(BeaconEvent event) {
+        addEventData(BeaconEventRecord.copyOf(event));
+    }
+
+    /**
+     * Serialize an action or event record into the beacon protocol's wire format.
+     *
+     * <p>
+     *     If deferred serialization is enabled, this method is called when the record is retrieved for sending.
+     * </p>
+     *
+     * @param record The record to serialize.
+     * @return Serialized record.
+     */
+    String serializeRecord(BeaconEventRecord record) {
+        StringBuilder builder = new StringBuilder();
+
+        switch (record.eventType) {
+            case ACTION:
+                buildBasicEventData(builder, record.eventType, record.name, record.threadID);
+                addKeyValuePair(builder, BEACON_KEY_ACTION_ID, record.intValue);
+                addKeyValuePair(builder, BEACON_KEY_PARENT_ACTION_ID, record.parentActionID);
+                addKeyValuePair(builder, BEACON_KEY_START_SEQUENCE_NUMBER, record.startSequenceNo);
+                addKeyValuePair(builder, BEACON_KEY_TIME_0, getTimeSinceSessionStartTime(record.startTime));
+                addKeyValuePair(builder, BEACON_KEY_END_SEQUENCE_NUMBER, record.endSequenceNo);
+                addKeyValuePair(builder, BEACON_KEY_TIME_1, record.endTime - record.startTime);
+                break;
+            case VALUE_INT:
+                buildEvent(builder, record.eventType, record.name, record.parentActionID, record.threadID, record.startSequenceNo, record.startTime);
+                addKeyValuePair(builder, BEACON_KEY_VALUE, record.intValue);
+                break;
+            case VALUE_DOUBLE:
+                buildEvent(builder, record.eventType, record.name, record.parentActionID, record.threadID, record.startSequenceNo, record.startTime);
+                addKeyValuePair(builder, BEACON_KEY_VALUE, record.doubleValue);
+                break;
+            case VALUE_STRING:
+                buildEvent(builder, record.eventType, record.name, record.parentActionID, record.threadID, record.startSequenceNo, record.startTime);
+                if (record.stringValue != null) {
+                    addKeyValuePair(builder, BEACON_KEY_VALUE, truncate(record.stringValue));
+                }
+                break;
+            case ERROR:
+                buildEvent(builder, record.eventType, record.name, record.parentActionID, record.threadID, record.startSequenceNo, record.startTime);
+                addKeyValuePair(builder, BEACON_KEY_ERROR_CODE, record.intValue);
+                addKeyValuePairIfNotNull(builder, BEACON_KEY_ERROR_REASON, record.stringValue);
+                if (record.numOccurrences > 0) {
+                    addKeyValuePair(builder, BEACON_KEY_ERROR_OCCURRENCES, record.numOccurrences);
+                }
+                break;
+            case WEBREQUEST:
+                buildWebRequest(builder, record.name, record.parentActionID, record.threadID,
+                    record.startSequenceNo, record.startTime, record.endSequenceNo, record.endTime,
+                    record.intValue, record.bytesReceived, record.responseCode);
+                break;
+            default:
+                // named events
+                buildEvent(builder, record.eventType, record.name, record.parentActionID, record.threadID, record.startSequenceNo, record.startTime);
+                break;
+        }
+
+        return builder.toString();
     }
 
     /**
@@ -785,11 +1287,50 @@ public class Beacon {
      * @param name Event's name.
      */
     private void buildBasicEventData(StringBuilder builder, EventType eventType, String name) {
+        buildBasicEventData(builder, eventType, name, threadIDProvider.getThreadID());
+    }
+
+    /**
+     * Serialization for building basic event data with a given thread ID.
+     *
+     * @param builder String builder storing serialized data.
+     * @param eventType The event's type.
+     * @param name Event's name.
+     * @param threadID The ID of the thread on which the event was reported.
+     */
+    private void buildBasicEventData(StringBuilder builder, EventType eventType, String name, int threadID) {
         addKeyValuePair(builder, BEACON_KEY_EVENT_TYPE, eventType.protocolValue());
         if (name != null) {
-            addKeyValuePair(builder, BEACON_KEY_NAME, truncate(name));
+            if (eventType == EventType.WEBREQUEST || eventType == EventType.IDENTIFY_USER) {
+                // URLs and user tags are arbitrary, caching them would only evict the well known names
+                addKeyValuePair(builder, BEACON_KEY_NAME, truncate(name));
+            } else {
+                addName(builder, name);
+            }
+        }
+        addKeyValuePair(builder, BEACON_KEY_THREAD_ID, threadID);
+    }
+
+    /**
+     * Serialization helper method for adding an action, value or event name.
+     *
+     * <p>
+     *     The name's wire form is retrieved from the {@link NameDictionary}.
+     * </p>
+     *
+     * @param builder The string builder storing serialized data.
+     * @param name The name to add.
+     */
+    private void addName(StringBuilder builder, String name) {
+        String encodedName = nameDictionary.encode(name);
+        if (encodedName == null) {
+            // if encoding fails, skip this key/value pair
+            logger.error(getClass().getSimpleName() + "Skipped encoding of Key/Value: " + BEACON_KEY_NAME + "/" + name);
+            return;
         }
-        addKeyValuePair(builder, BEACON_KEY_THREAD_ID, threadIDProvider.getThreadID());
+
+        appendKey(builder, BEACON_KEY_NAME);
+        builder.append(encodedName);
     }
 
     /**
@@ -874,6 +1415,11 @@ public class Beacon {
     /**
      * Serialization helper method for creating multiplicity data.
      *
+     * <p>
+     *     If sessions are sampled on the client side, the server side multiplicity is multiplied
+     *     by the session sampling factor, so that the reported data can be extrapolated.
+     * </p>
+     *
      * @return Serialized data.
      */
     private String createMultiplicityData() {
@@ -881,7 +1427,7 @@ public class Beacon {
         StringBuilder multiplicityBuilder = new StringBuilder();
 
         // timestamp information
-        addKeyValuePair(multiplicityBuilder, BEACON_KEY_MULTIPLICITY, getMultiplicity());
+        addKeyValuePair(multiplicityBuilder, BEACON_KEY_MULTIPLICITY, getEffectiveMultiplicity());
 
         return multiplicityBuilder.toString();
     }
@@ -980,7 +1526,7 @@ public class Beacon {
      * @param key The key to add.
      */
     private void appendKey(StringBuilder builder, String key) {
-        if (!builder.toString().isEmpty()) {
+        if (builder.length() > 0) {
             builder.append('&');
         }
         builder.append(key);
@@ -990,7 +1536,7 @@ public class Beacon {
     /**
      * helper method for truncating name at max name size
      */
-    private static String truncate(String name) {
+    static String truncate(String name) {
         name = name.trim();
         if (name.length() > MAX_NAME_LEN) {
             name = name.substring(0, MAX_NAME_LEN);
@@ -1054,6 +1600,48 @@ public class Beacon {
         return !getBeaconConfiguration().isCapturingAllowed();
     }
 
+    /**
+     * Tests if capturing the given event type is disabled.
+     *
+     * <p>
+     *     Capturing is disabled, if either this beacon's multiplicity disables capturing
+     *     or the current {@link com.dynatrace.openkit.core.configuration.CapturePolicy} does not
+     *     allow capturing the given event type.
+     *     This check is cheap and intended to be performed before any event data is built.
+     * </p>
+     *
+     * <p>
+     *     Note: Due to multithreading this behaviour could already change,
+     *     when evaluating the result of this call.
+     * </p>
+     *
+     * @param eventType The event type to check.
+     *
+     * @return {@code true} if capturing the given event type is disabled, {@code false} otherwise.
+     */
+    public boolean isCapturingDisabled(EventType eventType) {
+        CapturePolicy capturePolicy = getCapturePolicy();
+        return capturePolicy.isDisabled(eventType);
+    }
+
+    /**
+     * Get the precompiled capture policy applying to this beacon.
+     *
+     * <p>
+     *     If this beacon's multiplicity disables capturing, {@link CapturePolicy#NOTHING} is returned,
+     *     otherwise the current policy of the {@link Configuration}.
+     *     The returned policy is immutable, so callers should evaluate all checks of one event on it.
+     * </p>
+     *
+     * @return The capture policy applying to this beacon.
+     */
+    CapturePolicy getCapturePolicy() {
+        if (isCapturingDisabled()) {
+            return CapturePolicy.NOTHING;
+        }
+        return configuration.getCapturePolicy();
+    }
+
     /**
      * Get multiplicity from {@link BeaconConfiguration}.
      *
@@ -1062,4 +1650,15 @@ public class Beacon {
     int getMultiplicity() {
         return getBeaconConfiguration().getMultiplicity();
     }
+
+    /**
+     * Get the multiplicity reported to the server, which is the server side multiplicity
+     * multiplied by the client side session sampling factor.
+     *
+     * @return Effective multiplicity, capped at {@link Integer#MAX_VALUE}.
+     */
+    int getEffectiveMultiplicity() {
+        long effectiveMultiplicity = (long) getMultiplicity() * sessionSamplingFactor;
+        return effectiveMultiplicity > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) effectiveMultiplicity;
+    }
 }
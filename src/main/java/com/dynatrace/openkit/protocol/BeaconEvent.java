@@ -0,0 +1,85 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+/**
+ * Preallocated slot of a {@link BeaconEventQueue}, holding the data of a single event reported in asynchronous mode.
+ *
+ * <p>
+ *     Slots are reused, therefore all data required for serialization is copied into the slot
+ *     on the reporting thread. This includes the sequence number and thread identifier, so that
+ *     the serialized event is the same as if it was serialized synchronously.
+ * </p>
+ */
+final class BeaconEvent {
+
+    /** Position in the queue, the slot was claimed for */
+    long position;
+
+    /** Beacon which serializes this event */
+    Beacon beacon;
+    /** The event's type */
+    EventType eventType;
+    /** The event's name, or the URL in case of web requests */
+    String name;
+    /** ID of the action on which this event was reported */
+    int parentActionID;
+    /** ID of the thread which reported this event */
+    int threadID;
+    /** Start sequence number */
+    int startSequenceNo;
+    /** Event timestamp, or start time in case of web requests */
+    long startTime;
+    /** End sequence number (web requests only) */
+    int endSequenceNo;
+    /** End time (web requests only) */
+    long endTime;
+
+    /** Integer value, which is the value itself, the error code or the number of bytes sent */
+    int intValue;
+    /** Number of bytes received (web requests only) */
+    int bytesReceived;
+    /** Response code (web requests only) */
+    int responseCode;
+    /** Double value */
+    double doubleValue;
+    /** String value, which is either the value itself or the error reason */
+    String stringValue;
+
+    /**
+     * Initialize the slot with the data common to all events.
+     */
+    void init(Beacon beacon, EventType eventType, String name, int parentActionID, int threadID, int startSequenceNo, long startTime) {
+        this.beacon = beacon;
+        this.eventType = eventType;
+        this.name = name;
+        this.parentActionID = parentActionID;
+        this.threadID = threadID;
+        this.startSequenceNo = startSequenceNo;
+        this.startTime = startTime;
+    }
+
+    /**
+     * Release all object references, so that they can be garbage collected while the slot is unused.
+     */
+    void clear() {
+        beacon = null;
+        eventType = null;
+        name = null;
+        stringValue = null;
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.AsyncOverflowPolicy;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer queue used in asynchronous reporting mode.
+ *
+ * <p>
+ *     The queue is a ring buffer of preallocated {@link BeaconEvent} slots, where each slot is guarded by
+ *     its own sequence number (see Dmitry Vyukov's bounded MPMC queue). Reporting threads claim a slot,
+ *     copy the event data into the slot and publish it afterwards. Neither claiming nor publishing
+ *     allocates any object or acquires any lock.
+ * </p>
+ *
+ * <p>
+ *     A dedicated consumer thread serializes the published events into the beacon cache.
+ *     Since sequence numbers and thread identifiers are assigned on the reporting thread, the
+ *     serialized data is the same as if the event was serialized synchronously.
+ * </p>
+ */
+public class BeaconEventQueue {
+
+    private static final String THREAD_NAME = BeaconEventQueue.class.getSimpleName();
+    private static final long CONSUMER_THREAD_JOIN_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+
+    /** Maximum time the consumer thread waits for new events, before checking again */
+    static final long CONSUMER_IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /** Time a blocked producer waits for a free slot, before checking again */
+    static final long PRODUCER_BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /** Maximum time {@link #flush()} waits for claimed, but not yet published slots */
+    static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Maximum number of events serialized in one batch */
+    static final int MAX_BATCH_SIZE = 256;
+    /** Only every n-th event is accepted, if the queue is filled above the high water mark and sampling is used */
+    static final int SAMPLING_INTERVAL = 4;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Logger logger;
+    private final AsyncOverflowPolicy overflowPolicy;
+
+    /** Preallocated slots */
+    private final BeaconEvent[] slots;
+    /** Sequence number per slot, indicating whether the slot is free or published */
+    private final AtomicLongArray sequences;
+    /** Mask to get the slot index from a position */
+    private final int mask;
+    /** Number of used slots, above which sampling is applied */
+    private final int highWaterMark;
+
+    /** Next position to be claimed by a producer */
+    private final AtomicLong tail = new AtomicLong(0);
+    /** Next position to be consumed; only written while holding the consumer lock */
+    private volatile long head = 0;
+    /** Lock guaranteeing that only one thread consumes at a time */
+    private final Object consumerLock = new Object();
+
+    /** Number of events that have been dropped, due to a full queue or sampling */
+    private final AtomicLong droppedEvents = new AtomicLong(0);
+    /** Counter used for sampling */
+    private final AtomicLong samplingCounter = new AtomicLong(0);
+
+    private final Thread consumerThread;
+    /** Flag indicating whether the consumer thread is waiting for new events */
+    private volatile boolean isConsumerWaiting = false;
+
+    /**
+     * Constructor.
+     *
+     * @param logger Logger to write some debug output
+     * @param configuration Configuration for the asynchronous reporting mode
+     */
+    public BeaconEventQueue(Logger logger, AsyncReportingConfiguration configuration) {
+        this.logger = logger;
+        overflowPolicy = configuration.getOverflowPolicy();
+
+        int capacity = capacityFor(configuration.getBufferCapacity());
+        slots = new BeaconEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new BeaconEvent();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        highWaterMark = capacity - (capacity / 4);
+
+        consumerThread = new Thread(new ConsumerRunnable(), THREAD_NAME);
+        consumerThread.setDaemon(true);
+    }
+
+    /**
+     * Get the queue's capacity for the requested buffer capacity, which is the next power of two.
+     */
+    static int capacityFor(int requestedCapacity) {
+        if (requestedCapacity <= 1) {
+            return 1;
+        }
+        if (requestedCapacity >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit(requestedCapacity - 1) << 1;
+    }
+
+    /**
+     * Starts the consumer thread.
+     *
+     * @return {@code true} if the consumer thread was started, {@code false} if the thread was already running.
+     */
+    public synchronized boolean start() {
+        if (isAlive()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " start() - Not starting consumer thread, since it's already running");
+            }
+            return false;
+        }
+
+        consumerThread.start();
+        return true;
+    }
+
+    /**
+     * Stops the consumer thread, after all remaining events have been serialized.
+     *
+     * @return {@code true} if stopping was successful, {@code false} if consumer thread is not running
+     * or could not be stopped in time.
+     */
+    public synchronized boolean stop() {
+        boolean result = false;
+
+        if (isAlive()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " stop() - Stopping consumer thread.");
+            }
+            consumerThread.interrupt();
+            try {
+                consumerThread.join(CONSUMER_THREAD_JOIN_TIMEOUT);
+                result = !isAlive();
+            } catch (InterruptedException e) {
+                logger.warning(getClass().getSimpleName() + " stop() - Stopping consumer thread was interrupted.");
+                Thread.currentThread().interrupt(); // re-interrupt the current thread
+            }
+        } else {
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " stop() - Not stopping consumer thread, since it's not alive");
+            }
+        }
+
+        return result;
+    }
+
+    public boolean isAlive() {
+        return consumerThread.isAlive();
+    }
+
+    /**
+     * Claim a free slot.
+     *
+     * <p>
+     *     The caller must fill the returned slot and pass it to {@link #publish(BeaconEvent)} afterwards.
+     *     If the queue is full, the behaviour depends on the configured {@link AsyncOverflowPolicy}.
+     * </p>
+     *
+     * @return A free slot, or {@code null} if the event has been dropped.
+     */
+    BeaconEvent claim() {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                // slot is free
+                if (isSampledOut(position)) {
+                    droppedEvents.incrementAndGet();
+                    return null;
+                }
+                if (tail.compareAndSet(position, position + 1)) {
+                    BeaconEvent event = slots[index];
+                    event.position = position;
+                    return event;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // queue is full
+                if (overflowPolicy != AsyncOverflowPolicy.BLOCK) {
+                    droppedEvents.incrementAndGet();
+                    return null;
+                }
+                waitForFreeSlot();
+                position = tail.get();
+            } else {
+                // another producer claimed the slot in between
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Publish a previously claimed and filled slot.
+     *
+     * @param event The slot returned by {@link #claim()}.
+     */
+    void publish(BeaconEvent event) {
+        sequences.lazySet((int) event.position & mask, event.position + 1);
+        if (isConsumerWaiting) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    private boolean isSampledOut(long position) {
+        return overflowPolicy == AsyncOverflowPolicy.SAMPLE
+            && position - head >= highWaterMark
+            && samplingCounter.incrementAndGet() % SAMPLING_INTERVAL != 0;
+    }
+
+    private void waitForFreeSlot() {
+        if (isAlive()) {
+            LockSupport.unpark(consumerThread);
+            LockSupport.parkNanos(this, PRODUCER_BLOCK_WAIT_NANOS);
+        } else {
+            // nobody else is going to free a slot
+            drain(MAX_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Serialize all events published so far on the calling thread.
+     *
+     * <p>
+     *     This is called before a session is ended, to ensure that all events of that session are
+     *     in the beacon cache, before the session is sent the last time.
+     * </p>
+     */
+    public void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (head < target) {
+            if (drain(slots.length) == 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    logger.warning(getClass().getSimpleName() + " flush() - Timed out waiting for unpublished events");
+                    return;
+                }
+                // a producer claimed a slot, but did not yet publish it
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Serialize published events.
+     *
+     * @param maxEvents Maximum number of events to serialize.
+     * @return The number of serialized events.
+     */
+    int drain(int maxEvents) {
+        synchronized (consumerLock) {
+            long position = head;
+            int numEvents = 0;
+            while (numEvents < maxEvents) {
+                int index = (int) position & mask;
+                if (sequences.get(index) != position + 1) {
+                    // not yet published
+                    break;
+                }
+
+                BeaconEvent event = slots[index];
+                try {
+                    event.beacon.serializeEvent(event);
+                } catch (RuntimeException e) {
+                    logger.error(getClass().getSimpleName() + " drain() - Failed to serialize event", e);
+                } finally {
+                    event.clear();
+                }
+
+                // release the slot for the next round
+                sequences.lazySet(index, position + slots.length);
+                position++;
+                numEvents++;
+            }
+            head = position;
+
+            return numEvents;
+        }
+    }
+
+    private boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * Get the queue's capacity.
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Get the number of events that have been dropped, either because the queue was full or due to sampling.
+     */
+    public long getNumberOfDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Runnable serializing events published into the queue.
+     */
+    private final class ConsumerRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " run() - consumer thread started");
+            }
+
+            while (!Thread.currentThread().isInterrupted()) {
+                if (drain(MAX_BATCH_SIZE) == 0) {
+                    isConsumerWaiting = true;
+                    // re-check after announcing the wait, a missed wakeup is bounded by the timeout
+                    if (isEmpty()) {
+                        LockSupport.parkNanos(this, CONSUMER_IDLE_WAIT_NANOS);
+                    }
+                    isConsumerWaiting = false;
+                }
+            }
+
+            // serialize everything that has been published before stopping
+            while (drain(MAX_BATCH_SIZE) > 0) {
+                // nothing to do
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " run() - thread is stopped");
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.caching.DeferredRecordData;
+
+/**
+ * Compact representation of a single action or event, which is stored in the beacon cache.
+ *
+ * <p>
+ *     The record holds the primitive event data together with references to the reported name and value.
+ *     It's serialized into the beacon protocol's wire format by the owning {@link Beacon},
+ *     either immediately or, if deferred serialization is enabled, when the data is retrieved for sending.
+ * </p>
+ *
+ * <p>
+ *     All fields are assigned before the record is added to the cache and are never modified afterwards.
+ * </p>
+ */
+final class BeaconEventRecord implements DeferredRecordData {
+
+    /** Rough estimation of the record's shallow size, including object header and all fields */
+    static final long RECORD_SIZE_IN_BYTES = 80L;
+
+    private static final long CHAR_SIZE_BYTES = 2L;
+
+    /** Beacon which serializes this record */
+    final Beacon beacon;
+    /** The record's type */
+    final EventType eventType;
+    /** The event's name, the action's name or the URL in case of web requests */
+    final String name;
+    /** ID of the action on which this event was reported, or the parent action's ID for actions */
+    final int parentActionID;
+    /** ID of the thread which reported this event */
+    final int threadID;
+    /** Start sequence number */
+    final int startSequenceNo;
+    /** Event timestamp, or start time in case of actions and web requests */
+    final long startTime;
+    /** End sequence number (actions and web requests only) */
+    int endSequenceNo;
+    /** End time (actions and web requests only) */
+    long endTime;
+
+    /** Integer value, which is the value itself, the error code, the action ID or the number of bytes sent */
+    int intValue;
+    /** Number of bytes received (web requests only) */
+    int bytesReceived;
+    /** Response code (web requests only) */
+    int responseCode;
+    /** Double value */
+    double doubleValue;
+    /** String value, which is either the value itself or the error reason */
+    String stringValue;
+    /** Number of collapsed occurrences (errors only), or {@code 0} for a single error */
+    int numOccurrences;
+
+    BeaconEventRecord(Beacon beacon, EventType eventType, String name, int parentActionID, int threadID, int startSequenceNo, long startTime) {
+        this.beacon = beacon;
+        this.eventType = eventType;
+        this.name = name;
+        this.parentActionID = parentActionID;
+        this.threadID = threadID;
+        this.startSequenceNo = startSequenceNo;
+        this.startTime = startTime;
+    }
+
+    /**
+     * Create a record from an event reported in asynchronous reporting mode.
+     *
+     * @param event The event queue's slot, from which all data is copied.
+     * @return The newly created record.
+     */
+    static BeaconEventRecord copyOf(BeaconEvent event) {
+        BeaconEventRecord record = new BeaconEventRecord(event.beacon, event.eventType, event.name, event.parentActionID,
+            event.threadID, event.startSequenceNo, event.startTime);
+        record.endSequenceNo = event.endSequenceNo;
+        record.endTime = event.endTime;
+        record.intValue = event.intValue;
+        record.bytesReceived = event.bytesReceived;
+        record.responseCode = event.responseCode;
+        record.doubleValue = event.doubleValue;
+        record.stringValue = event.stringValue;
+        return record;
+    }
+
+    @Override
+    public String serialize() {
+        return beacon.serializeRecord(this);
+    }
+
+    @Override
+    public long getDataSizeInBytes() {
+        long size = RECORD_SIZE_IN_BYTES;
+        if (name != null) {
+            size += name.length() * CHAR_SIZE_BYTES;
+        }
+        if (stringValue != null) {
+            size += stringValue.length() * CHAR_SIZE_BYTES;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,499 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.util.TokenBucket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates and rate limits errors and crashes reported on a single {@link Beacon}.
+ *
+ * <p>
+ *     Errors are identified by their type, name, code, reason and stack trace key. The stack trace key is either the raw
+ *     stack trace or a {@link StackTraceKey}, which is derived from a throwable's frames without rendering them, so that
+ *     repeats are detected before the stack trace is encoded.
+ *     The first occurrence of an error opens a deduplication window and is reported immediately.
+ *     Any identical error reported within the window is only counted. The counted repeats are collapsed into
+ *     a single summary record, which is retrieved via {@link #drainSummaries(long)} before the beacon is sent.
+ * </p>
+ *
+ * <p>
+ *     Errors, which would be reported immediately, are additionally limited per error name by a {@link TokenBucket}.
+ *     Errors exceeding the limit are dropped.
+ * </p>
+ *
+ * <p>
+ *     The number of tracked errors is bounded, since the tracked data is not part of the beacon cache.
+ *     If {@link #MAX_NUM_OCCURRENCES} deduplication windows are open, further distinct errors are reported
+ *     without deduplication. If {@link #MAX_NUM_RATE_LIMITS} error names are rate limited, further names
+ *     share a single overflow rate limit.
+ * </p>
+ */
+final class ErrorDeduplicator {
+
+    /** Maximum number of open deduplication windows, including the replaced ones not yet drained */
+    static final int MAX_NUM_OCCURRENCES = 256;
+    /** Maximum number of error names having their own rate limit */
+    static final int MAX_NUM_RATE_LIMITS = 128;
+
+    private final long deduplicationWindow;
+    private final int maxErrorsPerName;
+    private final long rateLimitInterval;
+
+    /** Currently open deduplication windows */
+    private final ConcurrentHashMap<ErrorKey, Occurrence> occurrences = new ConcurrentHashMap<ErrorKey, Occurrence>();
+    /** Deduplication windows, which have been replaced by a new window, but not yet drained */
+    private final ConcurrentLinkedQueue<Occurrence> closedOccurrences = new ConcurrentLinkedQueue<Occurrence>();
+    /** Rate limits per error name */
+    private final ConcurrentHashMap<String, TokenBucket> rateLimits = new ConcurrentHashMap<String, TokenBucket>();
+    /** Rate limit shared by all error names exceeding {@link #MAX_NUM_RATE_LIMITS}, created lazily */
+    private volatile TokenBucket overflowRateLimit;
+    /** Number of entries in {@link #occurrences} and {@link #closedOccurrences} */
+    private final AtomicInteger numOccurrences = new AtomicInteger(0);
+    /** Timestamp when expired deduplication windows have been released the last time */
+    private volatile long lastReleaseTimestamp = Long.MIN_VALUE;
+    /** Timestamp when unused rate limits have been released the last time */
+    private volatile long lastRateLimitReleaseTimestamp = Long.MIN_VALUE;
+
+    private final AtomicLong numDroppedErrors = new AtomicLong(0);
+
+    ErrorDeduplicator(ErrorReportingConfiguration configuration) {
+        deduplicationWindow = configuration.isDeduplicationEnabled() ? configuration.getDeduplicationWindowInMilliseconds() : 0L;
+        maxErrorsPerName = configuration.isRateLimitEnabled() ? configuration.getMaxErrorsPerName() : 0;
+        rateLimitInterval = configuration.getRateLimitIntervalInMilliseconds();
+    }
+
+    /**
+     * Test if this deduplicator filters any error.
+     *
+     * @return {@code true} if deduplication or rate limiting is enabled, {@code false} otherwise.
+     */
+    boolean isEnabled() {
+        return deduplicationWindow > 0 || maxErrorsPerName > 0;
+    }
+
+    /**
+     * Decide whether an error shall be reported immediately.
+     *
+     * @param eventType Either {@link EventType#ERROR} or {@link EventType#CRASH}.
+     * @param parentActionID The ID of the action on which the error was reported.
+     * @param name The error's name.
+     * @param errorCode The error code.
+     * @param reason The error's reason.
+     * @param stackTraceKey The raw stacktrace or a {@link StackTraceKey}, or {@code null} for errors.
+     * @param timestamp The timestamp when the error was reported.
+     *
+     * @return {@code true} if the error shall be reported, {@code false} if it was collapsed or dropped.
+     */
+    boolean shouldReport(EventType eventType, int parentActionID, String name, int errorCode, String reason, Object stackTraceKey,
+                         long timestamp) {
+        if (deduplicationWindow > 0) {
+            ErrorKey key = new ErrorKey(eventType, name, errorCode, reason, stackTraceKey);
+            if (!openWindow(key, parentActionID, timestamp)) {
+                return false;
+            }
+        }
+
+        return tryAcquire(name, timestamp);
+    }
+
+    /**
+     * Count the error in an open deduplication window or open a new window.
+     *
+     * @return {@code true} if a new window was opened, {@code false} if the error was counted as repeat.
+     */
+    private boolean openWindow(ErrorKey key, int parentActionID, long timestamp) {
+        while (true) {
+            Occurrence occurrence = occurrences.get(key);
+            if (occurrence != null && timestamp < occurrence.windowStart + deduplicationWindow) {
+                occurrence.repeat(timestamp);
+                return false;
+            }
+
+            if (occurrence != null && occurrence.numRepeats.get() == 0) {
+                // nothing to summarize, the expired window is simply replaced
+                if (occurrences.replace(key, occurrence, new Occurrence(key, parentActionID, timestamp))) {
+                    if (occurrence.numRepeats.get() > 0) {
+                        // repeated concurrently after the check, keep it for the next summary
+                        numOccurrences.incrementAndGet();
+                        closedOccurrences.add(occurrence);
+                    }
+                    return true;
+                }
+                continue;
+            }
+
+            if (!reserveOccurrence(timestamp)) {
+                if (occurrence != null) {
+                    // the repeats are kept, the expired window is extended instead of opening a new one
+                    occurrence.repeat(timestamp);
+                    return false;
+                }
+                // too many distinct errors, report without deduplication
+                return true;
+            }
+
+            Occurrence newOccurrence = new Occurrence(key, parentActionID, timestamp);
+            if (occurrence == null) {
+                if (occurrences.putIfAbsent(key, newOccurrence) == null) {
+                    return true;
+                }
+            } else if (occurrences.replace(key, occurrence, newOccurrence)) {
+                closedOccurrences.add(occurrence);
+                return true;
+            }
+            numOccurrences.decrementAndGet();
+            // another thread updated the window concurrently, retry
+        }
+    }
+
+    /**
+     * Reserve space for one more deduplication window.
+     *
+     * <p>
+     *     If the limit is reached, expired windows without repeats are released first.
+     *     Windows with repeats are kept until their summary is drained.
+     * </p>
+     *
+     * @return {@code true} if space was reserved, {@code false} if the limit is reached.
+     */
+    private boolean reserveOccurrence(long timestamp) {
+        if (numOccurrences.incrementAndGet() <= MAX_NUM_OCCURRENCES) {
+            return true;
+        }
+        numOccurrences.decrementAndGet();
+
+        // release at most once per timestamp, so that a burst of distinct errors does not scan all windows each time
+        if (timestamp <= lastReleaseTimestamp) {
+            return false;
+        }
+        lastReleaseTimestamp = timestamp;
+        for (Occurrence occurrence : occurrences.values()) {
+            if (timestamp >= occurrence.windowStart + deduplicationWindow
+                && occurrence.numRepeats.get() == 0
+                && occurrences.remove(occurrence.key, occurrence)) {
+                numOccurrences.decrementAndGet();
+            }
+        }
+
+        if (numOccurrences.incrementAndGet() <= MAX_NUM_OCCURRENCES) {
+            return true;
+        }
+        numOccurrences.decrementAndGet();
+        return false;
+    }
+
+    private boolean tryAcquire(String name, long timestamp) {
+        if (maxErrorsPerName <= 0) {
+            return true;
+        }
+
+        String rateLimitKey = name != null ? name : "";
+        TokenBucket bucket = rateLimits.get(rateLimitKey);
+        if (bucket == null && rateLimits.size() >= MAX_NUM_RATE_LIMITS) {
+            if (timestamp > lastRateLimitReleaseTimestamp) {
+                lastRateLimitReleaseTimestamp = timestamp;
+                releaseUnusedRateLimits(timestamp);
+            }
+            if (rateLimits.size() >= MAX_NUM_RATE_LIMITS) {
+                bucket = getOverflowRateLimit(timestamp);
+            }
+        }
+        if (bucket == null) {
+            TokenBucket newBucket = new TokenBucket(maxErrorsPerName, rateLimitInterval, timestamp);
+            bucket = rateLimits.putIfAbsent(rateLimitKey, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+
+        if (bucket.tryAcquire(timestamp)) {
+            return true;
+        }
+        numDroppedErrors.incrementAndGet();
+        return false;
+    }
+
+    private TokenBucket getOverflowRateLimit(long timestamp) {
+        TokenBucket bucket = overflowRateLimit;
+        if (bucket == null) {
+            synchronized (this) {
+                bucket = overflowRateLimit;
+                if (bucket == null) {
+                    bucket = new TokenBucket(maxErrorsPerName, rateLimitInterval, timestamp);
+                    overflowRateLimit = bucket;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private void releaseUnusedRateLimits(long timestamp) {
+        for (Iterator<TokenBucket> iterator = rateLimits.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isFull(timestamp)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Get summaries of all repeated errors, which have been counted since the last call.
+     *
+     * <p>
+     *     Expired deduplication windows and unused rate limits are released.
+     * </p>
+     *
+     * @param timestamp The current timestamp.
+     * @return Summaries of repeated errors, which might be empty.
+     */
+    List<Summary> drainSummaries(long timestamp) {
+        List<Summary> summaries = new ArrayList<Summary>();
+
+        Occurrence closedOccurrence;
+        while ((closedOccurrence = closedOccurrences.poll()) != null) {
+            numOccurrences.decrementAndGet();
+            addSummary(summaries, closedOccurrence);
+        }
+
+        for (Occurrence occurrence : occurrences.values()) {
+            addSummary(summaries, occurrence);
+            if (timestamp >= occurrence.windowStart + deduplicationWindow
+                && occurrences.remove(occurrence.key, occurrence)) {
+                numOccurrences.decrementAndGet();
+            }
+        }
+
+        releaseUnusedRateLimits(timestamp);
+
+        return summaries;
+    }
+
+    private static void addSummary(List<Summary> summaries, Occurrence occurrence) {
+        int numRepeats = occurrence.numRepeats.getAndSet(0);
+        if (numRepeats > 0) {
+            summaries.add(new Summary(occurrence, numRepeats));
+        }
+    }
+
+    /**
+     * Get the number of errors dropped due to rate limiting.
+     */
+    long getNumberOfDroppedErrors() {
+        return numDroppedErrors.get();
+    }
+
+    /**
+     * Identity of an error.
+     */
+    private static final class ErrorKey {
+
+        private final EventType eventType;
+        private final String name;
+        private final int errorCode;
+        private final String reason;
+        private final Object stackTraceKey;
+        private final int hash;
+
+        private ErrorKey(EventType eventType, String name, int errorCode, String reason, Object stackTraceKey) {
+            this.eventType = eventType;
+            this.name = name;
+            this.errorCode = errorCode;
+            this.reason = reason;
+            this.stackTraceKey = stackTraceKey;
+
+            int result = eventType.hashCode();
+            result = 31 * result + hashCodeOf(name);
+            result = 31 * result + errorCode;
+            result = 31 * result + hashCodeOf(reason);
+            result = 31 * result + hashCodeOf(stackTraceKey);
+            hash = result;
+        }
+
+        private static int hashCodeOf(Object value) {
+            return value != null ? value.hashCode() : 0;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ErrorKey other = (ErrorKey) o;
+            return hash == other.hash
+                && eventType == other.eventType
+                && errorCode == other.errorCode
+                && equal(name, other.name)
+                && equal(reason, other.reason)
+                && equal(stackTraceKey, other.stackTraceKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A deduplication window for a single error.
+     */
+    private static final class Occurrence {
+
+        private final ErrorKey key;
+        /** ID of the action on which the first occurrence was reported */
+        private final int parentActionID;
+        /** Timestamp of the first occurrence */
+        private final long windowStart;
+        /** Number of repeats since the last summary */
+        private final AtomicInteger numRepeats = new AtomicInteger(0);
+        /** Timestamp of the last repeat */
+        private volatile long lastTimestamp;
+
+        private Occurrence(ErrorKey key, int parentActionID, long windowStart) {
+            this.key = key;
+            this.parentActionID = parentActionID;
+            this.windowStart = windowStart;
+            lastTimestamp = windowStart;
+        }
+
+        private void repeat(long timestamp) {
+            lastTimestamp = timestamp;
+            numRepeats.incrementAndGet();
+        }
+    }
+
+    /**
+     * Summary of an error, which has been repeated within its deduplication window.
+     */
+    static final class Summary {
+
+        final EventType eventType;
+        final int parentActionID;
+        final String name;
+        final int errorCode;
+        final String reason;
+        /** The raw stacktrace or a {@link StackTraceKey}, which is encoded when the summary is reported */
+        final Object stackTraceKey;
+        /** Timestamp of the last repeat */
+        final long timestamp;
+        /** Number of repeats collapsed into this summary */
+        final int numOccurrences;
+
+        private Summary(Occurrence occurrence, int numOccurrences) {
+            eventType = occurrence.key.eventType;
+            parentActionID = occurrence.parentActionID;
+            name = occurrence.key.name;
+            errorCode = occurrence.key.errorCode;
+            reason = occurrence.key.reason;
+            stackTraceKey = occurrence.key.stackTraceKey;
+            timestamp = occurrence.lastTimestamp;
+            this.numOccurrences = numOccurrences;
+        }
+    }
+
+    /**
+     * Key identifying a throwable's stack trace by the class names and frames of the throwable and its causes.
+     *
+     * <p>
+     *     Creating the key only copies the frames, which is much cheaper than rendering and encoding the stack trace.
+     *     The throwable itself is retained, so that the stack trace can still be encoded for a summary.
+     *     At most {@link #MAX_NUM_CAUSES} causes are taken into account.
+     * </p>
+     */
+    static final class StackTraceKey {
+
+        /** Maximum number of causes taken into account */
+        static final int MAX_NUM_CAUSES = 16;
+
+        private final Throwable throwable;
+        private final String[] classNames;
+        private final StackTraceElement[][] frames;
+        private final int hash;
+
+        StackTraceKey(Throwable throwable) {
+            this.throwable = throwable;
+
+            List<Throwable> chain = new ArrayList<Throwable>();
+            for (Throwable current = throwable;
+                 current != null && chain.size() <= MAX_NUM_CAUSES && !containsInstance(chain, current);
+                 current = current.getCause()) {
+                chain.add(current);
+            }
+
+            classNames = new String[chain.size()];
+            frames = new StackTraceElement[chain.size()][];
+            for (int i = 0; i < chain.size(); i++) {
+                classNames[i] = chain.get(i).getClass().getName();
+                frames[i] = chain.get(i).getStackTrace();
+            }
+            hash = 31 * Arrays.hashCode(classNames) + Arrays.deepHashCode(frames);
+        }
+
+        private static boolean containsInstance(List<Throwable> chain, Throwable throwable) {
+            for (Throwable element : chain) {
+                if (element == throwable) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the throwable from which this key was created.
+         */
+        Throwable getThrowable() {
+            return throwable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            StackTraceKey other = (StackTraceKey) o;
+            return hash == other.hash
+                && Arrays.equals(classNames, other.classNames)
+                && Arrays.deepEquals(frames, other.frames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
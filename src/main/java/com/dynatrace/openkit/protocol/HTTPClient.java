@@ -21,6 +21,7 @@ import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.util.PercentEncoder;
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
 import com.dynatrace.openkit.providers.HttpURLConnectionWrapper;
 
@@ -87,10 +88,10 @@ public class HTTPClient {
     private static final char[] QUERY_RESERVED_CHARACTERS = {'_'};
 
     // connection constants
-    private static final int MAX_SEND_RETRIES = 3;
-    private static final int RETRY_SLEEP_TIME = 200;        // retry sleep time in ms
-    private static final int CONNECT_TIMEOUT = 5000;
-    private static final int READ_TIMEOUT = 30000;
+    static final int MAX_SEND_RETRIES = 3;
+    static final RetryPolicy RETRY_POLICY = new RetryPolicy(200, 1600);  // jittered retry sleep time in ms
+    static final int CONNECT_TIMEOUT = 5000;
+    static final int READ_TIMEOUT = 30000;
 
     // URLs for requests
     private final String monitorURL;
@@ -170,6 +171,7 @@ public class HTTPClient {
     // generic internal request send
     private Response sendRequestInternal(RequestType requestType, HttpURLConnectionWrapper httpURLConnectionWrapper, String clientIPAddress,
             byte[] data, String method) throws IOException, GeneralSecurityException {
+        long retrySleepTime = 0;
         while (true) {
             try {
                 HttpURLConnection connection = httpURLConnectionWrapper.getHttpURLConnection();
@@ -199,8 +201,9 @@ public class HTTPClient {
 
                 logger.log(LogLevel.INFO, "Exception occurred during connection establishment. Retry in progress.", exception);
 
+                retrySleepTime = retrySleepTime == 0 ? RETRY_POLICY.getFirstDelay() : RETRY_POLICY.getNextDelay(retrySleepTime);
                 try {
-                    Thread.sleep(RETRY_SLEEP_TIME);
+                    Thread.sleep(retrySleepTime);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     return unknownErrorResponse(requestType);
@@ -232,7 +235,7 @@ public class HTTPClient {
         outputStream.close();
     }
 
-    private String decodeData(byte[] data) {
+    String decodeData(byte[] data) {
         try {
             return new String(data, Beacon.CHARSET);
         } catch (UnsupportedEncodingException e) {
@@ -249,6 +252,11 @@ public class HTTPClient {
             ? readResponse(connection.getErrorStream()) // error stream is closed in readResponse
             : readResponse(connection.getInputStream()); // input stream is closed in readResponse
 
+        return createResponse(requestType, responseCode, response, connection.getHeaderFields());
+    }
+
+    // creates the typed response, shared with HTTP client implementations not based on HttpURLConnection
+    Response createResponse(RequestType requestType, int responseCode, String response, Map<String, List<String>> headers) {
         if (logger.isDebugEnabled()) {
             logger.debug(getClass().getSimpleName() + " handleResponse() - HTTP Response: " + response);
             logger.debug(getClass().getSimpleName() + " handleResponse() - HTTP Response Code: " + responseCode);
@@ -260,7 +268,7 @@ public class HTTPClient {
             || (requestType.getRequestName().equals(RequestType.NEW_SESSION.getRequestName()))) {
             return responseCode >= 400
                 ? new StatusResponse(logger, "", responseCode, Collections.<String, List<String>>emptyMap())
-                : parseStatusResponse(response, responseCode, connection.getHeaderFields());
+                : parseStatusResponse(response, responseCode, headers);
         }
         else {
             logger.warning(getClass().getSimpleName() + " handleResponse() - Unknown request type " + requestType + " - ignoring response");
@@ -302,6 +310,15 @@ public class HTTPClient {
     }
 
     private void applySSLTrustManager(HttpsURLConnection connection) throws NoSuchAlgorithmException, KeyManagementException {
+        SSLContext context = createSSLContext(sslTrustManager);
+        connection.setSSLSocketFactory(context.getSocketFactory());
+
+        if (sslTrustManager != null && sslTrustManager.getHostnameVerifier() != null) {
+            connection.setHostnameVerifier(sslTrustManager.getHostnameVerifier());
+        }
+    }
+
+    static SSLContext createSSLContext(SSLTrustManager sslTrustManager) throws NoSuchAlgorithmException, KeyManagementException {
         SSLContext context = SSLContext.getInstance("TLS");
         X509TrustManager x509TrustManager;
         if (sslTrustManager == null || sslTrustManager.getX509TrustManager() == null) {
@@ -311,11 +328,7 @@ public class HTTPClient {
             x509TrustManager = sslTrustManager.getX509TrustManager();
         }
         context.init(null, new TrustManager[]{x509TrustManager}, new SecureRandom());
-        connection.setSSLSocketFactory(context.getSocketFactory());
-
-        if (sslTrustManager != null && sslTrustManager.getHostnameVerifier() != null) {
-            connection.setHostnameVerifier(sslTrustManager.getHostnameVerifier());
-        }
+        return context;
     }
 
     // build URL used for status check and beacon send requests
@@ -352,7 +365,7 @@ public class HTTPClient {
     }
 
     // helper method for gzipping beacon data
-    private static byte[] gzip(byte[] data) throws IOException {
+    static byte[] gzip(byte[] data) throws IOException {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream);
         gzipOutputStream.write(data);
@@ -384,7 +397,7 @@ public class HTTPClient {
         return responseBuilder.toString();
     }
 
-    private  Response unknownErrorResponse(RequestType requestType) {
+    Response unknownErrorResponse(RequestType requestType) {
 
         if (requestType == null) {
             return null;
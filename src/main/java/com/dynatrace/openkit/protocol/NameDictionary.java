@@ -0,0 +1,224 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.util.PercentEncoder;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, concurrent dictionary mapping raw action, value and event names to their wire form.
+ *
+ * <p>
+ *     The wire form of a name is the truncated and percent encoded name, as it's sent in the beacon protocol.
+ *     Since names typically originate from a small set of constants, caching the wire form avoids
+ *     truncating and encoding the same name over and over again.
+ * </p>
+ *
+ * <p>
+ *     The number of cached names is bounded by the dictionary's capacity. If the capacity is exceeded,
+ *     names are evicted using a second chance algorithm, where recently looked up names are skipped once.
+ *     Names registered via {@link #register(String)} are never evicted and do not count towards the capacity.
+ * </p>
+ */
+public final class NameDictionary {
+
+    /** Default number of names, which are cached */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Maximum number of cached names, which are not registered */
+    private final int capacity;
+
+    /** The cached names, mapped to their entry */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    /** Number of entries that might be evicted */
+    private final AtomicInteger numEvictableEntries = new AtomicInteger(0);
+
+    private final AtomicLong numHits = new AtomicLong(0);
+    private final AtomicLong numMisses = new AtomicLong(0);
+    private final AtomicLong numEvictions = new AtomicLong(0);
+
+    /**
+     * Create a name dictionary.
+     *
+     * @param capacity The maximum number of cached names, or a non-positive value to disable caching.
+     */
+    public NameDictionary(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the wire form of a given name.
+     *
+     * @param name The raw name, must not be {@code null}.
+     *
+     * @return The truncated and percent encoded name, or {@code null} if encoding failed.
+     */
+    String encode(String name) {
+        Entry entry = entries.get(name);
+        if (entry != null) {
+            numHits.incrementAndGet();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.encodedName;
+        }
+
+        numMisses.incrementAndGet();
+        String encodedName = encodeName(name);
+        if (encodedName == null || capacity <= 0) {
+            return encodedName;
+        }
+
+        if (entries.putIfAbsent(name, new Entry(name, encodedName, false)) == null
+            && numEvictableEntries.incrementAndGet() > capacity) {
+            evict();
+        }
+
+        return encodedName;
+    }
+
+    /**
+     * Register a name, which is never evicted from this dictionary.
+     *
+     * <p>
+     *     The returned instance shall be used when reporting data, since looking it up
+     *     is cheaper than looking up an equal, but different, string instance.
+     * </p>
+     *
+     * @param name The raw name to register.
+     *
+     * @return The registered name instance.
+     */
+    public String register(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        String encodedName = encodeName(name);
+        if (encodedName == null) {
+            return name;
+        }
+
+        Entry registeredEntry = new Entry(name, encodedName, true);
+        while (true) {
+            Entry existingEntry = entries.get(name);
+            if (existingEntry == null) {
+                if (entries.putIfAbsent(name, registeredEntry) == null) {
+                    return name;
+                }
+            } else if (existingEntry.registered) {
+                return existingEntry.name;
+            } else if (entries.replace(name, existingEntry, registeredEntry)) {
+                numEvictableEntries.decrementAndGet();
+                return name;
+            }
+        }
+    }
+
+    /**
+     * Evict names, until the number of evictable names is within the capacity.
+     */
+    private void evict() {
+        int numSkipped = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (numEvictableEntries.get() > capacity && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.registered) {
+                continue;
+            }
+            if (entry.referenced && numSkipped < capacity) {
+                // second chance for recently used names
+                entry.referenced = false;
+                numSkipped++;
+                continue;
+            }
+            if (entries.remove(entry.name, entry)) {
+                numEvictableEntries.decrementAndGet();
+                numEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Truncate and percent encode a name.
+     */
+    static String encodeName(String name) {
+        return PercentEncoder.encode(Beacon.truncate(name), Beacon.CHARSET, Beacon.RESERVED_CHARACTERS);
+    }
+
+    /**
+     * Get the number of names currently cached, including registered names.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of lookups, where the name was already cached.
+     */
+    public long getNumberOfHits() {
+        return numHits.get();
+    }
+
+    /**
+     * Get the number of lookups, where the name had to be encoded.
+     */
+    public long getNumberOfMisses() {
+        return numMisses.get();
+    }
+
+    /**
+     * Get the number of names evicted so far.
+     */
+    public long getNumberOfEvictions() {
+        return numEvictions.get();
+    }
+
+    /**
+     * Get the ratio of lookups, where the name was already cached.
+     *
+     * @return The hit rate in the range {@code [0, 1]}, or {@code 0} if no lookup was performed yet.
+     */
+    public double getHitRate() {
+        long hits = numHits.get();
+        long total = hits + numMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * A single cached name.
+     */
+    private static final class Entry {
+
+        private final String name;
+        private final String encodedName;
+        private final boolean registered;
+        /** Flag indicating whether this entry was looked up since the last eviction scan */
+        private volatile boolean referenced = false;
+
+        private Entry(String name, String encodedName, boolean registered) {
+            this.name = name;
+            this.encodedName = encodedName;
+            this.registered = registered;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.util.PercentEncoder;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders a {@link Throwable}'s stack trace directly into its percent encoded form.
+ *
+ * <p>
+ *     The rendered stack trace has the same layout as {@link Throwable#printStackTrace()}, including all causes,
+ *     but is limited by a frame budget and by a budget for the encoded length. Frames exceeding any of the budgets
+ *     are omitted and a single truncation marker is appended instead.
+ * </p>
+ *
+ * <p>
+ *     The encoded form of each frame is cached in a bounded cache, which is shared by all threads.
+ *     Once the cache is full, further frames are encoded on each use.
+ * </p>
+ */
+final class StackTraceEncoder {
+
+    /** Default maximum number of frames rendered, including all causes */
+    static final int DEFAULT_MAX_FRAMES = 128;
+    /** Default maximum length of the encoded stack trace */
+    static final int DEFAULT_MAX_ENCODED_LENGTH = 128 * 1024;
+    /** Default maximum number of cached frames */
+    static final int DEFAULT_CACHE_CAPACITY = 4096;
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    private static final String ENCODED_FRAME_PREFIX = encode(LINE_SEPARATOR + "\tat ");
+    private static final String ENCODED_CAUSED_BY = encode(LINE_SEPARATOR + "Caused by: ");
+    private static final String ENCODED_MORE_PREFIX = encode(LINE_SEPARATOR + "\t... ");
+    private static final String ENCODED_MORE_SUFFIX = encode(" more");
+    private static final String ENCODED_TRUNCATED = encode(LINE_SEPARATOR + "\t...");
+
+    private final int maxFrames;
+    private final int maxEncodedLength;
+    private final int cacheCapacity;
+
+    private final ConcurrentHashMap<StackTraceElement, String> encodedFrames;
+
+    StackTraceEncoder(int maxFrames, int maxEncodedLength, int cacheCapacity) {
+        this.maxFrames = maxFrames;
+        this.maxEncodedLength = maxEncodedLength;
+        this.cacheCapacity = cacheCapacity;
+        encodedFrames = new ConcurrentHashMap<StackTraceElement, String>();
+    }
+
+    private static String encode(String value) {
+        return PercentEncoder.encode(value, Beacon.CHARSET, Beacon.RESERVED_CHARACTERS);
+    }
+
+    /**
+     * Render the given throwable's stack trace in its percent encoded form.
+     *
+     * @param throwable The throwable to render.
+     * @return The encoded stack trace, which is at most {@code maxEncodedLength} characters long,
+     *         or {@code null} if {@code throwable} is {@code null}.
+     */
+    String encode(Throwable throwable) {
+        if (throwable == null) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        StackTraceElement[] enclosingTrace = null;
+        int framesLeft = maxFrames;
+
+        for (Throwable current = throwable; current != null && visited.add(current); current = current.getCause()) {
+            if (enclosingTrace != null && !append(builder, ENCODED_CAUSED_BY)) {
+                return truncated(builder);
+            }
+            String header = encode(current.toString());
+            if (header == null) {
+                return truncated(builder);
+            }
+            if (!append(builder, header)) {
+                // e.g. a huge exception message, keep as much of it as possible
+                appendCut(builder, header, maxEncodedLength - ENCODED_TRUNCATED.length());
+                return truncated(builder);
+            }
+
+            // frames in common with the enclosing trace are not rendered, like in Throwable.printStackTrace
+            StackTraceElement[] trace = current.getStackTrace();
+            int lastFrame = trace.length - 1;
+            if (enclosingTrace != null) {
+                int enclosingFrame = enclosingTrace.length - 1;
+                while (lastFrame >= 0 && enclosingFrame >= 0 && trace[lastFrame].equals(enclosingTrace[enclosingFrame])) {
+                    lastFrame--;
+                    enclosingFrame--;
+                }
+            }
+
+            for (int i = 0; i <= lastFrame; i++) {
+                if (framesLeft <= 0) {
+                    return truncated(builder);
+                }
+                String frame = encodedFrame(trace[i]);
+                if (frame == null
+                    || builder.length() + ENCODED_FRAME_PREFIX.length() + frame.length() > maxEncodedLength) {
+                    return truncated(builder);
+                }
+                builder.append(ENCODED_FRAME_PREFIX).append(frame);
+                framesLeft--;
+            }
+
+            int framesInCommon = trace.length - 1 - lastFrame;
+            if (framesInCommon > 0
+                && !append(builder, ENCODED_MORE_PREFIX + framesInCommon + ENCODED_MORE_SUFFIX)) {
+                return truncated(builder);
+            }
+
+            enclosingTrace = trace;
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Append the given encoded value, if it does not exceed the length budget.
+     *
+     * @return {@code true} if the value was appended, {@code false} otherwise.
+     */
+    private boolean append(StringBuilder builder, String encodedValue) {
+        if (builder.length() + encodedValue.length() > maxEncodedLength) {
+            return false;
+        }
+        builder.append(encodedValue);
+        return true;
+    }
+
+    /**
+     * Append the beginning of the given encoded value, such that the builder's length does not exceed the given limit.
+     *
+     * <p>
+     *     The value is never cut within a percent encoded byte, nor within a multi-byte character.
+     * </p>
+     */
+    private static void appendCut(StringBuilder builder, String encodedValue, int limit) {
+        int length = limit - builder.length();
+        if (length <= 0) {
+            return;
+        }
+        if (length >= 1 && encodedValue.charAt(length - 1) == '%') {
+            length -= 1;
+        } else if (length >= 2 && encodedValue.charAt(length - 2) == '%') {
+            length -= 2;
+        }
+        while (length >= 3 && isContinuationByte(encodedValue, length)) {
+            length -= 3;
+        }
+        builder.append(encodedValue, 0, length);
+    }
+
+    /**
+     * Test if the percent encoded byte at the given index is a UTF-8 continuation byte ({@code %80} - {@code %BF}).
+     */
+    private static boolean isContinuationByte(String encodedValue, int index) {
+        if (index + 2 >= encodedValue.length() || encodedValue.charAt(index) != '%') {
+            return false;
+        }
+        char highNibble = encodedValue.charAt(index + 1);
+        return highNibble == '8' || highNibble == '9' || highNibble == 'A' || highNibble == 'B';
+    }
+
+    /**
+     * Append the truncation marker, if it fits into the length budget, and return the encoded stack trace.
+     */
+    private String truncated(StringBuilder builder) {
+        append(builder, ENCODED_TRUNCATED);
+        return builder.toString();
+    }
+
+    /**
+     * Get the encoded form of a single frame, either from the cache or by encoding it.
+     */
+    private String encodedFrame(StackTraceElement frame) {
+        String encodedFrame = encodedFrames.get(frame);
+        if (encodedFrame != null) {
+            return encodedFrame;
+        }
+
+        encodedFrame = encode(frame.toString());
+        if (encodedFrame != null && encodedFrames.size() < cacheCapacity) {
+            encodedFrames.putIfAbsent(frame, encodedFrame);
+        }
+        return encodedFrame;
+    }
+
+    /**
+     * Get the number of frames currently cached.
+     */
+    int getNumberOfCachedFrames() {
+        return encodedFrames.size();
+    }
+}
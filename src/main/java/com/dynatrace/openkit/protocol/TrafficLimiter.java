@@ -0,0 +1,159 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.configuration.TrafficLimitConfiguration;
+import com.dynatrace.openkit.core.util.TokenBucket;
+import com.dynatrace.openkit.providers.TimingProvider;
+
+/**
+ * Limits the number of bytes and requests per second sent to the server.
+ *
+ * <p>
+ *     Both limits are {@link TokenBucket token buckets} holding one second's worth of tokens, which allows short bursts.
+ *     Before a beacon chunk is taken from the cache, {@link #awaitPermit()} blocks until a request token is available
+ *     and the byte budget is no longer overdrawn. Once the chunk's size is known, it's charged with {@link #consume(long)},
+ *     which may overdraw the byte budget. The resulting delay is therefore spent before the next chunk is taken,
+ *     while the data is still in the beacon cache and subject to eviction.
+ * </p>
+ *
+ * <p>
+ *     The limiter is meant to be used by the beacon sending thread, or the flush threads on shutdown, which are the ones
+ *     that sleep. The time spent waiting is tracked, to be able to tell whether the configured limits delay sending.
+ * </p>
+ */
+public class TrafficLimiter {
+
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+
+    private final TimingProvider timingProvider;
+
+    /** Bucket of bytes, which might be overdrawn; {@code null} if the number of bytes is not limited */
+    private final TokenBucket byteTokens;
+    /** Bucket of requests; {@code null} if the number of requests is not limited */
+    private final TokenBucket requestTokens;
+
+    /** Statistics, which are only updated while holding this limiter's monitor */
+    private volatile long throttledTimeInMilliseconds = 0;
+    private volatile long numberOfThrottledRequests = 0;
+
+    /**
+     * Constructor
+     *
+     * @param configuration The configured limits.
+     * @param timingProvider Provider for the current time and for sleeping.
+     */
+    public TrafficLimiter(TrafficLimitConfiguration configuration, TimingProvider timingProvider) {
+        this.timingProvider = timingProvider;
+        long timestamp = timingProvider.provideTimestampInMilliseconds();
+        byteTokens = createTokenBucket(configuration.getMaxBytesPerSecond(), timestamp);
+        requestTokens = createTokenBucket(configuration.getMaxRequestsPerSecond(), timestamp);
+    }
+
+    private static TokenBucket createTokenBucket(long tokensPerSecond, long timestamp) {
+        return tokensPerSecond > 0 ? new TokenBucket(tokensPerSecond, MILLISECONDS_PER_SECOND, timestamp) : null;
+    }
+
+    /**
+     * Get the time to wait until the next request may be sent.
+     */
+    private long getWaitTime(long timestamp) {
+        long waitTime = 0;
+        if (byteTokens != null) {
+            waitTime = byteTokens.getWaitTime(0, timestamp);
+        }
+        if (requestTokens != null) {
+            waitTime = Math.max(waitTime, requestTokens.getWaitTime(1, timestamp));
+        }
+        return waitTime;
+    }
+
+    /**
+     * Block until the next request may be sent and take a request token.
+     *
+     * @throws InterruptedException If the calling thread has been interrupted while waiting.
+     */
+    public void awaitPermit() throws InterruptedException {
+        awaitPermit(0);
+    }
+
+    /**
+     * Block until the next request may be sent and take a request token, unless the wait would exceed the given deadline.
+     *
+     * <p>
+     *     If the required wait would end after the deadline, this method returns immediately without sleeping
+     *     and without taking a token. The limiter's monitor is not held while sleeping, so that concurrently sending
+     *     threads can check their own deadline meanwhile.
+     * </p>
+     *
+     * @param deadline Timestamp in milliseconds until which a permit must be available, or non-positive for no deadline.
+     *
+     * @return {@code true} if a request token was taken, {@code false} if no permit is available before the deadline.
+     *
+     * @throws InterruptedException If the calling thread has been interrupted while waiting.
+     */
+    public boolean awaitPermit(long deadline) throws InterruptedException {
+        boolean throttled = false;
+        while (true) {
+            long waitTime;
+            synchronized (this) {
+                long timestamp = timingProvider.provideTimestampInMilliseconds();
+                waitTime = getWaitTime(timestamp);
+                if (waitTime <= 0) {
+                    if (requestTokens != null) {
+                        requestTokens.consume(1, timestamp);
+                    }
+                    return true;
+                }
+                if (deadline > 0 && timestamp + waitTime > deadline) {
+                    return false;
+                }
+                if (!throttled) {
+                    throttled = true;
+                    numberOfThrottledRequests++;
+                }
+                throttledTimeInMilliseconds += waitTime;
+            }
+            timingProvider.sleep(waitTime);
+        }
+    }
+
+    /**
+     * Charge the given number of bytes, which have been or are about to be sent.
+     *
+     * @param numBytes The number of bytes sent.
+     */
+    public synchronized void consume(long numBytes) {
+        if (byteTokens != null) {
+            byteTokens.consume(numBytes, timingProvider.provideTimestampInMilliseconds());
+        }
+    }
+
+    /**
+     * Get the total time in milliseconds requests have been delayed by this limiter.
+     */
+    public long getThrottledTimeInMilliseconds() {
+        return throttledTimeInMilliseconds;
+    }
+
+    /**
+     * Get the number of requests that have been delayed by this limiter.
+     */
+    public long getNumberOfThrottledRequests() {
+        return numberOfThrottledRequests;
+    }
+}
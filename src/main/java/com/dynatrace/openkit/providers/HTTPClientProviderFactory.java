@@ -0,0 +1,90 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.providers;
+
+import com.dynatrace.openkit.api.Logger;
+
+/**
+ * Factory creating the {@link HTTPClientProvider} used for sending requests to the server.
+ *
+ * <p>
+ *     By default HTTP clients based on {@link java.net.HttpURLConnection} are used, which are available on all platforms.
+ *     If requested, HTTP clients based on the {@code java.net.http.HttpClient} are used instead. They share one
+ *     HTTP/2 capable client per trust manager, which keeps connections open and multiplexes concurrent requests.
+ * </p>
+ *
+ * <p>
+ *     The {@code java.net.http} based provider is part of the Java 11 layer of the multi-release JAR and therefore only
+ *     loaded if it's available at runtime. On older platforms the default provider is used.
+ * </p>
+ */
+public final class HTTPClientProviderFactory {
+
+    /** Name of the {@code java.net.http} based provider, which is only compiled for Java 11 and above */
+    private static final String JAVA_NET_HTTP_CLIENT_PROVIDER_CLASS_NAME = "com.dynatrace.openkit.providers.JavaNetHTTPClientProvider";
+    /** The {@code java.net.http} based provider or {@code null} if {@code java.net.http} is not available */
+    private static final Class<? extends HTTPClientProvider> JAVA_NET_HTTP_CLIENT_PROVIDER_CLASS = findJavaNetHTTPClientProviderClass();
+
+    private HTTPClientProviderFactory() {
+    }
+
+    /**
+     * Test if the {@code java.net.http} based provider is available at runtime.
+     *
+     * @return {@code true} if the {@code java.net.http} based provider is available, {@code false} otherwise.
+     */
+    public static boolean isJavaNetHttpClientAvailable() {
+        return JAVA_NET_HTTP_CLIENT_PROVIDER_CLASS != null;
+    }
+
+    /**
+     * Create a new {@link HTTPClientProvider}.
+     *
+     * @param logger Logger for logging messages.
+     * @param useJavaNetHttpClient {@code true} to use the {@code java.net.http} based provider if it's available.
+     *
+     * @return The {@code java.net.http} based provider if requested and available, the {@link DefaultHTTPClientProvider} otherwise.
+     */
+    public static HTTPClientProvider create(Logger logger, boolean useJavaNetHttpClient) {
+        if (!useJavaNetHttpClient) {
+            return new DefaultHTTPClientProvider(logger);
+        }
+
+        if (JAVA_NET_HTTP_CLIENT_PROVIDER_CLASS != null) {
+            try {
+                return JAVA_NET_HTTP_CLIENT_PROVIDER_CLASS.getConstructor(Logger.class).newInstance(logger);
+            } catch (Exception e) {
+                logger.error(HTTPClientProviderFactory.class.getSimpleName() + " create() - Failed to create java.net.http based provider", e);
+            }
+        } else {
+            logger.warning(HTTPClientProviderFactory.class.getSimpleName() + " create() - java.net.http is not available, using default provider");
+        }
+
+        return new DefaultHTTPClientProvider(logger);
+    }
+
+    private static Class<? extends HTTPClientProvider> findJavaNetHTTPClientProviderClass() {
+        try {
+            Class.forName("java.net.http.HttpClient");
+            return Class.forName(JAVA_NET_HTTP_CLIENT_PROVIDER_CLASS_NAME).asSubclass(HTTPClientProvider.class);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+}
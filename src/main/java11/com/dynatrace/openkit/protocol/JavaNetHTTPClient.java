@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.SSLTrustManager;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+
+/**
+ * HTTP client based on {@link HttpClient}, which is available since Java 11.
+ *
+ * <p>
+ *     Unlike the {@link HTTPClient}, which opens a new {@link java.net.HttpURLConnection} per request, all instances
+ *     created by one provider share a single {@link HttpClient}. The shared client negotiates HTTP/2 if the server
+ *     supports it, keeps the connection open between requests and multiplexes concurrent requests,
+ *     like the ones of parallel flushes or of OpenKit instances sharing an {@link com.dynatrace.openkit.OpenKitRuntime},
+ *     over a single connection.
+ * </p>
+ *
+ * <p>
+ *     Request and response handling, including retries, gzip compression and response parsing, is the same as in the {@link HTTPClient}.
+ * </p>
+ */
+public class JavaNetHTTPClient extends HTTPClient {
+
+    private final Logger logger;
+    private final HttpClient httpClient;
+
+    public JavaNetHTTPClient(Logger logger, HTTPClientConfiguration configuration, HttpClient httpClient) {
+        super(logger, configuration);
+        this.logger = logger;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Create a new {@link HttpClient}, which can be shared by all {@link JavaNetHTTPClient} instances using the given trust manager.
+     *
+     * @param sslTrustManager The trust manager used for HTTPS connections, or {@code null} for the strict default.
+     *
+     * @return The newly created client.
+     *
+     * @throws GeneralSecurityException If the SSL context could not be initialized.
+     */
+    public static HttpClient createHttpClient(SSLTrustManager sslTrustManager) throws GeneralSecurityException {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT))
+            .sslContext(createSSLContext(sslTrustManager))
+            .build();
+    }
+
+    @Override
+    Response sendRequest(RequestType requestType, String url, String clientIPAddress, byte[] data, String method) {
+        try {
+            if (logger.isDebugEnabled()) {
+                logger.debug(getClass().getSimpleName() + " sendRequest() - HTTP " + requestType.getRequestName() + " Request: " + url);
+            }
+            return sendRequestInternal(requestType, createRequest(url, clientIPAddress, data, method));
+        } catch (Exception e) {
+            logger.error(getClass().getSimpleName() + " sendRequest() - ERROR: " + requestType + " Request failed!", e);
+        }
+        return unknownErrorResponse(requestType);
+    }
+
+    private HttpRequest createRequest(String url, String clientIPAddress, byte[] data, String method) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofMillis(READ_TIMEOUT));
+
+        if (clientIPAddress != null) {
+            builder.header("X-Client-IP", clientIPAddress);
+        }
+
+        // gzip beacon data, if available
+        if (data == null || data.length == 0) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+
+        byte[] gzippedData = gzip(data);
+        if (logger.isDebugEnabled()) {
+            logger.debug(getClass().getSimpleName() + " sendRequestInternal() - Beacon Payload: " + decodeData(data));
+        }
+
+        // the Content-Length header is set by the HttpClient itself
+        return builder.header("Content-Encoding", "gzip")
+            .method(method, HttpRequest.BodyPublishers.ofByteArray(gzippedData))
+            .build();
+    }
+
+    private Response sendRequestInternal(RequestType requestType, HttpRequest request) throws IOException {
+        long retrySleepTime = 0;
+        int sendCount = 0;
+        while (true) {
+            try {
+                sendCount++;
+                HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                String responseBody = new String(response.body(), Beacon.CHARSET);
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug(getClass().getSimpleName() + " sendRequestInternal() - " + response.version() + " Response received");
+                }
+
+                return createResponse(requestType, response.statusCode(), responseBody, response.headers().map());
+            } catch (IOException exception) {
+                if (sendCount >= MAX_SEND_RETRIES) {
+                    throw exception;
+                }
+
+                logger.log(LogLevel.INFO, "Exception occurred during connection establishment. Retry in progress.", exception);
+
+                retrySleepTime = retrySleepTime == 0 ? RETRY_POLICY.getFirstDelay() : RETRY_POLICY.getNextDelay(retrySleepTime);
+                try {
+                    Thread.sleep(retrySleepTime);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return unknownErrorResponse(requestType);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return unknownErrorResponse(requestType);
+            }
+        }
+    }
+}
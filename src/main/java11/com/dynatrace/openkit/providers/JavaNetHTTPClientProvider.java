@@ -0,0 +1,106 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.providers;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.SSLTrustManager;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import com.dynatrace.openkit.protocol.HTTPClient;
+import com.dynatrace.openkit.protocol.JavaNetHTTPClient;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of an HTTPClientProvider creating {@link JavaNetHTTPClient} instances.
+ *
+ * <p>
+ *     One {@link HttpClient} is created per trust manager and shared by all HTTP clients created by this provider,
+ *     so that connections are reused across requests, sessions and OpenKit instances.
+ * </p>
+ *
+ * <p>
+ *     The {@link HttpClient} does not support custom hostname verifiers. If the trust manager provides a hostname verifier
+ *     other than the platform's default one, like the {@link com.dynatrace.openkit.protocol.ssl.SSLBlindTrustManager},
+ *     the {@link DefaultHTTPClientProvider} is used instead.
+ * </p>
+ *
+ * <p>
+ *     This class is only loaded by {@link HTTPClientProviderFactory#create(Logger, boolean)}, if {@code java.net.http} is available at runtime.
+ * </p>
+ */
+public class JavaNetHTTPClientProvider implements HTTPClientProvider {
+
+    /** Key of the {@link HttpClient} used if no trust manager is configured */
+    private static final Object NO_TRUST_MANAGER = new Object();
+
+    private final Logger logger;
+    private final HTTPClientProvider fallbackProvider;
+    private final ConcurrentMap<Object, HttpClient> httpClients = new ConcurrentHashMap<Object, HttpClient>();
+
+    public JavaNetHTTPClientProvider(Logger logger) {
+        this.logger = logger;
+        fallbackProvider = new DefaultHTTPClientProvider(logger);
+    }
+
+    @Override
+    public HTTPClient createClient(HTTPClientConfiguration configuration) {
+        SSLTrustManager sslTrustManager = configuration.getSSLTrustManager();
+        if (hasCustomHostnameVerifier(sslTrustManager)) {
+            return fallbackProvider.createClient(configuration);
+        }
+
+        HttpClient httpClient = getHttpClient(sslTrustManager);
+        if (httpClient == null) {
+            return fallbackProvider.createClient(configuration);
+        }
+
+        return new JavaNetHTTPClient(logger, configuration, httpClient);
+    }
+
+    private HttpClient getHttpClient(SSLTrustManager sslTrustManager) {
+        Object key = sslTrustManager == null ? NO_TRUST_MANAGER : sslTrustManager;
+        HttpClient httpClient = httpClients.get(key);
+        if (httpClient != null) {
+            return httpClient;
+        }
+
+        try {
+            httpClient = JavaNetHTTPClient.createHttpClient(sslTrustManager);
+        } catch (GeneralSecurityException e) {
+            logger.error(getClass().getSimpleName() + " getHttpClient() - Failed to initialize SSL context", e);
+            return null;
+        }
+
+        // another thread might have created a client in the meantime, which is used instead
+        HttpClient existingHttpClient = httpClients.putIfAbsent(key, httpClient);
+        return existingHttpClient != null ? existingHttpClient : httpClient;
+    }
+
+    private static boolean hasCustomHostnameVerifier(SSLTrustManager sslTrustManager) {
+        if (sslTrustManager == null) {
+            return false;
+        }
+
+        HostnameVerifier hostnameVerifier = sslTrustManager.getHostnameVerifier();
+        return hostnameVerifier != null && hostnameVerifier != HttpsURLConnection.getDefaultHostnameVerifier();
+    }
+}
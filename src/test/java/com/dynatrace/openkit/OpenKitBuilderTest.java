@@ -16,11 +16,13 @@
 
 package com.dynatrace.openkit;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.api.OpenKitConstants;
 import com.dynatrace.openkit.api.SSLTrustManager;
 import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.FlushConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
 import com.dynatrace.openkit.core.util.DefaultLogger;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
@@ -31,6 +33,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -401,4 +404,124 @@ public class OpenKitBuilderTest {
             is(equalTo(CRASH_REPORTING_LEVEL)));
     }
 
+    @Test
+    public void canSetTrafficLimitForAppMon() {
+        Configuration target = new AppMonOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID)
+            .withTrafficLimit(64L * 1024L, 5)
+            .buildConfiguration();
+
+        assertThat(target.getTrafficLimitConfiguration().isEnabled(), is(true));
+        assertThat(target.getTrafficLimitConfiguration().getMaxBytesPerSecond(), is(equalTo(64L * 1024L)));
+        assertThat(target.getTrafficLimitConfiguration().getMaxRequestsPerSecond(), is(equalTo(5)));
+    }
+
+    @Test
+    public void canSetTrafficLimitForDynatrace() {
+        Configuration target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID)
+            .withTrafficLimit(64L * 1024L, 0)
+            .buildConfiguration();
+
+        assertThat(target.getTrafficLimitConfiguration().isByteRateLimited(), is(true));
+        assertThat(target.getTrafficLimitConfiguration().isRequestRateLimited(), is(false));
+    }
+
+    @Test
+    public void trafficIsNotLimitedByDefault() {
+        Configuration target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID).buildConfiguration();
+
+        assertThat(target.getTrafficLimitConfiguration().isEnabled(), is(false));
+    }
+
+    @Test
+    public void canSetNewSessionRequestBatchingForAppMon() {
+        Configuration target = new AppMonOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID)
+            .withNewSessionRequestBatching(500L)
+            .buildConfiguration();
+
+        assertThat(target.getNewSessionBatchingConfiguration().isEnabled(), is(true));
+        assertThat(target.getNewSessionBatchingConfiguration().getBatchWindowInMilliseconds(), is(equalTo(500L)));
+    }
+
+    @Test
+    public void canSetNewSessionRequestBatchingForDynatrace() {
+        Configuration target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID)
+            .withNewSessionRequestBatching(500L)
+            .buildConfiguration();
+
+        assertThat(target.getNewSessionBatchingConfiguration().isEnabled(), is(true));
+        assertThat(target.getNewSessionBatchingConfiguration().getBatchWindowInMilliseconds(), is(equalTo(500L)));
+    }
+
+    @Test
+    public void newSessionRequestsAreNotBatchedByDefault() {
+        Configuration target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID).buildConfiguration();
+
+        assertThat(target.getNewSessionBatchingConfiguration().isEnabled(), is(false));
+    }
+
+    @Test
+    public void canSetFlushParallelismAndPersistenceHookForAppMon() {
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        Configuration target = new AppMonOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID)
+            .withFlushParallelism(8)
+            .withBeaconPersistenceHook(persistenceHook)
+            .buildConfiguration();
+
+        assertThat(target.getFlushConfiguration().getFlushParallelism(), is(equalTo(8)));
+        assertThat(target.getFlushConfiguration().getPersistenceHook(), is(sameInstance(persistenceHook)));
+    }
+
+    @Test
+    public void canSetFlushParallelismAndPersistenceHookForDynatrace() {
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        Configuration target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID)
+            .withFlushParallelism(8)
+            .withBeaconPersistenceHook(persistenceHook)
+            .buildConfiguration();
+
+        assertThat(target.getFlushConfiguration().getFlushParallelism(), is(equalTo(8)));
+        assertThat(target.getFlushConfiguration().getPersistenceHook(), is(sameInstance(persistenceHook)));
+    }
+
+    @Test
+    public void defaultFlushConfiguration() {
+        Configuration target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID).buildConfiguration();
+
+        assertThat(target.getFlushConfiguration().getFlushParallelism(), is(equalTo(FlushConfiguration.DEFAULT_FLUSH_PARALLELISM)));
+        assertThat(target.getFlushConfiguration().getPersistenceHook(), is(nullValue()));
+    }
+
+    @Test
+    public void canSetRuntime() {
+        OpenKitRuntime runtime = new OpenKitRuntime(mock(Logger.class));
+        try {
+            AbstractOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID).withRuntime(runtime);
+
+            assertThat(target.getRuntime(), is(sameInstance(runtime)));
+        } finally {
+            runtime.shutdown();
+        }
+    }
+
+    @Test
+    public void defaultRuntimeIsNull() {
+        AbstractOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID);
+
+        assertThat(target.getRuntime(), is(nullValue()));
+    }
+
+    @Test
+    public void canEnableJavaNetHttpClient() {
+        AbstractOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID).withJavaNetHttpClient(true);
+
+        assertThat(target.isJavaNetHttpClient(), is(true));
+    }
+
+    @Test
+    public void javaNetHttpClientIsDisabledByDefault() {
+        AbstractOpenKitBuilder target = new DynatraceOpenKitBuilder(ENDPOINT, APP_ID, DEVICE_ID);
+
+        assertThat(target.isJavaNetHttpClient(), is(false));
+    }
+
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.core.util.DefaultLogger;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how many records per second can be added to the {@link BeaconCacheImpl} by 1 up to 64 concurrent threads,
+ * while an observer like the {@link BeaconCacheEvictor} is registered.
+ *
+ * <p>
+ * Each thread adds to its own session, so that the entry locks are not contended and the measured
+ * throughput is limited by the cache wide state, namely the global lock, the byte counter and the observer notification.
+ * </p>
+ *
+ * <p>
+ * This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ * The optional argument is the number of records per thread (default 100000).
+ * </p>
+ */
+public class BeaconCacheAddBenchmark {
+
+    private static final int DEFAULT_NUM_RECORDS_PER_THREAD = 100000;
+    private static final int MAX_NUM_THREADS = 64;
+    private static final int NUM_WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        int numRecordsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_RECORDS_PER_THREAD;
+
+        System.out.println("records per thread: " + numRecordsPerThread
+            + ", available processors: " + Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < NUM_WARMUP_ROUNDS; i++) {
+            runRound(4, numRecordsPerThread);
+        }
+
+        for (int numThreads = 1; numThreads <= MAX_NUM_THREADS; numThreads *= 2) {
+            long recordsPerSecond = runRound(numThreads, numRecordsPerThread);
+            System.out.println("threads: " + numThreads + ", " + recordsPerSecond + " records/s");
+        }
+    }
+
+    private static long runRound(int numThreads, final int numRecordsPerThread) throws InterruptedException {
+        final BeaconCacheImpl cache = new BeaconCacheImpl(new DefaultLogger(LogLevel.WARN));
+        cache.addObserver(new EvictorLikeObserver());
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int beaconID = i + 1;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < numRecordsPerThread; j++) {
+                        cache.addEventData(beaconID, j, "et=1&na=event&it=1&pa=0&s0=1&t0=0");
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long duration = System.nanoTime() - start;
+
+        return (long) numThreads * numRecordsPerThread * 1000000000L / Math.max(duration, 1L);
+    }
+
+    /**
+     * Observer doing the same as the eviction thread's observer, without running any strategy.
+     */
+    private static final class EvictorLikeObserver implements Observer {
+
+        private final Object lockObject = new Object();
+        private boolean recordAdded = false;
+
+        @Override
+        public void update(Observable o, Object arg) {
+            synchronized (lockObject) {
+                recordAdded = true;
+                lockObject.notifyAll();
+            }
+        }
+    }
+}
@@ -552,6 +552,28 @@ public class BeaconCacheEntryTest {
         assertThat(target.getEventData(), is(equalTo(Arrays.asList(dataOne, dataTwo))));
     }
 
+    @Test
+    public void removeRecordsOlderThanReducesTotalNumberOfBytes() {
+
+        // given
+        BeaconCacheRecord dataOne = new BeaconCacheRecord(4000L, "One");
+        BeaconCacheRecord dataTwo = new BeaconCacheRecord(3000L, "Two");
+        BeaconCacheRecord dataThree = new BeaconCacheRecord(2000L, "Three");
+        BeaconCacheRecord dataFour = new BeaconCacheRecord(1000L, "Four");
+
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addActionData(dataOne);
+        target.addEventData(dataTwo);
+        target.addActionData(dataThree);
+        target.addEventData(dataFour);
+
+        // when removing everything older than 3000
+        target.removeRecordsOlderThan(dataTwo.getTimestamp());
+
+        // then
+        assertThat(target.getTotalNumberOfBytes(), is(equalTo(dataOne.getDataSizeInBytes() + dataTwo.getDataSizeInBytes())));
+    }
+
     @Test
     public void removeOldestRecordsRemovesNothingIfEntryIsEmpty() {
 
@@ -718,6 +740,140 @@ public class BeaconCacheEntryTest {
     }
 
 
+    @Test
+    public void removeOldestRecordsReducesTotalNumberOfBytes() {
+
+        // given
+        BeaconCacheRecord dataOne = new BeaconCacheRecord(1000L, "One");
+        BeaconCacheRecord dataTwo = new BeaconCacheRecord(1100L, "Two");
+        BeaconCacheRecord dataThree = new BeaconCacheRecord(950L, "Three");
+        BeaconCacheRecord dataFour = new BeaconCacheRecord(1200L, "Four");
+
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(dataOne);
+        target.addEventData(dataTwo);
+        target.addActionData(dataThree);
+        target.addActionData(dataFour);
+
+        // when removing the two oldest records
+        target.removeOldestRecords(2);
+
+        // then
+        assertThat(target.getTotalNumberOfBytes(), is(equalTo(dataTwo.getDataSizeInBytes() + dataFour.getDataSizeInBytes())));
+    }
+
+    @Test
+    public void rejectedRecordsAreCounted() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+
+        // when
+        target.recordRejected();
+        target.recordRejected();
+
+        // then
+        assertThat(target.getNumRejectedRecords(), is(equalTo(2)));
+        assertThat(target.getTotalNumberOfBytes(), is(0L));
+    }
+
+    @Test
+    public void removeOldestRecordsRemovesLowerPrioritiesFirst() {
+
+        // given
+        BeaconCacheRecord sessionStart = new BeaconCacheRecord(1000L, RecordPriority.CRITICAL, "start");
+        BeaconCacheRecord value = new BeaconCacheRecord(1001L, RecordPriority.LOW, "value");
+        BeaconCacheRecord action = new BeaconCacheRecord(999L, RecordPriority.NORMAL, "action");
+        BeaconCacheRecord error = new BeaconCacheRecord(1002L, RecordPriority.HIGH, "error");
+
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(sessionStart);
+        target.addEventData(value);
+        target.addActionData(action);
+        target.addEventData(error);
+
+        // when removing the first two records
+        int obtained = target.removeOldestRecords(2);
+
+        // then
+        assertThat(obtained, is(2));
+        assertThat(target.getEventData(), is(equalTo(Arrays.asList(sessionStart, error))));
+        assertThat(target.getActionData(), is(empty()));
+        assertThat(target.getTotalNumberOfBytes(), is(equalTo(sessionStart.getDataSizeInBytes() + error.getDataSizeInBytes())));
+
+        // and when removing the next record
+        obtained = target.removeOldestRecords(1);
+
+        // then
+        assertThat(obtained, is(1));
+        assertThat(target.getEventData(), is(equalTo(Collections.singletonList(sessionStart))));
+    }
+
+    @Test
+    public void removedRecordsAreNotSent() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(new BeaconCacheRecord(1000L, RecordPriority.CRITICAL, "start"));
+        target.addEventData(new BeaconCacheRecord(1001L, RecordPriority.LOW, "value"));
+        target.addEventData(new BeaconCacheRecord(1002L, RecordPriority.HIGH, "error"));
+        target.removeOldestRecords(1);
+
+        // when
+        target.copyDataForChunking();
+        String obtained = target.getChunk("prefix", 1024, '&');
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&start&error")));
+    }
+
+    @Test
+    public void removeOldestRecordsConsidersRecordsAfterResettingDataMarkedForSending() {
+
+        // given
+        BeaconCacheRecord value = new BeaconCacheRecord(1000L, RecordPriority.LOW, "value");
+        BeaconCacheRecord error = new BeaconCacheRecord(1001L, RecordPriority.HIGH, "error");
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(error);
+        target.copyDataForChunking();
+        target.addEventData(value);
+        target.resetDataMarkedForSending();
+
+        // when
+        int obtained = target.removeOldestRecords(1);
+
+        // then
+        assertThat(obtained, is(1));
+        assertThat(target.getEventData(), is(equalTo(Collections.singletonList(error))));
+        assertThat(target.getTotalNumberOfBytes(), is(equalTo(error.getDataSizeInBytes())));
+    }
+
+    @Test
+    public void removeRecordsOlderThanAfterRemovingOldestRecords() {
+
+        // given
+        BeaconCacheRecord dataOne = new BeaconCacheRecord(1000L, RecordPriority.LOW, "One");
+        BeaconCacheRecord dataTwo = new BeaconCacheRecord(2000L, RecordPriority.LOW, "Two");
+        BeaconCacheRecord dataThree = new BeaconCacheRecord(3000L, RecordPriority.LOW, "Three");
+        BeaconCacheRecord dataFour = new BeaconCacheRecord(4000L, RecordPriority.LOW, "Four");
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(dataOne);
+        target.addEventData(dataTwo);
+        target.addEventData(dataThree);
+        target.addEventData(dataFour);
+        target.removeOldestRecords(1);
+
+        // when
+        int obtainedByAge = target.removeRecordsOlderThan(dataThree.getTimestamp());
+        int obtainedByNumber = target.removeOldestRecords(1);
+
+        // then
+        assertThat(obtainedByAge, is(1));
+        assertThat(obtainedByNumber, is(1));
+        assertThat(target.getEventData(), is(equalTo(Collections.singletonList(dataFour))));
+        assertThat(target.getTotalNumberOfBytes(), is(equalTo(dataFour.getDataSizeInBytes())));
+    }
+
     @Test
     public void removeOldestRecordsDoesNotRemoveAnythingFromEventAndActionsBeingSent() {
 
@@ -743,4 +899,196 @@ public class BeaconCacheEntryTest {
         assertThat(target.getEventDataBeingSent(), is(equalTo(Arrays.asList(dataOne, dataFour))));
         assertThat(target.getActionDataBeingSent(), is(equalTo(Arrays.asList(dataTwo, dataThree))));
     }
+
+    @Test
+    public void sealRecordsMovesActiveRecordsIntoCompressedBlock() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        for (int i = 0; i < 100; i++) {
+            target.addEventData(new BeaconCacheRecord(i, "et=1&na=event&it=" + i));
+            target.addActionData(new BeaconCacheRecord(i, "et=1&na=action&it=" + i));
+        }
+        long uncompressedSize = target.getTotalNumberOfBytes();
+
+        // when
+        int obtained = target.sealRecords();
+
+        // then
+        assertThat(obtained, is(200));
+        assertThat(target.getNumSealedBlocks(), is((200 + BeaconCacheEntry.MAX_NUM_RECORDS_PER_BLOCK - 1)
+            / BeaconCacheEntry.MAX_NUM_RECORDS_PER_BLOCK));
+        assertThat(target.getEventData(), is(empty()));
+        assertThat(target.getActionData(), is(empty()));
+        assertThat(target.getTotalNumberOfBytes() < uncompressedSize, is(true));
+        assertThat(target.getNewestRecordTimestamp(), is(99L));
+    }
+
+    @Test
+    public void sealRecordsDoesNothingWhileDataIsBeingSent() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(new BeaconCacheRecord(1000L, "One"));
+        target.copyDataForChunking();
+        target.addEventData(new BeaconCacheRecord(2000L, "Two"));
+
+        // when
+        int obtained = target.sealRecords();
+
+        // then
+        assertThat(obtained, is(0));
+        assertThat(target.getNumSealedBlocks(), is(0));
+    }
+
+    @Test
+    public void sealedRecordsAreSentBeforeActiveRecords() {
+
+        // given
+        BeaconCacheRecord dataOne = new BeaconCacheRecord(1000L, "One");
+        BeaconCacheRecord dataTwo = new BeaconCacheRecord(1500L, "Two");
+        BeaconCacheRecord dataThree = new BeaconCacheRecord(2000L, "Three");
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(dataOne);
+        target.addActionData(dataTwo);
+        target.sealRecords();
+        target.addEventData(dataThree);
+
+        // when
+        target.copyDataForChunking();
+        String obtained = target.getChunk("prefix", 1024, '&');
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&One&Three&Two")));
+        assertThat(target.getNumSealedBlocks(), is(0));
+    }
+
+    @Test
+    public void removeOldestRecordsRemovesSealedBlocksAsAWhole() {
+
+        // given
+        BeaconCacheRecord dataOne = new BeaconCacheRecord(1000L, "One");
+        BeaconCacheRecord dataTwo = new BeaconCacheRecord(1500L, "Two");
+        BeaconCacheRecord dataThree = new BeaconCacheRecord(2000L, "Three");
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(dataOne);
+        target.addEventData(dataTwo);
+        target.sealRecords();
+        target.addEventData(dataThree);
+
+        // when
+        int obtained = target.removeOldestRecords(1);
+
+        // then
+        assertThat(obtained, is(2));
+        assertThat(target.getNumSealedBlocks(), is(0));
+        assertThat(target.getEventData(), is(equalTo(Collections.singletonList(dataThree))));
+        assertThat(target.getTotalNumberOfBytes(), is(equalTo(dataThree.getDataSizeInBytes())));
+    }
+
+    @Test
+    public void sealRecordsSealsOneBlockPerPriority() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(new BeaconCacheRecord(1000L, RecordPriority.CRITICAL, "One"));
+        target.addEventData(new BeaconCacheRecord(1100L, RecordPriority.LOW, "Two"));
+        target.addActionData(new BeaconCacheRecord(1200L, RecordPriority.NORMAL, "Three"));
+        target.addEventData(new BeaconCacheRecord(1300L, RecordPriority.LOW, "Four"));
+
+        // when
+        int obtained = target.sealRecords();
+
+        // then
+        assertThat(obtained, is(4));
+        assertThat(target.getNumSealedBlocks(), is(3));
+    }
+
+    @Test
+    public void sealRecordsLimitsNumberOfRecordsPerBlock() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        for (int i = 0; i < BeaconCacheEntry.MAX_NUM_RECORDS_PER_BLOCK; i++) {
+            target.addEventData(new BeaconCacheRecord(i, "et=1&na=event&it=" + i));
+        }
+        target.addActionData(new BeaconCacheRecord(1000L, "et=1&na=action"));
+
+        // when
+        int obtained = target.sealRecords();
+
+        // then
+        assertThat(obtained, is(BeaconCacheEntry.MAX_NUM_RECORDS_PER_BLOCK + 1));
+        assertThat(target.getNumSealedBlocks(), is(2));
+    }
+
+    @Test
+    public void removeOldestRecordsKeepsSealedRecordsOfHigherPriority() {
+
+        // given
+        BeaconCacheRecord sessionStart = new BeaconCacheRecord(1000L, RecordPriority.CRITICAL, "One");
+        BeaconCacheRecord value = new BeaconCacheRecord(1100L, RecordPriority.LOW, "Two");
+        BeaconCacheRecord action = new BeaconCacheRecord(1200L, RecordPriority.NORMAL, "Three");
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(sessionStart);
+        target.addEventData(value);
+        target.addActionData(action);
+        target.sealRecords();
+
+        // when
+        int obtained = target.removeOldestRecords(1);
+
+        // then
+        assertThat(obtained, is(1));
+        assertThat(target.getNumSealedBlocks(), is(2));
+
+        // and when
+        target.copyDataForChunking();
+
+        // then
+        assertThat(target.getEventDataBeingSent(), is(equalTo(Collections.singletonList(sessionStart))));
+        assertThat(target.getActionDataBeingSent(), is(equalTo(Collections.singletonList(action))));
+    }
+
+    @Test
+    public void recordsSealedInBlocksOfDifferentPrioritiesAreSentInOrder() {
+
+        // given
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(new BeaconCacheRecord(1000L, RecordPriority.CRITICAL, "One"));
+        target.addEventData(new BeaconCacheRecord(1100L, RecordPriority.LOW, "Two"));
+        target.addEventData(new BeaconCacheRecord(1200L, RecordPriority.HIGH, "Three"));
+        target.addEventData(new BeaconCacheRecord(1300L, RecordPriority.LOW, "Four"));
+        target.sealRecords();
+        target.addEventData(new BeaconCacheRecord(1400L, RecordPriority.CRITICAL, "Five"));
+
+        // when
+        target.copyDataForChunking();
+        String obtained = target.getChunk("prefix", 1024, '&');
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&One&Two&Three&Four&Five")));
+    }
+
+    @Test
+    public void removeRecordsOlderThanOnlyRemovesSealedBlocksIfAllRecordsAreOlder() {
+
+        // given
+        BeaconCacheRecord dataOne = new BeaconCacheRecord(1000L, "One");
+        BeaconCacheRecord dataTwo = new BeaconCacheRecord(2000L, "Two");
+        BeaconCacheEntry target = new BeaconCacheEntry();
+        target.addEventData(dataOne);
+        target.addEventData(dataTwo);
+        target.sealRecords();
+
+        // when
+        int obtainedNotRemoved = target.removeRecordsOlderThan(2000L);
+        int obtainedRemoved = target.removeRecordsOlderThan(2001L);
+
+        // then
+        assertThat(obtainedNotRemoved, is(0));
+        assertThat(obtainedRemoved, is(2));
+        assertThat(target.getNumSealedBlocks(), is(0));
+        assertThat(target.getTotalNumberOfBytes(), is(0L));
+    }
 }
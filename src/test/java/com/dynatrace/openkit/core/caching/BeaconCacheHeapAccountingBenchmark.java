@@ -0,0 +1,112 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.core.util.DefaultLogger;
+
+import java.util.Random;
+
+/**
+ * Measures the heap retained by the {@link BeaconCacheImpl} and compares it to {@link BeaconCacheImpl#getNumBytesInCache()}.
+ *
+ * <p>
+ * This is not executed as part of the unit tests, since measuring the heap is not deterministic.
+ * Run it manually via its {@code main} method, preferably with a fixed heap size (e.g. {@code -Xms512m -Xmx512m}).
+ * Optional arguments are the number of sessions (default 100) and the number of records per session (default 1000).
+ * </p>
+ */
+public class BeaconCacheHeapAccountingBenchmark {
+
+    private static final int DEFAULT_NUM_SESSIONS = 100;
+    private static final int DEFAULT_NUM_RECORDS_PER_SESSION = 1000;
+
+    /** Minimum and maximum record lengths of the measured distributions */
+    private static final int[][] RECORD_LENGTHS = {
+        {16, 64},       // small records, like values and named events
+        {100, 400},     // typical records, like actions and web requests
+        {1000, 4000},   // large records, like crashes
+        {16, 4000}      // mixed
+    };
+
+    public static void main(String[] args) {
+        int numSessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_SESSIONS;
+        int numRecordsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_RECORDS_PER_SESSION;
+
+        HeapSizeModel calibratedModel = HeapSizeModel.forCurrentJvm();
+        System.out.println("sessions: " + numSessions + ", records per session: " + numRecordsPerSession);
+        System.out.println(calibratedModel);
+
+        for (int[] recordLengths : RECORD_LENGTHS) {
+            System.out.println("record length [" + recordLengths[0] + ", " + recordLengths[1] + "]:");
+            measure("  payload only", HeapSizeModel.PAYLOAD_ONLY, numSessions, numRecordsPerSession, recordLengths);
+            measure("  calibrated  ", calibratedModel, numSessions, numRecordsPerSession, recordLengths);
+        }
+    }
+
+    private static void measure(String name, HeapSizeModel model, int numSessions, int numRecordsPerSession, int[] recordLengths) {
+        Random random = new Random(42);
+
+        long usedHeapBefore = getUsedHeap();
+        BeaconCacheImpl cache = new BeaconCacheImpl(new DefaultLogger(LogLevel.WARN), 0L, model);
+        for (int session = 0; session < numSessions; session++) {
+            for (int i = 0; i < numRecordsPerSession; i++) {
+                String data = createRecordData(random, recordLengths[0], recordLengths[1]);
+                if (i % 2 == 0) {
+                    cache.addEventData(session, i, data);
+                } else {
+                    cache.addActionData(session, i, data);
+                }
+            }
+        }
+        long retainedHeap = getUsedHeap() - usedHeapBefore;
+        long reported = cache.getNumBytesInCache();
+
+        System.out.println(name + " - retained: " + retainedHeap + " bytes, reported: " + reported
+            + " bytes, ratio: " + String.format("%.2f", (double) reported / retainedHeap));
+
+        // keep the cache reachable until the heap has been measured
+        if (cache.getBeaconIDs().size() != numSessions) {
+            throw new IllegalStateException("Unexpected number of sessions");
+        }
+    }
+
+    private static String createRecordData(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            usedHeap = Math.min(usedHeap, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return usedHeap;
+    }
+}
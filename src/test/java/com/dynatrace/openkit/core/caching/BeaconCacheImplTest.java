@@ -17,25 +17,31 @@
 package com.dynatrace.openkit.core.caching;
 
 import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -145,6 +151,52 @@ public class BeaconCacheImplTest {
         verify(observer, times(3)).update(target, null);
     }
 
+    @Test
+    public void dataAddedWhileObserversAreNotifiedIsNotifiedOnceByTheNotifyingThread() throws Exception {
+
+        // given
+        final BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        final CountDownLatch notificationStarted = new CountDownLatch(1);
+        final CountDownLatch notificationReleased = new CountDownLatch(1);
+        final AtomicInteger numNotifications = new AtomicInteger(0);
+        target.addObserver(new Observer() {
+            @Override
+            public void update(Observable o, Object arg) {
+                if (numNotifications.incrementAndGet() == 1) {
+                    notificationStarted.countDown();
+                    try {
+                        notificationReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        Thread notifyingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.addEventData(1, 1000L, "a");
+            }
+        });
+        notifyingThread.start();
+        notificationStarted.await();
+
+        // when adding data while the first notification is still running
+        target.addEventData(1, 1100L, "b");
+        target.addEventData(2, 1200L, "c");
+        target.addActionData(3, 1300L, "d");
+
+        // then the adding thread does not notify itself
+        assertThat(numNotifications.get(), is(1));
+
+        // and when the first notification is done
+        notificationReleased.countDown();
+        notifyingThread.join();
+
+        // then the notifying thread notified once more
+        assertThat(numNotifications.get(), is(2));
+    }
+
     @Test
     public void addActionDataAddsBeaconIdToCache() {
 
@@ -618,6 +670,283 @@ public class BeaconCacheImplTest {
         assertThat(obtained, is(2));
     }
 
+    @Test
+    public void evictRecordsByAgeReducesNumBytesInCache() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addActionData(1, 1000L, "a");
+        target.addActionData(1, 1001L, "iii");
+        target.addEventData(1, 1000L, "b");
+        target.addEventData(1, 1001L, "jjj");
+
+        // when
+        target.evictRecordsByAge(1, 1001);
+
+        // then
+        long expected = new BeaconCacheRecord(1001L, "iii").getDataSizeInBytes() + new BeaconCacheRecord(1001L, "jjj").getDataSizeInBytes();
+        assertThat(target.getNumBytesInCache(), is(equalTo(expected)));
+        assertThat(target.getNumBytesInCache(1), is(equalTo(expected)));
+    }
+
+    @Test
+    public void evictRecordsByNumberReducesNumBytesInCache() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addActionData(1, 1000L, "a");
+        target.addActionData(1, 1001L, "iii");
+        target.addEventData(1, 1000L, "b");
+        target.addEventData(1, 1001L, "jjj");
+
+        // when
+        target.evictRecordsByNumber(1, 2);
+
+        // then
+        long expected = new BeaconCacheRecord(1001L, "iii").getDataSizeInBytes() + new BeaconCacheRecord(1001L, "jjj").getDataSizeInBytes();
+        assertThat(target.getNumBytesInCache(), is(equalTo(expected)));
+        assertThat(target.getNumBytesInCache(1), is(equalTo(expected)));
+    }
+
+    @Test
+    public void evictRecordsByNumberEvictsLowPriorityEventsFirst() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addEventData(1, 1000L, RecordPriority.CRITICAL, "start");
+        target.addEventData(1, 1001L, RecordPriority.LOW, "value");
+        target.addActionData(1, 1002L, "action");
+        target.addEventData(1, 1003L, RecordPriority.CRITICAL, "crash");
+
+        // when
+        int obtained = target.evictRecordsByNumber(1, 2);
+
+        // then
+        assertThat(obtained, is(2));
+        assertThat(target.getEvents(1), is(equalTo(new String[]{"start", "crash"})));
+        assertThat(target.getActions(1), is(emptyArray()));
+    }
+
+    @Test
+    public void getNumBytesInCacheGivesZeroIfBeaconIDDoesNotExist() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addActionData(1, 1000L, "a");
+
+        // then
+        assertThat(target.getNumBytesInCache(666), is(0L));
+    }
+
+    @Test
+    public void getNumBytesInCacheGivesBytesPerBeacon() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addActionData(1, 1000L, "a");
+        target.addEventData(2, 1000L, "bb");
+        target.addEventData(2, 1001L, "ccc");
+
+        // then
+        assertThat(target.getNumBytesInCache(1), is(equalTo(new BeaconCacheRecord(1000L, "a").getDataSizeInBytes())));
+        assertThat(target.getNumBytesInCache(2), is(equalTo(new BeaconCacheRecord(1000L, "bb").getDataSizeInBytes()
+            + new BeaconCacheRecord(1001L, "ccc").getDataSizeInBytes())));
+    }
+
+    @Test
+    public void dataExceedingTheSessionQuotaIsRejected() {
+
+        // given
+        long recordSize = new BeaconCacheRecord(1000L, "a").getDataSizeInBytes();
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, 2 * recordSize);
+
+        // when
+        target.addEventData(1, 1000L, "a");
+        target.addActionData(1, 1000L, "b");
+        target.addEventData(1, 1000L, "c");
+        target.addActionData(1, 1000L, "d");
+
+        // then
+        assertThat(target.getEvents(1), is(equalTo(new String[]{"a"})));
+        assertThat(target.getActions(1), is(equalTo(new String[]{"b"})));
+        assertThat(target.getNumBytesInCache(), is(equalTo(2 * recordSize)));
+        assertThat(target.getNumRejectedRecords(1), is(equalTo(2)));
+        assertThat(target.getTotalNumRejectedRecords(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void criticalDataIsNotRejectedBySessionQuota() {
+
+        // given
+        long recordSize = new BeaconCacheRecord(1000L, "a").getDataSizeInBytes();
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, recordSize);
+        target.addEventData(1, 1000L, RecordPriority.LOW, "a");
+
+        // when
+        target.addEventData(1, 1001L, RecordPriority.LOW, "b");
+        target.addEventData(1, 1002L, RecordPriority.CRITICAL, "c");
+
+        // then
+        assertThat(target.getEvents(1), is(equalTo(new String[]{"a", "c"})));
+        assertThat(target.getNumRejectedRecords(1), is(equalTo(1)));
+    }
+
+    @Test
+    public void sessionQuotaIsEnforcedPerSession() {
+
+        // given
+        long recordSize = new BeaconCacheRecord(1000L, "a").getDataSizeInBytes();
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, recordSize);
+
+        // when
+        target.addEventData(1, 1000L, "a");
+        target.addEventData(1, 1000L, "b");
+        target.addEventData(2, 1000L, "c");
+
+        // then
+        assertThat(target.getEvents(1), is(equalTo(new String[]{"a"})));
+        assertThat(target.getEvents(2), is(equalTo(new String[]{"c"})));
+        assertThat(target.getNumRejectedRecords(1), is(equalTo(1)));
+        assertThat(target.getNumRejectedRecords(2), is(equalTo(0)));
+    }
+
+    @Test
+    public void rejectedDataDoesNotNotifyObservers() {
+
+        // given
+        long recordSize = new BeaconCacheRecord(1000L, "a").getDataSizeInBytes();
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, recordSize);
+        target.addEventData(1, 1000L, "a");
+        target.addObserver(observer);
+
+        // when
+        target.addEventData(1, 1000L, "b");
+        target.addActionData(1, 1000L, "c");
+
+        // then
+        verifyZeroInteractions(observer);
+    }
+
+    @Test
+    public void evictedDataFreesSessionQuota() {
+
+        // given
+        long recordSize = new BeaconCacheRecord(1000L, "a").getDataSizeInBytes();
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, recordSize);
+        target.addEventData(1, 1000L, "a");
+
+        // when
+        target.evictRecordsByNumber(1, 1);
+        target.addEventData(1, 1001L, "b");
+
+        // then
+        assertThat(target.getEvents(1), is(equalTo(new String[]{"b"})));
+        assertThat(target.getNumRejectedRecords(1), is(equalTo(0)));
+    }
+
+    @Test
+    public void deleteCacheEntryLogsNumberOfRejectedRecords() {
+
+        // given
+        long recordSize = new BeaconCacheRecord(1000L, "a").getDataSizeInBytes();
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, recordSize);
+        target.addEventData(1, 1000L, "a");
+        target.addEventData(1, 1000L, "b");
+
+        // when
+        target.deleteCacheEntry(1);
+
+        // then
+        verify(logger, times(1)).info("BeaconCacheImpl deleteCacheEntry(sn=1) - 1 records have been rejected due to the session quota");
+        assertThat(target.getNumRejectedRecords(1), is(equalTo(0)));
+    }
+
+    @Test
+    public void sealRecordsOnlySealsIdleBeacons() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        for (int i = 0; i < 100; i++) {
+            target.addEventData(1, 1000L + i, "et=1&na=event&it=" + i);
+        }
+        long uncompressedSize = target.getNumBytesInCache();
+
+        // when
+        int obtainedNotIdle = target.sealRecords(1, 1099L);
+        int obtainedIdle = target.sealRecords(1, 1100L);
+
+        // then
+        assertThat(obtainedNotIdle, is(0));
+        assertThat(obtainedIdle, is(100));
+        assertThat(target.getNumBytesInCache() < uncompressedSize, is(true));
+        assertThat(target.getNumBytesInCache(), is(equalTo(target.getNumBytesInCache(1))));
+    }
+
+    @Test
+    public void sealRecordsReturnsZeroIfBeaconDoesNotExist() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+
+        // when
+        int obtained = target.sealRecords(1, 1000L);
+
+        // then
+        assertThat(obtained, is(0));
+    }
+
+    @Test
+    public void sealedRecordsAreReturnedInNextBeaconChunk() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addEventData(1, 1000L, "a");
+        target.addActionData(1, 1001L, "b");
+        target.sealRecords(1, 2000L);
+        target.addEventData(1, 3000L, "c");
+
+        // when
+        String obtained = target.getNextBeaconChunk(1, "prefix", 1024, '&');
+        target.removeChunkedData(1);
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&a&c&b")));
+        assertThat(target.getNumBytesInCache(), is(0L));
+    }
+
+    @Test
+    public void numBytesInCacheIncludesStructuralOverheadOfHeapSizeModel() {
+
+        // given
+        HeapSizeModel heapSizeModel = HeapSizeModel.calibrate(true, true, true);
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, 0L, heapSizeModel);
+        BeaconCacheRecord record = new BeaconCacheRecord(1000L, "a");
+
+        // when
+        target.addEventData(1, 1000L, "a");
+
+        // then
+        assertThat(target.getNumBytesInCache(1), is(equalTo(heapSizeModel.getRecordSizeInBytes(record))));
+        assertThat(target.getNumBytesInCache(),
+            is(equalTo(heapSizeModel.getEntryOverheadInBytes() + heapSizeModel.getRecordSizeInBytes(record))));
+    }
+
+    @Test
+    public void deleteCacheEntryReleasesStructuralOverhead() {
+
+        // given
+        BeaconCacheImpl target = new BeaconCacheImpl(logger, 0L, HeapSizeModel.calibrate(true, true, true));
+        target.addEventData(1, 1000L, "a");
+        target.addActionData(2, 1000L, "b");
+
+        // when
+        target.deleteCacheEntry(1);
+        target.deleteCacheEntry(2);
+
+        // then
+        assertThat(target.getNumBytesInCache(), is(0L));
+    }
+
     @Test
     public void isEmptyGivesTrueIfBeaconDoesNotExistInCache() {
 
@@ -657,4 +986,190 @@ public class BeaconCacheImplTest {
         // then
         assertThat(target.isEmpty(1), is(true));
     }
+
+    @Test
+    public void addDeferredDataIncreasesCacheSizeByEstimatedSize() {
+
+        // given
+        DeferredRecordData eventData = mock(DeferredRecordData.class);
+        when(eventData.getDataSizeInBytes()).thenReturn(80L);
+        DeferredRecordData actionData = mock(DeferredRecordData.class);
+        when(actionData.getDataSizeInBytes()).thenReturn(100L);
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+
+        // when
+        target.addEventData(1, 1000L, eventData);
+        target.addActionData(1, 1000L, actionData);
+
+        // then
+        assertThat(target.getNumBytesInCache(), is(180L));
+    }
+
+    @Test
+    public void addDeferredDataDoesNotSerializeData() {
+
+        // given
+        DeferredRecordData eventData = mock(DeferredRecordData.class);
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+
+        // when
+        target.addEventData(1, 1000L, eventData);
+
+        // then
+        verify(eventData, times(1)).getDataSizeInBytes();
+        verifyNoMoreInteractions(eventData);
+    }
+
+    @Test
+    public void getNextBeaconChunkSerializesDeferredData() {
+
+        // given
+        DeferredRecordData eventData = mock(DeferredRecordData.class);
+        when(eventData.serialize()).thenReturn("b");
+        DeferredRecordData actionData = mock(DeferredRecordData.class);
+        when(actionData.serialize()).thenReturn("a");
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addActionData(1, 1000L, actionData);
+        target.addEventData(1, 1000L, eventData);
+        target.addEventData(1, 1001L, "c");
+
+        // when
+        String obtained = target.getNextBeaconChunk(1, "prefix", 1024, '&');
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&b&c&a")));
+    }
+
+    @Test
+    public void evictingDeferredDataDoesNotSerializeData() {
+
+        // given
+        DeferredRecordData eventData = mock(DeferredRecordData.class);
+        BeaconCacheImpl target = new BeaconCacheImpl(logger);
+        target.addEventData(1, 1000L, eventData);
+
+        // when
+        int obtained = target.evictRecordsByAge(1, 1001L);
+
+        // then
+        assertThat(obtained, is(1));
+        verify(eventData, times(0)).serialize();
+    }
+
+    @Test
+    public void bufferedRecordsAreNotAddedToTheEntryImmediately() {
+
+        // given
+        BeaconCacheImpl target = createBufferedCache(4, 60000L);
+
+        // when
+        target.addEventData(1, 1000L, "a");
+        target.addActionData(1, 1001L, "b");
+
+        // then
+        assertThat(target.getNumBytesInCache(1), is(0L));
+    }
+
+    @Test
+    public void fullBufferIsAddedToTheEntry() {
+
+        // given
+        BeaconCacheImpl target = createBufferedCache(2, 60000L);
+        target.addObserver(observer);
+
+        // when
+        target.addEventData(1, 1000L, "a");
+        target.addActionData(1, 1001L, "b");
+
+        // then
+        assertThat(target.getNumBytesInCache(1), is(greaterThan(0L)));
+        assertThat(target.getActions(1), is(equalTo(new String[]{"b"})));
+        verify(observer, times(1)).update(target, null);
+    }
+
+    @Test
+    public void bufferIsAddedToTheEntryIfOldestRecordExceedsMaxDelay() {
+
+        // given
+        BeaconCacheImpl target = createBufferedCache(16, 100L);
+        target.addEventData(1, 1000L, "a");
+
+        // when
+        target.addEventData(1, 1100L, "b");
+
+        // then
+        assertThat(target.getNumBytesInCache(1), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void getNextBeaconChunkAddsBufferedRecords() {
+
+        // given
+        BeaconCacheImpl target = createBufferedCache(16, 60000L);
+        target.addEventData(1, 1000L, "a");
+        target.addActionData(1, 1001L, "b");
+        target.addEventData(1, 1002L, "c");
+
+        // when
+        String obtained = target.getNextBeaconChunk(1, "prefix", 1024, '&');
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&a&c&b")));
+    }
+
+    @Test
+    public void isEmptyConsidersBufferedRecords() {
+
+        // given
+        BeaconCacheImpl target = createBufferedCache(16, 60000L);
+        target.addEventData(1, 1000L, "a");
+
+        // then
+        assertThat(target.isEmpty(1), is(false));
+    }
+
+    @Test
+    public void recordsBufferedByDifferentThreadsAreSentInReportedOrder() throws InterruptedException {
+
+        // given
+        final BeaconCacheImpl target = createBufferedCache(16, 60000L);
+        target.addEventData(1, 1000L, "a");
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.addEventData(1, 1001L, "b");
+            }
+        });
+        thread.start();
+        thread.join();
+        target.addEventData(1, 1002L, "c");
+
+        // when
+        String obtained = target.getNextBeaconChunk(1, "prefix", 1024, '&');
+
+        // then
+        assertThat(obtained, is(equalTo("prefix&a&b&c")));
+        assertThat(target.getEvents(1), is(emptyArray()));
+    }
+
+    @Test
+    public void deleteCacheEntryDiscardsBufferedRecords() {
+
+        // given
+        BeaconCacheImpl target = createBufferedCache(16, 60000L);
+        target.addEventData(1, 1000L, "a");
+
+        // when
+        target.deleteCacheEntry(1);
+        target.addEventData(1, 1001L, "b");
+
+        // then
+        assertThat(target.getEvents(1), is(equalTo(new String[]{"b"})));
+    }
+
+    private BeaconCacheImpl createBufferedCache(int bufferCapacity, long bufferMaxDelay) {
+        return new BeaconCacheImpl(logger, new BeaconCacheConfiguration(-1L, -1L, -1L, false,
+            BeaconCacheConfiguration.DEFAULT_SESSION_QUOTA_IN_BYTES, BeaconCacheConfiguration.DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS,
+            0L, bufferCapacity, bufferMaxDelay));
+    }
 }
@@ -22,6 +22,10 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class BeaconCacheRecordTest {
 
@@ -215,4 +219,36 @@ public class BeaconCacheRecordTest {
         assertThat(target.hashCode(), not(is(otherTwo.hashCode())));
         assertThat(target.hashCode(), not(is(otherThree.hashCode())));
     }
+
+    @Test
+    public void getDataSerializesDeferredData() {
+
+        // given
+        DeferredRecordData data = mock(DeferredRecordData.class);
+        when(data.serialize()).thenReturn("foobar");
+        BeaconCacheRecord target = BeaconCacheRecord.deferred(0L, data);
+
+        // when
+        String obtained = target.getData();
+
+        // then
+        assertThat(obtained, is("foobar"));
+        verify(data, times(1)).serialize();
+    }
+
+    @Test
+    public void getDataSizeInBytesOfDeferredDataUsesEstimatedSize() {
+
+        // given
+        DeferredRecordData data = mock(DeferredRecordData.class);
+        when(data.getDataSizeInBytes()).thenReturn(42L);
+        BeaconCacheRecord target = BeaconCacheRecord.deferred(0L, data);
+
+        // when
+        long obtained = target.getDataSizeInBytes();
+
+        // then
+        assertThat(obtained, is(42L));
+        verify(data, times(0)).serialize();
+    }
 }
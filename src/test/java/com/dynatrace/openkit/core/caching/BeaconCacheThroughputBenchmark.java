@@ -0,0 +1,108 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.util.DefaultLogger;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how many events per second can be added to a single session of the {@link BeaconCacheImpl},
+ * with and without thread-local buffers, by 1 up to 64 concurrent threads.
+ *
+ * <p>
+ * This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ * Optional arguments are the number of events per thread (default 100000) and the buffer capacity (default 32).
+ * </p>
+ */
+public class BeaconCacheThroughputBenchmark {
+
+    private static final int DEFAULT_NUM_EVENTS_PER_THREAD = 100000;
+    private static final int DEFAULT_BUFFER_CAPACITY = 32;
+    private static final int MAX_NUM_THREADS = 64;
+    private static final int NUM_WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        int numEventsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_EVENTS_PER_THREAD;
+        int bufferCapacity = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BUFFER_CAPACITY;
+
+        System.out.println("events per thread: " + numEventsPerThread + ", buffer capacity: " + bufferCapacity
+            + ", available processors: " + Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < NUM_WARMUP_ROUNDS; i++) {
+            runRound(4, numEventsPerThread, 0);
+            runRound(4, numEventsPerThread, bufferCapacity);
+        }
+
+        for (int numThreads = 1; numThreads <= MAX_NUM_THREADS; numThreads *= 2) {
+            long directEventsPerSecond = runRound(numThreads, numEventsPerThread, 0);
+            long bufferedEventsPerSecond = runRound(numThreads, numEventsPerThread, bufferCapacity);
+            System.out.println("threads: " + numThreads
+                + ", direct: " + directEventsPerSecond + " events/s"
+                + ", buffered: " + bufferedEventsPerSecond + " events/s");
+        }
+    }
+
+    private static long runRound(int numThreads, final int numEventsPerThread, int bufferCapacity)
+            throws InterruptedException {
+        final BeaconCacheImpl cache = new BeaconCacheImpl(new DefaultLogger(LogLevel.WARN),
+            new BeaconCacheConfiguration(-1L, -1L, -1L, false,
+                BeaconCacheConfiguration.DEFAULT_SESSION_QUOTA_IN_BYTES,
+                BeaconCacheConfiguration.DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS,
+                BeaconCacheConfiguration.DEFAULT_RECORD_OVERHEAD_IN_BYTES,
+                bufferCapacity,
+                BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS));
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < numEventsPerThread; j++) {
+                        cache.addEventData(1, j, "et=1&na=event&it=1&pa=0&s0=1&t0=0");
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long duration = System.nanoTime() - start;
+
+        // remaining buffered records are added when the data is retrieved
+        int numEvents = cache.getEvents(1).length;
+        if (numEvents != numThreads * numEventsPerThread) {
+            throw new IllegalStateException("Expected " + (numThreads * numEventsPerThread) + " events, but got " + numEvents);
+        }
+
+        return (long) numEvents * 1000000000L / Math.max(duration, 1L);
+    }
+}
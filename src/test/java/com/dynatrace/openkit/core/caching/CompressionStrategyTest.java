@@ -0,0 +1,121 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class CompressionStrategyTest {
+
+    private Logger mockLogger;
+    private BeaconCache mockBeaconCache;
+    private TimingProvider mockTimingProvider;
+
+    @Before
+    public void setUp() {
+
+        mockLogger = mock(Logger.class);
+        mockBeaconCache = mock(BeaconCache.class);
+        mockTimingProvider = mock(TimingProvider.class);
+    }
+
+    @Test
+    public void theStrategyIsDisabledByDefault() {
+
+        // given
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L);
+        CompressionStrategy target = new CompressionStrategy(mockLogger, mockBeaconCache, configuration, mockTimingProvider);
+
+        // then
+        assertThat(target.isStrategyDisabled(), is(true));
+    }
+
+    @Test
+    public void theStrategyIsNotDisabledIfIdleTimeIsGreaterThanZero() {
+
+        // given
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L, false, 0L, 1L);
+        CompressionStrategy target = new CompressionStrategy(mockLogger, mockBeaconCache, configuration, mockTimingProvider);
+
+        // then
+        assertThat(target.isStrategyDisabled(), is(false));
+    }
+
+    @Test
+    public void executeLogsOnlyOnceIfStrategyIsDisabled() {
+
+        // given
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L, false, 0L, 0L);
+        CompressionStrategy target = new CompressionStrategy(mockLogger, mockBeaconCache, configuration, mockTimingProvider);
+        when(mockLogger.isInfoEnabled()).thenReturn(true);
+
+        // when
+        target.execute();
+        target.execute();
+
+        // then
+        verify(mockLogger, times(1)).info("CompressionStrategy execute() - strategy is disabled");
+        verifyZeroInteractions(mockBeaconCache, mockTimingProvider);
+    }
+
+    @Test
+    public void executeSealsIdleBeaconsOncePerIdleTime() {
+
+        // given
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L, false, 0L, 500L);
+        CompressionStrategy target = new CompressionStrategy(mockLogger, mockBeaconCache, configuration, mockTimingProvider);
+        target.setLastRunTimestamp(1000L);
+        when(mockBeaconCache.getBeaconIDs()).thenReturn(new HashSet<Integer>(Arrays.asList(1, 42)));
+        when(mockTimingProvider.provideTimestampInMilliseconds()).thenReturn(1499L, 1500L, 1500L, 1600L);
+
+        // when executing before the idle time elapsed
+        target.execute();
+
+        // then
+        verifyZeroInteractions(mockBeaconCache);
+
+        // and when executing after the idle time elapsed
+        target.execute();
+
+        // then
+        verify(mockBeaconCache, times(1)).getBeaconIDs();
+        verify(mockBeaconCache, times(1)).sealRecords(1, 1000L);
+        verify(mockBeaconCache, times(1)).sealRecords(42, 1000L);
+        assertThat(target.getLastRunTimestamp(), is(1500L));
+
+        // and when executing again before the idle time elapsed
+        target.execute();
+
+        // then
+        verifyNoMoreInteractions(mockBeaconCache);
+    }
+}
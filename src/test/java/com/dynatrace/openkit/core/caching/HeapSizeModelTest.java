@@ -0,0 +1,115 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HeapSizeModelTest {
+
+    @Test
+    public void payloadOnlyModelGivesRecordDataSize() {
+
+        // given
+        BeaconCacheRecord record = new BeaconCacheRecord(1000L, "foobar");
+
+        // when
+        long obtained = HeapSizeModel.PAYLOAD_ONLY.getRecordSizeInBytes(record);
+
+        // then
+        assertThat(obtained, is(equalTo(record.getDataSizeInBytes())));
+        assertThat(HeapSizeModel.PAYLOAD_ONLY.getEntryOverheadInBytes(), is(0L));
+    }
+
+    @Test
+    public void calibratedModelWithCompressedOopsAndCompactStrings() {
+
+        // given
+        HeapSizeModel target = HeapSizeModel.calibrate(true, true, true);
+
+        // when
+        long obtained = target.getRecordSizeInBytes(new BeaconCacheRecord(1000L, "foobar"));
+
+        // then record (56) + list node (24) + queue slot (8) + String (24) + aligned byte array (16 + 6 -> 24)
+        assertThat(obtained, is(136L));
+    }
+
+    @Test
+    public void calibratedModelWithUncompressedOops() {
+
+        // given
+        HeapSizeModel target = HeapSizeModel.calibrate(true, false, false);
+
+        // when
+        long obtained = target.getRecordSizeInBytes(new BeaconCacheRecord(1000L, "foobar"));
+
+        // then record (72) + list node (40) + queue slot (16) + String (32) + aligned char array (24 + 12 -> 40)
+        assertThat(obtained, is(200L));
+    }
+
+    @Test
+    public void calibratedModelUsesEstimationOfDeferredData() {
+
+        // given
+        DeferredRecordData deferredData = mock(DeferredRecordData.class);
+        when(deferredData.getDataSizeInBytes()).thenReturn(100L);
+        HeapSizeModel target = HeapSizeModel.calibrate(true, true, true);
+
+        // when
+        long obtained = target.getRecordSizeInBytes(BeaconCacheRecord.deferred(1000L, deferredData));
+
+        // then
+        assertThat(obtained, is(target.getRecordOverheadInBytes() + 100L));
+    }
+
+    @Test
+    public void calibratedModelAccountsEntryAndBlockOverhead() {
+
+        // given
+        HeapSizeModel target = HeapSizeModel.calibrate(true, true, true);
+        SealedBlock block = SealedBlock.seal(Collections.singletonList(new BeaconCacheRecord(1000L, "foobar")),
+            Collections.<BeaconCacheRecord>emptyList(), RecordPriority.NORMAL);
+
+        // then
+        assertThat(target.getEntryOverheadInBytes(), is(greaterThan(0L)));
+        assertThat(target.getBlockSizeInBytes(block), is(greaterThan(block.getDataSizeInBytes())));
+    }
+
+    @Test
+    public void configuredRecordOverheadReplacesCalibratedOverhead() {
+
+        // given
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L, false, 0L, 0L, 50L);
+        HeapSizeModel target = HeapSizeModel.forConfiguration(configuration);
+
+        // when
+        long obtained = target.getRecordSizeInBytes(new BeaconCacheRecord(1000L, "foobar"));
+
+        // then
+        assertThat(obtained, is(50L + target.getStringSizeInBytes(6)));
+        assertThat(target.getStringSizeInBytes(6) <= 12L, is(true));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.caching;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class RecordBufferTest {
+
+    @Test
+    public void newBufferIsEmpty() {
+
+        // given
+        BeaconCacheEntry entry = new BeaconCacheEntry();
+
+        // when
+        RecordBuffer target = new RecordBuffer(entry, 2);
+
+        // then
+        assertThat(target.getEntry(), is(sameInstance(entry)));
+        assertThat(target.isEmpty(), is(true));
+        assertThat(target.isFull(), is(false));
+        assertThat(target.isDiscarded(), is(false));
+    }
+
+    @Test
+    public void addAppendsRecordsInOrder() {
+
+        // given
+        BeaconCacheRecord event = new BeaconCacheRecord(1000L, "a");
+        BeaconCacheRecord action = new BeaconCacheRecord(1001L, "b");
+        RecordBuffer target = new RecordBuffer(new BeaconCacheEntry(), 2);
+
+        // when
+        target.add(event, false);
+        target.add(action, true);
+
+        // then
+        assertThat(target.size(), is(2));
+        assertThat(target.isFull(), is(true));
+        assertThat(target.getRecord(0), is(sameInstance(event)));
+        assertThat(target.isActionRecord(0), is(false));
+        assertThat(target.getRecord(1), is(sameInstance(action)));
+        assertThat(target.isActionRecord(1), is(true));
+    }
+
+    @Test
+    public void isExpiredComparesWithOldestRecord() {
+
+        // given
+        RecordBuffer target = new RecordBuffer(new BeaconCacheEntry(), 4);
+
+        // then
+        assertThat(target.isExpired(5000L, 100L), is(false));
+
+        // and when
+        target.add(new BeaconCacheRecord(1000L, "a"), false);
+        target.add(new BeaconCacheRecord(1050L, "b"), false);
+
+        // then
+        assertThat(target.isExpired(1099L, 100L), is(false));
+        assertThat(target.isExpired(1100L, 100L), is(true));
+    }
+
+    @Test
+    public void clearRemovesAllRecords() {
+
+        // given
+        RecordBuffer target = new RecordBuffer(new BeaconCacheEntry(), 2);
+        target.add(new BeaconCacheRecord(1000L, "a"), false);
+
+        // when
+        target.clear();
+
+        // then
+        assertThat(target.isEmpty(), is(true));
+        assertThat(target.getRecord(0), is(nullValue()));
+        assertThat(target.isDiscarded(), is(false));
+    }
+
+    @Test
+    public void discardRemovesAllRecordsAndMarksBufferAsDiscarded() {
+
+        // given
+        RecordBuffer target = new RecordBuffer(new BeaconCacheEntry(), 2);
+        target.add(new BeaconCacheRecord(1000L, "a"), true);
+
+        // when
+        target.discard();
+
+        // then
+        assertThat(target.isEmpty(), is(true));
+        assertThat(target.isDiscarded(), is(true));
+    }
+
+    @Test
+    public void discardReleasesTheEntryAndTheRecords() {
+
+        // given
+        RecordBuffer target = new RecordBuffer(new BeaconCacheEntry(), 2);
+        target.add(new BeaconCacheRecord(1000L, "a"), false);
+
+        // when
+        target.discard();
+
+        // then
+        assertThat(target.getEntry(), is(nullValue()));
+        assertThat(target.getRecord(0), is(nullValue()));
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.protocol.EventType;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RecordPriorityTest {
+
+    @Test
+    public void valuesEventsAndWebRequestsHaveLowPriority() {
+
+        // then
+        assertThat(RecordPriority.forEventType(EventType.VALUE_STRING), is(RecordPriority.LOW));
+        assertThat(RecordPriority.forEventType(EventType.VALUE_INT), is(RecordPriority.LOW));
+        assertThat(RecordPriority.forEventType(EventType.VALUE_DOUBLE), is(RecordPriority.LOW));
+        assertThat(RecordPriority.forEventType(EventType.NAMED_EVENT), is(RecordPriority.LOW));
+        assertThat(RecordPriority.forEventType(EventType.WEBREQUEST), is(RecordPriority.LOW));
+    }
+
+    @Test
+    public void actionsAndUserIdentificationHaveNormalPriority() {
+
+        // then
+        assertThat(RecordPriority.forEventType(EventType.ACTION), is(RecordPriority.NORMAL));
+        assertThat(RecordPriority.forEventType(EventType.IDENTIFY_USER), is(RecordPriority.NORMAL));
+    }
+
+    @Test
+    public void errorsHaveHighPriority() {
+
+        // then
+        assertThat(RecordPriority.forEventType(EventType.ERROR), is(RecordPriority.HIGH));
+    }
+
+    @Test
+    public void sessionBoundariesAndCrashesHaveCriticalPriority() {
+
+        // then
+        assertThat(RecordPriority.forEventType(EventType.SESSION_START), is(RecordPriority.CRITICAL));
+        assertThat(RecordPriority.forEventType(EventType.SESSION_END), is(RecordPriority.CRITICAL));
+        assertThat(RecordPriority.forEventType(EventType.CRASH), is(RecordPriority.CRITICAL));
+    }
+}
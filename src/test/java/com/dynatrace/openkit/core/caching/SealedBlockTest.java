@@ -0,0 +1,130 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.caching;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SealedBlockTest {
+
+    @Test
+    public void sealingNoRecordsGivesNull() {
+
+        // when
+        SealedBlock obtained = SealedBlock.seal(Collections.<BeaconCacheRecord>emptyList(),
+            Collections.<BeaconCacheRecord>emptyList(), RecordPriority.NORMAL);
+
+        // then
+        assertThat(obtained, is(nullValue()));
+    }
+
+    @Test
+    public void unsealingRestoresAllRecordsInOrder() {
+
+        // given
+        BeaconCacheRecord eventOne = new BeaconCacheRecord(1000L, RecordPriority.CRITICAL, "One");
+        BeaconCacheRecord eventTwo = new BeaconCacheRecord(3000L, RecordPriority.CRITICAL, "Tw\u00f6");
+        BeaconCacheRecord action = new BeaconCacheRecord(2000L, RecordPriority.CRITICAL, "Three");
+        SealedBlock target = SealedBlock.seal(Arrays.asList(eventOne, eventTwo), Collections.singletonList(action),
+            RecordPriority.CRITICAL);
+        List<BeaconCacheRecord> events = new ArrayList<BeaconCacheRecord>();
+        List<BeaconCacheRecord> actions = new ArrayList<BeaconCacheRecord>();
+
+        // when
+        target.unseal(events, actions);
+
+        // then
+        assertThat(events, is(equalTo(Arrays.asList(eventOne, eventTwo))));
+        assertThat(actions, is(equalTo(Collections.singletonList(action))));
+        assertThat(events.get(0).getPriority(), is(RecordPriority.CRITICAL));
+        assertThat(events.get(1).getPriority(), is(RecordPriority.CRITICAL));
+        assertThat(target.getNumRecords(), is(3));
+        assertThat(target.getNewestTimestamp(), is(3000L));
+        assertThat(target.getPriority(), is(RecordPriority.CRITICAL));
+    }
+
+    @Test
+    public void sealingSkipsEvictedRecords() {
+
+        // given
+        BeaconCacheRecord evicted = new BeaconCacheRecord(1000L, "One");
+        BeaconCacheRecord retained = new BeaconCacheRecord(2000L, "Two");
+        evicted.evict();
+        SealedBlock target = SealedBlock.seal(Arrays.asList(evicted, retained), Collections.<BeaconCacheRecord>emptyList(),
+            RecordPriority.NORMAL);
+        List<BeaconCacheRecord> events = new ArrayList<BeaconCacheRecord>();
+        List<BeaconCacheRecord> actions = new ArrayList<BeaconCacheRecord>();
+
+        // when
+        target.unseal(events, actions);
+
+        // then
+        assertThat(events, is(equalTo(Collections.singletonList(retained))));
+        assertThat(target.getNumRecords(), is(1));
+    }
+
+    @Test
+    public void sealingSkipsRecordsOfOtherPriorities() {
+
+        // given
+        BeaconCacheRecord low = new BeaconCacheRecord(1000L, RecordPriority.LOW, "One");
+        BeaconCacheRecord critical = new BeaconCacheRecord(2000L, RecordPriority.CRITICAL, "Two");
+        BeaconCacheRecord action = new BeaconCacheRecord(3000L, RecordPriority.LOW, "Three");
+        SealedBlock target = SealedBlock.seal(Arrays.asList(low, critical), Collections.singletonList(action),
+            RecordPriority.LOW);
+        List<BeaconCacheRecord> events = new ArrayList<BeaconCacheRecord>();
+        List<BeaconCacheRecord> actions = new ArrayList<BeaconCacheRecord>();
+
+        // when
+        target.unseal(events, actions);
+
+        // then
+        assertThat(events, is(equalTo(Collections.singletonList(low))));
+        assertThat(actions, is(equalTo(Collections.singletonList(action))));
+        assertThat(target.getNumRecords(), is(2));
+        assertThat(target.getPriority(), is(RecordPriority.LOW));
+    }
+
+    @Test
+    public void repetitiveDataIsCompressed() {
+
+        // given
+        List<BeaconCacheRecord> events = new ArrayList<BeaconCacheRecord>();
+        long uncompressedSize = 0;
+        for (int i = 0; i < 100; i++) {
+            BeaconCacheRecord record = new BeaconCacheRecord(i, "et=1&na=event&it=" + i + "&pa=0&s0=1&t0=" + i);
+            events.add(record);
+            uncompressedSize += record.getDataSizeInBytes();
+        }
+
+        // when
+        SealedBlock obtained = SealedBlock.seal(events, Collections.<BeaconCacheRecord>emptyList(), RecordPriority.NORMAL);
+
+        // then
+        assertThat(obtained.getDataSizeInBytes(), is(lessThan(uncompressedSize / 2)));
+    }
+}
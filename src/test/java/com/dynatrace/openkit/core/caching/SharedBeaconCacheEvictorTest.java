@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.caching;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SharedBeaconCacheEvictorTest {
+
+    private Logger logger;
+    private TimingProvider timingProvider;
+    private BeaconCacheConfiguration configuration;
+    private BeaconCache largeCache;
+    private BeaconCache smallCache;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        timingProvider = mock(TimingProvider.class);
+        configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L);
+
+        largeCache = mock(BeaconCache.class);
+        when(largeCache.getNumBytesInCache()).thenReturn(900L);
+        when(largeCache.getBeaconIDs()).thenReturn(Collections.singleton(1));
+        when(largeCache.getNumBytesInCache(1)).thenReturn(900L);
+
+        smallCache = mock(BeaconCache.class);
+        when(smallCache.getNumBytesInCache()).thenReturn(100L);
+        when(smallCache.getBeaconIDs()).thenReturn(Collections.singleton(1));
+        when(smallCache.getNumBytesInCache(1)).thenReturn(100L);
+    }
+
+    @Test
+    public void registeringAndUnregisteringCacheAddsAndRemovesObserver() {
+
+        // given
+        SharedBeaconCacheEvictor target = new SharedBeaconCacheEvictor(logger, 400L, 800L);
+
+        // when
+        target.register(largeCache, configuration, timingProvider);
+        target.unregister(largeCache);
+
+        // then
+        verify(largeCache).addObserver(target);
+        verify(largeCache).deleteObserver(target);
+    }
+
+    @Test
+    public void cachesAreNotEvictedIfTotalSizeIsWithinUpperBoundary() {
+
+        // given
+        SharedBeaconCacheEvictor target = new SharedBeaconCacheEvictor(logger, 400L, 1000L);
+        target.register(largeCache, configuration, timingProvider);
+        target.register(smallCache, configuration, timingProvider);
+
+        // when
+        target.evictToSharedBudget();
+
+        // then
+        verify(largeCache, never()).evictRecordsByNumber(anyInt(), anyInt());
+        verify(smallCache, never()).evictRecordsByNumber(anyInt(), anyInt());
+    }
+
+    @Test
+    public void cachesExceedingTheirFairShareAreEvictedIfTotalSizeExceedsUpperBoundary() {
+
+        // given
+        SharedBeaconCacheEvictor target = new SharedBeaconCacheEvictor(logger, 400L, 800L);
+        target.register(largeCache, configuration, timingProvider);
+        target.register(smallCache, configuration, timingProvider);
+
+        // when
+        target.evictToSharedBudget();
+
+        // then only the cache exceeding its fair share of 200 bytes is evicted
+        verify(largeCache, atLeastOnce()).evictRecordsByNumber(1, 1);
+        verify(smallCache, never()).evictRecordsByNumber(anyInt(), anyInt());
+    }
+
+    @Test
+    public void cachesAreNotEvictedIfSharedBudgetIsDisabled() {
+
+        // given
+        SharedBeaconCacheEvictor target = new SharedBeaconCacheEvictor(logger, -1L, -1L);
+        target.register(largeCache, configuration, timingProvider);
+        target.register(smallCache, configuration, timingProvider);
+
+        // when
+        target.evictToSharedBudget();
+
+        // then
+        verify(largeCache, never()).evictRecordsByNumber(anyInt(), anyInt());
+        verify(smallCache, never()).evictRecordsByNumber(anyInt(), anyInt());
+    }
+}
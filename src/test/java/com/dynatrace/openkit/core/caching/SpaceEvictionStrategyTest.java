@@ -359,4 +359,77 @@ public class SpaceEvictionStrategyTest {
         verify(mockBeaconCache, times(8)).getNumBytesInCache();
         verify(mockBeaconCache, times(3)).evictRecordsByNumber(anyInt(), eq(1));
     }
+
+    @Test
+    public void executeEvictionStopsIfNumBytesInCacheDoesNotDecrease() {
+
+        // given
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 1000L, 2000L);
+        SpaceEvictionStrategy target = new SpaceEvictionStrategy(mockLogger, mockBeaconCache, configuration);
+
+        // bytes which cannot be evicted, like structural overhead or data being sent
+        when(mockBeaconCache.getNumBytesInCache()).thenReturn(configuration.getCacheSizeUpperBound() + 1);
+        when(mockBeaconCache.getBeaconIDs()).thenReturn(new HashSet<Integer>(Arrays.asList(42, 1)));
+
+        // when
+        target.execute();
+
+        // then
+        verify(mockBeaconCache, times(1)).evictRecordsByNumber(1, 1);
+        verify(mockBeaconCache, times(1)).evictRecordsByNumber(42, 1);
+    }
+
+    @Test
+    public void executeEvictionEvictsOnlyFromSessionExceedingItsFairShare() {
+
+        // given
+        BeaconCacheImpl beaconCache = new BeaconCacheImpl(mockLogger);
+        for (int i = 0; i < 1000; i++) {
+            beaconCache.addEventData(1, i, "0123456789");
+        }
+        for (int i = 0; i < 10; i++) {
+            beaconCache.addEventData(2, i, "0123456789");
+            beaconCache.addEventData(3, i, "0123456789");
+        }
+        long numBytesInSmallSession = beaconCache.getNumBytesInCache(2);
+        long lowerBound = beaconCache.getNumBytesInCache() / 2;
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, lowerBound, beaconCache.getNumBytesInCache() - 1);
+        SpaceEvictionStrategy target = new SpaceEvictionStrategy(mockLogger, beaconCache, configuration);
+
+        // when
+        target.execute();
+
+        // then
+        assertThat(beaconCache.getNumBytesInCache() <= lowerBound, is(true));
+        assertThat(beaconCache.getNumBytesInCache(2), is(numBytesInSmallSession));
+        assertThat(beaconCache.getNumBytesInCache(3), is(numBytesInSmallSession));
+    }
+
+    @Test
+    public void executeEvictionTrimsSessionsExceedingTheirFairShareTheMostFirst() {
+
+        // given
+        BeaconCacheImpl beaconCache = new BeaconCacheImpl(mockLogger);
+        for (int i = 0; i < 100; i++) {
+            beaconCache.addEventData(1, i, "0123456789");
+        }
+        for (int i = 0; i < 60; i++) {
+            beaconCache.addEventData(2, i, "0123456789");
+        }
+        for (int i = 0; i < 10; i++) {
+            beaconCache.addEventData(3, i, "0123456789");
+        }
+        long recordSize = beaconCache.getNumBytesInCache(3) / 10;
+        // fair share is 40 records per session, trimming the largest session is already sufficient to reach the lower bound
+        BeaconCacheConfiguration configuration = new BeaconCacheConfiguration(1000L, 120 * recordSize, 160 * recordSize);
+        SpaceEvictionStrategy target = new SpaceEvictionStrategy(mockLogger, beaconCache, configuration);
+
+        // when
+        target.execute();
+
+        // then
+        assertThat(beaconCache.getNumBytesInCache(1), is(50 * recordSize));
+        assertThat(beaconCache.getNumBytesInCache(2), is(60 * recordSize));
+        assertThat(beaconCache.getNumBytesInCache(3), is(10 * recordSize));
+    }
 }
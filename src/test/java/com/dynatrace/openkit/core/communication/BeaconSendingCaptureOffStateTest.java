@@ -16,19 +16,34 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.FlushHandle;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.protocol.HTTPClient;
 import com.dynatrace.openkit.protocol.Response;
 import com.dynatrace.openkit.protocol.StatusResponse;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -138,4 +153,49 @@ public class BeaconSendingCaptureOffStateTest {
         BeaconSendingCaptureOffState capturedState = capturedStates.get(0);
         assertThat(capturedState.sleepTimeInMilliseconds, is(equalTo(1234L * 1000L)));
     }
+
+    @Test
+    public void flushRequestedWhileWaitingInCaptureOffStateIsCompletedImmediately() throws InterruptedException {
+
+        // given
+        final AtomicBoolean capture = new AtomicBoolean(true);
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.isCapture()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return capture.get();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                capture.set(false);
+                return null;
+            }
+        }).when(configuration).disableCapture();
+        HTTPClientProvider httpClientProvider = mock(HTTPClientProvider.class);
+        when(httpClientProvider.createClient(any(HTTPClientConfiguration.class))).thenReturn(httpClient);
+        TimingProvider timingProvider = mock(TimingProvider.class);
+        final BeaconSendingContext context = new BeaconSendingContext(mock(Logger.class), configuration,
+            httpClientProvider, timingProvider);
+        FlushHandle requestedBefore = context.requestFlush(null);
+        final List<Boolean> completedWhileWaiting = new ArrayList<Boolean>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                // the retry-after delay might take hours, so the handle must not wait for its end
+                completedWhileWaiting.add(context.requestFlush(null).isCompleted());
+                return null;
+            }
+        }).when(timingProvider).sleep(anyLong());
+        BeaconSendingCaptureOffState target = new BeaconSendingCaptureOffState(12345L);
+
+        // when
+        target.execute(context);
+
+        // then
+        assertThat(requestedBefore.isCompleted(), is(true));
+        assertThat(completedWhileWaiting, is(equalTo(Collections.singletonList(true))));
+        assertThat(context.takePendingFlushRequest(), is(nullValue()));
+    }
 }
@@ -26,6 +26,7 @@ import com.dynatrace.openkit.providers.HTTPClientProvider;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -36,6 +37,7 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -224,6 +226,88 @@ public class BeaconSendingCaptureOnStateTest {
         assertThat(argumentCaptor.getAllValues().get(0).sleepTimeInMilliseconds, is(equalTo(6543L)));
     }
 
+    @Test
+    public void batchedNewSessionRequestConfiguresAllNewSessions() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockContext.getNewSessionRequestBatchWindow()).thenReturn(1000L);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNewSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockClient.sendNewSessionRequest())
+            .thenReturn(new StatusResponse(mock(Logger.class), "mp=5", 200, Collections.<String, List<String>>emptyMap()));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+
+        ArgumentCaptor<BeaconConfiguration> beaconConfigurationArgumentCaptor = ArgumentCaptor.forClass(BeaconConfiguration.class);
+
+        // when
+        target.execute(mockContext);
+
+        // verify a single new session request has been made
+        verify(mockClient, times(1)).sendNewSessionRequest();
+
+        // verify both sessions have been configured from the same response
+        verify(mockSession5New, times(1)).updateBeaconConfiguration(beaconConfigurationArgumentCaptor.capture());
+        verify(mockSession6New, times(1)).updateBeaconConfiguration(beaconConfigurationArgumentCaptor.capture());
+        assertThat(beaconConfigurationArgumentCaptor.getAllValues().get(0).getMultiplicity(), is(equalTo(5)));
+        assertThat(beaconConfigurationArgumentCaptor.getAllValues().get(1).getMultiplicity(), is(equalTo(5)));
+    }
+
+    @Test
+    public void failedBatchedNewSessionRequestIsAccountedToAllNewSessions() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockContext.getNewSessionRequestBatchWindow()).thenReturn(1000L);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNewSessions()).thenReturn(Arrays.asList(mockSession5New, mockSession6New));
+        when(mockClient.sendNewSessionRequest())
+            .thenReturn(new StatusResponse(mock(Logger.class), "", Response.HTTP_BAD_REQUEST, Collections.<String, List<String>>emptyMap()));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+
+        // when
+        target.execute(mockContext);
+
+        // verify a single new session request has been made
+        verify(mockClient, times(1)).sendNewSessionRequest();
+
+        // verify for both sessions the number of tries was decreased
+        verify(mockSession5New, times(1)).decreaseNumNewSessionRequests();
+        verify(mockSession6New, times(1)).decreaseNumNewSessionRequests();
+        verify(mockSession5New, times(0)).updateBeaconConfiguration(any(BeaconConfiguration.class));
+        verify(mockSession6New, times(0)).updateBeaconConfiguration(any(BeaconConfiguration.class));
+    }
+
+    @Test
+    public void batchedNewSessionResponseIsReusedWithinBatchWindow() {
+        // given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        HTTPClient mockClient = mock(HTTPClient.class);
+        when(mockContext.getNewSessionRequestBatchWindow()).thenReturn(1000L);
+        when(mockContext.getHTTPClient()).thenReturn(mockClient);
+        when(mockContext.getAllNewSessions())
+            .thenReturn(Collections.singletonList(mockSession5New))
+            .thenReturn(Collections.singletonList(mockSession6New));
+        when(mockClient.sendNewSessionRequest())
+            .thenReturn(new StatusResponse(mock(Logger.class), "mp=5", 200, Collections.<String, List<String>>emptyMap()));
+        when(mockSession5New.canSendNewSessionRequest()).thenReturn(true);
+        when(mockSession6New.canSendNewSessionRequest()).thenReturn(true);
+
+        // when executing twice within the batch window
+        target.execute(mockContext);
+        target.execute(mockContext);
+
+        // verify only one new session request has been made, but both sessions are configured
+        verify(mockClient, times(1)).sendNewSessionRequest();
+        verify(mockSession5New, times(1)).updateBeaconConfiguration(any(BeaconConfiguration.class));
+        verify(mockSession6New, times(1)).updateBeaconConfiguration(any(BeaconConfiguration.class));
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateSendsFinishedSessions() {
         //given
@@ -364,6 +448,32 @@ public class BeaconSendingCaptureOnStateTest {
         assertThat(argumentCaptor.getAllValues().get(0).sleepTimeInMilliseconds, is(equalTo(12345L)));
     }
 
+    @Test
+    public void openSessionsWithUrgentDataAreSentBeforeFinishedSessions() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+
+        StatusResponse statusResponse = mock(StatusResponse.class);
+        when(statusResponse.getResponseCode()).thenReturn(Response.HTTP_OK);
+        when(statusResponse.isErroneousResponse()).thenReturn(false);
+
+        when(mockSession3Finished.sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class))).thenReturn(statusResponse);
+        when(mockSession3Finished.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession4Finished.sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class))).thenReturn(statusResponse);
+        when(mockSession4Finished.isDataSendingAllowed()).thenReturn(true);
+        when(mockContext.getAllOpenAndConfiguredSessionsWithUrgentData()).thenReturn(Collections.singletonList(mockSession1Open));
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // then the urgent open session is sent first, without being removed
+        InOrder inOrder = inOrder(mockSession1Open, mockSession3Finished, mockSession4Finished);
+        inOrder.verify(mockSession1Open, times(1)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
+        inOrder.verify(mockSession3Finished, times(1)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
+        inOrder.verify(mockSession4Finished, times(1)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
+        verify(mockContext, times(0)).removeSession(mockSession1Open);
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateSendsOpenSessionsIfNotExpired() {
         //given
@@ -379,6 +489,22 @@ public class BeaconSendingCaptureOnStateTest {
         verify(mockContext, times(1)).setLastOpenSessionBeaconSendTime(org.mockito.Matchers.anyLong());
     }
 
+    @Test
+    public void aBeaconSendingCaptureOnStateFlushesAggregatedMetricsBeforeSendingOpenSessions() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+        when(mockSession1Open.isDataSendingAllowed()).thenReturn(true);
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(false);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        InOrder inOrder = inOrder(mockSession1Open);
+        inOrder.verify(mockSession1Open, times(1)).flushAggregatedMetrics();
+        inOrder.verify(mockSession1Open, times(1)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
+        verify(mockSession2Open, times(1)).flushAggregatedMetrics();
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateClearsOpenSessionDataIfSendingIsNotAllowed() {
         //given
@@ -414,6 +540,7 @@ public class BeaconSendingCaptureOnStateTest {
         //when calling execute
         target.execute(mockContext);
 
+        verify(mockSession1Open, times(1)).flushAggregatedMetrics();
         verify(mockSession1Open, times(1)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
         verify(mockSession1Open, times(1)).isDataSendingAllowed();
         verifyNoMoreInteractions(mockSession1Open);
@@ -428,6 +555,48 @@ public class BeaconSendingCaptureOnStateTest {
         assertThat(argumentCaptor.getAllValues().get(0).sleepTimeInMilliseconds, is(equalTo(12345L)));
     }
 
+    @Test
+    public void explicitFlushRequestSendsTargetedOpenSessionsBeforeSendIntervalExpired() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+        when(mockSession2Open.isDataSendingAllowed()).thenReturn(true);
+        when(mockContext.getLastOpenSessionBeaconSendTime()).thenReturn(42L);
+        when(mockContext.getSendInterval()).thenReturn(60000);
+
+        FlushRequest flushRequest = new FlushRequest();
+        flushRequest.addTarget(mockSession1Open.getSession());
+        when(mockContext.takePendingFlushRequest()).thenReturn(flushRequest);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // then only the targeted session is sent and the request is completed
+        InOrder inOrder = inOrder(mockSession1Open);
+        inOrder.verify(mockSession1Open, times(1)).flushAggregatedMetrics();
+        inOrder.verify(mockSession1Open, times(1)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
+        verify(mockSession2Open, times(0)).sendBeacon(org.mockito.Matchers.any(HTTPClientProvider.class));
+        verify(mockContext, times(0)).setLastOpenSessionBeaconSendTime(org.mockito.Matchers.anyLong());
+        assertThat(flushRequest.isCompleted(), is(true));
+    }
+
+    @Test
+    public void explicitFlushRequestIsCompletedWhenSendingIsSuspended() {
+        //given
+        BeaconSendingCaptureOnState target = new BeaconSendingCaptureOnState();
+        when(mockContext.isSendingSuspended()).thenReturn(true);
+
+        FlushRequest flushRequest = new FlushRequest();
+        flushRequest.addTarget(null);
+        when(mockContext.takePendingFlushRequest()).thenReturn(flushRequest);
+
+        //when calling execute
+        target.execute(mockContext);
+
+        // then nothing is sent, but the request is completed
+        verifyZeroInteractions(mockSession1Open, mockSession2Open);
+        assertThat(flushRequest.isCompleted(), is(true));
+    }
+
     @Test
     public void aBeaconSendingCaptureOnStateTransitionsToCaptureOffStateWhenCapturingGotDisabled() {
         //given
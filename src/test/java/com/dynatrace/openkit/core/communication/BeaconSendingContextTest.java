@@ -16,11 +16,14 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.FlushHandle;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
 import com.dynatrace.openkit.core.configuration.Configuration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.objects.SessionImpl;
+import com.dynatrace.openkit.core.util.CircuitBreaker;
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.HTTPClient;
 import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
@@ -31,17 +34,24 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -660,4 +670,347 @@ public class BeaconSendingContextTest {
 
         return result;
     }
+
+    @Test
+    public void sendingIsNotSuspendedInitially() {
+
+        // given
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+
+        // then
+        assertThat(target.isSendingSuspended(), is(false));
+    }
+
+    @Test
+    public void sendingIsSuspendedAfterConsecutiveServerErrors() {
+
+        // given
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(1000L);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        StatusResponse serverError = createStatusResponse(503);
+
+        // when
+        for (int i = 0; i < BeaconSendingContext.CIRCUIT_BREAKER_FAILURE_THRESHOLD; i++) {
+            target.recordResponse(serverError);
+        }
+
+        // then
+        assertThat(target.isSendingSuspended(), is(true));
+        assertThat(target.getCircuitBreaker().getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void sendingIsResumedAfterSuspensionElapsed() {
+
+        // given
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(1000L);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        StatusResponse serverError = createStatusResponse(500);
+        for (int i = 0; i < BeaconSendingContext.CIRCUIT_BREAKER_FAILURE_THRESHOLD; i++) {
+            target.recordResponse(serverError);
+        }
+
+        // when
+        when(timingProvider.provideTimestampInMilliseconds())
+            .thenReturn(1000L + BeaconSendingContext.CIRCUIT_BREAKER_MAX_OPEN_DURATION_MILLISECONDS);
+
+        // then
+        assertThat(target.isSendingSuspended(), is(false));
+
+        // and a successful trial request closes the breaker
+        target.recordResponse(createStatusResponse(200));
+        assertThat(target.getCircuitBreaker().getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void clientErrorsAndTooManyRequestsDoNotSuspendSending() {
+
+        // given
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+
+        // when
+        for (int i = 0; i < BeaconSendingContext.CIRCUIT_BREAKER_FAILURE_THRESHOLD; i++) {
+            target.recordResponse(createStatusResponse(400));
+            target.recordResponse(createStatusResponse(429));
+            target.recordResponse(null);
+        }
+
+        // then
+        assertThat(target.isSendingSuspended(), is(false));
+    }
+
+    @Test
+    public void finishedSessionsWithUrgentDataAreReturnedFirst() {
+
+        // given
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        SessionImpl mockSessionOne = mock(SessionImpl.class);
+        SessionImpl mockSessionTwo = mock(SessionImpl.class);
+        SessionImpl mockSessionThree = mock(SessionImpl.class);
+        when(mockSessionTwo.hasUrgentData()).thenReturn(true);
+
+        target.startSession(mockSessionOne);
+        target.startSession(mockSessionTwo);
+        target.startSession(mockSessionThree);
+        target.finishSession(mockSessionOne);
+        target.finishSession(mockSessionTwo);
+        target.finishSession(mockSessionThree);
+        for (SessionWrapper wrapper : target.getAllNewSessions()) {
+            wrapper.updateBeaconConfiguration(mock(BeaconConfiguration.class));
+        }
+
+        // when
+        List<SessionImpl> obtained = getAllFinishedAndConfiguredSessions(target);
+
+        // then
+        assertThat(obtained, contains(mockSessionTwo, mockSessionOne, mockSessionThree));
+    }
+
+    @Test
+    public void openSessionsWithUrgentDataAreReturned() {
+
+        // given
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        SessionImpl mockSessionOne = mock(SessionImpl.class);
+        SessionImpl mockSessionTwo = mock(SessionImpl.class);
+        SessionImpl mockSessionThree = mock(SessionImpl.class);
+        when(mockSessionTwo.hasUrgentData()).thenReturn(true);
+        when(mockSessionThree.hasUrgentData()).thenReturn(true);
+
+        target.startSession(mockSessionOne);
+        target.startSession(mockSessionTwo);
+        target.startSession(mockSessionThree);
+        target.finishSession(mockSessionThree);
+        for (SessionWrapper wrapper : target.getAllNewSessions()) {
+            wrapper.updateBeaconConfiguration(mock(BeaconConfiguration.class));
+        }
+
+        // when
+        List<SessionImpl> obtained = extractSessionImpl(target.getAllOpenAndConfiguredSessionsWithUrgentData());
+
+        // then only the open session holding errors or crashes is returned
+        assertThat(obtained, contains(mockSessionTwo));
+    }
+
+    @Test
+    public void concurrentFlushRequestsAreCoalescedUntilTaken() {
+
+        // given
+        when(configuration.isCapture()).thenReturn(true);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        SessionImpl mockSessionOne = mock(SessionImpl.class);
+        SessionImpl mockSessionTwo = mock(SessionImpl.class);
+        SessionImpl mockSessionThree = mock(SessionImpl.class);
+
+        // when
+        FlushHandle first = target.requestFlush(mockSessionOne);
+        FlushHandle second = target.requestFlush(mockSessionTwo);
+        FlushRequest obtained = target.takePendingFlushRequest();
+        FlushHandle third = target.requestFlush(null);
+
+        // then
+        assertThat(second, is(sameInstance(first)));
+        assertThat(obtained, is(sameInstance(first)));
+        assertThat(obtained.isTarget(mockSessionOne), is(true));
+        assertThat(obtained.isTarget(mockSessionTwo), is(true));
+        assertThat(obtained.isTarget(mockSessionThree), is(false));
+        assertThat(obtained.isCompleted(), is(false));
+        assertThat(third, is(not(sameInstance(first))));
+        assertThat(target.takePendingFlushRequest().isTarget(mockSessionThree), is(true));
+        assertThat(target.takePendingFlushRequest(), is(nullValue()));
+    }
+
+    @Test
+    public void pendingFlushRequestIsCompletedWhenCapturingIsDisabled() {
+
+        // given
+        when(configuration.isCapture()).thenReturn(true);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        FlushHandle flushHandle = target.requestFlush(null);
+
+        // when
+        target.disableCapture();
+
+        // then
+        assertThat(flushHandle.isCompleted(), is(true));
+        assertThat(target.takePendingFlushRequest(), is(nullValue()));
+    }
+
+    @Test
+    public void flushRequestedWhileCapturingIsOffIsCompletedImmediately() {
+
+        // given
+        when(configuration.isCapture()).thenReturn(false);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+
+        // when
+        FlushHandle obtained = target.requestFlush(null);
+
+        // then
+        assertThat(obtained.isCompleted(), is(true));
+        assertThat(obtained.waitForCompletion(0), is(true));
+        assertThat(target.takePendingFlushRequest(), is(nullValue()));
+    }
+
+    @Test
+    public void flushRequestedAfterShutdownIsCompletedImmediately() {
+
+        // given
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider);
+        target.requestShutdown();
+
+        // when
+        FlushHandle obtained = target.requestFlush(null);
+
+        // then
+        assertThat(obtained.isCompleted(), is(true));
+        assertThat(obtained.waitForCompletion(0), is(true));
+        assertThat(target.takePendingFlushRequest(), is(nullValue()));
+    }
+
+    @Test
+    public void cooperativeExecutionDefersSleepBeforeAnyRequest() throws InterruptedException {
+
+        // given
+        SleepingState state = new SleepingState(false, false);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+
+        // when
+        long firstDelay = target.executeCurrentStateCooperatively();
+        int numCompletedAfterFirstExecution = state.numCompletedExecutions;
+        long secondDelay = target.executeCurrentStateCooperatively();
+
+        // then the state is aborted at the sleep first, and continues without sleeping when executed again
+        assertThat(firstDelay, is(equalTo(500L)));
+        assertThat(numCompletedAfterFirstExecution, is(equalTo(0)));
+        assertThat(secondDelay, is(equalTo(0L)));
+        assertThat(state.numCompletedExecutions, is(equalTo(1)));
+        verify(timingProvider, times(0)).sleep(anyLong());
+    }
+
+    @Test
+    public void cooperativeExecutionSleepsAfterRequestHasBeenSent() throws InterruptedException {
+
+        // given
+        SleepingState state = new SleepingState(true, false);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+
+        // when
+        long obtained = target.executeCurrentStateCooperatively();
+
+        // then
+        assertThat(obtained, is(equalTo(0L)));
+        assertThat(state.numCompletedExecutions, is(equalTo(1)));
+        verify(timingProvider, times(1)).sleep(500L);
+    }
+
+    @Test
+    public void cooperativeExecutionTreatsSleepAfterShutdownRequestAsInterrupt() throws InterruptedException {
+
+        // given
+        SleepingState state = new SleepingState(false, false);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+        target.requestShutdown();
+
+        // when
+        long obtained = target.executeCurrentStateCooperatively();
+
+        // then
+        assertThat(Thread.interrupted(), is(true));
+        assertThat(obtained, is(equalTo(0L)));
+        assertThat(state.numCompletedExecutions, is(equalTo(0)));
+        assertThat(target.getCurrentState(), is(instanceOf(BeaconSendingTerminalState.class)));
+        verify(timingProvider, times(0)).sleep(anyLong());
+    }
+
+    @Test
+    public void cooperativeExecutionDefersResumableSleepAfterRequestHasBeenSent() throws InterruptedException {
+
+        // given
+        SleepingState state = new SleepingState(true, true);
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+
+        // when
+        long firstDelay = target.executeCurrentStateCooperatively();
+        long secondDelay = target.executeCurrentStateCooperatively();
+
+        // then the state is aborted at the sleep each time, since it resumes with the next request
+        assertThat(firstDelay, is(equalTo(500L)));
+        assertThat(secondDelay, is(equalTo(500L)));
+        assertThat(state.numCompletedExecutions, is(equalTo(0)));
+        verify(timingProvider, never()).sleep(anyLong());
+    }
+
+    @Test
+    public void cooperativeExecutionOfInitStateDefersStatusRequestRetriesAndReinitializeDelay() throws InterruptedException {
+
+        // given
+        HTTPClient httpClient = mock(HTTPClient.class);
+        when(httpClient.sendStatusRequest()).thenReturn(createStatusResponse(404));
+        when(httpClientProvider.createClient(any(HTTPClientConfiguration.class))).thenReturn(httpClient);
+        BeaconSendingInitState state = new BeaconSendingInitState(
+            new RetryPolicy(1000L, 16000L, new FixedRandom(0.0)),
+            new RetryPolicy(60000L, 7200000L, new FixedRandom(0.0)));
+        BeaconSendingContext target = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+
+        // when
+        List<Long> obtained = new ArrayList<Long>();
+        for (int i = 0; i < BeaconSendingInitState.MAX_INITIAL_STATUS_REQUEST_RETRIES + 2; i++) {
+            obtained.add(target.executeCurrentStateCooperatively());
+        }
+
+        // then each execution sends one status request and defers the following sleep
+        assertThat(obtained, contains(1000L, 1000L, 1000L, 1000L, 1000L, 60000L, 1000L));
+        assertThat(target.getCurrentState(), is(sameInstance((AbstractBeaconSendingState) state)));
+        verify(httpClient, times(BeaconSendingInitState.MAX_INITIAL_STATUS_REQUEST_RETRIES + 2)).sendStatusRequest();
+        verify(timingProvider, never()).sleep(anyLong());
+    }
+
+    private static final class SleepingState extends AbstractBeaconSendingState {
+
+        private final boolean sendRequestBeforeSleeping;
+        private final boolean resumable;
+        private int numCompletedExecutions = 0;
+
+        private SleepingState(boolean sendRequestBeforeSleeping, boolean resumable) {
+            super(false);
+            this.sendRequestBeforeSleeping = sendRequestBeforeSleeping;
+            this.resumable = resumable;
+        }
+
+        @Override
+        void doExecute(BeaconSendingContext context) throws InterruptedException {
+            if (sendRequestBeforeSleeping) {
+                context.getHTTPClient();
+            }
+            if (resumable) {
+                context.markResumableAfterNextSleep();
+            }
+            context.sleep(500L);
+            numCompletedExecutions++;
+        }
+
+        @Override
+        AbstractBeaconSendingState getShutdownState() {
+            return new BeaconSendingTerminalState();
+        }
+    }
+
+    private StatusResponse createStatusResponse(int responseCode) {
+        return new StatusResponse(logger, "", responseCode, Collections.<String, List<String>>emptyMap());
+    }
+
+    private static final class FixedRandom extends Random {
+
+        private final double value;
+
+        private FixedRandom(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.communication;
+
+import com.dynatrace.openkit.api.FlushHandle;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BeaconSendingExecutorTest {
+
+    private Logger logger;
+    private Configuration configuration;
+    private HTTPClientProvider httpClientProvider;
+    private TimingProvider timingProvider;
+    private BeaconSendingExecutor target;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        configuration = mock(Configuration.class);
+        httpClientProvider = mock(HTTPClientProvider.class);
+        timingProvider = mock(TimingProvider.class);
+        target = new BeaconSendingExecutor(logger, 1);
+    }
+
+    @After
+    public void tearDown() {
+        target.shutdown();
+    }
+
+    @Test
+    public void contextIsExecutedUntilTerminalState() throws InterruptedException {
+
+        // given
+        when(configuration.isCapture()).thenReturn(true);
+        CountingState state = new CountingState(3, 10L);
+        BeaconSendingContext context = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+        FlushHandle flushHandle = context.requestFlush(null);
+
+        // when
+        BeaconSendingExecutor.Task obtained = target.execute(context);
+
+        // then
+        assertThat(obtained.awaitTermination(TimeUnit.SECONDS.toMillis(5)), is(true));
+        assertThat(state.numCompletedExecutions.get(), is(equalTo(3)));
+        assertThat(context.isInTerminalState(), is(true));
+        assertThat(flushHandle.isCompleted(), is(true));
+    }
+
+    @Test
+    public void wakeUpExecutesWaitingContextRightAway() throws InterruptedException {
+
+        // given
+        CountingState state = new CountingState(Integer.MAX_VALUE, TimeUnit.HOURS.toMillis(1));
+        BeaconSendingContext context = new BeaconSendingContext(logger, configuration, httpClientProvider, timingProvider, state);
+        BeaconSendingExecutor.Task task = target.execute(context);
+
+        // when
+        context.requestShutdown();
+        task.wakeUp();
+
+        // then
+        assertThat(task.awaitTermination(TimeUnit.SECONDS.toMillis(5)), is(true));
+        assertThat(state.numCompletedExecutions.get(), is(equalTo(0)));
+    }
+
+    /**
+     * State waiting the given time before each execution, which transitions to the terminal state after the given number of executions.
+     */
+    private static final class CountingState extends AbstractBeaconSendingState {
+
+        private final int numExecutions;
+        private final long sleepTimeInMilliseconds;
+        private final AtomicInteger numCompletedExecutions = new AtomicInteger(0);
+
+        private CountingState(int numExecutions, long sleepTimeInMilliseconds) {
+            super(false);
+            this.numExecutions = numExecutions;
+            this.sleepTimeInMilliseconds = sleepTimeInMilliseconds;
+        }
+
+        @Override
+        void doExecute(BeaconSendingContext context) throws InterruptedException {
+            context.sleep(sleepTimeInMilliseconds);
+            if (numCompletedExecutions.incrementAndGet() >= numExecutions) {
+                context.setNextState(new BeaconSendingTerminalState());
+            }
+        }
+
+        @Override
+        AbstractBeaconSendingState getShutdownState() {
+            return new BeaconSendingTerminalState();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
 import com.dynatrace.openkit.core.objects.SessionImpl;
 import com.dynatrace.openkit.protocol.HTTPClient;
 import com.dynatrace.openkit.protocol.Response;
@@ -23,15 +24,22 @@ import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.providers.HTTPClientProvider;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -125,8 +133,8 @@ public class BeaconSendingFlushSessionsStateTest {
         target.doExecute(mockContext);
 
         // verify that open sessions are closed
-        verify(mockSession1Open, times(1)).end();
-        verify(mockSession2Open, times(1)).end();
+        verify(mockSession1Open, times(1)).end(anyLong());
+        verify(mockSession2Open, times(1)).end(anyLong());
     }
 
     @Test
@@ -188,4 +196,172 @@ public class BeaconSendingFlushSessionsStateTest {
         verify(mockSession2Open, times(1)).clearCapturedData();
         verify(mockSession3Closed, times(1)).clearCapturedData();
     }
+
+    @Test
+    public void unsentDataIsHandedToPersistenceHookIfTooManyRequestsResponseWasReceived() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        when(mockContext.getBeaconPersistenceHook()).thenReturn(persistenceHook);
+
+        StatusResponse tooManyRequestsReceived = mock(StatusResponse.class);
+        when(tooManyRequestsReceived.isErroneousResponse()).thenReturn(true);
+        when(tooManyRequestsReceived.getResponseCode()).thenReturn(Response.HTTP_TOO_MANY_REQUESTS);
+
+        when(mockSession3Closed.sendBeacon(any(HTTPClientProvider.class))).thenReturn(tooManyRequestsReceived);
+
+        // when
+        target.doExecute(mockContext);
+
+        // verify that the remaining data of all sessions is persisted before it's cleared
+        verify(mockSession1Open, times(1)).persistUnsentData(persistenceHook);
+        verify(mockSession2Open, times(1)).persistUnsentData(persistenceHook);
+        verify(mockSession3Closed, times(1)).persistUnsentData(persistenceHook);
+        verify(mockSession1Open, times(1)).clearCapturedData();
+        verify(mockSession2Open, times(1)).clearCapturedData();
+        verify(mockSession3Closed, times(1)).clearCapturedData();
+    }
+
+    @Test
+    public void dataIsNotPersistedIfSendingIsNotAllowed() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        when(mockContext.getBeaconPersistenceHook()).thenReturn(persistenceHook);
+        when(mockSession3Closed.isDataSendingAllowed()).thenReturn(false);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then
+        verify(mockSession3Closed, times(0)).persistUnsentData(any(BeaconPersistenceHook.class));
+        verify(mockSession3Closed, times(1)).clearCapturedData();
+    }
+
+    @Test
+    public void sessionsAreSentInParallelUntilDeadline() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockContext.getShutdownDeadline()).thenReturn(Long.MAX_VALUE);
+        when(mockContext.getFlushParallelism()).thenReturn(2);
+        when(mockSession1Open.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenReturn(mock(StatusResponse.class));
+        when(mockSession2Open.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenReturn(mock(StatusResponse.class));
+        when(mockSession3Closed.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenReturn(mock(StatusResponse.class));
+
+        // when
+        target.doExecute(mockContext);
+
+        // verify that all beacons are sent with the deadline and removed
+        verify(mockSession1Open, times(1)).sendBeacon(any(HTTPClientProvider.class), eq(Long.MAX_VALUE));
+        verify(mockSession2Open, times(1)).sendBeacon(any(HTTPClientProvider.class), eq(Long.MAX_VALUE));
+        verify(mockSession3Closed, times(1)).sendBeacon(any(HTTPClientProvider.class), eq(Long.MAX_VALUE));
+        verify(mockContext, times(1)).removeSession(mockSession1Open);
+        verify(mockContext, times(1)).removeSession(mockSession2Open);
+        verify(mockContext, times(1)).removeSession(mockSession3Closed);
+        verify(mockContext, times(1)).setNextState(org.mockito.Matchers.any(BeaconSendingTerminalState.class));
+    }
+
+    @Test
+    public void sessionsAreNotSentButPersistedAfterDeadline() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        when(mockContext.getBeaconPersistenceHook()).thenReturn(persistenceHook);
+        when(mockContext.getShutdownDeadline()).thenReturn(1000L);
+        when(mockContext.getCurrentTimestamp()).thenReturn(1000L);
+        when(mockContext.getFlushParallelism()).thenReturn(2);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then sessions taken by a flush thread before the deadline check might still be persisted by that thread
+        verify(mockSession1Open, timeout(5000).times(1)).persistUnsentData(persistenceHook);
+        verify(mockSession2Open, timeout(5000).times(1)).persistUnsentData(persistenceHook);
+        verify(mockSession3Closed, timeout(5000).times(1)).persistUnsentData(persistenceHook);
+        verify(mockSession1Open, times(0)).sendBeacon(any(HTTPClientProvider.class), anyLong());
+        verify(mockSession2Open, times(0)).sendBeacon(any(HTTPClientProvider.class), anyLong());
+        verify(mockSession3Closed, times(0)).sendBeacon(any(HTTPClientProvider.class), anyLong());
+    }
+
+    @Test
+    public void sessionsAreSentByMultipleThreadsConcurrently() {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        when(mockContext.getShutdownDeadline()).thenReturn(Long.MAX_VALUE);
+        when(mockContext.getFlushParallelism()).thenReturn(2);
+        final CountDownLatch bothSending = new CountDownLatch(2);
+        final StatusResponse sentConcurrently = mock(StatusResponse.class);
+        Answer<StatusResponse> awaitOtherSession = new Answer<StatusResponse>() {
+            @Override
+            public StatusResponse answer(InvocationOnMock invocation) throws Throwable {
+                bothSending.countDown();
+                return bothSending.await(5, TimeUnit.SECONDS) ? sentConcurrently : null;
+            }
+        };
+        when(mockSession3Closed.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenAnswer(awaitOtherSession);
+        when(mockSession2Open.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenAnswer(awaitOtherSession);
+        when(mockSession1Open.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenReturn(sentConcurrently);
+
+        // when
+        target.doExecute(mockContext);
+
+        // then the first two sessions have been sent at the same time
+        verify(mockContext, times(3)).recordResponse(sentConcurrently);
+        verify(mockContext, times(1)).removeSession(mockSession1Open);
+        verify(mockContext, times(1)).removeSession(mockSession2Open);
+        verify(mockContext, times(1)).removeSession(mockSession3Closed);
+    }
+
+    @Test
+    public void sessionInFlightAtDeadlineIsPersistedByItsFlushThread() throws InterruptedException {
+
+        // given
+        BeaconSendingFlushSessionsState target = new BeaconSendingFlushSessionsState();
+        final BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        when(mockContext.getBeaconPersistenceHook()).thenReturn(persistenceHook);
+        when(mockContext.getShutdownDeadline()).thenReturn(1000L);
+        when(mockContext.getFlushParallelism()).thenReturn(2);
+        final CountDownLatch sendStarted = new CountDownLatch(1);
+        final CountDownLatch sendReleased = new CountDownLatch(1);
+        final Thread stateThread = Thread.currentThread();
+        when(mockContext.getCurrentTimestamp()).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                if (Thread.currentThread() != stateThread) {
+                    return 0L;
+                }
+                // the deadline expires while the first session is being sent
+                sendStarted.await(5, TimeUnit.SECONDS);
+                return 1000L;
+            }
+        });
+        when(mockSession3Closed.sendBeacon(any(HTTPClientProvider.class), anyLong())).thenAnswer(new Answer<StatusResponse>() {
+            @Override
+            public StatusResponse answer(InvocationOnMock invocation) throws Throwable {
+                sendStarted.countDown();
+                sendReleased.await(5, TimeUnit.SECONDS);
+                return mock(StatusResponse.class);
+            }
+        });
+
+        // when
+        target.doExecute(mockContext);
+
+        // then the state is left without waiting for the request in flight
+        verify(mockContext, times(1)).setNextState(org.mockito.Matchers.any(BeaconSendingTerminalState.class));
+        verify(mockSession3Closed, times(1)).sendBeacon(any(HTTPClientProvider.class), eq(1000L));
+        verify(mockSession3Closed, times(0)).persistUnsentData(persistenceHook);
+
+        // and when the request is finished
+        sendReleased.countDown();
+
+        // then its flush thread persists the remaining data
+        verify(mockSession3Closed, timeout(5000).times(1)).persistUnsentData(persistenceHook);
+        verify(mockContext, timeout(5000).times(1)).removeSession(mockSession3Closed);
+    }
 }
@@ -16,18 +16,25 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.HTTPClient;
 import com.dynatrace.openkit.protocol.Response;
 import com.dynatrace.openkit.protocol.StatusResponse;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.sameInstance;
@@ -42,6 +49,9 @@ import static org.mockito.Mockito.when;
 
 public class BeaconSendingInitStateTest {
 
+    private static final long STATUS_REQUEST_BASE_DELAY = 1000L;
+    private static final long STATUS_REQUEST_MAX_DELAY = 16000L;
+
     private HTTPClient httpClient;
     private BeaconSendingContext stateContext;
     private StatusResponse statusResponse;
@@ -198,7 +208,7 @@ public class BeaconSendingInitStateTest {
 
         InOrder inOrder = inOrder(stateContext);
 
-        BeaconSendingInitState target = new BeaconSendingInitState();
+        BeaconSendingInitState target = createTargetWithUpperBoundDelays();
 
         // when executing the state multiple times (7 times)
         target.execute(stateContext);
@@ -206,64 +216,25 @@ public class BeaconSendingInitStateTest {
         // then
         // verify sleeps
         verify(stateContext, times(41)).sleep(anyLong());
-        // from first round
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
-        // delay between first and second attempt
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.REINIT_DELAY_MILLISECONDS[0]);
-        // and again the sequence
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
-        // delay between second and third attempt
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.REINIT_DELAY_MILLISECONDS[1]);
-        // and again the sequence
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
-        // delay between third and fourth attempt
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.REINIT_DELAY_MILLISECONDS[2]);
+        long[] expectedReinitDelays = {
+            TimeUnit.MINUTES.toMillis(3),
+            TimeUnit.MINUTES.toMillis(9),
+            TimeUnit.MINUTES.toMillis(27),
+            TimeUnit.MINUTES.toMillis(81),
+            BeaconSendingInitState.REINIT_MAX_DELAY_MILLISECONDS,
+            BeaconSendingInitState.REINIT_MAX_DELAY_MILLISECONDS
+        };
+        for (long expectedReinitDelay : expectedReinitDelays) {
+            verifyStatusRequestRetrySleeps(inOrder, 5);
+            // delay between two attempts
+            inOrder.verify(stateContext).sleep(expectedReinitDelay);
+        }
         // and again the sequence
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
-        // delay between fourth and fifth attempt
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.REINIT_DELAY_MILLISECONDS[3]);
-        // and again the sequence
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
-        // delay between fifth and sixth attempt
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.REINIT_DELAY_MILLISECONDS[4]);
-        // and again the sequence
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
-        // delay between sixth and seventh attempt
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.REINIT_DELAY_MILLISECONDS[4]);
-        // and again the sequence
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
+        verifyStatusRequestRetrySleeps(inOrder, 5);
     }
 
     @Test
-    public void sleepTimeIsDoubledBetweenStatusRequestRetries() throws InterruptedException {
+    public void sleepTimeIsIncreasedBetweenStatusRequestRetries() throws InterruptedException {
 
         // given
         StatusResponse erroneousResponse = mock(StatusResponse.class);
@@ -274,18 +245,39 @@ public class BeaconSendingInitStateTest {
         when(stateContext.isShutdownRequested()).thenReturn(false, false, false, false, false, true);
         InOrder inOrder = inOrder(stateContext);
 
-        BeaconSendingInitState target = new BeaconSendingInitState();
+        BeaconSendingInitState target = createTargetWithUpperBoundDelays();
 
         // when executing the state
         target.execute(stateContext);
 
         // then
         verify(stateContext, times(5)).sleep(anyLong()); // verify it's five, since we have 5 further checks
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 2);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 4);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 8);
-        inOrder.verify(stateContext).sleep(BeaconSendingInitState.INITIAL_RETRY_SLEEP_TIME_MILLISECONDS * 16);
+        verifyStatusRequestRetrySleeps(inOrder, 5);
+    }
+
+    @Test
+    public void sleepTimesBetweenStatusRequestRetriesAreWithinPolicyBounds() throws InterruptedException {
+
+        // given
+        StatusResponse erroneousResponse = mock(StatusResponse.class);
+        when(erroneousResponse.getResponseCode()).thenReturn(Response.HTTP_BAD_REQUEST);
+        when(erroneousResponse.isErroneousResponse()).thenReturn(true);
+
+        when(httpClient.sendStatusRequest()).thenReturn(erroneousResponse);
+        when(stateContext.isShutdownRequested()).thenReturn(false, false, false, false, false, true);
+
+        BeaconSendingInitState target = new BeaconSendingInitState();
+
+        // when executing the state
+        target.execute(stateContext);
+
+        // then
+        ArgumentCaptor<Long> sleepCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(stateContext, times(5)).sleep(sleepCaptor.capture());
+        for (Long sleepTime : sleepCaptor.getAllValues()) {
+            assertThat(sleepTime, is(greaterThanOrEqualTo(BeaconSendingRequestUtil.STATUS_REQUEST_RETRY_POLICY.getBaseDelay())));
+            assertThat(sleepTime, is(lessThanOrEqualTo(BeaconSendingRequestUtil.STATUS_REQUEST_RETRY_POLICY.getMaxDelay())));
+        }
     }
 
     @Test
@@ -415,4 +407,29 @@ public class BeaconSendingInitStateTest {
         // verify sleep was performed accordingly
         verify(stateContext, times(1)).disableCapture();
     }
+
+    /**
+     * Create the state with policies always choosing the upper bound, which is three times the previous delay.
+     */
+    private static BeaconSendingInitState createTargetWithUpperBoundDelays() {
+        return new BeaconSendingInitState(
+            new RetryPolicy(STATUS_REQUEST_BASE_DELAY, STATUS_REQUEST_MAX_DELAY, new UpperBoundRandom()),
+            new RetryPolicy(BeaconSendingInitState.REINIT_BASE_DELAY_MILLISECONDS,
+                BeaconSendingInitState.REINIT_MAX_DELAY_MILLISECONDS, new UpperBoundRandom()));
+    }
+
+    private void verifyStatusRequestRetrySleeps(InOrder inOrder, int numRetries) throws InterruptedException {
+        long[] expectedDelays = {3000L, 9000L, STATUS_REQUEST_MAX_DELAY, STATUS_REQUEST_MAX_DELAY, STATUS_REQUEST_MAX_DELAY};
+        for (int i = 0; i < numRetries; i++) {
+            inOrder.verify(stateContext).sleep(expectedDelays[i]);
+        }
+    }
+
+    private static final class UpperBoundRandom extends Random {
+
+        @Override
+        public double nextDouble() {
+            return 1.0;
+        }
+    }
 }
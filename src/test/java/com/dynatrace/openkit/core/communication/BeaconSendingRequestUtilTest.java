@@ -16,6 +16,7 @@
 
 package com.dynatrace.openkit.core.communication;
 
+import com.dynatrace.openkit.core.util.RetryPolicy;
 import com.dynatrace.openkit.protocol.HTTPClient;
 import com.dynatrace.openkit.protocol.Response;
 import com.dynatrace.openkit.protocol.StatusResponse;
@@ -23,6 +24,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import java.util.Random;
+
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -41,12 +44,15 @@ public class BeaconSendingRequestUtilTest {
     private BeaconSendingContext context;
     private HTTPClient httpClient;
     private StatusResponse response;
+    private RetryPolicy retryPolicy;
 
     @Before
     public void setUp() {
         context = mock(BeaconSendingContext.class);
         httpClient = mock(HTTPClient.class);
         response = mock(StatusResponse.class);
+        // always choose the upper bound, which is three times the previous delay
+        retryPolicy = new RetryPolicy(1000L, 16000L, new FixedRandom(1.0));
         when(response.getResponseCode()).thenReturn(Response.HTTP_OK);
         when(response.isErroneousResponse()).thenReturn(false);
 
@@ -63,7 +69,7 @@ public class BeaconSendingRequestUtilTest {
         when(context.isShutdownRequested()).thenReturn(true);
 
         // when
-        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 5, 1000L);
+        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 5, retryPolicy);
 
         // then
         assertThat(obtained, is(sameInstance(response)));
@@ -85,7 +91,7 @@ public class BeaconSendingRequestUtilTest {
         when(context.isShutdownRequested()).thenReturn(false);
 
         // when
-        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 3, 1000L);
+        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 3, retryPolicy);
 
         // then
         assertThat(obtained, is(sameInstance(response)));
@@ -104,7 +110,7 @@ public class BeaconSendingRequestUtilTest {
         when(context.isShutdownRequested()).thenReturn(false);
 
         // when
-        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 5, 1000L);
+        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 5, retryPolicy);
 
         // then
         assertThat(obtained, is(notNullValue()));
@@ -118,7 +124,7 @@ public class BeaconSendingRequestUtilTest {
     }
 
     @Test
-    public void sleepTimeIsDoubledBetweenConsecutiveRetries() throws InterruptedException {
+    public void sleepTimeIsIncreasedBetweenConsecutiveRetries() throws InterruptedException {
 
         // given
         when(response.getResponseCode()).thenReturn(Response.HTTP_BAD_REQUEST);
@@ -128,20 +134,37 @@ public class BeaconSendingRequestUtilTest {
         InOrder inOrder = inOrder(context);
 
         // when
-        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 5, 1000L);
+        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 5, retryPolicy);
 
         // then
         assertThat(obtained, is(sameInstance(response)));
         verify(context, times(6)).getHTTPClient();
         verify(httpClient, times(6)).sendStatusRequest();
 
-        inOrder.verify(context).sleep(1000L);
-        inOrder.verify(context).sleep(2000L);
-        inOrder.verify(context).sleep(4000L);
-        inOrder.verify(context).sleep(8000L);
+        inOrder.verify(context).sleep(3000L);
+        inOrder.verify(context).sleep(9000L);
+        inOrder.verify(context).sleep(16000L);
+        inOrder.verify(context).sleep(16000L);
         inOrder.verify(context).sleep(16000L);
     }
 
+    @Test
+    public void sleepTimeIsBaseDelayWithoutJitter() throws InterruptedException {
+
+        // given
+        when(response.getResponseCode()).thenReturn(Response.HTTP_BAD_REQUEST);
+        when(response.isErroneousResponse()).thenReturn(true);
+        when(context.isShutdownRequested()).thenReturn(false);
+        when(httpClient.sendStatusRequest()).thenReturn(response);
+        RetryPolicy noJitterPolicy = new RetryPolicy(1000L, 16000L, new FixedRandom(0.0));
+
+        // when
+        BeaconSendingRequestUtil.sendStatusRequest(context, 3, noJitterPolicy);
+
+        // then
+        verify(context, times(3)).sleep(1000L);
+    }
+
     @Test
     public void sendStatusRequestHandlesNullResponsesSameAsErroneousResponses() throws InterruptedException {
 
@@ -150,7 +173,7 @@ public class BeaconSendingRequestUtilTest {
         when(httpClient.sendStatusRequest()).thenReturn(null);
 
         // when
-        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 3, 1000L);
+        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 3, retryPolicy);
 
         // then
         assertThat(obtained, is(nullValue()));
@@ -171,7 +194,7 @@ public class BeaconSendingRequestUtilTest {
         when(context.isShutdownRequested()).thenReturn(false);
 
         // when
-        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 3, 1000L);
+        StatusResponse obtained = BeaconSendingRequestUtil.sendStatusRequest(context, 3, retryPolicy);
 
         // then
         assertThat(obtained, is(sameInstance(response)));
@@ -183,4 +206,18 @@ public class BeaconSendingRequestUtilTest {
         verifyNoMoreInteractions(httpClient);
     }
 
+
+    private static final class FixedRandom extends Random {
+
+        private final double value;
+
+        private FixedRandom(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
 }
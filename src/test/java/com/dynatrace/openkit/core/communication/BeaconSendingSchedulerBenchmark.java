@@ -0,0 +1,162 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulation comparing the time to delivery of finished sessions, when sending them in the order they have been
+ * finished and when sending them in the order defined by {@link BeaconSendingScheduler}.
+ *
+ * <p>
+ *     In each round a random number of sessions is finished, some of them holding errors or crashes, and only
+ *     a limited number of sessions can be sent, simulating an overloaded server.
+ *     The time to delivery is measured in rounds and reported per priority class.
+ * </p>
+ *
+ * <p>
+ *     This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ *     Optional arguments are the number of rounds (default 10000) and the number of sessions sent per round (default 4).
+ * </p>
+ */
+public class BeaconSendingSchedulerBenchmark {
+
+    private static final int DEFAULT_NUM_ROUNDS = 10000;
+    private static final int DEFAULT_NUM_SENT_PER_ROUND = 4;
+    private static final int MAX_FINISHED_PER_ROUND = 7;
+    private static final int URGENT_PERCENT = 10;
+    private static final long ROUND_DURATION = 1000L;
+    private static final long MAX_RECORD_AGE = 20 * ROUND_DURATION;
+
+    public static void main(String[] args) {
+        int numRounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_ROUNDS;
+        int numSentPerRound = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_SENT_PER_ROUND;
+
+        System.out.println("rounds: " + numRounds + ", sessions sent per round: " + numSentPerRound);
+        printResult("fifo", simulate(numRounds, numSentPerRound, false));
+        printResult("scheduled", simulate(numRounds, numSentPerRound, true));
+    }
+
+    private static Result simulate(int numRounds, int numSentPerRound, boolean scheduled) {
+        // same random sequence for both simulations
+        Random random = new Random(42);
+        Result result = new Result();
+        List<SimulatedSession> pending = new ArrayList<SimulatedSession>();
+
+        for (int round = 0; round < numRounds; round++) {
+            long timestamp = round * ROUND_DURATION;
+
+            int numFinished = random.nextInt(MAX_FINISHED_PER_ROUND + 1);
+            for (int i = 0; i < numFinished; i++) {
+                pending.add(new SimulatedSession(round, timestamp, random.nextInt(100) < URGENT_PERCENT));
+            }
+
+            List<SimulatedSession> sendOrder = scheduled
+                ? BeaconSendingScheduler.schedule(pending, timestamp, MAX_RECORD_AGE)
+                : new ArrayList<SimulatedSession>(pending);
+
+            int numSent = Math.min(numSentPerRound, sendOrder.size());
+            for (int i = 0; i < numSent; i++) {
+                SimulatedSession session = sendOrder.get(i);
+                pending.remove(session);
+                result.delivered(session, round, timestamp - session.oldestUnsentDataTimestamp > MAX_RECORD_AGE);
+            }
+        }
+
+        result.numUndelivered = pending.size();
+        return result;
+    }
+
+    private static void printResult(String name, Result result) {
+        System.out.println(name + ":");
+        System.out.println("  urgent:  avg. " + result.urgent.getAverage() + " rounds, max. " + result.urgent.max
+            + " rounds (" + result.urgent.count + " sessions)");
+        System.out.println("  routine: avg. " + result.routine.getAverage() + " rounds, max. " + result.routine.max
+            + " rounds (" + result.routine.count + " sessions)");
+        System.out.println("  sessions exceeding max. record age: " + result.numExpired
+            + ", undelivered: " + result.numUndelivered);
+    }
+
+    private static final class Result {
+
+        private final Statistics urgent = new Statistics();
+        private final Statistics routine = new Statistics();
+        private int numExpired = 0;
+        private int numUndelivered = 0;
+
+        private void delivered(SimulatedSession session, int round, boolean expired) {
+            Statistics statistics = session.urgentData ? urgent : routine;
+            statistics.add(round - session.finishedRound);
+            if (expired) {
+                numExpired++;
+            }
+        }
+    }
+
+    private static final class Statistics {
+
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        private void add(long value) {
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        private double getAverage() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+    }
+
+    private static final class SimulatedSession implements BeaconSendingScheduler.Candidate {
+
+        private final int finishedRound;
+        private final long oldestUnsentDataTimestamp;
+        private final boolean urgentData;
+        private int numScheduledRounds = 0;
+
+        private SimulatedSession(int finishedRound, long oldestUnsentDataTimestamp, boolean urgentData) {
+            this.finishedRound = finishedRound;
+            this.oldestUnsentDataTimestamp = oldestUnsentDataTimestamp;
+            this.urgentData = urgentData;
+        }
+
+        @Override
+        public boolean hasUrgentData() {
+            return urgentData;
+        }
+
+        @Override
+        public long getOldestUnsentDataTimestamp() {
+            return oldestUnsentDataTimestamp;
+        }
+
+        @Override
+        public int getNumScheduledRounds() {
+            return numScheduledRounds;
+        }
+
+        @Override
+        public void incrementNumScheduledRounds() {
+            numScheduledRounds++;
+        }
+    }
+}
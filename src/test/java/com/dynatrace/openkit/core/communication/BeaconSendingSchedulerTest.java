@@ -0,0 +1,201 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.communication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BeaconSendingSchedulerTest {
+
+    private static final long MAX_RECORD_AGE = 100000L;
+
+    @Test
+    public void candidateWithoutUrgentOrAgingDataIsRoutine() {
+
+        // given
+        TestCandidate candidate = new TestCandidate("a", false, 90000L);
+
+        // when
+        SendPriority obtained = BeaconSendingScheduler.getSendPriority(candidate, 100000L, MAX_RECORD_AGE);
+
+        // then
+        assertThat(obtained, is(SendPriority.ROUTINE));
+    }
+
+    @Test
+    public void candidateWithUrgentDataIsUrgent() {
+
+        // given
+        TestCandidate candidate = new TestCandidate("a", true, 90000L);
+
+        // when
+        SendPriority obtained = BeaconSendingScheduler.getSendPriority(candidate, 100000L, MAX_RECORD_AGE);
+
+        // then
+        assertThat(obtained, is(SendPriority.URGENT));
+    }
+
+    @Test
+    public void candidateWithDataCloseToMaxRecordAgeIsAging() {
+
+        // given
+        TestCandidate candidate = new TestCandidate("a", false, 25000L);
+
+        // when
+        SendPriority obtained = BeaconSendingScheduler.getSendPriority(candidate, 100000L, MAX_RECORD_AGE);
+
+        // then
+        assertThat(obtained, is(SendPriority.AGING));
+    }
+
+    @Test
+    public void candidateIsNeverAgingIfMaxRecordAgeIsUnknown() {
+
+        // given
+        TestCandidate candidate = new TestCandidate("a", false, 0L);
+
+        // when
+        SendPriority obtained = BeaconSendingScheduler.getSendPriority(candidate, 100000L, 0L);
+
+        // then
+        assertThat(obtained, is(SendPriority.ROUTINE));
+    }
+
+    @Test
+    public void candidateDeferredTooOftenIsUrgent() {
+
+        // given
+        TestCandidate candidate = new TestCandidate("a", false, 90000L);
+        for (int i = 0; i < BeaconSendingScheduler.MAX_DEFERRED_ROUNDS - 1; i++) {
+            candidate.incrementNumScheduledRounds();
+        }
+
+        // when, then
+        assertThat(BeaconSendingScheduler.getSendPriority(candidate, 100000L, MAX_RECORD_AGE), is(SendPriority.ROUTINE));
+
+        // and when scheduled once more
+        candidate.incrementNumScheduledRounds();
+
+        // then
+        assertThat(BeaconSendingScheduler.getSendPriority(candidate, 100000L, MAX_RECORD_AGE), is(SendPriority.URGENT));
+    }
+
+    @Test
+    public void scheduleOrdersByPriorityAndKeepsOrderWithinPriority() {
+
+        // given
+        TestCandidate routineOne = new TestCandidate("routineOne", false, 90000L);
+        TestCandidate agingOne = new TestCandidate("agingOne", false, 10000L);
+        TestCandidate urgentOne = new TestCandidate("urgentOne", true, 90000L);
+        TestCandidate routineTwo = new TestCandidate("routineTwo", false, 95000L);
+        TestCandidate urgentTwo = new TestCandidate("urgentTwo", true, 10000L);
+        TestCandidate agingTwo = new TestCandidate("agingTwo", false, 20000L);
+        List<TestCandidate> candidates = Arrays.asList(routineOne, agingOne, urgentOne, routineTwo, urgentTwo, agingTwo);
+
+        // when
+        List<TestCandidate> obtained = BeaconSendingScheduler.schedule(candidates, 100000L, MAX_RECORD_AGE);
+
+        // then
+        assertThat(obtained, contains(urgentOne, urgentTwo, agingOne, agingTwo, routineOne, routineTwo));
+    }
+
+    @Test
+    public void scheduleIncrementsNumberOfScheduledRounds() {
+
+        // given
+        TestCandidate first = new TestCandidate("first", false, 90000L);
+        TestCandidate second = new TestCandidate("second", true, 90000L);
+        List<TestCandidate> candidates = new ArrayList<TestCandidate>(Arrays.asList(first, second));
+
+        // when
+        BeaconSendingScheduler.schedule(candidates, 100000L, MAX_RECORD_AGE);
+        BeaconSendingScheduler.schedule(candidates, 100000L, MAX_RECORD_AGE);
+
+        // then
+        assertThat(first.getNumScheduledRounds(), is(equalTo(2)));
+        assertThat(second.getNumScheduledRounds(), is(equalTo(2)));
+    }
+
+    @Test
+    public void deferredRoutineCandidateIsEventuallyScheduledFirst() {
+
+        // given a routine candidate, which is deferred by a stream of urgent candidates
+        TestCandidate routine = new TestCandidate("routine", false, 90000L);
+        List<TestCandidate> candidates = new ArrayList<TestCandidate>();
+        candidates.add(routine);
+
+        // when
+        List<TestCandidate> obtained = null;
+        for (int i = 0; i <= BeaconSendingScheduler.MAX_DEFERRED_ROUNDS; i++) {
+            candidates.add(new TestCandidate("urgent" + i, true, 90000L));
+            obtained = BeaconSendingScheduler.schedule(candidates, 100000L, MAX_RECORD_AGE);
+            // only the first scheduled candidate is sent per round
+            candidates.remove(obtained.get(0));
+        }
+
+        // then the routine candidate has been sent in the last round
+        assertThat(candidates.contains(routine), is(false));
+        assertThat(obtained.get(0), is(routine));
+    }
+
+    private static final class TestCandidate implements BeaconSendingScheduler.Candidate {
+
+        private final String name;
+        private final boolean urgentData;
+        private final long oldestUnsentDataTimestamp;
+        private int numScheduledRounds = 0;
+
+        private TestCandidate(String name, boolean urgentData, long oldestUnsentDataTimestamp) {
+            this.name = name;
+            this.urgentData = urgentData;
+            this.oldestUnsentDataTimestamp = oldestUnsentDataTimestamp;
+        }
+
+        @Override
+        public boolean hasUrgentData() {
+            return urgentData;
+        }
+
+        @Override
+        public long getOldestUnsentDataTimestamp() {
+            return oldestUnsentDataTimestamp;
+        }
+
+        @Override
+        public int getNumScheduledRounds() {
+            return numScheduledRounds;
+        }
+
+        @Override
+        public void incrementNumScheduledRounds() {
+            numScheduledRounds++;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
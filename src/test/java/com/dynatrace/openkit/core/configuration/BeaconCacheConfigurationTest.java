@@ -58,4 +58,50 @@ public class BeaconCacheConfigurationTest {
         assertThat(new BeaconCacheConfiguration(0L, 1, 2).getCacheSizeUpperBound(),
             is(2L));
     }
+
+    @Test
+    public void getSessionQuotaInBytes() {
+
+        // then
+        assertThat(new BeaconCacheConfiguration(0L, 1, 2).getSessionQuotaInBytes(),
+            is(BeaconCacheConfiguration.DEFAULT_SESSION_QUOTA_IN_BYTES));
+        assertThat(new BeaconCacheConfiguration(0L, 1, 2, false, 1024L).getSessionQuotaInBytes(),
+            is(1024L));
+    }
+
+    @Test
+    public void getCompressionIdleTime() {
+
+        // then
+        assertThat(new BeaconCacheConfiguration(0L, 1, 2).getCompressionIdleTime(),
+            is(BeaconCacheConfiguration.DEFAULT_COMPRESSION_IDLE_TIME_IN_MILLIS));
+        assertThat(new BeaconCacheConfiguration(0L, 1, 2, false, 0L, 60000L).getCompressionIdleTime(),
+            is(60000L));
+    }
+
+    @Test
+    public void getRecordOverheadInBytes() {
+
+        // then
+        assertThat(new BeaconCacheConfiguration(0L, 1, 2).getRecordOverheadInBytes(),
+            is(BeaconCacheConfiguration.DEFAULT_RECORD_OVERHEAD_IN_BYTES));
+        assertThat(new BeaconCacheConfiguration(0L, 1, 2, false, 0L, 0L, 64L).getRecordOverheadInBytes(),
+            is(64L));
+    }
+
+    @Test
+    public void getThreadLocalBufferSettings() {
+
+        // when
+        BeaconCacheConfiguration defaultConfiguration = new BeaconCacheConfiguration(0L, 1, 2);
+        BeaconCacheConfiguration bufferedConfiguration = new BeaconCacheConfiguration(0L, 1, 2, false, 0L, 0L, 64L, 16, 50L);
+
+        // then
+        assertThat(defaultConfiguration.getThreadLocalBufferCapacity(),
+            is(BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_CAPACITY));
+        assertThat(defaultConfiguration.getThreadLocalBufferMaxDelay(),
+            is(BeaconCacheConfiguration.DEFAULT_THREAD_LOCAL_BUFFER_MAX_DELAY_IN_MILLIS));
+        assertThat(bufferedConfiguration.getThreadLocalBufferCapacity(), is(16));
+        assertThat(bufferedConfiguration.getThreadLocalBufferMaxDelay(), is(50L));
+    }
 }
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.configuration;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.protocol.EventType;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CapturePolicyTest {
+
+    @Test
+    public void nothingIsCapturedIfCaptureIsOff() {
+        // given
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR,
+            CrashReportingLevel.OPT_IN_CRASHES);
+
+        // when
+        CapturePolicy target = CapturePolicy.compile(false, true, true, privacyConfiguration);
+
+        // then
+        assertThat(target, is(sameInstance(CapturePolicy.NOTHING)));
+        for (EventType eventType : EventType.values()) {
+            assertThat(target.isEnabled(eventType), is(false));
+            assertThat(target.isDisabled(eventType), is(true));
+        }
+    }
+
+    @Test
+    public void everythingIsCapturedWithUserBehaviorAndOptInCrashes() {
+        // given
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR,
+            CrashReportingLevel.OPT_IN_CRASHES);
+
+        // when
+        CapturePolicy target = CapturePolicy.compile(true, true, true, privacyConfiguration);
+
+        // then
+        for (EventType eventType : EventType.values()) {
+            assertThat(target.isEnabled(eventType), is(true));
+        }
+    }
+
+    @Test
+    public void errorsAreNotCapturedIfCaptureErrorsIsOff() {
+        // given
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR,
+            CrashReportingLevel.OPT_IN_CRASHES);
+
+        // when
+        CapturePolicy target = CapturePolicy.compile(true, false, true, privacyConfiguration);
+
+        // then
+        assertThat(target.isEnabled(EventType.ERROR), is(false));
+        assertThat(target.isEnabled(EventType.CRASH), is(true));
+    }
+
+    @Test
+    public void crashesAreNotCapturedIfCaptureCrashesIsOff() {
+        // given
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR,
+            CrashReportingLevel.OPT_IN_CRASHES);
+
+        // when
+        CapturePolicy target = CapturePolicy.compile(true, true, false, privacyConfiguration);
+
+        // then
+        assertThat(target.isEnabled(EventType.ERROR), is(true));
+        assertThat(target.isEnabled(EventType.CRASH), is(false));
+    }
+
+    @Test
+    public void performanceLevelDisablesUserBehaviorEventTypes() {
+        // given
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(DataCollectionLevel.PERFORMANCE,
+            CrashReportingLevel.OFF);
+
+        // when
+        CapturePolicy target = CapturePolicy.compile(true, true, true, privacyConfiguration);
+
+        // then
+        assertThat(target.isEnabled(EventType.SESSION_START), is(true));
+        assertThat(target.isEnabled(EventType.SESSION_END), is(true));
+        assertThat(target.isEnabled(EventType.ACTION), is(true));
+        assertThat(target.isEnabled(EventType.WEBREQUEST), is(true));
+        assertThat(target.isEnabled(EventType.ERROR), is(true));
+        assertThat(target.isEnabled(EventType.VALUE_INT), is(false));
+        assertThat(target.isEnabled(EventType.VALUE_DOUBLE), is(false));
+        assertThat(target.isEnabled(EventType.VALUE_STRING), is(false));
+        assertThat(target.isEnabled(EventType.NAMED_EVENT), is(false));
+        assertThat(target.isEnabled(EventType.IDENTIFY_USER), is(false));
+        assertThat(target.isEnabled(EventType.CRASH), is(false));
+    }
+
+    @Test
+    public void offLevelOnlyCapturesSessionStartAndCrashes() {
+        // given
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(DataCollectionLevel.OFF,
+            CrashReportingLevel.OPT_IN_CRASHES);
+
+        // when
+        CapturePolicy target = CapturePolicy.compile(true, true, true, privacyConfiguration);
+
+        // then
+        for (EventType eventType : EventType.values()) {
+            boolean expected = eventType == EventType.SESSION_START || eventType == EventType.CRASH;
+            assertThat(target.isEnabled(eventType), is(expected));
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.dynatrace.openkit.core.configuration;
 
 import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.EventType;
 import com.dynatrace.openkit.protocol.StatusResponse;
 import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
 import com.dynatrace.openkit.test.providers.TestSessionIDProvider;
@@ -126,6 +127,46 @@ public class ConfigurationTest {
         assertThat(target.isCapture(), is(false));
     }
 
+    @Test
+    public void capturePolicyIsUpdatedWhenCapturingIsDisabledAndEnabled() {
+        // given
+        TestConfiguration target = new TestConfiguration();
+
+        // when capturing is disabled
+        target.disableCapture();
+
+        // then
+        assertThat(target.getCapturePolicy(), is(sameInstance(CapturePolicy.NOTHING)));
+
+        // and when capturing is enabled again
+        target.enableCapture();
+
+        // then
+        assertThat(target.getCapturePolicy().isEnabled(EventType.ACTION), is(true));
+    }
+
+    @Test
+    public void capturePolicyIsUpdatedFromStatusResponse() {
+        // given
+        TestConfiguration target = new TestConfiguration();
+
+        StatusResponse response = mock(StatusResponse.class);
+        when(response.isCapture()).thenReturn(true);
+        when(response.getResponseCode()).thenReturn(200);
+        when(response.getServerID()).thenReturn(-1);
+        when(response.getSendInterval()).thenReturn(-1);
+        when(response.getMaxBeaconSize()).thenReturn(-1);
+        when(response.isCaptureErrors()).thenReturn(false);
+        when(response.isCaptureCrashes()).thenReturn(true);
+
+        // when
+        target.updateSettings(response);
+
+        // then
+        assertThat(target.getCapturePolicy().isEnabled(EventType.ERROR), is(false));
+        assertThat(target.getCapturePolicy().isEnabled(EventType.CRASH), is(true));
+    }
+
     @Test
     public void getBeaconCacheConfiguration() {
 
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.protocol.Beacon;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+public class AggregatedMetricTest {
+
+    private static final int PARENT_ACTION_ID = 42;
+
+    private Beacon beacon;
+
+    @Before
+    public void setUp() {
+        beacon = mock(Beacon.class);
+        when(beacon.getCurrentTimestamp()).thenReturn(1000L);
+    }
+
+    @Test
+    public void counterReportsSumOfAllIncrements() {
+        // given
+        CounterImpl target = new CounterImpl(beacon, PARENT_ACTION_ID, "counter");
+        target.increment();
+        target.add(41L);
+
+        // when
+        target.flush(500L);
+
+        // then
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "counter", 42.0, 500L);
+    }
+
+    @Test
+    public void counterIsResetAfterFlush() {
+        // given
+        CounterImpl target = new CounterImpl(beacon, PARENT_ACTION_ID, "counter");
+        target.increment();
+        target.flush(500L);
+
+        // when
+        target.flush(600L);
+
+        // then
+        verify(beacon, times(1)).reportValue(anyInt(), anyString(), anyDouble(), anyLong());
+    }
+
+    @Test
+    public void closingCounterFlushesWithCurrentTimestamp() {
+        // given
+        CounterImpl target = new CounterImpl(beacon, PARENT_ACTION_ID, "counter");
+        target.add(5L);
+
+        // when
+        target.close();
+
+        // then
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "counter", 5.0, 1000L);
+    }
+
+    @Test
+    public void gaugeReportsLastValue() {
+        // given
+        GaugeImpl target = new GaugeImpl(beacon, PARENT_ACTION_ID, "gauge");
+        target.set(1.5);
+        target.set(2.5);
+
+        // when
+        target.flush(500L);
+
+        // then
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "gauge", 2.5, 500L);
+    }
+
+    @Test
+    public void gaugeDoesNotReportIfNotSetSinceLastFlush() {
+        // given
+        GaugeImpl target = new GaugeImpl(beacon, PARENT_ACTION_ID, "gauge");
+        target.set(1.5);
+        target.flush(500L);
+
+        // when
+        target.flush(600L);
+
+        // then
+        verify(beacon, times(1)).reportValue(anyInt(), anyString(), anyDouble(), anyLong());
+    }
+
+    @Test
+    public void histogramReportsCountSumAndNonEmptyBuckets() {
+        // given
+        HistogramImpl target = new HistogramImpl(beacon, PARENT_ACTION_ID, "hist", new double[]{100.0, 10.0, 1000.0});
+        target.record(5.0);
+        target.record(10.0);
+        target.record(500.0);
+        target.record(5000.0);
+
+        // when
+        target.flush(500L);
+
+        // then
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "hist.count", 4.0, 500L);
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "hist.sum", 5515.0, 500L);
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "hist.le.10.0", 2.0, 500L);
+        verify(beacon, never()).reportValue(eq(PARENT_ACTION_ID), eq("hist.le.100.0"), anyDouble(), anyLong());
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "hist.le.1000.0", 1.0, 500L);
+        verify(beacon, times(1)).reportValue(PARENT_ACTION_ID, "hist.le.inf", 1.0, 500L);
+        verifyNoMoreInteractions(beacon);
+    }
+
+    @Test
+    public void emptyHistogramDoesNotReportAnything() {
+        // given
+        HistogramImpl target = new HistogramImpl(beacon, PARENT_ACTION_ID, "hist", new double[]{10.0});
+
+        // when
+        target.flush(500L);
+
+        // then
+        verify(beacon, never()).reportValue(anyInt(), anyString(), anyDouble(), anyLong());
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Action;
+import com.dynatrace.openkit.api.Counter;
+import com.dynatrace.openkit.api.Histogram;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the aggregated metrics of an action, using a real {@link Beacon} to verify the reported values.
+ */
+@SuppressWarnings("resource")
+public class BaseActionImplMetricsTest {
+
+    private static final String ACTION_NAME = "TestAction";
+    private static final int THREAD_ID = 1234567;
+
+    private Logger logger;
+    private TimingProvider timingProvider;
+    private OpenKitComposite parent;
+    private BeaconCacheImpl beaconCache;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        timingProvider = mock(TimingProvider.class);
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(1000L);
+        parent = mock(OpenKitComposite.class);
+        beaconCache = new BeaconCacheImpl(logger);
+    }
+
+    @Test
+    public void createCounterAddsCounterAsChild() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+
+        // when
+        Counter obtained = target.createCounter("counter");
+
+        // then
+        assertThat(obtained, is(instanceOf(CounterImpl.class)));
+        assertThat(target.getCopyOfChildObjects(), is(equalTo(Collections.singletonList((OpenKitObject) obtained))));
+    }
+
+    @Test
+    public void createCounterReturnsNullCounterIfNameIsNull() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+
+        // when
+        Counter obtained = target.createCounter(null);
+
+        // then
+        assertThat(obtained, is(instanceOf(NullCounter.class)));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+        verify(logger, times(1)).warning(contains("createCounter: counterName must not be null or empty"));
+    }
+
+    @Test
+    public void createCounterReturnsNullCounterIfValuesAreNotCaptured() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.OFF);
+
+        // when
+        Counter obtained = target.createCounter("counter");
+
+        // then
+        assertThat(obtained, is(instanceOf(NullCounter.class)));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
+    @Test
+    public void createGaugeReturnsNullGaugeIfActionIsLeft() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+        target.leaveAction(1100L);
+
+        // then
+        assertThat(target.createGauge("gauge"), is(instanceOf(NullGauge.class)));
+    }
+
+    @Test
+    public void createHistogramReturnsNullHistogramIfBoundariesAreNull() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+
+        // when
+        Histogram obtained = target.createHistogram("histogram", (double[]) null);
+
+        // then
+        assertThat(obtained, is(instanceOf(NullHistogram.class)));
+        verify(logger, times(1)).warning(contains("createHistogram: bucketBoundaries must not be null"));
+    }
+
+    @Test
+    public void flushAggregatedMetricsReportsValuesOfAllMetrics() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+        target.createCounter("counter").add(3L);
+        target.createGauge("gauge").set(1.5);
+
+        // when
+        target.flushAggregatedMetrics(1200L);
+
+        // then
+        String[] events = beaconCache.getEvents(target.beacon.getSessionNumber());
+        assertThat(events.length, is(equalTo(2)));
+        assertThat(events[0], endsWith("na=counter&it=" + THREAD_ID + "&pa=" + target.getID() + "&s0=2&t0=1200&vl=3.0"));
+        assertThat(events[1], endsWith("na=gauge&it=" + THREAD_ID + "&pa=" + target.getID() + "&s0=3&t0=1200&vl=1.5"));
+    }
+
+    @Test
+    public void flushAggregatedMetricsReportsValuesOfChildActions() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+        BaseActionImpl childAction = new StubBaseActionImpl(logger, target, "child", target.beacon);
+        target.storeChildInList(childAction);
+        childAction.createCounter("counter").increment();
+
+        // when
+        target.flushAggregatedMetrics(1200L);
+
+        // then
+        String[] events = beaconCache.getEvents(target.beacon.getSessionNumber());
+        assertThat(events.length, is(equalTo(1)));
+        assertThat(events[0], endsWith("na=counter&it=" + THREAD_ID + "&pa=" + childAction.getID() + "&s0=3&t0=1200&vl=1.0"));
+    }
+
+    @Test
+    public void flushAggregatedMetricsDoesNotReportUnchangedValuesAgain() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+        target.createCounter("counter").add(3L);
+        target.flushAggregatedMetrics(1200L);
+        beaconCache.deleteCacheEntry(target.beacon.getSessionNumber());
+
+        // when
+        target.flushAggregatedMetrics(1300L);
+
+        // then
+        assertThat(beaconCache.getEvents(target.beacon.getSessionNumber()), is(emptyArray()));
+    }
+
+    @Test
+    public void leaveActionFlushesAggregatedMetrics() {
+        // given
+        BaseActionImpl target = createAction(DataCollectionLevel.USER_BEHAVIOR);
+        target.createCounter("counter").increment();
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(1400L);
+
+        // when
+        target.leaveAction(1500L);
+
+        // then the counter is reported with the current timestamp, before the action itself
+        String[] events = beaconCache.getEvents(target.beacon.getSessionNumber());
+        assertThat(events.length, is(equalTo(1)));
+        assertThat(events[0], endsWith("na=counter&it=" + THREAD_ID + "&pa=" + target.getID() + "&s0=2&t0=1400&vl=1.0"));
+        assertThat(beaconCache.getActions(target.beacon.getSessionNumber()).length, is(equalTo(1)));
+    }
+
+    private BaseActionImpl createAction(DataCollectionLevel dataCollectionLevel) {
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(dataCollectionLevel, CrashReportingLevel.OPT_IN_CRASHES));
+        ThreadIDProvider threadIDProvider = mock(ThreadIDProvider.class);
+        when(threadIDProvider.getThreadID()).thenReturn(THREAD_ID);
+        Beacon beacon = new Beacon(logger, beaconCache, configuration, "127.0.0.1", threadIDProvider, timingProvider, 0L);
+
+        return new StubBaseActionImpl(logger, parent, ACTION_NAME, beacon);
+    }
+
+    private static final class StubBaseActionImpl extends BaseActionImpl {
+
+        StubBaseActionImpl(Logger logger, OpenKitComposite parent, String name, Beacon beacon) {
+            super(logger, parent, name, beacon, 0L);
+        }
+
+        @Override
+        protected Action getParentAction() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LifecycleStateTest {
+
+    @Test
+    public void newStateIsOpen() {
+        // given
+        LifecycleState target = new LifecycleState();
+
+        // then
+        assertThat(target.isOpen(), is(true));
+        assertThat(target.isClosed(), is(false));
+        assertThat(target.toString(), is(equalTo("OPEN")));
+    }
+
+    @Test
+    public void tryCloseTransitionsFromOpenToClosing() {
+        // given
+        LifecycleState target = new LifecycleState();
+
+        // when
+        boolean obtained = target.tryClose();
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.isOpen(), is(false));
+        assertThat(target.isClosed(), is(false));
+        assertThat(target.toString(), is(equalTo("CLOSING")));
+    }
+
+    @Test
+    public void tryCloseSucceedsOnlyOnce() {
+        // given
+        LifecycleState target = new LifecycleState();
+        target.tryClose();
+
+        // when
+        boolean obtained = target.tryClose();
+
+        // then
+        assertThat(obtained, is(false));
+    }
+
+    @Test
+    public void closedTransitionsToClosed() {
+        // given
+        LifecycleState target = new LifecycleState();
+        target.tryClose();
+
+        // when
+        target.closed();
+
+        // then
+        assertThat(target.isOpen(), is(false));
+        assertThat(target.isClosed(), is(true));
+        assertThat(target.tryClose(), is(false));
+        assertThat(target.toString(), is(equalTo("CLOSED")));
+    }
+
+    @Test
+    public void tryCloseSucceedsForExactlyOneOfManyConcurrentThreads() throws InterruptedException {
+        // given
+        final int numThreads = 8;
+        final LifecycleState target = new LifecycleState();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger numSuccessfulCloses = new AtomicInteger(0);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (target.tryClose()) {
+                        numSuccessfulCloses.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        // when
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        assertThat(numSuccessfulCloses.get(), is(equalTo(1)));
+    }
+}
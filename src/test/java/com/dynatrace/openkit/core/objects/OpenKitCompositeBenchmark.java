@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simple benchmark registering and unregistering a large number of children in an {@link OpenKitComposite}.
+ *
+ * <p>
+ *     This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ *     Optional arguments are the number of children (default 10000) and the number of rounds (default 20).
+ * </p>
+ */
+public class OpenKitCompositeBenchmark {
+
+    private static final int DEFAULT_NUM_CHILDREN = 10000;
+    private static final int DEFAULT_NUM_ROUNDS = 20;
+    private static final int NUM_WARMUP_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int numChildren = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_CHILDREN;
+        int numRounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_ROUNDS;
+
+        List<OpenKitObject> children = new ArrayList<OpenKitObject>(numChildren);
+        for (int i = 0; i < numChildren; i++) {
+            children.add(new BenchmarkOpenKitObject());
+        }
+
+        // children are closed in random order, like actions or web requests of a long-lived session
+        List<OpenKitObject> removalOrder = new ArrayList<OpenKitObject>(children);
+        Collections.shuffle(removalOrder, new Random(42));
+
+        for (int i = 0; i < NUM_WARMUP_ROUNDS; i++) {
+            runRound(children, removalOrder);
+        }
+
+        long totalNanos = 0;
+        for (int i = 0; i < numRounds; i++) {
+            totalNanos += runRound(children, removalOrder);
+        }
+
+        long nanosPerRound = totalNanos / numRounds;
+        System.out.println("children: " + numChildren + ", rounds: " + numRounds);
+        System.out.println("avg. time per round: " + (nanosPerRound / 1000) + " us");
+        System.out.println("avg. time per store/remove: " + (nanosPerRound / numChildren) + " ns");
+    }
+
+    private static long runRound(List<OpenKitObject> children, List<OpenKitObject> removalOrder) {
+        BenchmarkOpenKitComposite composite = new BenchmarkOpenKitComposite();
+
+        long start = System.nanoTime();
+        for (OpenKitObject child : children) {
+            composite.storeChildInList(child);
+        }
+        for (OpenKitObject child : removalOrder) {
+            composite.onChildClosed(child);
+        }
+        long duration = System.nanoTime() - start;
+
+        if (composite.getChildCount() != 0) {
+            throw new IllegalStateException("Not all children have been removed");
+        }
+
+        return duration;
+    }
+
+    private static final class BenchmarkOpenKitComposite extends OpenKitComposite {
+
+        @Override
+        void onChildClosed(OpenKitObject childObject) {
+            removeChildFromList(childObject);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class BenchmarkOpenKitObject implements OpenKitObject {
+
+        @Override
+        public void close() {
+        }
+    }
+}
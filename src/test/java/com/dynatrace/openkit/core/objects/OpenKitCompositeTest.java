@@ -0,0 +1,176 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class OpenKitCompositeTest {
+
+    @Test
+    public void newCompositeHasNoChildren() {
+        // given
+        OpenKitComposite target = new TestOpenKitComposite();
+
+        // then
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+        assertThat(target.getChildCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void storeChildInListRetainsInsertionOrder() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitObject childThree = mock(OpenKitObject.class);
+        OpenKitComposite target = new TestOpenKitComposite();
+
+        // when
+        target.storeChildInList(childTwo);
+        target.storeChildInList(childOne);
+        target.storeChildInList(childThree);
+
+        // then
+        assertThat(target.getCopyOfChildObjects(), is(equalTo(Arrays.asList(childTwo, childOne, childThree))));
+        assertThat(target.getChildCount(), is(equalTo(3)));
+    }
+
+    @Test
+    public void removeChildFromListRemovesOnlyGivenChild() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitObject childThree = mock(OpenKitObject.class);
+        OpenKitComposite target = new TestOpenKitComposite();
+        target.storeChildInList(childOne);
+        target.storeChildInList(childTwo);
+        target.storeChildInList(childThree);
+
+        // when
+        boolean obtained = target.removeChildFromList(childTwo);
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.getCopyOfChildObjects(), contains(childOne, childThree));
+    }
+
+    @Test
+    public void removeChildFromListReturnsFalseIfChildIsNotStored() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitComposite target = new TestOpenKitComposite();
+        target.storeChildInList(childOne);
+
+        // when
+        boolean obtained = target.removeChildFromList(childTwo);
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(target.getCopyOfChildObjects(), is(equalTo(Collections.singletonList(childOne))));
+    }
+
+    @Test
+    public void getCopyOfChildObjectsReturnsIndependentCopy() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitComposite target = new TestOpenKitComposite();
+        target.storeChildInList(childOne);
+
+        // when
+        List<OpenKitObject> obtained = target.getCopyOfChildObjects();
+        obtained.add(childTwo);
+
+        // then
+        assertThat(target.getCopyOfChildObjects(), is(equalTo(Collections.singletonList(childOne))));
+    }
+
+    @Test
+    public void childrenCanBeRemovedWhileIteratingOverCopy() {
+        // given
+        OpenKitObject childOne = mock(OpenKitObject.class);
+        OpenKitObject childTwo = mock(OpenKitObject.class);
+        OpenKitComposite target = new TestOpenKitComposite();
+        target.storeChildInList(childOne);
+        target.storeChildInList(childTwo);
+
+        // when
+        for (OpenKitObject child : target.getCopyOfChildObjects()) {
+            target.removeChildFromList(child);
+        }
+
+        // then
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
+    @Test
+    public void manyChildrenCanBeStoredAndRemovedInArbitraryOrder() {
+        // given
+        final int numChildren = 10000;
+        List<OpenKitObject> children = new ArrayList<OpenKitObject>(numChildren);
+        OpenKitComposite target = new TestOpenKitComposite();
+        for (int i = 0; i < numChildren; i++) {
+            OpenKitObject child = new TestOpenKitObject();
+            children.add(child);
+            target.storeChildInList(child);
+        }
+
+        // when removing every second child, starting from the end
+        for (int i = numChildren - 1; i >= 0; i -= 2) {
+            assertThat(target.removeChildFromList(children.get(i)), is(true));
+        }
+
+        // then
+        List<OpenKitObject> expected = new ArrayList<OpenKitObject>(numChildren / 2);
+        for (int i = 0; i < numChildren; i += 2) {
+            expected.add(children.get(i));
+        }
+        assertThat(target.getChildCount(), is(equalTo(numChildren / 2)));
+        assertThat(target.getCopyOfChildObjects(), is(equalTo(expected)));
+    }
+
+    private static final class TestOpenKitComposite extends OpenKitComposite {
+
+        @Override
+        void onChildClosed(OpenKitObject childObject) {
+            removeChildFromList(childObject);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class TestOpenKitObject implements OpenKitObject {
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.Session;
+import com.dynatrace.openkit.core.BeaconSender;
+import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the name registration of {@link OpenKitImpl}, using the name dictionary shared with the sessions.
+ */
+@SuppressWarnings("resource")
+public class OpenKitImplNameDictionaryTest {
+
+    private OpenKitImpl target;
+
+    @Before
+    public void setUp() {
+        Logger logger = mock(Logger.class);
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES));
+        target = new OpenKitImpl(logger, configuration, mock(TimingProvider.class), mock(ThreadIDProvider.class),
+            new BeaconCacheImpl(logger), mock(BeaconSender.class), mock(BeaconCacheEvictor.class));
+    }
+
+    @Test
+    public void registerNameRegistersNameInNameDictionary() {
+        // given
+        String name = target.registerName(new String("name"));
+
+        // when
+        String obtained = target.registerName(new String("name"));
+
+        // then
+        assertThat(obtained, is(sameInstance(name)));
+        assertThat(target.getNameDictionary().size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void registeredNameIsUsedBySessions() {
+        // given
+        target.registerName("action");
+        Session session = target.createSession("127.0.0.1", 0L);
+
+        // when
+        session.enterAction("action", 10L).leaveAction(20L);
+
+        // then
+        assertThat(target.getNameDictionary().size(), is(equalTo(1)));
+        assertThat(target.getNameDictionary().getNumberOfHits(), is(equalTo(1L)));
+        assertThat(target.getNameDictionary().getNumberOfMisses(), is(equalTo(0L)));
+    }
+}
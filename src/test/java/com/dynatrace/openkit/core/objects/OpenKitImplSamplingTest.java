@@ -0,0 +1,127 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.Session;
+import com.dynatrace.openkit.core.BeaconSender;
+import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the client side sampling of sessions created by {@link OpenKitImpl}.
+ */
+@SuppressWarnings("resource")
+public class OpenKitImplSamplingTest {
+
+    @Test
+    public void createSessionReturnsNullSessionIfSessionIsSampledOut() {
+        // given
+        OpenKitImpl target = createOpenKit(Integer.MAX_VALUE, true, "device");
+
+        // when
+        Session obtained = target.createSession("10.0.0.1", 100L);
+
+        // then
+        assertThat(obtained, is(sameInstance((Session) OpenKitImpl.NULL_SESSION)));
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
+    @Test
+    public void createSessionReturnsSessionIfSamplingIsDisabled() {
+        // given
+        OpenKitImpl target = createOpenKit(SamplingConfiguration.DEFAULT_SAMPLING_FACTOR, false, "device");
+
+        // when
+        Session obtained = target.createSession("10.0.0.1", 100L);
+
+        // then
+        assertThat(obtained, is(instanceOf(SessionImpl.class)));
+        assertThat(target.getChildCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void sessionsOfOneDeviceAreEitherAllCapturedOrAllSampledOutIfSampledByDeviceID() {
+        for (int device = 0; device < 20; device++) {
+            // given
+            OpenKitImpl target = createOpenKit(2, true, String.valueOf(device));
+            boolean firstSessionCaptured = target.createSession("10.0.0.1", 100L) instanceof SessionImpl;
+
+            for (int i = 0; i < 10; i++) {
+                // when
+                Session obtained = target.createSession("10.0.0.1", 100L);
+
+                // then
+                assertThat(obtained instanceof SessionImpl, is(firstSessionCaptured));
+            }
+        }
+    }
+
+    @Test
+    public void sessionsAreSampledAccordingToTheSessionSamplingFactor() {
+        // given
+        OpenKitImpl target = createOpenKit(4, false, "device");
+
+        // when
+        for (int i = 0; i < 4000; i++) {
+            target.createSession("10.0.0.1", 100L);
+        }
+
+        // then roughly one out of four sessions is captured
+        assertThat(target.getChildCount(), is(allOf(greaterThan(800), lessThan(1200))));
+    }
+
+    private static OpenKitImpl createOpenKit(int sessionSamplingFactor, boolean sampleByDeviceID, String deviceID) {
+        Logger logger = mock(Logger.class);
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", deviceID, "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, ErrorReportingConfiguration.DISABLED,
+            new SamplingConfiguration(sessionSamplingFactor, sampleByDeviceID, Collections.<String, Integer>emptyMap()));
+        return new OpenKitImpl(logger, configuration, mock(TimingProvider.class), mock(ThreadIDProvider.class),
+            new BeaconCacheImpl(logger), mock(BeaconSender.class), mock(BeaconCacheEvictor.class));
+    }
+}
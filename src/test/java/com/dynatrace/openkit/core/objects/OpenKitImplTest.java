@@ -22,6 +22,7 @@ import com.dynatrace.openkit.core.BeaconSender;
 import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
 import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.CapturePolicy;
 import com.dynatrace.openkit.core.configuration.Configuration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
 import com.dynatrace.openkit.providers.ThreadIDProvider;
@@ -80,8 +81,10 @@ public class OpenKitImplTest {
         when(configuration.getDevice()).thenReturn(new Device("", "", ""));
         when(configuration.isCapture()).thenReturn(true);
         when(configuration.getBeaconConfiguration()).thenReturn(new BeaconConfiguration());
-        when(configuration.getPrivacyConfiguration()).thenReturn(
-            new PrivacyConfiguration(PrivacyConfiguration.DEFAULT_DATA_COLLECTION_LEVEL, PrivacyConfiguration.DEFAULT_CRASH_REPORTING_LEVEL));
+        PrivacyConfiguration privacyConfiguration = new PrivacyConfiguration(PrivacyConfiguration.DEFAULT_DATA_COLLECTION_LEVEL,
+            PrivacyConfiguration.DEFAULT_CRASH_REPORTING_LEVEL);
+        when(configuration.getPrivacyConfiguration()).thenReturn(privacyConfiguration);
+        when(configuration.getCapturePolicy()).thenReturn(CapturePolicy.compile(true, true, true, privacyConfiguration));
 
         timingProvider = mock(TimingProvider.class);
         threadIDProvider = mock(ThreadIDProvider.class);
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class SamplerTest {
+
+    private static final Map<String, Integer> NO_ACTION_RULES = Collections.emptyMap();
+
+    @Test
+    public void noneSamplerCapturesEverything() {
+        // when, then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(Sampler.NONE.isSessionSampled(), is(true));
+            assertThat(Sampler.NONE.isActionSampled(i, "action"), is(true));
+        }
+    }
+
+    @Test
+    public void samplingFactorOneCapturesAllSessions() {
+        // given
+        Sampler target = new Sampler(new SamplingConfiguration(1, false, NO_ACTION_RULES), "device");
+
+        // when, then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(target.isSessionSampled(), is(true));
+        }
+    }
+
+    @Test
+    public void nullConfigurationCapturesEverything() {
+        // given
+        Sampler target = new Sampler(null, null);
+
+        // when, then
+        assertThat(target.isSessionSampled(), is(true));
+        assertThat(target.isActionSampled(1, "action"), is(true));
+    }
+
+    @Test
+    public void sessionsAreSampledApproximatelyByFactor() {
+        // given
+        final int numSessions = 100000;
+        Sampler target = new Sampler(new SamplingConfiguration(10, false, NO_ACTION_RULES), "device");
+
+        // when
+        int numSampled = 0;
+        for (int i = 0; i < numSessions; i++) {
+            if (target.isSessionSampled()) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat(numSampled, is(allOf(greaterThan(9000), lessThan(11000))));
+    }
+
+    @Test
+    public void sessionDecisionsAreDeterministic() {
+        // given
+        SamplingConfiguration configuration = new SamplingConfiguration(4, false, NO_ACTION_RULES);
+        Sampler first = new Sampler(configuration, "device");
+        Sampler second = new Sampler(configuration, "device");
+
+        // when, then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(first.isSessionSampled(), is(equalTo(second.isSessionSampled())));
+        }
+    }
+
+    @Test
+    public void samplingByDeviceIDGivesTheSameDecisionForAllSessions() {
+        // given
+        SamplingConfiguration configuration = new SamplingConfiguration(2, true, NO_ACTION_RULES);
+
+        for (int device = 0; device < 100; device++) {
+            Sampler target = new Sampler(configuration, "device-" + device);
+            boolean expected = target.isSessionSampled();
+
+            // when, then
+            for (int i = 0; i < 100; i++) {
+                assertThat(target.isSessionSampled(), is(equalTo(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void actionsWithoutRuleAreAlwaysCaptured() {
+        // given
+        Sampler target = new Sampler(new SamplingConfiguration(1, false,
+            Collections.singletonMap("sampled", 1000)), "device");
+
+        // when, then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(target.isActionSampled(i, "other"), is(true));
+        }
+    }
+
+    @Test
+    public void actionsAreSampledApproximatelyByFactor() {
+        // given
+        final int numSessions = 100000;
+        Sampler target = new Sampler(new SamplingConfiguration(1, false,
+            Collections.singletonMap("sampled", 5)), "device");
+
+        // when
+        int numSampled = 0;
+        for (int i = 0; i < numSessions; i++) {
+            if (target.isActionSampled(i, "sampled")) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat(numSampled, is(allOf(greaterThan(18000), lessThan(22000))));
+    }
+
+    @Test
+    public void actionDecisionsAreStableWithinASession() {
+        // given
+        Sampler target = new Sampler(new SamplingConfiguration(1, false,
+            Collections.singletonMap("sampled", 3)), "device");
+
+        for (int sessionNumber = 0; sessionNumber < 100; sessionNumber++) {
+            boolean expected = target.isActionSampled(sessionNumber, "sampled");
+
+            // when, then
+            for (int i = 0; i < 10; i++) {
+                assertThat(target.isActionSampled(sessionNumber, "sampled"), is(equalTo(expected)));
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.BeaconSender;
+import com.dynatrace.openkit.protocol.Beacon;
+import com.dynatrace.openkit.protocol.EventType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests reporting a {@link Throwable} as crash on {@link SessionImpl}.
+ */
+@SuppressWarnings("resource")
+public class SessionImplCrashReportingTest {
+
+    private Logger mockLogger;
+    private Beacon mockBeacon;
+    private SessionImpl target;
+
+    @Before
+    public void setUp() {
+        mockLogger = mock(Logger.class);
+        when(mockLogger.isDebugEnabled()).thenReturn(true);
+        mockBeacon = mock(Beacon.class);
+
+        target = new SessionImpl(mockLogger, mock(OpenKitComposite.class), mock(BeaconSender.class), mockBeacon);
+    }
+
+    @Test
+    public void reportingCrashWithThrowableForwardsThrowableToBeacon() {
+        // given
+        Throwable throwable = new IllegalStateException("reason");
+
+        // when
+        target.reportCrash(throwable);
+
+        // then
+        verify(mockBeacon, times(1)).reportCrash(throwable);
+    }
+
+    @Test
+    public void reportingCrashWithNullThrowableDoesNotReportAnything() {
+        // when
+        target.reportCrash((Throwable) null);
+
+        // then
+        verify(mockLogger, times(1)).warning(endsWith("reportCrash: throwable must not be null"));
+        verify(mockBeacon, never()).isCapturingDisabled(any(EventType.class));
+        verify(mockBeacon, never()).reportCrash(any(Throwable.class));
+    }
+
+    @Test
+    public void reportingCrashWithThrowableDoesNotReportAnythingIfCrashesAreNotCaptured() {
+        // given
+        when(mockBeacon.isCapturingDisabled(EventType.CRASH)).thenReturn(true);
+
+        // when
+        target.reportCrash(new IllegalStateException("reason"));
+
+        // then
+        verify(mockBeacon, never()).reportCrash(any(Throwable.class));
+    }
+
+    @Test
+    public void reportingCrashWithThrowableDoesNotReportAnythingAfterSessionHasBeenEnded() {
+        // given
+        target.end(100L);
+
+        // when
+        target.reportCrash(new IllegalStateException("reason"));
+
+        // then
+        verify(mockBeacon, never()).reportCrash(any(Throwable.class));
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.RootAction;
+import com.dynatrace.openkit.core.BeaconSender;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import com.dynatrace.openkit.protocol.Beacon;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the client side sampling of root actions entered on a {@link SessionImpl}.
+ */
+@SuppressWarnings("resource")
+public class SessionImplSamplingTest {
+
+    private Logger mockLogger;
+    private OpenKitComposite mockParent;
+    private BeaconSender mockBeaconSender;
+
+    @Before
+    public void setUp() {
+        mockLogger = mock(Logger.class);
+        mockParent = mock(OpenKitComposite.class);
+        mockBeaconSender = mock(BeaconSender.class);
+    }
+
+    @Test
+    public void enterActionGivesNullRootActionIfActionIsSampledOut() {
+        // given
+        Beacon mockBeacon = createBeacon(1);
+        SessionImpl target = new SessionImpl(mockLogger, mockParent, mockBeaconSender, mockBeacon,
+            createSampler("Some action", Integer.MAX_VALUE));
+
+        // when
+        RootAction obtained = target.enterAction("Some action", 100L);
+
+        // then
+        assertThat(obtained, is(instanceOf(NullRootAction.class)));
+        assertThat(target.getChildCount(), is(equalTo(0)));
+        verify(mockBeacon, never()).createID();
+    }
+
+    @Test
+    public void enterActionGivesRootActionIfNoSamplingRuleMatches() {
+        // given
+        SessionImpl target = new SessionImpl(mockLogger, mockParent, mockBeaconSender, createBeacon(1),
+            createSampler("Some action", Integer.MAX_VALUE));
+
+        // when
+        RootAction obtained = target.enterAction("Other action", 100L);
+
+        // then
+        assertThat(obtained, is(instanceOf(RootActionImpl.class)));
+        assertThat(target.getChildCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void samplingDecisionOfAnActionIsTheSameWithinOneSession() {
+        // given
+        Sampler sampler = createSampler("Some action", 2);
+
+        for (int sessionNumber = 0; sessionNumber < 100; sessionNumber++) {
+            SessionImpl target = new SessionImpl(mockLogger, mockParent, mockBeaconSender, createBeacon(sessionNumber), sampler);
+
+            // when
+            RootAction first = target.enterAction("Some action", 100L);
+            RootAction second = target.enterAction("Some action", 200L);
+
+            // then
+            assertThat(second.getClass(), is(equalTo((Object) first.getClass())));
+        }
+    }
+
+    @Test
+    public void actionsAreSampledAccordingToTheirSamplingFactorAcrossSessions() {
+        // given
+        Sampler sampler = createSampler("Some action", 4);
+
+        // when
+        int numSampled = 0;
+        for (int sessionNumber = 0; sessionNumber < 4000; sessionNumber++) {
+            SessionImpl target = new SessionImpl(mockLogger, mockParent, mockBeaconSender, createBeacon(sessionNumber), sampler);
+            if (target.enterAction("Some action", 100L) instanceof RootActionImpl) {
+                numSampled++;
+            }
+        }
+
+        // then roughly one out of four actions is captured
+        assertThat(numSampled, is(allOf(greaterThan(800), lessThan(1200))));
+    }
+
+    private static Sampler createSampler(String actionName, int actionSamplingFactor) {
+        SamplingConfiguration samplingConfiguration = new SamplingConfiguration(1, false,
+            Collections.singletonMap(actionName, actionSamplingFactor));
+        return new Sampler(samplingConfiguration, "device");
+    }
+
+    private static Beacon createBeacon(int sessionNumber) {
+        Beacon beacon = mock(Beacon.class);
+        when(beacon.getSessionNumber()).thenReturn(sessionNumber);
+        when(beacon.getCurrentTimestamp()).thenReturn(0L);
+        return beacon;
+    }
+}
@@ -0,0 +1,372 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.objects;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.api.RootAction;
+import com.dynatrace.openkit.api.Session;
+import com.dynatrace.openkit.core.BeaconSender;
+import com.dynatrace.openkit.core.caching.BeaconCacheEvictor;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import com.dynatrace.openkit.core.configuration.SessionSplittingConfiguration;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("resource")
+public class SessionProxyImplTest {
+
+    private static final String CLIENT_IP_ADDRESS = "127.0.0.1";
+
+    private Logger logger;
+    private OpenKitComposite parent;
+    private SessionCreator sessionCreator;
+    private TimingProvider timingProvider;
+    private SessionImpl sessionOne;
+    private SessionImpl sessionTwo;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        parent = mock(OpenKitComposite.class);
+        sessionCreator = mock(SessionCreator.class);
+        timingProvider = mock(TimingProvider.class);
+        sessionOne = mock(SessionImpl.class);
+        sessionTwo = mock(SessionImpl.class);
+    }
+
+    @Test
+    public void constructorCreatesFirstSession() {
+        // given
+        when(sessionCreator.createSession(any(OpenKitComposite.class), eq(CLIENT_IP_ADDRESS), anyLong()))
+            .thenReturn(sessionOne);
+
+        // when
+        SessionProxyImpl target = createProxy(60000L, 0L, 1000L);
+
+        // then
+        verify(sessionCreator, times(1)).createSession(target, CLIENT_IP_ADDRESS, 1000L);
+        assertThat(target.getCurrentSession(), is(sameInstance(sessionOne)));
+        assertThat(target.getChildCount(), is(equalTo(1)));
+    }
+
+    @Test
+    public void enterActionIsForwardedToCurrentSession() {
+        // given
+        RootAction rootAction = mock(RootAction.class);
+        when(sessionOne.enterAction("action", 2000L)).thenReturn(rootAction);
+        SessionProxyImpl target = createProxyWithSessions(60000L, 0L);
+
+        // when
+        RootAction obtained = target.enterAction("action", 2000L);
+
+        // then
+        assertThat(obtained, is(sameInstance(rootAction)));
+        assertThat(target.getNumberOfSplits(), is(equalTo(0)));
+        verify(sessionOne, never()).end(anyLong());
+    }
+
+    @Test
+    public void sessionIsSplitAfterIdleTimeout() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        target.enterAction("one", 1500L);
+
+        // when
+        target.enterAction("two", 2500L);
+
+        // then
+        verify(sessionOne, times(1)).end(1500L);
+        verify(sessionCreator, times(1)).createSession(target, CLIENT_IP_ADDRESS, 2500L);
+        verify(sessionTwo, times(1)).enterAction("two", 2500L);
+        assertThat(target.getCurrentSession(), is(sameInstance(sessionTwo)));
+        assertThat(target.getNumberOfSplits(), is(equalTo(1)));
+    }
+
+    @Test
+    public void sessionIsNotSplitWithinIdleTimeout() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+
+        // when
+        target.enterAction("one", 1999L);
+        target.enterAction("two", 2998L);
+
+        // then
+        verify(sessionOne, never()).end(anyLong());
+        verify(sessionOne, times(1)).enterAction("two", 2998L);
+        assertThat(target.getNumberOfSplits(), is(equalTo(0)));
+    }
+
+    @Test
+    public void sessionIsNotSplitByIdleTimeoutWhileActionsOrWebRequestsAreOpen() {
+        // given
+        when(sessionOne.hasOpenChildObjects()).thenReturn(true);
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        target.enterAction("one", 1500L);
+
+        // when
+        target.enterAction("two", 5000L);
+
+        // then
+        verify(sessionOne, never()).end(anyLong());
+        verify(sessionOne, times(1)).enterAction("two", 5000L);
+        assertThat(target.getNumberOfSplits(), is(equalTo(0)));
+    }
+
+    @Test
+    public void sessionIsSplitByIdleTimeoutAfterActionsAndWebRequestsHaveBeenClosed() {
+        // given
+        when(sessionOne.hasOpenChildObjects()).thenReturn(true, false);
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        target.enterAction("one", 5000L);
+
+        // when
+        target.enterAction("two", 7000L);
+
+        // then
+        verify(sessionOne, times(1)).end(5000L);
+        verify(sessionTwo, times(1)).enterAction("two", 7000L);
+        assertThat(target.getNumberOfSplits(), is(equalTo(1)));
+    }
+
+    @Test
+    public void concurrentSplitDoesNotEndSessionBeforeCallHasBeenForwarded() throws Exception {
+        // given
+        final CountDownLatch forwarding = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(sessionOne.enterAction("one", 1500L)).thenAnswer(new Answer<RootAction>() {
+            @Override
+            public RootAction answer(InvocationOnMock invocation) throws Throwable {
+                forwarding.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return mock(RootAction.class);
+            }
+        });
+        final SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        Thread forwardingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.enterAction("one", 1500L);
+            }
+        });
+        Thread splittingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.enterAction("two", 5000L);
+            }
+        });
+
+        // when the first call is being forwarded and a second call splits the session
+        forwardingThread.start();
+        assertThat(forwarding.await(5, TimeUnit.SECONDS), is(true));
+        splittingThread.start();
+        while (splittingThread.getState() != Thread.State.BLOCKED && splittingThread.isAlive()) {
+            Thread.sleep(1);
+        }
+
+        // then the session is not ended before the first call has reached it
+        verify(sessionOne, never()).end(anyLong());
+
+        // and when the first call has been forwarded
+        release.countDown();
+        forwardingThread.join(5000L);
+        splittingThread.join(5000L);
+
+        // then the session is split afterwards
+        InOrder inOrder = inOrder(sessionOne, sessionTwo);
+        inOrder.verify(sessionOne, times(1)).enterAction("one", 1500L);
+        inOrder.verify(sessionOne, times(1)).end(1500L);
+        inOrder.verify(sessionTwo, times(1)).enterAction("two", 5000L);
+    }
+
+    @Test
+    public void sessionIsSplitAfterMaxSessionDuration() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(0L, 5000L);
+        target.enterAction("one", 4000L);
+
+        // when
+        target.enterAction("two", 6000L);
+
+        // then
+        verify(sessionOne, times(1)).end(6000L);
+        verify(sessionCreator, times(1)).createSession(target, CLIENT_IP_ADDRESS, 6000L);
+        assertThat(target.getCurrentSession(), is(sameInstance(sessionTwo)));
+    }
+
+    @Test
+    public void splitSessionIsIdentifiedWithLastUserTag() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        target.identifyUser("jane.doe@example.com", 1500L);
+
+        // when
+        target.enterAction("action", 3000L);
+
+        // then
+        verify(sessionOne, times(1)).identifyUser("jane.doe@example.com", 1500L);
+        verify(sessionTwo, times(1)).identifyUser("jane.doe@example.com", 3000L);
+    }
+
+    @Test
+    public void callsWithoutTimestampUseTimingProvider() {
+        // given
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(2000L);
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        Throwable throwable = new IllegalStateException();
+
+        // when
+        target.reportCrash(throwable);
+
+        // then
+        verify(sessionOne, times(1)).end(1000L);
+        verify(sessionTwo, times(1)).reportCrash(throwable);
+    }
+
+    @Test
+    public void endEndsCurrentSessionAndNotifiesParent() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+
+        // when
+        target.end(1500L);
+
+        // then
+        verify(sessionOne, times(1)).end(1500L);
+        verify(parent, times(1)).onChildClosed(target);
+        assertThat(target.isSessionEnded(), is(true));
+    }
+
+    @Test
+    public void sessionIsNotSplitAfterProxyHasBeenEnded() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+        target.end(1500L);
+
+        // when
+        target.enterAction("action", 5000L);
+
+        // then
+        verify(sessionCreator, times(1)).createSession(target, CLIENT_IP_ADDRESS, 1000L);
+        verify(sessionOne, times(1)).enterAction("action", 5000L);
+    }
+
+    @Test
+    public void onChildClosedRemovesSessionFromListOfChildren() {
+        // given
+        SessionProxyImpl target = createProxyWithSessions(1000L, 0L);
+
+        // when
+        target.onChildClosed(sessionOne);
+
+        // then
+        assertThat(target.getCopyOfChildObjects(), is(empty()));
+    }
+
+    @Test
+    public void createSessionReturnsSessionProxyIfSessionSplittingIsEnabled() {
+        // given
+        OpenKitImpl openKit = createOpenKit(new SessionSplittingConfiguration(60000L, 0L));
+
+        // when
+        Session obtained = openKit.createSession("10.0.0.1", 100L);
+
+        // then
+        assertThat(obtained, is(instanceOf(SessionProxyImpl.class)));
+        assertThat(openKit.getCopyOfChildObjects(), is(equalTo(Collections.singletonList((OpenKitObject) obtained))));
+        assertThat(((SessionProxyImpl) obtained).getCurrentSession(), is(notNullValue()));
+    }
+
+    @Test
+    public void openRootActionIsNotClosedByIdleTimeout() {
+        // given
+        OpenKitImpl openKit = createOpenKit(new SessionSplittingConfiguration(1000L, 0L));
+        SessionProxyImpl target = (SessionProxyImpl) openKit.createSession("10.0.0.1", 100L);
+        SessionImpl session = target.getCurrentSession();
+        RootActionImpl rootAction = (RootActionImpl) target.enterAction("long running", 200L);
+
+        // when
+        target.enterAction("other", 60000L);
+
+        // then
+        assertThat(target.getNumberOfSplits(), is(equalTo(0)));
+        assertThat(target.getCurrentSession(), is(sameInstance(session)));
+        assertThat(rootAction.isActionLeft(), is(false));
+    }
+
+    private SessionProxyImpl createProxyWithSessions(long idleTimeout, long maxSessionDuration) {
+        when(sessionCreator.createSession(any(OpenKitComposite.class), eq(CLIENT_IP_ADDRESS), anyLong()))
+            .thenReturn(sessionOne, sessionTwo);
+        return createProxy(idleTimeout, maxSessionDuration, 1000L);
+    }
+
+    private SessionProxyImpl createProxy(long idleTimeout, long maxSessionDuration, long sessionStartTime) {
+        return new SessionProxyImpl(logger, parent, sessionCreator, timingProvider,
+            new SessionSplittingConfiguration(idleTimeout, maxSessionDuration), CLIENT_IP_ADDRESS, sessionStartTime);
+    }
+
+    private static OpenKitImpl createOpenKit(SessionSplittingConfiguration sessionSplittingConfiguration) {
+        Logger logger = mock(Logger.class);
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "device", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, ErrorReportingConfiguration.DISABLED, SamplingConfiguration.DISABLED,
+            sessionSplittingConfiguration);
+        return new OpenKitImpl(logger, configuration, mock(TimingProvider.class), mock(ThreadIDProvider.class),
+            new BeaconCacheImpl(logger), mock(BeaconSender.class), mock(BeaconCacheEvictor.class));
+    }
+}
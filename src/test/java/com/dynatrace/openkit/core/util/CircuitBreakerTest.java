@@ -0,0 +1,153 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CircuitBreakerTest {
+
+    private RetryPolicy openDurationPolicy;
+
+    @Before
+    public void setUp() {
+        // always choose the upper bound, which is three times the previous open duration
+        openDurationPolicy = new RetryPolicy(1000L, 10000L, new Random() {
+            @Override
+            public double nextDouble() {
+                return 1.0;
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveFailureThresholdIsRejected() {
+        new CircuitBreaker(0, openDurationPolicy);
+    }
+
+    @Test
+    public void newBreakerIsClosed() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(3, openDurationPolicy);
+
+        // then
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.CLOSED)));
+        assertThat(target.isRequestAllowed(0L), is(true));
+    }
+
+    @Test
+    public void breakerOpensAfterConsecutiveFailuresReachThreshold() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(3, openDurationPolicy);
+
+        // when, then
+        assertThat(target.onFailure(100L), is(false));
+        assertThat(target.onFailure(200L), is(false));
+        assertThat(target.onFailure(300L), is(true));
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+        assertThat(target.getOpenUntilTimestamp(), is(equalTo(3300L)));
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(3, openDurationPolicy);
+        target.onFailure(100L);
+        target.onFailure(200L);
+
+        // when
+        target.onSuccess();
+
+        // then
+        assertThat(target.onFailure(300L), is(false));
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.CLOSED)));
+    }
+
+    @Test
+    public void openBreakerRejectsRequestsUntilOpenDurationElapsed() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(1, openDurationPolicy);
+        target.onFailure(0L);
+
+        // then
+        assertThat(target.isRequestAllowed(2999L), is(false));
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+        assertThat(target.isRequestAllowed(3000L), is(true));
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.HALF_OPEN)));
+    }
+
+    @Test
+    public void successInHalfOpenStateClosesBreaker() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(1, openDurationPolicy);
+        target.onFailure(0L);
+        target.isRequestAllowed(3000L);
+
+        // when
+        target.onSuccess();
+
+        // then
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.CLOSED)));
+        assertThat(target.isRequestAllowed(3000L), is(true));
+    }
+
+    @Test
+    public void failureInHalfOpenStateReopensBreakerForLongerDuration() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(3, openDurationPolicy);
+        target.onFailure(0L);
+        target.onFailure(0L);
+        target.onFailure(0L);
+        target.isRequestAllowed(3000L);
+
+        // when
+        boolean obtained = target.onFailure(3000L);
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(target.getState(), is(equalTo(CircuitBreaker.State.OPEN)));
+        assertThat(target.getOpenUntilTimestamp(), is(equalTo(12000L)));
+
+        // and the open duration is capped by the policy
+        target.isRequestAllowed(12000L);
+        target.onFailure(12000L);
+        assertThat(target.getOpenUntilTimestamp(), is(equalTo(22000L)));
+    }
+
+    @Test
+    public void openDurationStartsOverAfterSuccess() {
+        // given
+        CircuitBreaker target = new CircuitBreaker(1, openDurationPolicy);
+        target.onFailure(0L);
+        target.isRequestAllowed(3000L);
+        target.onFailure(3000L);
+        target.isRequestAllowed(12000L);
+        target.onSuccess();
+
+        // when
+        target.onFailure(20000L);
+
+        // then
+        assertThat(target.getOpenUntilTimestamp(), is(equalTo(23000L)));
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simple contention benchmark comparing a single {@link AtomicLong} with the {@link LongCounter} implementations.
+ *
+ * <p>
+ *     All threads add to the same counter, like threads inserting data into the beacon cache update its size.
+ *     This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ *     Optional arguments are the number of threads (default: number of available processors)
+ *     and the number of updates per thread (default 10000000).
+ * </p>
+ */
+public class LongCounterBenchmark {
+
+    private static final int DEFAULT_NUM_UPDATES = 10000000;
+    private static final int NUM_WARMUP_ROUNDS = 3;
+    private static final int NUM_ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int numUpdates = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_UPDATES;
+
+        System.out.println("threads: " + numThreads + ", updates per thread: " + numUpdates);
+        run("AtomicLong        ", new AtomicLongCounter(), numThreads, numUpdates);
+        run("StripedLongCounter", new StripedLongCounter(numThreads), numThreads, numUpdates);
+        run("LongCounter       ", LongCounter.create(), numThreads, numUpdates);
+    }
+
+    private static void run(String name, LongCounter counter, int numThreads, int numUpdates) throws InterruptedException {
+        for (int i = 0; i < NUM_WARMUP_ROUNDS; i++) {
+            runRound(counter, numThreads, numUpdates);
+        }
+
+        long totalNanos = 0;
+        for (int i = 0; i < NUM_ROUNDS; i++) {
+            totalNanos += runRound(counter, numThreads, numUpdates);
+        }
+
+        long expected = (long) (NUM_WARMUP_ROUNDS + NUM_ROUNDS) * numThreads * numUpdates;
+        if (counter.sum() != expected) {
+            throw new IllegalStateException("Updates have been lost");
+        }
+
+        long nanosPerRound = totalNanos / NUM_ROUNDS;
+        System.out.println(name + " (" + counter.getClass().getSimpleName() + ") - avg. time per round: "
+            + (nanosPerRound / 1000000) + " ms, per update: " + String.format("%.2f", (double) nanosPerRound / numUpdates) + " ns");
+    }
+
+    private static long runRound(final LongCounter counter, int numThreads, final int numUpdates) throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < numUpdates; j++) {
+                        counter.add(1L);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Baseline, which is what the beacon cache used before.
+     */
+    private static final class AtomicLongCounter extends LongCounter {
+
+        private final AtomicLong value = new AtomicLong(0L);
+
+        @Override
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        @Override
+        public long sum() {
+            return value.get();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LongCounterTest {
+
+    @Test
+    public void createUsesLongAdderIfAvailable() {
+        // given
+        boolean longAdderAvailable;
+        try {
+            Class.forName("java.util.concurrent.atomic.LongAdder");
+            longAdderAvailable = true;
+        } catch (ClassNotFoundException e) {
+            longAdderAvailable = false;
+        }
+
+        // when
+        LongCounter obtained = LongCounter.create();
+
+        // then
+        if (longAdderAvailable) {
+            assertThat(obtained.getClass().getName(), is(equalTo("com.dynatrace.openkit.core.util.LongAdderCounter")));
+        } else {
+            assertThat(obtained, is(instanceOf(StripedLongCounter.class)));
+        }
+    }
+
+    @Test
+    public void newCounterIsZero() {
+        // then
+        assertThat(LongCounter.create().sum(), is(equalTo(0L)));
+        assertThat(new StripedLongCounter().sum(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void sumReturnsSumOfAllUpdates() {
+        // given
+        LongCounter target = LongCounter.create();
+
+        // when
+        target.add(42L);
+        target.add(-2L);
+        target.increment();
+
+        // then
+        assertThat(target.sum(), is(equalTo(41L)));
+        assertThat(target.toString(), is(equalTo("41")));
+    }
+
+    @Test
+    public void stripedCounterSumReturnsSumOfAllUpdates() {
+        // given
+        LongCounter target = new StripedLongCounter(4);
+
+        // when
+        target.add(42L);
+        target.add(-2L);
+        target.increment();
+
+        // then
+        assertThat(target.sum(), is(equalTo(41L)));
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws InterruptedException {
+        // then
+        assertThat(updateConcurrently(LongCounter.create()), is(equalTo(0L)));
+        assertThat(updateConcurrently(new StripedLongCounter(8)), is(equalTo(0L)));
+    }
+
+    /**
+     * Let multiple threads add and subtract the same values and return the final sum.
+     */
+    private static long updateConcurrently(final LongCounter target) throws InterruptedException {
+        final int numThreads = 8;
+        final int numUpdates = 10000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final long delta = i % 2 == 0 ? 3L : -3L;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < numUpdates; j++) {
+                        target.add(delta);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return target.sum();
+    }
+}
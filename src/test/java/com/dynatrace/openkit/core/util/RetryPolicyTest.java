@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.core.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class RetryPolicyTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveBaseDelayIsRejected() {
+        new RetryPolicy(0L, 1000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxDelayLessThanBaseDelayIsRejected() {
+        new RetryPolicy(1000L, 999L);
+    }
+
+    @Test
+    public void firstDelayIsBaseDelayWithoutJitter() {
+        // given
+        RetryPolicy target = new RetryPolicy(1000L, 60000L, new FixedRandom(0.0));
+
+        // then
+        assertThat(target.getFirstDelay(), is(equalTo(1000L)));
+        assertThat(target.getNextDelay(20000L), is(equalTo(1000L)));
+    }
+
+    @Test
+    public void delayIsAtMostThreeTimesThePreviousDelay() {
+        // given
+        RetryPolicy target = new RetryPolicy(1000L, 60000L, new FixedRandom(1.0));
+
+        // then
+        assertThat(target.getFirstDelay(), is(equalTo(3000L)));
+        assertThat(target.getNextDelay(3000L), is(equalTo(9000L)));
+        assertThat(target.getNextDelay(9000L), is(equalTo(27000L)));
+    }
+
+    @Test
+    public void delayIsCappedAtMaxDelay() {
+        // given
+        RetryPolicy target = new RetryPolicy(1000L, 60000L, new FixedRandom(1.0));
+
+        // then
+        assertThat(target.getNextDelay(27000L), is(equalTo(60000L)));
+        assertThat(target.getNextDelay(60000L), is(equalTo(60000L)));
+        assertThat(target.getNextDelay(Long.MAX_VALUE), is(equalTo(60000L)));
+    }
+
+    @Test
+    public void delayIsJitteredBetweenBaseDelayAndUpperBound() {
+        // given
+        RetryPolicy target = new RetryPolicy(1000L, 60000L, new FixedRandom(0.5));
+
+        // then
+        assertThat(target.getFirstDelay(), is(equalTo(2000L)));
+        assertThat(target.getNextDelay(2000L), is(equalTo(3500L)));
+    }
+
+    @Test
+    public void previousDelayBelowBaseDelayIsTreatedAsBaseDelay() {
+        // given
+        RetryPolicy target = new RetryPolicy(1000L, 60000L, new FixedRandom(1.0));
+
+        // then
+        assertThat(target.getNextDelay(0L), is(equalTo(3000L)));
+    }
+
+    @Test
+    public void delaysStayWithinBoundsWithRandomJitter() {
+        // given
+        RetryPolicy target = new RetryPolicy(200L, 1600L, new Random(42));
+
+        // when, then
+        long delay = target.getFirstDelay();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(delay, is(greaterThanOrEqualTo(200L)));
+            assertThat(delay, is(lessThanOrEqualTo(1600L)));
+            delay = target.getNextDelay(delay);
+        }
+    }
+
+    @Test
+    public void delaysAreDeterministicForTheSameSeed() {
+        // given
+        RetryPolicy first = new RetryPolicy(200L, 1600L, new Random(4711));
+        RetryPolicy second = new RetryPolicy(200L, 1600L, new Random(4711));
+
+        // when, then
+        long firstDelay = first.getFirstDelay();
+        long secondDelay = second.getFirstDelay();
+        for (int i = 0; i < 10; i++) {
+            assertThat(firstDelay, is(equalTo(secondDelay)));
+            firstDelay = first.getNextDelay(firstDelay);
+            secondDelay = second.getNextDelay(secondDelay);
+        }
+    }
+
+    private static final class FixedRandom extends Random {
+
+        private final double value;
+
+        private FixedRandom(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StripedCellsTest {
+
+    @Test
+    public void numberOfStripesIsRoundedUpToPowerOfTwo() {
+        // then
+        assertThat(new StripedCells(1, 1).getNumberOfStripes(), is(equalTo(1)));
+        assertThat(new StripedCells(1, 3).getNumberOfStripes(), is(equalTo(4)));
+        assertThat(new StripedCells(1, 8).getNumberOfStripes(), is(equalTo(8)));
+    }
+
+    @Test
+    public void numberOfStripesIsLimited() {
+        // then
+        assertThat(new StripedCells(1, 1000).getNumberOfStripes(), is(equalTo(64)));
+    }
+
+    @Test
+    public void sumThenResetReturnsSumOfAllAddedValues() {
+        // given
+        StripedCells target = new StripedCells(2, 4);
+        target.add(0, 3L);
+        target.add(0, 4L);
+        target.add(1, 42L);
+
+        // when
+        long obtained = target.sumThenReset(0);
+
+        // then
+        assertThat(obtained, is(equalTo(7L)));
+        assertThat(target.sumThenReset(0), is(equalTo(0L)));
+        assertThat(target.sumThenReset(1), is(equalTo(42L)));
+    }
+
+    @Test
+    public void sumReturnsSumOfAllAddedValuesWithoutReset() {
+        // given
+        StripedCells target = new StripedCells(2, 4);
+        target.add(0, 3L);
+        target.add(0, -1L);
+        target.add(1, 42L);
+
+        // when
+        long obtained = target.sum(0);
+
+        // then
+        assertThat(obtained, is(equalTo(2L)));
+        assertThat(target.sum(0), is(equalTo(2L)));
+        assertThat(target.sum(1), is(equalTo(42L)));
+    }
+
+    @Test
+    public void sumDoubleThenResetReturnsSumOfAllAddedValues() {
+        // given
+        StripedCells target = new StripedCells(1, 4);
+        target.addDouble(0, 1.5);
+        target.addDouble(0, -0.25);
+
+        // when
+        double obtained = target.sumDoubleThenReset(0);
+
+        // then
+        assertThat(obtained, is(closeTo(1.25, 0.0)));
+        assertThat(target.sumDoubleThenReset(0), is(closeTo(0.0, 0.0)));
+    }
+
+    @Test
+    public void concurrentlyAddedValuesAreNotLost() throws InterruptedException {
+        // given
+        final int numThreads = 8;
+        final int numIncrements = 10000;
+        final StripedCells target = new StripedCells(1, numThreads);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < numIncrements; j++) {
+                        target.add(0, 1L);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        // when
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        assertThat(target.sumThenReset(0), is(equalTo((long) numThreads * numIncrements)));
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.core.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TokenBucketTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityIsRejected() {
+        new TokenBucket(0, 1000L, 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveRefillIntervalIsRejected() {
+        new TokenBucket(1, 0L, 0L);
+    }
+
+    @Test
+    public void newBucketIsFull() {
+        // given
+        TokenBucket target = new TokenBucket(3, 1000L, 0L);
+
+        // then
+        assertThat(target.isFull(0L), is(true));
+    }
+
+    @Test
+    public void tryAcquireFailsIfBucketIsEmpty() {
+        // given
+        TokenBucket target = new TokenBucket(3, 1000L, 0L);
+
+        // then
+        assertThat(target.tryAcquire(0L), is(true));
+        assertThat(target.tryAcquire(0L), is(true));
+        assertThat(target.tryAcquire(0L), is(true));
+        assertThat(target.tryAcquire(0L), is(false));
+        assertThat(target.isFull(0L), is(false));
+    }
+
+    @Test
+    public void bucketIsRefilledProportionallyToElapsedTime() {
+        // given
+        TokenBucket target = new TokenBucket(2, 1000L, 0L);
+        target.tryAcquire(0L);
+        target.tryAcquire(0L);
+
+        // then one token is added every 500 milliseconds
+        assertThat(target.tryAcquire(499L), is(false));
+        assertThat(target.tryAcquire(500L), is(true));
+        assertThat(target.tryAcquire(500L), is(false));
+    }
+
+    @Test
+    public void bucketIsFullAfterRefillInterval() {
+        // given
+        TokenBucket target = new TokenBucket(2, 1000L, 0L);
+        target.tryAcquire(0L);
+        target.tryAcquire(0L);
+
+        // then
+        assertThat(target.isFull(1000L), is(true));
+        assertThat(target.tryAcquire(5000L), is(true));
+        assertThat(target.tryAcquire(5000L), is(true));
+        assertThat(target.tryAcquire(5000L), is(false));
+    }
+
+    @Test
+    public void getWaitTimeIsZeroIfTokensAreAvailable() {
+        // given
+        TokenBucket target = new TokenBucket(2, 1000L, 0L);
+
+        // then
+        assertThat(target.getWaitTime(2, 0L), is(0L));
+    }
+
+    @Test
+    public void getWaitTimeIsTimeUntilTokensAreRefilled() {
+        // given
+        TokenBucket target = new TokenBucket(2, 1000L, 0L);
+        target.consume(2, 0L);
+
+        // then one token is added every 500 milliseconds
+        assertThat(target.getWaitTime(1, 0L), is(500L));
+        assertThat(target.getWaitTime(1, 200L), is(300L));
+        assertThat(target.getWaitTime(2, 200L), is(800L));
+    }
+
+    @Test
+    public void consumeOverdrawsBucket() {
+        // given
+        TokenBucket target = new TokenBucket(100, 1000L, 0L);
+
+        // when
+        target.consume(250, 0L);
+
+        // then the debt of 150 tokens is refilled first
+        assertThat(target.getWaitTime(0, 0L), is(1500L));
+        assertThat(target.tryAcquire(1500L), is(false));
+        assertThat(target.tryAcquire(1510L), is(true));
+    }
+
+    @Test
+    public void overdrawnBucketIsNotFullAfterRefillInterval() {
+        // given
+        TokenBucket target = new TokenBucket(100, 1000L, 0L);
+        target.consume(250, 0L);
+
+        // then
+        assertThat(target.isFull(1000L), is(false));
+        assertThat(target.isFull(2500L), is(true));
+    }
+}
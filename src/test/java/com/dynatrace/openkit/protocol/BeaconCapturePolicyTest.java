@@ -0,0 +1,105 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.CapturePolicy;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BeaconCapturePolicyTest {
+
+    private Configuration configuration;
+    private Beacon target;
+
+    @Before
+    public void setUp() {
+        configuration = spy(new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.PERFORMANCE, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, ErrorReportingConfiguration.DISABLED));
+        Logger logger = mock(Logger.class);
+        target = new Beacon(logger, new BeaconCacheImpl(logger), configuration, "127.0.0.1", mock(ThreadIDProvider.class),
+            mock(TimingProvider.class), 0L);
+    }
+
+    @Test
+    public void capturePolicyOfConfigurationIsUsedIfCapturingIsAllowed() {
+        // then
+        assertThat(target.getCapturePolicy(), is(sameInstance(configuration.getCapturePolicy())));
+        assertThat(target.isCapturingDisabled(EventType.ACTION), is(false));
+        assertThat(target.isCapturingDisabled(EventType.IDENTIFY_USER), is(true));
+    }
+
+    @Test
+    public void nothingIsCapturedIfMultiplicityDisablesCapturing() {
+        // when
+        target.setBeaconConfiguration(new BeaconConfiguration(0));
+
+        // then
+        assertThat(target.getCapturePolicy(), is(sameInstance(CapturePolicy.NOTHING)));
+        for (EventType eventType : EventType.values()) {
+            assertThat(target.isCapturingDisabled(eventType), is(true));
+        }
+    }
+
+    @Test
+    public void capturePolicyIsReadOncePerCheck() {
+        // when
+        target.isCapturingDisabled(EventType.ACTION);
+        target.isCapturingDisabled(EventType.CRASH);
+
+        // then
+        verify(configuration, times(2)).getCapturePolicy();
+    }
+
+    @Test
+    public void capturePolicyIsNotReadIfMultiplicityDisablesCapturing() {
+        // given
+        target.setBeaconConfiguration(new BeaconConfiguration(0));
+
+        // when
+        target.isCapturingDisabled(EventType.ACTION);
+
+        // then
+        verify(configuration, times(0)).getCapturePolicy();
+    }
+}
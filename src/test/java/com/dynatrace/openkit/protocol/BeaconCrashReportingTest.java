@@ -0,0 +1,114 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BeaconCrashReportingTest {
+
+    private static final long DEDUPLICATION_WINDOW = 1000L;
+
+    private Logger logger;
+    private BeaconCacheImpl beaconCache;
+    private Beacon target;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        TimingProvider timingProvider = mock(TimingProvider.class);
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(100L);
+
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, new ErrorReportingConfiguration(DEDUPLICATION_WINDOW, 0, 0L));
+        beaconCache = new BeaconCacheImpl(logger);
+        target = new Beacon(logger, beaconCache, configuration, "127.0.0.1", mock(ThreadIDProvider.class), timingProvider, 0L);
+    }
+
+    @Test
+    public void repeatedThrowableIsOnlyRenderedWhenReported() {
+        // given
+        CountingThrowable throwable = new CountingThrowable();
+
+        // when
+        target.reportCrash(throwable);
+        target.reportCrash(throwable);
+        target.reportCrash(throwable);
+
+        // then
+        assertThat(throwable.numRendered, is(1));
+
+        // and when the repeats are summarized
+        target.addErrorSummaries();
+
+        // then
+        assertThat(throwable.numRendered, is(2));
+    }
+
+    @Test
+    public void repeatedStacktraceIsOnlyEncodedWhenReported() {
+        // when
+        target.reportCrash("crash", "reason", "stack trace");
+        target.reportCrash("crash", "reason", "stack trace");
+        target.addErrorSummaries();
+
+        // then
+        String obtained = beaconCache.getNextBeaconChunk(target.getSessionNumber(), "", 4096, '&');
+        assertThat(obtained, containsString("st=stack%20trace"));
+        assertThat(obtained, containsString("oc=1"));
+    }
+
+    private static final class CountingThrowable extends RuntimeException {
+
+        private int numRendered = 0;
+
+        private CountingThrowable() {
+            super("reason");
+        }
+
+        @Override
+        public String toString() {
+            numRendered++;
+            return super.toString();
+        }
+    }
+}
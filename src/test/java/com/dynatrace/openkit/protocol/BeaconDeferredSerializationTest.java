@@ -0,0 +1,159 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.objects.BaseActionImpl;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that deferred serialization gives the same beacon data as serializing each record when it's reported.
+ */
+public class BeaconDeferredSerializationTest {
+
+    private static final int ACTION_ID = 17;
+    private static final int THREAD_ID = 1234567;
+
+    private Logger logger;
+    private ThreadIDProvider threadIDProvider;
+    private TimingProvider timingProvider;
+
+    private BeaconCacheImpl eagerBeaconCache;
+    private Beacon eagerBeacon;
+    private BeaconCacheImpl deferredBeaconCache;
+    private Beacon deferredBeacon;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        threadIDProvider = mock(ThreadIDProvider.class);
+        when(threadIDProvider.getThreadID()).thenReturn(THREAD_ID);
+        timingProvider = mock(TimingProvider.class);
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(1000L);
+
+        eagerBeaconCache = new BeaconCacheImpl(logger);
+        eagerBeacon = createBeacon(eagerBeaconCache, false);
+        deferredBeaconCache = new BeaconCacheImpl(logger);
+        deferredBeacon = createBeacon(deferredBeaconCache, true);
+    }
+
+    @Test
+    public void deferredSerializationGivesSameEventData() {
+        // when
+        for (Beacon beacon : new Beacon[]{eagerBeacon, deferredBeacon}) {
+            beacon.startSession();
+            beacon.reportValue(ACTION_ID, "IntValue", 42, 1100L);
+            beacon.reportValue(ACTION_ID, "DoubleValue", 3.125, 1200L);
+            beacon.reportValue(ACTION_ID, "StringValue", "a value & more", 1300L);
+            beacon.reportEvent(ACTION_ID, "event", 1400L);
+            beacon.reportError(ACTION_ID, "error", 666, "reason");
+            beacon.reportCrash("crash", "reason", "stack trace");
+            beacon.identifyUser("user", 1500L);
+        }
+
+        // then
+        String[] eagerEvents = eagerBeacon.getEvents();
+        assertThat(eagerEvents, is(arrayWithSize(8)));
+        assertThat(deferredBeacon.getEvents(), is(equalTo(eagerEvents)));
+        assertThat(eagerEvents[1], is(equalTo("et=12&na=IntValue&it=" + THREAD_ID + "&pa=" + ACTION_ID + "&s0=2&t0=100&vl=42")));
+    }
+
+    @Test
+    public void deferredSerializationGivesSameActionData() {
+        // given
+        BaseActionImpl action = mock(BaseActionImpl.class);
+        when(action.getID()).thenReturn(ACTION_ID);
+        when(action.getParentID()).thenReturn(13);
+        when(action.getName()).thenReturn("MyAction");
+        when(action.getStartTime()).thenReturn(1100L);
+        when(action.getEndTime()).thenReturn(1300L);
+        when(action.getStartSequenceNo()).thenReturn(1);
+        when(action.getEndSequenceNo()).thenReturn(2);
+
+        // when
+        eagerBeacon.addAction(action);
+        deferredBeacon.addAction(action);
+
+        // then
+        String[] eagerActions = eagerBeacon.getActions();
+        assertThat(eagerActions, is(equalTo(new String[]{
+            "et=1&na=MyAction&it=" + THREAD_ID + "&ca=" + ACTION_ID + "&pa=13&s0=1&t0=100&s1=2&t1=200"
+        })));
+        assertThat(deferredBeacon.getActions(), is(equalTo(eagerActions)));
+    }
+
+    @Test
+    public void deferredSerializationGivesSameBeaconChunk() {
+        // given
+        BaseActionImpl action = mock(BaseActionImpl.class);
+        when(action.getID()).thenReturn(ACTION_ID);
+        when(action.getName()).thenReturn("MyAction");
+
+        // when
+        for (Beacon beacon : new Beacon[]{eagerBeacon, deferredBeacon}) {
+            beacon.reportEvent(ACTION_ID, "event", 1100L);
+            beacon.addAction(action);
+            beacon.reportValue(ACTION_ID, "IntValue", 42, 1200L);
+        }
+
+        // then
+        String eagerChunk = eagerBeaconCache.getNextBeaconChunk(eagerBeacon.getSessionNumber(), "prefix", 4096, '&');
+        String deferredChunk = deferredBeaconCache.getNextBeaconChunk(deferredBeacon.getSessionNumber(), "prefix", 4096, '&');
+        assertThat(deferredChunk, is(equalTo(eagerChunk)));
+    }
+
+    @Test
+    public void deferredSerializationAccountsCompactRecordSize() {
+        // when
+        deferredBeacon.reportEvent(ACTION_ID, "event", 0L);
+
+        // then
+        assertThat(deferredBeaconCache.getNumBytesInCache(), is(BeaconEventRecord.RECORD_SIZE_IN_BYTES + "event".length() * 2L));
+    }
+
+    private Beacon createBeacon(BeaconCacheImpl beaconCache, boolean deferredSerialization) {
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1L, -1L, -1L, deferredSerialization), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, ErrorReportingConfiguration.DISABLED);
+        return new Beacon(logger, beaconCache, configuration, "127.0.0.1", threadIDProvider, timingProvider, 1000L);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the deduplication and rate limiting of errors and crashes reported on a {@link Beacon}.
+ */
+public class BeaconErrorReportingTest {
+
+    private static final int ACTION_ID = 17;
+    private static final int THREAD_ID = 1234567;
+
+    private Logger logger;
+    private ThreadIDProvider threadIDProvider;
+    private TimingProvider timingProvider;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        threadIDProvider = mock(ThreadIDProvider.class);
+        when(threadIDProvider.getThreadID()).thenReturn(THREAD_ID);
+        timingProvider = mock(TimingProvider.class);
+        when(timingProvider.provideTimestampInMilliseconds()).thenReturn(0L);
+    }
+
+    @Test
+    public void repeatedErrorsAreCollapsedIfDeduplicationIsEnabled() {
+        // given
+        Beacon target = createBeacon(new ErrorReportingConfiguration(1000L, 0, 0L));
+
+        // when
+        target.reportError(ACTION_ID, "error", 666, "reason");
+        target.reportError(ACTION_ID, "error", 666, "reason");
+        target.reportError(ACTION_ID, "error", 666, "reason");
+        target.addErrorSummaries();
+
+        // then
+        assertThat(target.getEvents(), is(equalTo(new String[]{
+            "et=40&na=error&it=" + THREAD_ID + "&pa=" + ACTION_ID + "&s0=1&t0=0&ev=666&rs=reason",
+            "et=40&na=error&it=" + THREAD_ID + "&pa=" + ACTION_ID + "&s0=2&t0=0&ev=666&rs=reason&oc=2"
+        })));
+    }
+
+    @Test
+    public void repeatedErrorsAreReportedIfDeduplicationIsDisabled() {
+        // given
+        Beacon target = createBeacon(ErrorReportingConfiguration.DISABLED);
+
+        // when
+        target.reportError(ACTION_ID, "error", 666, "reason");
+        target.reportError(ACTION_ID, "error", 666, "reason");
+        target.addErrorSummaries();
+
+        // then
+        assertThat(target.getEvents(), is(equalTo(new String[]{
+            "et=40&na=error&it=" + THREAD_ID + "&pa=" + ACTION_ID + "&s0=1&t0=0&ev=666&rs=reason",
+            "et=40&na=error&it=" + THREAD_ID + "&pa=" + ACTION_ID + "&s0=2&t0=0&ev=666&rs=reason"
+        })));
+    }
+
+    @Test
+    public void repeatedCrashesAreCollapsedIfDeduplicationIsEnabled() {
+        // given
+        Beacon target = createBeacon(new ErrorReportingConfiguration(1000L, 0, 0L));
+
+        // when
+        target.reportCrash("crash", "reason", "stacktrace");
+        target.reportCrash("crash", "reason", "stacktrace");
+        target.addErrorSummaries();
+
+        // then
+        assertThat(target.getEvents(), is(equalTo(new String[]{
+            "et=50&na=crash&it=" + THREAD_ID + "&pa=0&s0=1&t0=0&rs=reason&st=stacktrace",
+            "et=50&na=crash&it=" + THREAD_ID + "&pa=0&s0=2&t0=0&rs=reason&st=stacktrace&oc=1"
+        })));
+    }
+
+    @Test
+    public void errorsExceedingRateLimitAreDropped() {
+        // given
+        Beacon target = createBeacon(new ErrorReportingConfiguration(0L, 1, 1000L));
+
+        // when
+        target.reportError(ACTION_ID, "error", 1, "reason");
+        target.reportError(ACTION_ID, "error", 2, "reason");
+
+        // then
+        assertThat(target.getEvents(), is(equalTo(new String[]{
+            "et=40&na=error&it=" + THREAD_ID + "&pa=" + ACTION_ID + "&s0=1&t0=0&ev=1&rs=reason"
+        })));
+        assertThat(target.getNumberOfDroppedErrors(), is(equalTo(1L)));
+    }
+
+    private Beacon createBeacon(ErrorReportingConfiguration errorReportingConfiguration) {
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, errorReportingConfiguration);
+        return new Beacon(logger, new BeaconCacheImpl(logger), configuration, "127.0.0.1", threadIDProvider, timingProvider, 0L);
+    }
+}
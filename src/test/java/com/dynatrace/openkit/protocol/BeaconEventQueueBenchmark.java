@@ -0,0 +1,139 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.AsyncOverflowPolicy;
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.core.util.DefaultLogger;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.DefaultThreadIDProvider;
+import com.dynatrace.openkit.providers.DefaultTimingProvider;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Simple benchmark measuring the cost of reporting a value on the caller's thread,
+ * comparing synchronous serialization with the asynchronous reporting mode.
+ *
+ * <p>
+ *     This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ *     Optional arguments are the number of reporting threads (default 4), the number of values
+ *     reported per thread (default 1000000) and the buffer capacity (default 65536).
+ * </p>
+ */
+public class BeaconEventQueueBenchmark {
+
+    private static final int DEFAULT_NUM_THREADS = 4;
+    private static final int DEFAULT_NUM_EVENTS_PER_THREAD = 1000000;
+    private static final int DEFAULT_BUFFER_CAPACITY = 64 * 1024;
+
+    public static void main(String[] args) throws InterruptedException {
+        int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_THREADS;
+        int numEventsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_EVENTS_PER_THREAD;
+        int bufferCapacity = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BUFFER_CAPACITY;
+
+        Logger logger = new DefaultLogger(LogLevel.WARN);
+
+        // warmup
+        runBenchmark(logger, "warmup (sync)", AsyncReportingConfiguration.DISABLED, numThreads, numEventsPerThread / 10);
+        runBenchmark(logger, "warmup (async)", new AsyncReportingConfiguration(bufferCapacity, AsyncOverflowPolicy.DROP),
+            numThreads, numEventsPerThread / 10);
+
+        runBenchmark(logger, "sync", AsyncReportingConfiguration.DISABLED, numThreads, numEventsPerThread);
+        for (AsyncOverflowPolicy overflowPolicy : AsyncOverflowPolicy.values()) {
+            runBenchmark(logger, "async " + overflowPolicy, new AsyncReportingConfiguration(bufferCapacity, overflowPolicy),
+                numThreads, numEventsPerThread);
+        }
+    }
+
+    private static void runBenchmark(Logger logger,
+                                     String name,
+                                     AsyncReportingConfiguration asyncReportingConfiguration,
+                                     int numThreads,
+                                     final int numEventsPerThread) throws InterruptedException {
+
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "benchmark", "benchmark", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            asyncReportingConfiguration);
+        BeaconEventQueue eventQueue = asyncReportingConfiguration.isEnabled()
+            ? new BeaconEventQueue(logger, asyncReportingConfiguration)
+            : null;
+        final DefaultTimingProvider timingProvider = new DefaultTimingProvider();
+        final Beacon beacon = new Beacon(logger, new BeaconCacheImpl(logger), configuration, "127.0.0.1",
+            new DefaultThreadIDProvider(), timingProvider, timingProvider.provideTimestampInMilliseconds(), eventQueue);
+        if (eventQueue != null) {
+            eventQueue.start();
+        }
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final long[] durations = new long[numThreads];
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    long timestamp = timingProvider.provideTimestampInMilliseconds();
+                    long start = System.nanoTime();
+                    for (int j = 0; j < numEventsPerThread; j++) {
+                        beacon.reportValue(1, "value", j, timestamp);
+                    }
+                    durations[threadIndex] = System.nanoTime() - start;
+                }
+            });
+            threads[i].start();
+        }
+
+        startLatch.countDown();
+        long totalDuration = 0;
+        for (int i = 0; i < numThreads; i++) {
+            threads[i].join();
+            totalDuration += durations[i];
+        }
+
+        long droppedEvents = 0;
+        if (eventQueue != null) {
+            eventQueue.stop();
+            droppedEvents = eventQueue.getNumberOfDroppedEvents();
+        }
+        beacon.clearData();
+
+        long numEvents = (long) numThreads * numEventsPerThread;
+        System.out.println(name + ": " + (totalDuration / numEvents) + " ns per reported value on caller thread"
+            + ", dropped events: " + droppedEvents + " of " + numEvents);
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.AsyncOverflowPolicy;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BeaconEventQueueTest {
+
+    private Logger mockLogger;
+    private Beacon mockBeacon;
+
+    @Before
+    public void setUp() {
+        mockLogger = mock(Logger.class);
+        mockBeacon = mock(Beacon.class);
+    }
+
+    @Test
+    public void capacityIsRoundedUpToNextPowerOfTwo() {
+        // when, then
+        assertThat(BeaconEventQueue.capacityFor(-1), is(equalTo(1)));
+        assertThat(BeaconEventQueue.capacityFor(1), is(equalTo(1)));
+        assertThat(BeaconEventQueue.capacityFor(2), is(equalTo(2)));
+        assertThat(BeaconEventQueue.capacityFor(3), is(equalTo(4)));
+        assertThat(BeaconEventQueue.capacityFor(1000), is(equalTo(1024)));
+        assertThat(BeaconEventQueue.capacityFor(1024), is(equalTo(1024)));
+    }
+
+    @Test
+    public void claimedEventIsNotSerializedBeforeItIsPublished() {
+        // given
+        BeaconEventQueue target = createQueue(4, AsyncOverflowPolicy.DROP);
+        BeaconEvent event = claimAndInit(target);
+
+        // when
+        int obtained = target.drain(Integer.MAX_VALUE);
+
+        // then
+        assertThat(obtained, is(equalTo(0)));
+        verify(mockBeacon, never()).serializeEvent(any(BeaconEvent.class));
+
+        // and when published
+        target.publish(event);
+        obtained = target.drain(Integer.MAX_VALUE);
+
+        // then
+        assertThat(obtained, is(equalTo(1)));
+        verify(mockBeacon, times(1)).serializeEvent(event);
+    }
+
+    @Test
+    public void drainedEventIsCleared() {
+        // given
+        BeaconEventQueue target = createQueue(4, AsyncOverflowPolicy.DROP);
+        BeaconEvent event = claimAndInit(target);
+        event.stringValue = "value";
+        target.publish(event);
+
+        // when
+        target.drain(Integer.MAX_VALUE);
+
+        // then
+        assertThat(event.beacon, is(nullValue()));
+        assertThat(event.name, is(nullValue()));
+        assertThat(event.stringValue, is(nullValue()));
+    }
+
+    @Test
+    public void slotsAreReusedAfterDraining() {
+        // given
+        BeaconEventQueue target = createQueue(2, AsyncOverflowPolicy.DROP);
+        BeaconEvent first = claimAndInit(target);
+        target.publish(first);
+        target.publish(claimAndInit(target));
+        target.drain(Integer.MAX_VALUE);
+
+        // when
+        BeaconEvent obtained = target.claim();
+
+        // then
+        assertThat(obtained, is(sameInstance(first)));
+    }
+
+    @Test
+    public void eventsAreDroppedIfQueueIsFullAndPolicyIsDrop() {
+        // given
+        BeaconEventQueue target = createQueue(2, AsyncOverflowPolicy.DROP);
+        target.publish(claimAndInit(target));
+        target.publish(claimAndInit(target));
+
+        // when
+        BeaconEvent obtained = target.claim();
+
+        // then
+        assertThat(obtained, is(nullValue()));
+        assertThat(target.getNumberOfDroppedEvents(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void blockedProducerDrainsQueueIfConsumerIsNotRunning() {
+        // given
+        BeaconEventQueue target = createQueue(2, AsyncOverflowPolicy.BLOCK);
+        target.publish(claimAndInit(target));
+        target.publish(claimAndInit(target));
+
+        // when
+        BeaconEvent obtained = target.claim();
+
+        // then
+        assertThat(obtained, is(notNullValue()));
+        assertThat(target.getNumberOfDroppedEvents(), is(equalTo(0L)));
+        verify(mockBeacon, times(2)).serializeEvent(any(BeaconEvent.class));
+    }
+
+    @Test
+    public void onlyEveryNthEventIsAcceptedAboveHighWaterMarkIfPolicyIsSample() {
+        // given
+        BeaconEventQueue target = createQueue(8, AsyncOverflowPolicy.SAMPLE);
+        for (int i = 0; i < 6; i++) {
+            // fill up to the high water mark (3/4 of capacity)
+            target.publish(claimAndInit(target));
+        }
+
+        // when
+        int numAccepted = 0;
+        for (int i = 0; i < BeaconEventQueue.SAMPLING_INTERVAL; i++) {
+            BeaconEvent event = target.claim();
+            if (event != null) {
+                numAccepted++;
+                event.init(mockBeacon, EventType.NAMED_EVENT, "event", 0, 1, 1, 0L);
+                target.publish(event);
+            }
+        }
+
+        // then
+        assertThat(numAccepted, is(equalTo(1)));
+        assertThat(target.getNumberOfDroppedEvents(), is(equalTo((long) BeaconEventQueue.SAMPLING_INTERVAL - 1)));
+    }
+
+    @Test
+    public void flushSerializesAllPublishedEvents() {
+        // given
+        BeaconEventQueue target = createQueue(8, AsyncOverflowPolicy.DROP);
+        target.publish(claimAndInit(target));
+        target.publish(claimAndInit(target));
+        target.publish(claimAndInit(target));
+
+        // when
+        target.flush();
+
+        // then
+        verify(mockBeacon, times(3)).serializeEvent(any(BeaconEvent.class));
+    }
+
+    @Test
+    public void serializationErrorsDoNotStopDraining() {
+        // given
+        BeaconEventQueue target = createQueue(8, AsyncOverflowPolicy.DROP);
+        doThrow(new IllegalStateException("test")).when(mockBeacon).serializeEvent(any(BeaconEvent.class));
+        target.publish(claimAndInit(target));
+        target.publish(claimAndInit(target));
+
+        // when
+        int obtained = target.drain(Integer.MAX_VALUE);
+
+        // then
+        assertThat(obtained, is(equalTo(2)));
+    }
+
+    @Test
+    public void stoppingTheConsumerSerializesRemainingEvents() {
+        // given
+        BeaconEventQueue target = createQueue(8, AsyncOverflowPolicy.DROP);
+        target.start();
+        target.publish(claimAndInit(target));
+        target.publish(claimAndInit(target));
+
+        // when
+        boolean obtained = target.stop();
+
+        // then
+        assertThat(obtained, is(true));
+        verify(mockBeacon, times(2)).serializeEvent(any(BeaconEvent.class));
+    }
+
+    private BeaconEventQueue createQueue(int capacity, AsyncOverflowPolicy overflowPolicy) {
+        return new BeaconEventQueue(mockLogger, new AsyncReportingConfiguration(capacity, overflowPolicy));
+    }
+
+    private BeaconEvent claimAndInit(BeaconEventQueue queue) {
+        BeaconEvent event = queue.claim();
+        event.init(mockBeacon, EventType.NAMED_EVENT, "event", 0, 1, 1, 0L);
+        return event;
+    }
+}
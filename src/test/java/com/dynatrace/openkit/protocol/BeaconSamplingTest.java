@@ -0,0 +1,127 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.SamplingConfiguration;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests how the client side session sampling factor is applied to the multiplicity of a {@link Beacon}.
+ */
+public class BeaconSamplingTest {
+
+    private static final String IP_ADDRESS = "127.0.0.1";
+
+    private Logger logger;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+    }
+
+    @Test
+    public void effectiveMultiplicityIsMultipliedBySessionSamplingFactor() {
+        // given
+        Beacon target = createBeacon(10, new BeaconConfiguration(1));
+
+        // then
+        assertThat(target.getMultiplicity(), is(equalTo(1)));
+        assertThat(target.getEffectiveMultiplicity(), is(equalTo(10)));
+    }
+
+    @Test
+    public void effectiveMultiplicityIsCappedAtIntegerMaxValue() {
+        // given
+        Beacon target = createBeacon(Integer.MAX_VALUE, new BeaconConfiguration(2));
+
+        // then
+        assertThat(target.getEffectiveMultiplicity(), is(equalTo(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void effectiveMultiplicityEqualsMultiplicityIfSamplingIsDisabled() {
+        // given
+        Beacon target = createBeacon(SamplingConfiguration.DEFAULT_SAMPLING_FACTOR, new BeaconConfiguration(3));
+
+        // then
+        assertThat(target.getEffectiveMultiplicity(), is(equalTo(3)));
+    }
+
+    @Test
+    public void effectiveMultiplicityIsSentToTheServer() throws UnsupportedEncodingException {
+        // given
+        HTTPClient httpClient = mock(HTTPClient.class);
+        when(httpClient.sendBeaconRequest(any(String.class), any(byte[].class))).thenReturn(mock(StatusResponse.class));
+        HTTPClientProvider httpClientProvider = mock(HTTPClientProvider.class);
+        when(httpClientProvider.createClient(any(HTTPClientConfiguration.class))).thenReturn(httpClient);
+        Beacon target = createBeacon(10, new BeaconConfiguration(2));
+        target.reportCrash("crash", "reason", "stack trace");
+
+        // when
+        target.send(httpClientProvider);
+
+        // then
+        ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
+        verify(httpClient, times(1)).sendBeaconRequest(eq(IP_ADDRESS), captor.capture());
+        assertThat(new String(captor.getValue(), "UTF-8"), containsString("&mp=20&"));
+    }
+
+    private Beacon createBeacon(int sessionSamplingFactor, BeaconConfiguration beaconConfiguration) {
+        Configuration configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), beaconConfiguration,
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, ErrorReportingConfiguration.DISABLED,
+            new SamplingConfiguration(sessionSamplingFactor, false, Collections.<String, Integer>emptyMap()));
+        return new Beacon(logger, new BeaconCacheImpl(logger), configuration, IP_ADDRESS, mock(ThreadIDProvider.class),
+            mock(TimingProvider.class), 0L);
+    }
+}
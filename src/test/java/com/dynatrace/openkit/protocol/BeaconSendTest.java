@@ -0,0 +1,207 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.CrashReportingLevel;
+import com.dynatrace.openkit.DataCollectionLevel;
+import com.dynatrace.openkit.api.BeaconPersistenceHook;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
+import com.dynatrace.openkit.core.configuration.AsyncReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconCacheConfiguration;
+import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.Configuration;
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import com.dynatrace.openkit.core.configuration.OpenKitType;
+import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
+import com.dynatrace.openkit.core.configuration.TrafficLimitConfiguration;
+import com.dynatrace.openkit.core.objects.Device;
+import com.dynatrace.openkit.protocol.ssl.SSLStrictTrustManager;
+import com.dynatrace.openkit.providers.DefaultSessionIDProvider;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import com.dynatrace.openkit.providers.ThreadIDProvider;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class BeaconSendTest {
+
+    private static final String IP_ADDRESS = "127.0.0.1";
+
+    private Logger logger;
+    private Configuration configuration;
+    private FakeTimingProvider timingProvider;
+    private HTTPClientProvider httpClientProvider;
+    private HTTPClient httpClient;
+
+    @Before
+    public void setUp() {
+        logger = mock(Logger.class);
+        configuration = new Configuration(OpenKitType.DYNATRACE, "app", "app", "1", "http://localhost",
+            new DefaultSessionIDProvider(), new SSLStrictTrustManager(), new Device("", "", ""), "1.0",
+            new BeaconCacheConfiguration(-1, -1, -1), new BeaconConfiguration(),
+            new PrivacyConfiguration(DataCollectionLevel.USER_BEHAVIOR, CrashReportingLevel.OPT_IN_CRASHES),
+            AsyncReportingConfiguration.DISABLED, ErrorReportingConfiguration.DISABLED);
+        timingProvider = new FakeTimingProvider(1000L);
+
+        httpClient = mock(HTTPClient.class);
+        when(httpClient.sendBeaconRequest(any(String.class), any(byte[].class))).thenReturn(mock(StatusResponse.class));
+        httpClientProvider = mock(HTTPClientProvider.class);
+        when(httpClientProvider.createClient(any(HTTPClientConfiguration.class))).thenReturn(httpClient);
+    }
+
+    private Beacon createBeacon(TrafficLimiter trafficLimiter) {
+        return new Beacon(logger, new BeaconCacheImpl(logger), configuration, IP_ADDRESS, mock(ThreadIDProvider.class),
+            timingProvider, 0L, null, null, trafficLimiter);
+    }
+
+    @Test
+    public void sendDoesNotSendAfterDeadline() {
+        // given
+        Beacon target = createBeacon(null);
+        target.reportCrash("errorName", "errorReason", "errorStackTrace");
+
+        // when
+        StatusResponse obtained = target.send(httpClientProvider, 1000L);
+
+        // then
+        assertThat(obtained, is(nullValue()));
+        verifyZeroInteractions(httpClient);
+        assertThat(target.isEmpty(), is(false));
+    }
+
+    @Test
+    public void sendSendsBeforeDeadline() {
+        // given
+        Beacon target = createBeacon(null);
+        target.reportCrash("errorName", "errorReason", "errorStackTrace");
+
+        // when
+        StatusResponse obtained = target.send(httpClientProvider, 1001L);
+
+        // then
+        assertThat(obtained, is(notNullValue()));
+        verify(httpClient, times(1)).sendBeaconRequest(eq(IP_ADDRESS), any(byte[].class));
+        assertThat(target.isEmpty(), is(true));
+    }
+
+    @Test
+    public void sendDoesNotWaitForTrafficLimiterBeyondDeadline() throws InterruptedException {
+        // given
+        TrafficLimiter trafficLimiter = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        trafficLimiter.awaitPermit();
+        trafficLimiter.consume(5000L);
+        Beacon target = createBeacon(trafficLimiter);
+        target.reportCrash("errorName", "errorReason", "errorStackTrace");
+
+        // when the overdrawn bytes take until 5000, but the deadline is earlier
+        StatusResponse obtained = target.send(httpClientProvider, 4999L);
+
+        // then the data is left for the persistence hook
+        assertThat(obtained, is(nullValue()));
+        assertThat(timingProvider.sleeps, is(empty()));
+        verifyZeroInteractions(httpClient);
+        assertThat(target.isEmpty(), is(false));
+    }
+
+    @Test
+    public void sendWaitsForTrafficLimiterUntilDeadline() throws InterruptedException {
+        // given
+        TrafficLimiter trafficLimiter = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        trafficLimiter.awaitPermit();
+        trafficLimiter.consume(5000L);
+        Beacon target = createBeacon(trafficLimiter);
+        target.reportCrash("errorName", "errorReason", "errorStackTrace");
+
+        // when
+        StatusResponse obtained = target.send(httpClientProvider, 5001L);
+
+        // then
+        assertThat(obtained, is(notNullValue()));
+        assertThat(timingProvider.sleeps, contains(4000L));
+        verify(httpClient, times(1)).sendBeaconRequest(eq(IP_ADDRESS), any(byte[].class));
+    }
+
+    @Test
+    public void persistUnsentDataHandsAllDataToPersistenceHook() {
+        // given
+        Beacon target = createBeacon(null);
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        target.reportCrash("errorName", "errorReason", "errorStackTrace");
+
+        // when
+        target.persistUnsentData(persistenceHook);
+
+        // then
+        verify(persistenceHook, times(1)).persist(eq(IP_ADDRESS), any(String.class));
+        assertThat(target.isEmpty(), is(true));
+    }
+
+    @Test
+    public void persistUnsentDataKeepsDataIfPersistenceHookFails() {
+        // given
+        Beacon target = createBeacon(null);
+        BeaconPersistenceHook persistenceHook = mock(BeaconPersistenceHook.class);
+        doThrow(new IllegalStateException("disk full")).when(persistenceHook).persist(any(String.class), any(String.class));
+        target.reportCrash("errorName", "errorReason", "errorStackTrace");
+
+        // when
+        target.persistUnsentData(persistenceHook);
+
+        // then
+        assertThat(target.isEmpty(), is(false));
+    }
+
+    private static final class FakeTimingProvider implements TimingProvider {
+
+        private long now;
+        private final List<Long> sleeps = new ArrayList<Long>();
+
+        private FakeTimingProvider(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long provideTimestampInMilliseconds() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long milliseconds) {
+            sleeps.add(milliseconds);
+            now += milliseconds;
+        }
+    }
+}
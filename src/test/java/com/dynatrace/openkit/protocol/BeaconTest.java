@@ -21,6 +21,7 @@ import com.dynatrace.openkit.DataCollectionLevel;
 import com.dynatrace.openkit.api.Logger;
 import com.dynatrace.openkit.core.caching.BeaconCacheImpl;
 import com.dynatrace.openkit.core.configuration.BeaconConfiguration;
+import com.dynatrace.openkit.core.configuration.CapturePolicy;
 import com.dynatrace.openkit.core.configuration.Configuration;
 import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
 import com.dynatrace.openkit.core.configuration.PrivacyConfiguration;
@@ -37,6 +38,8 @@ import com.dynatrace.openkit.providers.ThreadIDProvider;
 import com.dynatrace.openkit.providers.TimingProvider;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -103,6 +106,15 @@ public class BeaconTest {
             PrivacyConfiguration.DEFAULT_CRASH_REPORTING_LEVEL);
         when(configuration.getPrivacyConfiguration()).thenReturn(privacyConfiguration);
 
+        // compile the capture policy from the mocked settings, since individual tests change them
+        when(configuration.getCapturePolicy()).thenAnswer(new Answer<CapturePolicy>() {
+            @Override
+            public CapturePolicy answer(InvocationOnMock invocation) {
+                return CapturePolicy.compile(configuration.isCapture(), configuration.isCaptureErrors(),
+                    configuration.isCaptureCrashes(), configuration.getPrivacyConfiguration());
+            }
+        });
+
         threadIDProvider = mock(ThreadIDProvider.class);
         when(threadIDProvider.getThreadID()).thenReturn(THREAD_ID);
 
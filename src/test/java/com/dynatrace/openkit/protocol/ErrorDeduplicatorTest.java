@@ -0,0 +1,268 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.configuration.ErrorReportingConfiguration;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ErrorDeduplicatorTest {
+
+    private static final long WINDOW = 1000L;
+
+    @Test
+    public void disabledDeduplicatorReportsEverything() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(ErrorReportingConfiguration.DISABLED);
+
+        // then
+        assertThat(target.isEnabled(), is(false));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L), is(true));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L), is(true));
+        assertThat(target.drainSummaries(0L), is(empty()));
+    }
+
+    @Test
+    public void firstOccurrenceIsReportedAndRepeatsAreCollapsed() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+
+        // when
+        boolean first = target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L);
+        boolean second = target.shouldReport(EventType.ERROR, 2, "error", 42, "reason", null, 10L);
+        boolean third = target.shouldReport(EventType.ERROR, 3, "error", 42, "reason", null, 20L);
+
+        // then
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+        assertThat(third, is(false));
+
+        List<ErrorDeduplicator.Summary> obtained = target.drainSummaries(30L);
+        assertThat(obtained, hasSize(1));
+        assertThat(obtained.get(0).eventType, is(EventType.ERROR));
+        assertThat(obtained.get(0).parentActionID, is(1));
+        assertThat(obtained.get(0).name, is("error"));
+        assertThat(obtained.get(0).errorCode, is(42));
+        assertThat(obtained.get(0).reason, is("reason"));
+        assertThat(obtained.get(0).timestamp, is(20L));
+        assertThat(obtained.get(0).numOccurrences, is(2));
+    }
+
+    @Test
+    public void differentErrorsAreNotCollapsed() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L);
+
+        // then
+        assertThat(target.shouldReport(EventType.ERROR, 1, "other", 42, "reason", null, 0L), is(true));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 43, "reason", null, 0L), is(true));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 42, "other", null, 0L), is(true));
+        assertThat(target.shouldReport(EventType.CRASH, 0, "error", 42, "reason", "stacktrace", 0L), is(true));
+        assertThat(target.shouldReport(EventType.CRASH, 0, "error", 42, "reason", "other stacktrace", 0L), is(true));
+    }
+
+    @Test
+    public void summariesAreOnlyReturnedOnce() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L);
+        target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 10L);
+        target.drainSummaries(20L);
+
+        // when
+        List<ErrorDeduplicator.Summary> obtained = target.drainSummaries(30L);
+
+        // then
+        assertThat(obtained, is(empty()));
+    }
+
+    @Test
+    public void errorIsReportedAgainAfterWindowExpired() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L);
+        target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 10L);
+
+        // when
+        boolean obtained = target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, WINDOW);
+
+        // then the repeats of the previous window are still summarized
+        assertThat(obtained, is(true));
+        List<ErrorDeduplicator.Summary> summaries = target.drainSummaries(WINDOW);
+        assertThat(summaries, hasSize(1));
+        assertThat(summaries.get(0).numOccurrences, is(1));
+    }
+
+    @Test
+    public void errorsExceedingRateLimitAreDropped() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(0L, 2, 1000L));
+
+        // then
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 1, "reason", null, 0L), is(true));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 2, "reason", null, 0L), is(true));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "error", 3, "reason", null, 0L), is(false));
+        assertThat(target.shouldReport(EventType.ERROR, 1, "other", 3, "reason", null, 0L), is(true));
+        assertThat(target.getNumberOfDroppedErrors(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void collapsedRepeatsDoNotConsumeRateLimit() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 1, 1000L));
+
+        // when
+        target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 0L);
+        for (int i = 0; i < 100; i++) {
+            target.shouldReport(EventType.ERROR, 1, "error", 42, "reason", null, 1L);
+        }
+
+        // then
+        assertThat(target.getNumberOfDroppedErrors(), is(equalTo(0L)));
+        assertThat(target.drainSummaries(2L).get(0).numOccurrences, is(100));
+    }
+
+    @Test
+    public void distinctErrorsExceedingLimitAreReportedWithoutDeduplication() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        for (int i = 0; i < ErrorDeduplicator.MAX_NUM_OCCURRENCES; i++) {
+            target.shouldReport(EventType.ERROR, 1, "error", 42, "reason " + i, null, 0L);
+        }
+
+        // when
+        boolean first = target.shouldReport(EventType.ERROR, 1, "error", 42, "other reason", null, 10L);
+        boolean second = target.shouldReport(EventType.ERROR, 1, "error", 42, "other reason", null, 20L);
+
+        // then
+        assertThat(first, is(true));
+        assertThat(second, is(true));
+    }
+
+    @Test
+    public void expiredWindowsAreReleasedWhenLimitIsReached() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        for (int i = 0; i < ErrorDeduplicator.MAX_NUM_OCCURRENCES; i++) {
+            target.shouldReport(EventType.ERROR, 1, "error", 42, "reason " + i, null, 0L);
+        }
+
+        // when
+        boolean first = target.shouldReport(EventType.ERROR, 1, "error", 42, "other reason", null, WINDOW);
+        boolean second = target.shouldReport(EventType.ERROR, 1, "error", 42, "other reason", null, WINDOW + 10L);
+
+        // then
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+    }
+
+    @Test
+    public void expiredWindowsWithRepeatsAreKeptWhenLimitIsReached() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        for (int i = 0; i < ErrorDeduplicator.MAX_NUM_OCCURRENCES; i++) {
+            target.shouldReport(EventType.ERROR, 1, "error", 42, "reason " + i, null, 0L);
+            target.shouldReport(EventType.ERROR, 1, "error", 42, "reason " + i, null, 1L);
+        }
+
+        // when
+        boolean obtained = target.shouldReport(EventType.ERROR, 1, "error", 42, "reason 0", null, WINDOW);
+
+        // then
+        assertThat(obtained, is(false));
+        List<ErrorDeduplicator.Summary> summaries = target.drainSummaries(WINDOW);
+        assertThat(summaries, hasSize(ErrorDeduplicator.MAX_NUM_OCCURRENCES));
+    }
+
+    @Test
+    public void errorNamesExceedingLimitShareOverflowRateLimit() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(0L, 1, WINDOW));
+        for (int i = 0; i < ErrorDeduplicator.MAX_NUM_RATE_LIMITS; i++) {
+            target.shouldReport(EventType.ERROR, 1, "error " + i, 42, "reason", null, 0L);
+        }
+
+        // when
+        boolean first = target.shouldReport(EventType.ERROR, 1, "other error", 42, "reason", null, 10L);
+        boolean second = target.shouldReport(EventType.ERROR, 1, "yet another error", 42, "reason", null, 10L);
+
+        // then
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+        assertThat(target.getNumberOfDroppedErrors(), is(1L));
+    }
+
+    @Test
+    public void crashesWithSameFramesAreCollapsed() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        Throwable[] throwables = new Throwable[2];
+        for (int i = 0; i < throwables.length; i++) {
+            throwables[i] = new IllegalStateException("reason", new RuntimeException("cause"));
+        }
+
+        // when
+        boolean first = target.shouldReport(EventType.CRASH, 0, "crash", 0, "reason",
+            new ErrorDeduplicator.StackTraceKey(throwables[0]), 0L);
+        boolean second = target.shouldReport(EventType.CRASH, 0, "crash", 0, "reason",
+            new ErrorDeduplicator.StackTraceKey(throwables[1]), 10L);
+
+        // then
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+    }
+
+    @Test
+    public void crashesWithDifferentFramesAreNotCollapsed() {
+        // given
+        ErrorDeduplicator target = new ErrorDeduplicator(new ErrorReportingConfiguration(WINDOW, 0, 0L));
+        Throwable first = new IllegalStateException("reason");
+        Throwable second = new IllegalStateException("reason");
+
+        // when
+        target.shouldReport(EventType.CRASH, 0, "crash", 0, "reason", new ErrorDeduplicator.StackTraceKey(first), 0L);
+        boolean obtained = target.shouldReport(EventType.CRASH, 0, "crash", 0, "reason",
+            new ErrorDeduplicator.StackTraceKey(second), 10L);
+
+        // then
+        assertThat(obtained, is(true));
+    }
+
+    @Test
+    public void stackTraceKeyHandlesCyclicCauses() {
+        // given
+        RuntimeException first = new RuntimeException("first");
+        RuntimeException second = new RuntimeException("second", first);
+        first.initCause(second);
+
+        // when
+        ErrorDeduplicator.StackTraceKey obtained = new ErrorDeduplicator.StackTraceKey(second);
+
+        // then
+        assertThat(obtained, is(equalTo(new ErrorDeduplicator.StackTraceKey(second))));
+        assertThat(obtained.getThrowable(), is((Throwable) second));
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.api.LogLevel;
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import com.dynatrace.openkit.core.util.DefaultLogger;
+import com.dynatrace.openkit.providers.DefaultHTTPClientProvider;
+import com.dynatrace.openkit.providers.HTTPClientProvider;
+import com.dynatrace.openkit.providers.HTTPClientProviderFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simple benchmark comparing the {@link java.net.HttpURLConnection} based HTTP client with the {@code java.net.http} based one,
+ * sending beacons from multiple threads concurrently.
+ *
+ * <p>
+ *     This is not executed as part of the unit tests, run it manually via its {@code main} method on Java 11 or above,
+ *     with the Java 11 classes on the classpath. Optional arguments are the number of sending threads (default 8),
+ *     the number of beacons per thread (default 500) and the endpoint URL.
+ * </p>
+ *
+ * <p>
+ *     Without an endpoint URL a local server is started, which only supports HTTP/1.1. To measure HTTP/2 multiplexing,
+ *     pass the URL of a server supporting HTTP/2, e.g. a local TLS or h2c proxy answering with a status response.
+ * </p>
+ */
+public class HTTPClientBenchmark {
+
+    private static final int DEFAULT_NUM_THREADS = 8;
+    private static final int DEFAULT_NUM_BEACONS = 500;
+    private static final int BEACON_SIZE = 2048;
+    private static final String STATUS_RESPONSE = "type=m&cp=1&si=120&mp=1";
+
+    public static void main(String[] args) throws Exception {
+        int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_THREADS;
+        int numBeacons = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_BEACONS;
+
+        HttpServer server = null;
+        String endpointURL;
+        if (args.length > 2) {
+            endpointURL = args[2];
+        } else {
+            server = startServer();
+            endpointURL = "http://localhost:" + server.getAddress().getPort() + "/mbeacon";
+        }
+
+        Logger logger = new DefaultLogger(LogLevel.WARN);
+        HTTPClientConfiguration configuration = new HTTPClientConfiguration(endpointURL, 1, "benchmark", null);
+        byte[] beacon = createBeacon();
+
+        HTTPClientProvider defaultProvider = new DefaultHTTPClientProvider(logger);
+        HTTPClientProvider javaNetHttpProvider = HTTPClientProviderFactory.create(logger, true);
+        if (!HTTPClientProviderFactory.isJavaNetHttpClientAvailable()) {
+            System.out.println("java.net.http based provider is not available, both runs use the default provider");
+        }
+
+        try {
+            // warmup
+            run(defaultProvider, configuration, beacon, numThreads, numBeacons / 10);
+            run(javaNetHttpProvider, configuration, beacon, numThreads, numBeacons / 10);
+
+            long defaultNanos = run(defaultProvider, configuration, beacon, numThreads, numBeacons);
+            long javaNetHttpNanos = run(javaNetHttpProvider, configuration, beacon, numThreads, numBeacons);
+
+            int totalBeacons = numThreads * numBeacons;
+            System.out.println("endpoint: " + endpointURL + ", threads: " + numThreads + ", beacons: " + totalBeacons);
+            System.out.println("HttpURLConnection: " + (defaultNanos / 1000000) + " ms, "
+                + (totalBeacons * 1000000000L / defaultNanos) + " beacons/s");
+            System.out.println("java.net.http:     " + (javaNetHttpNanos / 1000000) + " ms, "
+                + (totalBeacons * 1000000000L / javaNetHttpNanos) + " beacons/s");
+        } finally {
+            if (server != null) {
+                server.stop(0);
+                ((ExecutorService) server.getExecutor()).shutdown();
+            }
+        }
+    }
+
+    private static long run(final HTTPClientProvider provider, final HTTPClientConfiguration configuration, final byte[] beacon,
+                            int numThreads, final int numBeacons) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+        final AtomicInteger numFailures = new AtomicInteger(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < numThreads; i++) {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < numBeacons; j++) {
+                            // like the beacon sender, a new HTTP client is created per request
+                            StatusResponse response = provider.createClient(configuration).sendBeaconRequest("127.0.0.1", beacon);
+                            if (response.getResponseCode() != 200) {
+                                numFailures.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        latch.await();
+        long duration = System.nanoTime() - start;
+        executorService.shutdown();
+
+        if (numFailures.get() > 0) {
+            throw new IllegalStateException(numFailures.get() + " beacons failed");
+        }
+
+        return duration;
+    }
+
+    private static HttpServer startServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/mbeacon", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // consume the request body, so that the connection can be reused
+                InputStream inputStream = exchange.getRequestBody();
+                byte[] buffer = new byte[4096];
+                while (inputStream.read(buffer) > 0) {
+                    // intentionally left empty
+                }
+                inputStream.close();
+
+                byte[] response = STATUS_RESPONSE.getBytes(Beacon.CHARSET);
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(response);
+                outputStream.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static byte[] createBeacon() {
+        byte[] beacon = new byte[BEACON_SIZE];
+        for (int i = 0; i < beacon.length; i++) {
+            beacon[i] = (byte) ('a' + (i % 26));
+        }
+        return beacon;
+    }
+}
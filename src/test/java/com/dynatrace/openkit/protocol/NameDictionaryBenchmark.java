@@ -0,0 +1,84 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+/**
+ * Simple benchmark comparing the cost of truncating and percent encoding names each time
+ * with looking them up in a {@link NameDictionary}.
+ *
+ * <p>
+ *     This is not executed as part of the unit tests, run it manually via its {@code main} method.
+ *     Optional arguments are the number of distinct names (default 200) and the number of lookups (default 2000000).
+ * </p>
+ */
+public class NameDictionaryBenchmark {
+
+    private static final int DEFAULT_NUM_NAMES = 200;
+    private static final int DEFAULT_NUM_LOOKUPS = 2000000;
+
+    public static void main(String[] args) {
+        int numNames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_NAMES;
+        int numLookups = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUM_LOOKUPS;
+
+        // names like they are typically used in applications, with characters which need to be encoded
+        String[] names = new String[numNames];
+        for (int i = 0; i < numNames; i++) {
+            names[i] = "Checkout/Payment step " + i + " [credit card]";
+        }
+
+        // warmup
+        runEncoding(names, numLookups / 10);
+        runDictionary(new NameDictionary(NameDictionary.DEFAULT_CAPACITY), names, numLookups / 10);
+
+        long encodingNanos = runEncoding(names, numLookups);
+        NameDictionary dictionary = new NameDictionary(NameDictionary.DEFAULT_CAPACITY);
+        long dictionaryNanos = runDictionary(dictionary, names, numLookups);
+
+        System.out.println("names: " + numNames + ", lookups: " + numLookups);
+        System.out.println("encoding each time:  " + (encodingNanos / numLookups) + " ns per name");
+        System.out.println("name dictionary:     " + (dictionaryNanos / numLookups) + " ns per name"
+            + " (hit rate " + dictionary.getHitRate() + ")");
+    }
+
+    private static long runEncoding(String[] names, int numLookups) {
+        long totalLength = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < numLookups; i++) {
+            totalLength += NameDictionary.encodeName(names[i % names.length]).length();
+        }
+        long duration = System.nanoTime() - start;
+        consume(totalLength);
+        return duration;
+    }
+
+    private static long runDictionary(NameDictionary dictionary, String[] names, int numLookups) {
+        long totalLength = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < numLookups; i++) {
+            totalLength += dictionary.encode(names[i % names.length]).length();
+        }
+        long duration = System.nanoTime() - start;
+        consume(totalLength);
+        return duration;
+    }
+
+    private static void consume(long value) {
+        if (value == 42) {
+            System.out.println();
+        }
+    }
+}
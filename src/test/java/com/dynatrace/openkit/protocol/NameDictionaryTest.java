@@ -0,0 +1,170 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class NameDictionaryTest {
+
+    @Test
+    public void encodeTruncatesAndPercentEncodesName() {
+        // given
+        NameDictionary target = new NameDictionary(16);
+
+        // when
+        String obtained = target.encode("  a name_with/special chars  ");
+
+        // then
+        assertThat(obtained, is(equalTo("a%20name%5Fwith%2Fspecial%20chars")));
+    }
+
+    @Test
+    public void encodeTruncatesLongNames() {
+        // given
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Beacon.MAX_NAME_LEN + 10; i++) {
+            builder.append('a');
+        }
+        NameDictionary target = new NameDictionary(16);
+
+        // when
+        String obtained = target.encode(builder.toString());
+
+        // then
+        assertThat(obtained.length(), is(equalTo(Beacon.MAX_NAME_LEN)));
+    }
+
+    @Test
+    public void encodingTheSameNameAgainIsAHit() {
+        // given
+        NameDictionary target = new NameDictionary(16);
+
+        // when
+        String first = target.encode("name");
+        String second = target.encode("name");
+
+        // then
+        assertThat(second, is(sameInstance(first)));
+        assertThat(target.getNumberOfMisses(), is(equalTo(1L)));
+        assertThat(target.getNumberOfHits(), is(equalTo(1L)));
+        assertThat(target.getHitRate(), is(closeTo(0.5, 0.0001)));
+    }
+
+    @Test
+    public void hitRateIsZeroWithoutAnyLookup() {
+        // given
+        NameDictionary target = new NameDictionary(16);
+
+        // then
+        assertThat(target.getHitRate(), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void dictionaryWithoutCapacityDoesNotCacheNames() {
+        // given
+        NameDictionary target = new NameDictionary(0);
+
+        // when
+        target.encode("name");
+        String obtained = target.encode("name");
+
+        // then
+        assertThat(obtained, is(equalTo("name")));
+        assertThat(target.size(), is(equalTo(0)));
+        assertThat(target.getNumberOfMisses(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void numberOfCachedNamesIsBoundedByCapacity() {
+        // given
+        NameDictionary target = new NameDictionary(8);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            target.encode("name" + i);
+        }
+
+        // then
+        assertThat(target.size(), is(lessThanOrEqualTo(8)));
+        assertThat(target.getNumberOfEvictions(), is(equalTo(92L)));
+    }
+
+    @Test
+    public void registeredNamesAreNotEvicted() {
+        // given
+        NameDictionary target = new NameDictionary(4);
+        String registered = target.register("registered");
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            target.encode("name" + i);
+        }
+        long numHits = target.getNumberOfHits();
+        target.encode("registered");
+
+        // then
+        assertThat(target.getNumberOfHits(), is(equalTo(numHits + 1)));
+        assertThat(target.size(), is(lessThanOrEqualTo(5)));
+        assertThat(registered, is(equalTo("registered")));
+    }
+
+    @Test
+    public void registeringAnEqualNameReturnsFirstRegisteredInstance() {
+        // given
+        NameDictionary target = new NameDictionary(4);
+        String first = target.register(new String("name"));
+
+        // when
+        String obtained = target.register(new String("name"));
+
+        // then
+        assertThat(obtained, is(sameInstance(first)));
+    }
+
+    @Test
+    public void registeringACachedNameMakesItRegistered() {
+        // given
+        NameDictionary target = new NameDictionary(1);
+        target.encode("name");
+
+        // when
+        target.register("name");
+        target.encode("other");
+        target.encode("another");
+
+        // then
+        long numHits = target.getNumberOfHits();
+        target.encode("name");
+        assertThat(target.getNumberOfHits(), is(equalTo(numHits + 1)));
+    }
+
+    @Test
+    public void registeringNullGivesNull() {
+        // given
+        NameDictionary target = new NameDictionary(4);
+
+        // then
+        assertThat(target.register(null), is(equalTo(null)));
+    }
+}
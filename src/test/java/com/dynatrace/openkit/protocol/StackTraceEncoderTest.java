@@ -0,0 +1,179 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dynatrace.openkit.protocol;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class StackTraceEncoderTest {
+
+    private static String decode(String encoded) throws UnsupportedEncodingException {
+        return URLDecoder.decode(encoded, Beacon.CHARSET);
+    }
+
+    private static String printStackTrace(Throwable throwable) {
+        StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString().replace(System.getProperty("line.separator"), "\n").trim();
+    }
+
+    private static Throwable createThrowable(int depth) {
+        if (depth == 0) {
+            return new IllegalStateException("state & reason");
+        }
+        return createThrowable(depth - 1);
+    }
+
+    @Test
+    public void encodingNullGivesNull() {
+        // given
+        StackTraceEncoder target = new StackTraceEncoder(100, 100000, 100);
+
+        // then
+        assertThat(target.encode(null), is(nullValue()));
+    }
+
+    @Test
+    public void encodedStackTraceHasSameLayoutAsPrintStackTrace() throws UnsupportedEncodingException {
+        // given
+        Throwable throwable = new RuntimeException("outer", createThrowable(3));
+        StackTraceEncoder target = new StackTraceEncoder(1000, 1000000, 1000);
+
+        // when
+        String obtained = target.encode(throwable);
+
+        // then
+        assertThat(decode(obtained), is(equalTo(printStackTrace(throwable))));
+    }
+
+    @Test
+    public void encodedStackTraceDoesNotContainReservedCharacters() {
+        // given
+        StackTraceEncoder target = new StackTraceEncoder(1000, 1000000, 1000);
+
+        // when
+        String obtained = target.encode(createThrowable(0));
+
+        // then
+        assertThat(obtained.indexOf('&'), is(-1));
+        assertThat(obtained.indexOf('='), is(-1));
+        assertThat(obtained.indexOf('_'), is(-1));
+        assertThat(obtained.indexOf(' '), is(-1));
+    }
+
+    @Test
+    public void framesExceedingFrameBudgetAreTruncated() throws UnsupportedEncodingException {
+        // given
+        StackTraceEncoder target = new StackTraceEncoder(2, 1000000, 1000);
+
+        // when
+        String obtained = decode(target.encode(createThrowable(10)));
+
+        // then
+        String[] lines = obtained.split("\n");
+        assertThat(lines.length, is(4));
+        assertThat(lines[0], is(equalTo("java.lang.IllegalStateException: state & reason")));
+        assertThat(lines[1], startsWith("\tat "));
+        assertThat(lines[2], startsWith("\tat "));
+        assertThat(lines[3], is(equalTo("\t...")));
+    }
+
+    @Test
+    public void encodedStackTraceDoesNotExceedLengthBudget() {
+        // given
+        StackTraceEncoder target = new StackTraceEncoder(1000, 500, 1000);
+
+        // when
+        String obtained = target.encode(createThrowable(50));
+
+        // then
+        assertThat(obtained.length(), is(lessThanOrEqualTo(500)));
+        assertThat(obtained, endsWith("%0A%09..."));
+    }
+
+    @Test
+    public void hugeMessageIsCutWithinLengthBudget() throws UnsupportedEncodingException {
+        // given
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            message.append("\u00e4 ");
+        }
+        StackTraceEncoder target = new StackTraceEncoder(1000, 100, 1000);
+
+        // when
+        String obtained = target.encode(new RuntimeException(message.toString()));
+
+        // then
+        assertThat(obtained.length(), is(lessThanOrEqualTo(100)));
+        assertThat(decode(obtained), startsWith("java.lang.RuntimeException: \u00e4 "));
+        assertThat(decode(obtained).indexOf('\uFFFD'), is(-1));
+    }
+
+    @Test
+    public void causalCycleIsRenderedOnlyOnce() throws UnsupportedEncodingException {
+        // given
+        Exception first = new Exception("first");
+        Exception second = new Exception("second", first);
+        first.initCause(second);
+        StackTraceEncoder target = new StackTraceEncoder(1000, 1000000, 1000);
+
+        // when
+        String obtained = decode(target.encode(first));
+
+        // then
+        assertThat(obtained.split("Caused by: ").length, is(2));
+    }
+
+    @Test
+    public void framesAreCachedUpToCapacity() {
+        // given
+        StackTraceEncoder target = new StackTraceEncoder(1000, 1000000, 1);
+
+        // when
+        target.encode(new RuntimeException("outer", createThrowable(5)));
+
+        // then
+        assertThat(target.getNumberOfCachedFrames(), is(1));
+    }
+
+    @Test
+    public void cachedFramesGiveSameResult() {
+        // given
+        Throwable throwable = createThrowable(5);
+        StackTraceEncoder target = new StackTraceEncoder(1000, 1000000, 1000);
+        String first = target.encode(throwable);
+
+        // when
+        String obtained = target.encode(throwable);
+
+        // then
+        assertThat(obtained, is(equalTo(first)));
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.protocol;
+
+import com.dynatrace.openkit.core.configuration.TrafficLimitConfiguration;
+import com.dynatrace.openkit.providers.TimingProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TrafficLimiterTest {
+
+    private FakeTimingProvider timingProvider;
+
+    @Before
+    public void setUp() {
+        timingProvider = new FakeTimingProvider(10000L);
+    }
+
+    @Test
+    public void requestsWithinByteLimitAreNotDelayed() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+
+        // when
+        target.awaitPermit();
+        target.consume(600L);
+        target.awaitPermit();
+        target.consume(400L);
+
+        // then
+        assertThat(timingProvider.sleeps, is(empty()));
+        assertThat(target.getNumberOfThrottledRequests(), is(equalTo(0L)));
+        assertThat(target.getThrottledTimeInMilliseconds(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void overdrawnByteBudgetDelaysNextRequest() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        target.awaitPermit();
+        target.consume(1500L);
+
+        // when
+        target.awaitPermit();
+
+        // then 500 bytes overdrawn at 1000 bytes per second
+        assertThat(timingProvider.sleeps, contains(500L));
+        assertThat(target.getNumberOfThrottledRequests(), is(equalTo(1L)));
+        assertThat(target.getThrottledTimeInMilliseconds(), is(equalTo(500L)));
+    }
+
+    @Test
+    public void chunkLargerThanBudgetOfSeveralSecondsIsPaidOffInOneWait() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        target.awaitPermit();
+        target.consume(5000L);
+
+        // when
+        target.awaitPermit();
+
+        // then
+        assertThat(timingProvider.sleeps, contains(4000L));
+    }
+
+    @Test
+    public void elapsedTimeRefillsByteBudget() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        target.awaitPermit();
+        target.consume(1500L);
+
+        // when
+        timingProvider.now += 300L;
+        target.awaitPermit();
+
+        // then
+        assertThat(timingProvider.sleeps, contains(200L));
+    }
+
+    @Test
+    public void requestRateIsLimited() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(0L, 2), timingProvider);
+
+        // when
+        target.awaitPermit();
+        target.awaitPermit();
+        target.awaitPermit();
+        target.awaitPermit();
+
+        // then the burst of two requests is followed by one request every 500 milliseconds
+        assertThat(timingProvider.sleeps, contains(500L, 500L));
+        assertThat(target.getNumberOfThrottledRequests(), is(equalTo(2L)));
+        assertThat(target.getThrottledTimeInMilliseconds(), is(equalTo(1000L)));
+    }
+
+    @Test
+    public void waitTimeIsTheMaximumOfBothLimits() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 1), timingProvider);
+        target.awaitPermit();
+        target.consume(1200L);
+
+        // when
+        target.awaitPermit();
+
+        // then the request token takes one second, the overdrawn bytes only 200 milliseconds
+        assertThat(timingProvider.sleeps, contains(1000L));
+    }
+
+    @Test
+    public void budgetDoesNotExceedOneSecondAfterIdling() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+
+        // when
+        timingProvider.now += 60000L;
+        target.awaitPermit();
+        target.consume(2000L);
+        target.awaitPermit();
+
+        // then
+        assertThat(timingProvider.sleeps, contains(1000L));
+    }
+
+    @Test
+    public void permitIsNotAwaitedIfWaitEndsAfterDeadline() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        target.awaitPermit();
+        target.consume(1500L);
+
+        // when the overdrawn 500 bytes take until 10500
+        boolean obtained = target.awaitPermit(10499L);
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(timingProvider.sleeps, is(empty()));
+        assertThat(target.getNumberOfThrottledRequests(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void permitIsAwaitedIfWaitEndsAtDeadline() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        target.awaitPermit();
+        target.consume(1500L);
+
+        // when
+        boolean obtained = target.awaitPermit(10500L);
+
+        // then
+        assertThat(obtained, is(true));
+        assertThat(timingProvider.sleeps, contains(500L));
+    }
+
+    @Test
+    public void requestTokenIsNotTakenIfNoPermitIsAvailableBeforeDeadline() throws InterruptedException {
+        // given
+        TrafficLimiter target = new TrafficLimiter(new TrafficLimitConfiguration(0L, 1), timingProvider);
+        target.awaitPermit();
+
+        // when
+        boolean obtained = target.awaitPermit(10100L);
+        timingProvider.now += 1000L;
+        boolean obtainedLater = target.awaitPermit(11000L);
+
+        // then
+        assertThat(obtained, is(false));
+        assertThat(obtainedLater, is(true));
+        assertThat(timingProvider.sleeps, is(empty()));
+    }
+
+    @Test
+    public void monitorIsNotHeldWhileSleeping() throws InterruptedException {
+        // given
+        final List<Boolean> monitorHeld = new ArrayList<Boolean>();
+        final TrafficLimiter[] target = new TrafficLimiter[1];
+        timingProvider = new FakeTimingProvider(10000L) {
+            @Override
+            public void sleep(long milliseconds) {
+                monitorHeld.add(Thread.holdsLock(target[0]));
+                super.sleep(milliseconds);
+            }
+        };
+        target[0] = new TrafficLimiter(new TrafficLimitConfiguration(1000L, 0), timingProvider);
+        target[0].awaitPermit();
+        target[0].consume(1500L);
+
+        // when
+        target[0].awaitPermit();
+
+        // then
+        assertThat(monitorHeld, contains(false));
+    }
+
+    private static class FakeTimingProvider implements TimingProvider {
+
+        private long now;
+        private final List<Long> sleeps = new ArrayList<Long>();
+
+        FakeTimingProvider(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long provideTimestampInMilliseconds() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long milliseconds) {
+            sleeps.add(milliseconds);
+            now += milliseconds;
+        }
+    }
+}
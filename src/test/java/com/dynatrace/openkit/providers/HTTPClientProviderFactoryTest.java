@@ -0,0 +1,65 @@
+/**
+ * Copyright 2018-2019 Dynatrace LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dynatrace.openkit.providers;
+
+import com.dynatrace.openkit.api.Logger;
+import com.dynatrace.openkit.core.configuration.HTTPClientConfiguration;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class HTTPClientProviderFactoryTest {
+
+    private static final HTTPClientConfiguration CONFIGURATION =
+        new HTTPClientConfiguration("https://localhost:9999/mbeacon", 1, "appID", null);
+
+    @Test
+    public void defaultProviderIsCreatedIfJavaNetHttpClientIsNotRequested() {
+        // when
+        HTTPClientProvider obtained = HTTPClientProviderFactory.create(mock(Logger.class), false);
+
+        // then
+        assertThat(obtained, is(instanceOf(DefaultHTTPClientProvider.class)));
+    }
+
+    @Test
+    public void javaNetHttpClientProviderIsCreatedIfRequestedAndAvailable() {
+        // when
+        HTTPClientProvider obtained = HTTPClientProviderFactory.create(mock(Logger.class), true);
+
+        // then
+        if (HTTPClientProviderFactory.isJavaNetHttpClientAvailable()) {
+            assertThat(obtained, is(not(instanceOf(DefaultHTTPClientProvider.class))));
+        } else {
+            assertThat(obtained, is(instanceOf(DefaultHTTPClientProvider.class)));
+        }
+    }
+
+    @Test
+    public void javaNetHttpClientProviderCreatesClients() {
+        // given
+        HTTPClientProvider target = HTTPClientProviderFactory.create(mock(Logger.class), true);
+
+        // then
+        assertThat(target.createClient(CONFIGURATION), is(notNullValue()));
+    }
+}